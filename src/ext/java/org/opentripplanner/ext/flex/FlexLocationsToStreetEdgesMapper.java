@@ -8,6 +8,7 @@ import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.index.StreetIndex;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.site.AreaStop;
@@ -36,6 +37,7 @@ public class FlexLocationsToStreetEdgesMapper implements GraphBuilderModule {
     }
 
     StreetIndex streetIndex = graph.getStreetIndexSafe(transitModel.getStopModel());
+    StreetPermissionOverlay permissionOverlay = graph.getStreetPermissionOverlay();
 
     ProgressTracker progress = ProgressTracker.track(
       "Add flex locations to street vertices",
@@ -53,7 +55,7 @@ public class FlexLocationsToStreetEdgesMapper implements GraphBuilderModule {
         if (!(vertx instanceof StreetVertex streetVertex)) {
           continue;
         }
-        if (!((StreetVertex) vertx).isEligibleForCarPickupDropoff()) {
+        if (!streetVertex.isEligibleForCarPickupDropoff(permissionOverlay)) {
           continue;
         }
 
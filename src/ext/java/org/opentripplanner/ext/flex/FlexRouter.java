@@ -79,10 +79,11 @@ public class FlexRouter {
       );
 
     if (graph.hasStreets) {
+      var permissionOverlay = graph.getStreetPermissionOverlay();
       this.accessFlexPathCalculator =
-        new StreetFlexPathCalculator(false, config.maxFlexTripDuration());
+        new StreetFlexPathCalculator(false, config.maxFlexTripDuration(), permissionOverlay);
       this.egressFlexPathCalculator =
-        new StreetFlexPathCalculator(true, config.maxFlexTripDuration());
+        new StreetFlexPathCalculator(true, config.maxFlexTripDuration(), permissionOverlay);
     } else {
       // this is only really useful in tests. in real world scenarios you're unlikely to get useful
       // results if you don't have streets
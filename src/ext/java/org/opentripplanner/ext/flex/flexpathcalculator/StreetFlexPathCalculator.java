@@ -11,6 +11,7 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
 import org.opentripplanner.street.search.state.State;
@@ -35,10 +36,16 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
   private final Map<Vertex, ShortestPathTree<State, Edge, Vertex>> cache = new HashMap<>();
   private final boolean reverseDirection;
   private final Duration maxFlexTripDuration;
+  private final StreetPermissionOverlay permissionOverlay;
 
-  public StreetFlexPathCalculator(boolean reverseDirection, Duration maxFlexTripDuration) {
+  public StreetFlexPathCalculator(
+    boolean reverseDirection,
+    Duration maxFlexTripDuration,
+    StreetPermissionOverlay permissionOverlay
+  ) {
     this.reverseDirection = reverseDirection;
     this.maxFlexTripDuration = maxFlexTripDuration;
+    this.permissionOverlay = permissionOverlay;
   }
 
   @Override
@@ -86,6 +93,7 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
       .setStreetRequest(new StreetRequest(StreetMode.CAR))
       .setFrom(reverseDirection ? null : vertex)
       .setTo(reverseDirection ? vertex : null)
+      .setPermissionOverlay(permissionOverlay)
       .getShortestPathTree();
   }
 }
@@ -68,6 +68,7 @@ import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
@@ -92,6 +93,7 @@ public class TravelTimeResource {
   private final TravelTimeRequest traveltimeRequest;
   private final RaptorService<TripSchedule> raptorService;
   private final Graph graph;
+  private final StreetPermissionOverlay permissionOverlay;
   private final TransitService transitService;
 
   public TravelTimeResource(
@@ -102,6 +104,7 @@ public class TravelTimeResource {
     @QueryParam("modes") String modes
   ) {
     this.graph = serverContext.graph();
+    this.permissionOverlay = serverContext.streetPermissionOverlay();
     this.transitService = serverContext.transitService();
     routingRequest = serverContext.defaultRouteRequest();
     routingRequest.setFrom(LocationStringParser.fromOldStyleString(location));
@@ -233,7 +236,8 @@ public class TravelTimeResource {
         graph,
         accessRequest,
         accessRequest.journey().access().mode(),
-        StreetMode.NOT_SET
+        StreetMode.NOT_SET,
+        permissionOverlay
       )
     ) {
       final Collection<DefaultAccessEgress> accessList = getAccess(
@@ -251,6 +255,7 @@ public class TravelTimeResource {
         .setVerticesContainer(temporaryVertices)
         .setDominanceFunction(new DominanceFunctions.EarliestArrival())
         .setInitialStates(getInitialStates(arrivals, temporaryVertices))
+        .setPermissionOverlay(permissionOverlay)
         .getShortestPathTree();
 
       return SampleGridRenderer.getSampleGrid(spt, traveltimeRequest);
@@ -267,6 +272,7 @@ public class TravelTimeResource {
       transitService,
       routingRequest.journey().access(),
       null,
+      permissionOverlay,
       false,
       traveltimeRequest.maxAccessDuration
     );
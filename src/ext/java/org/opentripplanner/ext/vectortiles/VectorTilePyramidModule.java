@@ -0,0 +1,90 @@
+package org.opentripplanner.ext.vectortiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.inspector.vector.LayerParameters;
+import org.opentripplanner.inspector.vector.VectorTilePyramid;
+import org.opentripplanner.inspector.vector.VectorTilePyramidBuilder;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre-render the vector tiles for the layers which only depend on the graph, the stops and
+ * stations, and save them in the {@link VectorTilePyramid#FILENAME} file. The tiles are served
+ * from the file, instead of being rendered for each request. The layers are rendered with the
+ * configured vector tile layers and the default locale of the router-config. Requests with
+ * another language, or other layer parameters, are rendered as usual.
+ * <p>
+ * The tiles include the patterns and routes of the scheduled data, patterns added by realtime
+ * updates are not included.
+ */
+public class VectorTilePyramidModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorTilePyramidModule.class);
+
+  private static final Set<VectorTilesResource.LayerType> STATIC_LAYERS = EnumSet.of(
+    VectorTilesResource.LayerType.Stop,
+    VectorTilesResource.LayerType.Station
+  );
+
+  private final Graph graph;
+  private final TransitModel transitModel;
+  private final List<LayerParameters<VectorTilesResource.LayerType>> layers;
+  private final Locale locale;
+  private final int maxZoom;
+  private final File file;
+
+  public VectorTilePyramidModule(
+    Graph graph,
+    TransitModel transitModel,
+    List<LayerParameters<VectorTilesResource.LayerType>> layers,
+    Locale locale,
+    int maxZoom,
+    File file
+  ) {
+    this.graph = graph;
+    this.transitModel = transitModel;
+    this.layers = layers.stream().filter(l -> STATIC_LAYERS.contains(l.type())).toList();
+    this.locale = locale;
+    this.maxZoom = maxZoom;
+    this.file = file;
+  }
+
+  @Override
+  public void buildGraph() {
+    if (layers.isEmpty()) {
+      LOG.info("No stop or station vector tile layers configured, no tiles are pre-rendered.");
+      return;
+    }
+    // This module runs last, so the transit model is not changed after it is indexed
+    transitModel.index();
+
+    String id = UUID.randomUUID().toString();
+    try {
+      new VectorTilePyramidBuilder<>(
+        layers,
+        VectorTilesResource::crateLayerBuilder,
+        graph,
+        new DefaultTransitService(transitModel),
+        locale,
+        maxZoom
+      )
+        .write(file, id);
+      graph.setVectorTilePyramidId(id);
+    } catch (IOException e) {
+      LOG.error("Unable to pre-render vector tiles to {}: {}", file, e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void checkInputs() {}
+}
@@ -57,6 +57,7 @@ public class VectorTilesResource {
   @Path("/{layers}/{z}/{x}/{y}.pbf")
   @Produces(APPLICATION_X_PROTOBUF)
   public Response tileGet(
+    @Context HttpHeaders headers,
     @PathParam("x") int x,
     @PathParam("y") int y,
     @PathParam("z") int z,
@@ -71,7 +72,9 @@ public class VectorTilesResource {
       serverContext.vectorTileLayers().layers(),
       VectorTilesResource::crateLayerBuilder,
       serverContext.graph(),
-      serverContext.transitService()
+      serverContext.transitService(),
+      serverContext.vectorTileCache(),
+      headers
     );
   }
 
@@ -103,7 +106,7 @@ public class VectorTilesResource {
     );
   }
 
-  private static LayerBuilder<?> crateLayerBuilder(
+  static LayerBuilder<?> crateLayerBuilder(
     LayerParameters<LayerType> layerParameters,
     Locale locale,
     Graph graph,
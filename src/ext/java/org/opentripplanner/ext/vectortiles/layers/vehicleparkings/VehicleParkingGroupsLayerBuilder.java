@@ -56,6 +56,11 @@ public class VehicleParkingGroupsLayerBuilder extends LayerBuilder<VehicleParkin
       .toList();
   }
 
+  @Override
+  protected long dataVersion() {
+    return graph.getVehicleParkingService().getModificationCount();
+  }
+
   enum MapperType {
     Digitransit,
   }
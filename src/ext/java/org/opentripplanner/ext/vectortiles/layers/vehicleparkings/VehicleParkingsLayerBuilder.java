@@ -57,6 +57,11 @@ public class VehicleParkingsLayerBuilder extends LayerBuilder<VehicleParking> {
       .collect(Collectors.toList());
   }
 
+  @Override
+  protected long dataVersion() {
+    return graph.getVehicleParkingService().getModificationCount();
+  }
+
   enum MapperType {
     Digitransit,
     Stadtnavi,
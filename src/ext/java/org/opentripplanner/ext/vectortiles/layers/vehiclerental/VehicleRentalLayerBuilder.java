@@ -48,6 +48,11 @@ abstract class VehicleRentalLayerBuilder<T extends VehicleRentalPlace> extends L
       .toList();
   }
 
+  @Override
+  protected long dataVersion() {
+    return service == null ? 0 : service.getModificationCount();
+  }
+
   protected abstract Collection<T> getVehicleRentalPlaces(VehicleRentalService service);
 
   enum MapperType {
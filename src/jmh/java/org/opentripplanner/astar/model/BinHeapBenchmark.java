@@ -0,0 +1,75 @@
+package org.opentripplanner.astar.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Insert and extract elements from the priority queue used by the A* search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinHeapBenchmark {
+
+  @Param({ "1000", "100000" })
+  int size;
+
+  private Object[] elements;
+  private double[] keys;
+
+  @Setup
+  public void setup() {
+    var random = new Random(42);
+    elements = new Object[size];
+    keys = new double[size];
+    for (int i = 0; i < size; ++i) {
+      elements[i] = new Object();
+      keys[i] = random.nextDouble() * 10_000;
+    }
+  }
+
+  /** Fill the queue, then drain it. */
+  @Benchmark
+  public void insertAllThenExtract(Blackhole bh) {
+    var heap = new BinHeap<Object>();
+    for (int i = 0; i < size; ++i) {
+      heap.insert(elements[i], keys[i]);
+    }
+    while (!heap.empty()) {
+      bh.consume(heap.extract_min());
+    }
+  }
+
+  /**
+   * Extract one element and insert a few with a higher key, like expanding a vertex in the
+   * street search. The queue stay small compared with the number of operations.
+   */
+  @Benchmark
+  public void extractAndExpand(Blackhole bh) {
+    var heap = new BinHeap<Object>();
+    heap.insert(elements[0], 0);
+    int i = 1;
+    while (!heap.empty() && i < size) {
+      double key = heap.peek_min_key();
+      bh.consume(heap.extract_min());
+      for (int n = 0; n < 3 && i < size; ++n, ++i) {
+        heap.insert(elements[i], key + keys[i] / 100);
+      }
+    }
+  }
+}
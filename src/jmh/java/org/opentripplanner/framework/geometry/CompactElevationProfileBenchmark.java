@@ -0,0 +1,63 @@
+package org.opentripplanner.framework.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode and decode elevation profiles sampled every 10 meters. The decode is done every time the
+ * elevation profile of a street edge is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactElevationProfileBenchmark {
+
+  @Param({ "10", "100" })
+  int numberOfSamples;
+
+  private CoordinateSequence profile;
+  private byte[] packed;
+  private double length;
+
+  @Setup
+  public void setup() {
+    var random = new Random(42);
+    var coordinates = new Coordinate[numberOfSamples];
+    double elevation = 100.0;
+    for (int i = 0; i < numberOfSamples; ++i) {
+      elevation += random.nextGaussian();
+      coordinates[i] =
+        new Coordinate(i * CompactElevationProfile.DEFAULT_DISTANCE_BETWEEN_SAMPLES_METERS, elevation);
+    }
+    profile = new PackedCoordinateSequence.Double(coordinates, 2);
+    packed = CompactElevationProfile.compactElevationProfileWithRegularSamples(profile);
+    length = coordinates[numberOfSamples - 1].x;
+  }
+
+  @Benchmark
+  public PackedCoordinateSequence decode() {
+    return CompactElevationProfile.uncompactElevationProfileWithRegularSamples(packed, length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return CompactElevationProfile.compactElevationProfileWithRegularSamples(profile);
+  }
+}
@@ -0,0 +1,110 @@
+package org.opentripplanner.raptor.rangeraptor.multicriteria;
+
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestRoute;
+import org.opentripplanner.raptor._data.transit.TestTransfer;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripPattern;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+/**
+ * Multi-criteria Range Raptor search in a synthetic grid network. There is a route along each row
+ * and each column of the grid, and a short walk transfer between diagonal neighbours. This give
+ * many alternative paths with different number of transfers and cost, so most of the time is
+ * spent adding arrivals to {@link McStopArrivals} and the pareto sets behind it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class McStopArrivalsBenchmark {
+
+  private static final int FIRST_DEPARTURE = 6 * 3600;
+  private static final int LAST_DEPARTURE = 9 * 3600;
+  private static final int HEADWAY = 600;
+  private static final int TRAVEL_TIME = 120;
+  private static final int TRANSFER_TIME = 180;
+
+  @Param({ "10", "20" })
+  int gridSize;
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorService<TestTripSchedule> service = new RaptorService<>(
+    RaptorConfig.defaultConfigForTest()
+  );
+  private RaptorRequest<TestTripSchedule> request;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < gridSize; ++i) {
+      int[] row = new int[gridSize];
+      int[] column = new int[gridSize];
+      for (int j = 0; j < gridSize; ++j) {
+        row[j] = stop(i, j);
+        column[j] = stop(j, i);
+      }
+      data.withRoute(route("Row" + i, row, i * 60));
+      data.withRoute(route("Col" + i, column, i * 60 + HEADWAY / 2));
+    }
+    for (int i = 0; i + 1 < gridSize; ++i) {
+      for (int j = 0; j + 1 < gridSize; ++j) {
+        data.withTransfer(stop(i, j), TestTransfer.transfer(stop(i + 1, j + 1), TRANSFER_TIME));
+        data.withTransfer(stop(i + 1, j + 1), TestTransfer.transfer(stop(i, j), TRANSFER_TIME));
+      }
+    }
+
+    var builder = new RaptorRequestBuilder<TestTripSchedule>();
+    builder
+      .profile(RaptorProfile.MULTI_CRITERIA)
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(stop(0, 0), 60))
+      .addEgressPaths(TestAccessEgress.walk(stop(gridSize - 1, gridSize - 1), 60))
+      .earliestDepartureTime(FIRST_DEPARTURE)
+      .latestArrivalTime(LAST_DEPARTURE + 2 * gridSize * TRAVEL_TIME)
+      .searchWindowInSeconds(3600);
+    request = builder.build();
+  }
+
+  @Benchmark
+  public int route() {
+    return service.route(request, data).paths().size();
+  }
+
+  private int stop(int row, int column) {
+    // Stop index 0 is not used by the test data
+    return 1 + row * gridSize + column;
+  }
+
+  private static TestRoute route(String name, int[] stops, int offset) {
+    var route = TestRoute.route(TestTripPattern.pattern(name, stops));
+    for (int t = FIRST_DEPARTURE + offset; t < LAST_DEPARTURE; t += HEADWAY) {
+      int[] times = new int[stops.length];
+      for (int i = 0; i < stops.length; ++i) {
+        times[i] = t + i * TRAVEL_TIME;
+      }
+      route.withTimetable(schedule().departures(times));
+    }
+    return route;
+  }
+}
@@ -0,0 +1,62 @@
+package org.opentripplanner.raptor.util.paretoset;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Add vectors with arrival-time, number-of-transfers and cost criteria to a set, like the
+ * stop arrivals and destination arrivals in the multi-criteria Raptor search. The size of the
+ * resulting pareto front is controlled by the range of the number of transfers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParetoSetBenchmark {
+
+  private static final int N_VECTORS = 1000;
+
+  private static final ParetoComparator<Vector> COMPARATOR = (l, r) ->
+    l.v1 < r.v1 || l.v2 < r.v2 || l.v3 < r.v3;
+
+  @Param({ "2", "8" })
+  int maxNumberOfTransfers;
+
+  private final Vector[] vectors = new Vector[N_VECTORS];
+  private final ParetoSet<Vector> set = new ParetoSet<>(COMPARATOR);
+
+  @Setup
+  public void setup() {
+    var random = new Random(42);
+    for (int i = 0; i < N_VECTORS; ++i) {
+      int transfers = random.nextInt(maxNumberOfTransfers + 1);
+      int arrivalTime = 3600 + random.nextInt(3600) - transfers * 120;
+      int cost = 100_000 + random.nextInt(50_000) + transfers * 6_000;
+      vectors[i] = new Vector("V" + i, arrivalTime, transfers, cost);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_VECTORS)
+  public int add() {
+    set.clear();
+    for (Vector v : vectors) {
+      set.add(v);
+    }
+    return set.size();
+  }
+}
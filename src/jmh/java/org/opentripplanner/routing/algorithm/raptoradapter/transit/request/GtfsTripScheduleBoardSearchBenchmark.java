@@ -0,0 +1,128 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.raptor._data.transit.TestRoute;
+import org.opentripplanner.raptor._data.transit.TestTripPattern;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.spi.RaptorTripScheduleSearch;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+/**
+ * Board and alight search in the scheduled timetables of the patterns in a checked-in GTFS test
+ * feed. Unlike {@link TripScheduleBoardSearchBenchmark} the number of trips, the headways and the
+ * number of stops vary between the patterns like they do in a real feed. The feed is read relative
+ * to the project directory, so run the benchmark from there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GtfsTripScheduleBoardSearchBenchmark {
+
+  private static final int N_SEARCHES = 1024;
+
+  @Param({ ConstantsForTests.CALTRAIN_GTFS, ConstantsForTests.KCM_GTFS })
+  String feed;
+
+  private final List<RaptorTripScheduleSearch<TestTripSchedule>> forwardSearches =
+    new ArrayList<>();
+  private final List<RaptorTripScheduleSearch<TestTripSchedule>> reverseSearches =
+    new ArrayList<>();
+  private final int[] routeIndexes = new int[N_SEARCHES];
+  private final int[] searchTimes = new int[N_SEARCHES];
+  private final int[] stopPositions = new int[N_SEARCHES];
+
+  @Setup
+  public void setup() {
+    var transitModel = ConstantsForTests.buildGtfsGraph(feed).transitModel();
+    List<TestRoute> routes = new ArrayList<>();
+    for (TripPattern pattern : transitModel.getAllTripPatterns()) {
+      var tripTimes = new ArrayList<>(pattern.getScheduledTimetable().getTripTimes());
+      if (!tripTimes.isEmpty()) {
+        routes.add(route(pattern, tripTimes));
+      }
+    }
+    for (TestRoute route : routes) {
+      forwardSearches.add(route.tripSearch(SearchDirection.FORWARD));
+      reverseSearches.add(route.tripSearch(SearchDirection.REVERSE));
+    }
+
+    // Search at a random time between the first and the last departure of the pattern
+    var random = new Random(42);
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      int r = random.nextInt(routes.size());
+      var route = routes.get(r);
+      int stopPos = random.nextInt(route.pattern().numberOfStopsInPattern());
+      int nTrips = route.numberOfTripSchedules();
+      int first = route.getTripSchedule(0).departure(stopPos);
+      int last = route.getTripSchedule(nTrips - 1).departure(stopPos);
+      routeIndexes[i] = r;
+      stopPositions[i] = stopPos;
+      searchTimes[i] = first + random.nextInt(Math.max(1, last - first));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_SEARCHES)
+  public void boardSearch(Blackhole bh) {
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      var search = forwardSearches.get(routeIndexes[i]);
+      bh.consume(search.search(searchTimes[i], stopPositions[i]).empty());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_SEARCHES)
+  public void alightSearch(Blackhole bh) {
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      var search = reverseSearches.get(routeIndexes[i]);
+      bh.consume(search.search(searchTimes[i], stopPositions[i]).empty());
+    }
+  }
+
+  private static TestRoute route(TripPattern pattern, List<TripTimes> tripTimes) {
+    int nStops = pattern.numberOfStops();
+    int[] stops = new int[nStops];
+    for (int i = 0; i < nStops; ++i) {
+      stops[i] = pattern.getStop(i).getIndex();
+    }
+    var route = TestRoute.route(TestTripPattern.pattern(pattern.getId().toString(), stops));
+
+    // The trip search expects the trips to be sorted on departure time
+    tripTimes.sort(Comparator.comparingInt(it -> it.getDepartureTime(0)));
+    for (TripTimes it : tripTimes) {
+      int[] arrivals = new int[nStops];
+      int[] departures = new int[nStops];
+      for (int i = 0; i < nStops; ++i) {
+        arrivals[i] = it.getArrivalTime(i);
+        departures[i] = it.getDepartureTime(i);
+      }
+      route.withTimetable(schedule().arrivals(arrivals).departures(departures));
+    }
+    return route;
+  }
+}
@@ -0,0 +1,131 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.framework.time.ServiceDateUtils;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.RoutingTripPattern;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+/**
+ * Merge the trip patterns for each day in the search into one {@link TripPatternForDates} per
+ * pattern. This is done for every request, before the Raptor search starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransitDataCreatorMergeBenchmark {
+
+  private static final LocalDate FIRST_DATE = LocalDate.of(2023, 3, 1);
+  private static final int NUMBER_OF_DAYS = 3;
+
+  @Param({ "1000", "10000" })
+  int numberOfPatterns;
+
+  private final ZonedDateTime startOfTime = ServiceDateUtils.asStartOfService(
+    FIRST_DATE.plusDays(1),
+    ZoneIds.OSLO
+  );
+  private final List<TripPatternForDate> patternsForDates = new ArrayList<>();
+  private final TransitDataProviderFilter filter = new AllowAllFilter();
+
+  @Setup
+  public void setup() {
+    var stopPattern = new StopPattern(List.of(stopTime(), stopTime(), stopTime()));
+    var route = TransitModelForTest.route("R1").withMode(TransitMode.BUS).build();
+    var tripTimes = List.of(tripTimes(0), tripTimes(1800), tripTimes(3600));
+
+    for (int i = 0; i < numberOfPatterns; ++i) {
+      RoutingTripPattern pattern = TripPattern
+        .of(TransitModelForTest.id("P" + i))
+        .withRoute(route)
+        .withStopPattern(stopPattern)
+        .build()
+        .getRoutingTripPattern();
+
+      for (int d = 0; d < NUMBER_OF_DAYS; ++d) {
+        patternsForDates.add(
+          new TripPatternForDate(pattern, tripTimes, List.of(), FIRST_DATE.plusDays(d))
+        );
+      }
+    }
+    // The input is grouped by date, not by pattern
+    Collections.shuffle(patternsForDates, new Random(42));
+  }
+
+  @Benchmark
+  public List<TripPatternForDates> merge() {
+    return RaptorRoutingRequestTransitDataCreator.merge(startOfTime, patternsForDates, filter);
+  }
+
+  private static StopTime stopTime() {
+    var st = new StopTime();
+    st.setStop(TransitModelForTest.stopForTest("S1", 59.9, 10.7));
+    return st;
+  }
+
+  private static TripTimes tripTimes(int departureTime) {
+    var st1 = new StopTime();
+    var st2 = new StopTime();
+    var st3 = new StopTime();
+    st1.setDepartureTime(departureTime);
+    st2.setArrivalTime(departureTime + 600);
+    st2.setDepartureTime(departureTime + 600);
+    st3.setArrivalTime(departureTime + 1200);
+    return new TripTimes(
+      TransitModelForTest.trip("T" + departureTime).build(),
+      List.of(st1, st2, st3),
+      new Deduplicator()
+    );
+  }
+
+  private static class AllowAllFilter implements TransitDataProviderFilter {
+
+    @Override
+    public boolean tripPatternPredicate(TripPatternForDate tripPatternForDate) {
+      return true;
+    }
+
+    @Override
+    public boolean tripTimesPredicate(TripTimes tripTimes, boolean withFilters) {
+      return true;
+    }
+
+    @Override
+    public boolean hasSubModeFilters() {
+      return false;
+    }
+
+    @Override
+    public BitSet filterAvailableStops(RoutingTripPattern tripPattern, BitSet boardingPossible) {
+      return boardingPossible;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opentripplanner.raptor._data.transit.TestRoute;
+import org.opentripplanner.raptor._data.transit.TestTripPattern;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.spi.RaptorTripScheduleSearch;
+
+/**
+ * Board search in a timetable with a trip every 5 minutes. The number of trips cover both the
+ * linear and the binary search in {@link TripScheduleBoardSearch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripScheduleBoardSearchBenchmark {
+
+  private static final int N_STOPS = 10;
+  private static final int N_SEARCHES = 1024;
+  private static final int FIRST_DEPARTURE = 6 * 3600;
+  private static final int HEADWAY = 300;
+  private static final int TRAVEL_TIME = 120;
+
+  @Param({ "4", "32", "256" })
+  int numberOfTrips;
+
+  private RaptorTripScheduleSearch<TestTripSchedule> forwardSearch;
+  private RaptorTripScheduleSearch<TestTripSchedule> reverseSearch;
+  private final int[] searchTimes = new int[N_SEARCHES];
+  private final int[] stopPositions = new int[N_SEARCHES];
+
+  @Setup
+  public void setup() {
+    int[] stops = new int[N_STOPS];
+    for (int i = 0; i < N_STOPS; ++i) {
+      stops[i] = i + 1;
+    }
+    var route = TestRoute.route(TestTripPattern.pattern("R1", stops));
+
+    for (int t = 0; t < numberOfTrips; ++t) {
+      int[] times = new int[N_STOPS];
+      for (int i = 0; i < N_STOPS; ++i) {
+        times[i] = FIRST_DEPARTURE + t * HEADWAY + i * TRAVEL_TIME;
+      }
+      route.withTimetable(schedule().departures(times));
+    }
+    forwardSearch = route.tripSearch(SearchDirection.FORWARD);
+    reverseSearch = route.tripSearch(SearchDirection.REVERSE);
+
+    var random = new Random(42);
+    int span = numberOfTrips * HEADWAY + N_STOPS * TRAVEL_TIME;
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      searchTimes[i] = FIRST_DEPARTURE + random.nextInt(span);
+      stopPositions[i] = random.nextInt(N_STOPS);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_SEARCHES)
+  public void boardSearch(Blackhole bh) {
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      bh.consume(forwardSearch.search(searchTimes[i], stopPositions[i]).empty());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_SEARCHES)
+  public void alightSearch(Blackhole bh) {
+    for (int i = 0; i < N_SEARCHES; ++i) {
+      bh.consume(reverseSearch.search(searchTimes[i], stopPositions[i]).empty());
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package org.opentripplanner.street.model.edge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TraverseMode;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+
+/**
+ * Traverse a random walk over the street graph built from a checked-in OSM test extract. Unlike
+ * {@link StreetEdgeTraverseBenchmark} the edges have the permissions, lengths, slopes and turn
+ * angles of real streets. The extract is read relative to the project directory, so run the
+ * benchmark from there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OsmStreetEdgeTraverseBenchmark {
+
+  private static final int N_EDGES = 10_000;
+
+  @Param({ "WALK", "BIKE", "CAR" })
+  StreetMode mode;
+
+  private final StreetEdge[] edges = new StreetEdge[N_EDGES];
+  private StreetSearchRequest request;
+
+  @Setup
+  public void setup() {
+    var graph = ConstantsForTests.buildOsmGraph(ConstantsForTests.PORTLAND_CENTRAL_OSM).graph();
+    var traverseMode = mode.includesDriving()
+      ? TraverseMode.CAR
+      : mode.includesBiking() ? TraverseMode.BICYCLE : TraverseMode.WALK;
+
+    // Sort the edges, so the same walk is used in each run
+    List<StreetEdge> allEdges = new ArrayList<>(graph.getStreetEdges());
+    allEdges.removeIf(it -> !it.canTraverse(traverseMode));
+    allEdges.sort(
+      Comparator
+        .comparing((StreetEdge it) -> it.getFromVertex().getLabel())
+        .thenComparing(it -> it.getToVertex().getLabel())
+    );
+
+    // Walk along the streets without turning back, and start over at a random edge in dead ends
+    var random = new Random(42);
+    StreetEdge edge = allEdges.get(random.nextInt(allEdges.size()));
+    for (int i = 0; i < N_EDGES; ++i) {
+      edges[i] = edge;
+      Vertex back = edge.getFromVertex();
+      List<StreetEdge> next = edge
+        .getToVertex()
+        .getOutgoingStreetEdges()
+        .stream()
+        .filter(it -> it.getToVertex() != back && it.canTraverse(traverseMode))
+        .toList();
+      edge =
+        next.isEmpty()
+          ? allEdges.get(random.nextInt(allEdges.size()))
+          : next.get(random.nextInt(next.size()));
+    }
+    request = StreetSearchRequest.of().withMode(mode).build();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_EDGES)
+  public org.opentripplanner.street.search.state.State traverse() {
+    org.opentripplanner.street.search.state.State state = null;
+    for (StreetEdge edge : edges) {
+      if (state == null || state.getVertex() != edge.getFromVertex()) {
+        state = new org.opentripplanner.street.search.state.State(edge.getFromVertex(), request);
+      }
+      state = edge.traverse(state);
+    }
+    return state;
+  }
+}
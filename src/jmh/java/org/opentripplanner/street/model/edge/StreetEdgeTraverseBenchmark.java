@@ -0,0 +1,67 @@
+package org.opentripplanner.street.model.edge;
+
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+
+/**
+ * Traverse a chain of street edges, like the inner loop of the street search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreetEdgeTraverseBenchmark {
+
+  private static final int N_EDGES = 100;
+
+  @Param({ "WALK", "BIKE", "CAR" })
+  StreetMode mode;
+
+  private final StreetEdge[] edges = new StreetEdge[N_EDGES];
+  private IntersectionVertex origin;
+  private StreetSearchRequest request;
+
+  @Setup
+  public void setup() {
+    IntersectionVertex from = intersectionVertex("V0", 59.90, 10.70);
+    origin = from;
+    for (int i = 0; i < N_EDGES; ++i) {
+      // Zig-zag, so the turn cost is part of the traversal
+      var to = intersectionVertex("V" + (i + 1), 59.90 + (i + 1) * 0.001, 10.70 + (i % 2) * 0.001);
+      edges[i] = streetEdge(from, to, 100.0 + i, StreetTraversalPermission.ALL);
+      edges[i].setCarSpeed(13.9f);
+      from = to;
+    }
+    request = StreetSearchRequest.of().withMode(mode).build();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_EDGES)
+  public org.opentripplanner.street.search.state.State traverse() {
+    var state = new org.opentripplanner.street.search.state.State(origin, request);
+    for (StreetEdge edge : edges) {
+      state = edge.traverse(state);
+    }
+    return state;
+  }
+}
@@ -21,6 +21,7 @@ import org.opentripplanner.api.model.TileJson;
 import org.opentripplanner.inspector.vector.AreaStopsLayerBuilder;
 import org.opentripplanner.inspector.vector.LayerBuilder;
 import org.opentripplanner.inspector.vector.LayerParameters;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.inspector.vector.VectorTileResponseFactory;
 import org.opentripplanner.inspector.vector.geofencing.GeofencingZonesLayerBuilder;
 import org.opentripplanner.model.FeedInfo;
@@ -60,6 +61,7 @@ public class GraphInspectorVectorTileResource {
   @Produces(APPLICATION_X_PROTOBUF)
   public Response tileGet(
     @Context Request grizzlyRequest,
+    @Context HttpHeaders headers,
     @PathParam("x") int x,
     @PathParam("y") int y,
     @PathParam("z") int z,
@@ -74,7 +76,10 @@ public class GraphInspectorVectorTileResource {
       DEBUG_LAYERS,
       GraphInspectorVectorTileResource::createLayerBuilder,
       serverContext.graph(),
-      serverContext.transitService()
+      serverContext.transitService(),
+      // The debug layers are not cached, the geofencing zones are changed by the rental updaters
+      VectorTileCache.disabled(),
+      headers
     );
   }
 
@@ -4,9 +4,11 @@ import static org.opentripplanner.framework.geometry.GeometryUtils.convertGeoJso
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.security.PermitAll;
 import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
@@ -16,24 +18,28 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.ServerErrorException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.time.StopWatch;
 import org.geojson.Feature;
-import org.geojson.FeatureCollection;
-import org.geojson.GeoJsonObject;
-import org.json.simple.JSONObject;
-import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygonal;
+import org.opentripplanner.framework.geometry.UnsupportedGeometryException;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
 import org.opentripplanner.street.model.StreetTraversalPermission;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.updater.permissions.PermissionChange;
 import org.opentripplanner.updater.permissions.PermissionsPushUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +53,9 @@ import org.slf4j.LoggerFactory;
  * <p>
  * POST - send GeoJSON FeatureCollection with polygons and a "permission" property to this endpoint in order to set all edges within the given polygons to the defined permission
  * <p>
+ * POST ?replaceAll=true - replace all custom permissions with the permissions in the posted
+ * FeatureCollection
+ * <p>
  * The HTTP request URLs are of the form /otp/permissions.
  */
 @Path("/permissions")
@@ -62,10 +71,20 @@ public class Permissions {
   }
 
   private static final Logger LOG = LoggerFactory.getLogger(Permissions.class);
+
+  /** The number of features to parse before the changes are applied. */
+  private static final int BATCH_SIZE = 500;
+
+  private static final String PROPERTY_NAME = "name";
+  private static final String PROPERTY_PERMISSION = "permission";
+  private static final String PROPERTY_METHOD = "method";
+  private static final String PROPERTY_ORIGINAL_PERMISSION = "originalPermission";
   private final PermissionsPushUpdater permissionsPushUpdater;
+  private final AccessEgressCache accessEgressCache;
 
   public Permissions(@Context OtpServerRequestContext serverContext) {
     this.permissionsPushUpdater = new PermissionsPushUpdater(serverContext.graph());
+    this.accessEgressCache = serverContext.accessEgressCache();
   }
 
   private enum METHOD {
@@ -84,11 +103,12 @@ public class Permissions {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   public Response getPermissions(@PathParam("edge") String edgeParam) {
-    List<StreetEdge> touchedEdges = PermissionsPushUpdater.getTouchedEdges();
+    var changedEdges = permissionsPushUpdater.getChangedEdges();
     Map<String, Map<String, String>> touchedEdgesObj = new HashMap<>();
-    for (StreetEdge edge : touchedEdges) {
+    for (var entry : changedEdges.entrySet()) {
+      StreetEdge edge = entry.getKey();
       Map<String, String> info = new HashMap<>();
-      info.put("currentPermission", edge.getPermission().name());
+      info.put("currentPermission", entry.getValue().name());
       info.put("originalPermission", edge.getOriginalPermission().name());
       touchedEdgesObj.put(edge.toString(), info);
     }
@@ -111,7 +131,8 @@ public class Permissions {
     @HeaderParam("OTPMaxResolves") @DefaultValue("1000000") int maxResolves,
     @Context HttpHeaders headers
   ) {
-    PermissionsPushUpdater.resetAllPermissions();
+    permissionsPushUpdater.resetAllPermissions();
+    accessEgressCache.invalidateAll();
     Map<String, Object> responseObj = new HashMap<>();
     responseObj.put("message", "Permissions were reset.");
     String responseJson = "{}";
@@ -124,22 +145,29 @@ public class Permissions {
   }
 
   /**
-   * Sets permissions for edges.
+   * Sets permissions for edges. The body is parsed as a stream, and the features are applied in
+   * batches, so the whole body is not kept in memory. All changes are published as one new version
+   * when the body is processed. If {@code replaceAll} is set, all existing custom permissions are
+   * replaced by the permissions in the body.
    */
   @POST
   @Consumes(MediaType.APPLICATION_JSON)
   public Response postPermissions(
-    HashMap<String, Object> body,
+    InputStream body,
+    @QueryParam("replaceAll") @DefaultValue("false") boolean replaceAll,
     @HeaderParam("OTPMaxResolves") @DefaultValue("1000000") int maxResolves,
     @Context HttpHeaders headers
   ) {
     Map<String, Object> responseObj;
     String responseJson;
     try {
-      responseObj = executeRequest(body);
+      responseObj = executeRequest(body, replaceAll);
+    } catch (ConcurrentModificationException e) {
+      throw new ClientErrorException(e.getMessage(), Response.Status.CONFLICT);
     } catch (Exception e) {
       throw new BadRequestException("Unable to serve JSON: " + e.getMessage());
     }
+    accessEgressCache.invalidateAll();
     try {
       responseJson = mapper.writeValueAsString(responseObj);
     } catch (Exception e) {
@@ -149,121 +177,47 @@ public class Permissions {
     return Response.ok(responseJson).build();
   }
 
-  private Map<String, Object> executeRequest(HashMap<String, Object> body) throws Exception {
-    // define property constants
-    final String PROPERTY_NAME = "name";
-    final String PROPERTY_PERMISSION = "permission";
-    final String PROPERTY_METHOD = "method";
-    final String PROPERTY_ORIGINAL_PERMISSION = "originalPermission";
+  private Map<String, Object> executeRequest(InputStream body, boolean replaceAll)
+    throws Exception {
     // define messages list
     List<Map<String, Object>> messages = new ArrayList<>();
-    // check if body was passed and has feature key
-    if (body == null || !body.containsKey("features")) {
-      LOG.debug("No features found in body");
-      throw new BadRequestException("No features found in body");
-    }
     // start stopwatch and count of modifications
     int numOfOverallEdgeUpdates = 0;
     StopWatch watch = new StopWatch();
     watch.start();
-    // processing body
-    LOG.info("Retrieved body of type {}: {}", body.getClass(), body);
-    GeoJsonObject geoJson = mapper.readValue(
-      (new JSONObject(body)).toString(),
-      GeoJsonObject.class
-    );
-    LOG.info("Retrieved geoJson: {}", geoJson);
-    if (geoJson instanceof FeatureCollection) {
-      FeatureCollection featureCollection = (FeatureCollection) geoJson;
-      for (Feature feature : featureCollection.getFeatures()) {
-        StreetTraversalPermission permission = parseFeatureForPermission(
-          feature,
-          PROPERTY_PERMISSION
-        );
-        if (permission == null) {
-          String permissionStr = feature.getProperty(PROPERTY_PERMISSION);
-          throw new BadRequestException(
-            "Unable to parse permission property '" +
-            permissionStr +
-            "', must contain PEDESTRIAN, BICYCLE or CAR!"
-          );
-        }
-        METHOD method = parseFeatureToMethod(feature, PROPERTY_METHOD);
-        if (method == null) {
-          String methodStr = feature.getProperty(PROPERTY_METHOD);
-          throw new BadRequestException(
-            "Unable to parse permission property '" +
-            methodStr +
-            "', must be either SET, ADD or REMOVE"
-          );
+    var transaction = permissionsPushUpdater.newTransaction(replaceAll);
+    List<PermissionChange> changes = new ArrayList<>();
+    List<Map<String, Object>> changeMessages = new ArrayList<>();
+    boolean hasFeatures = false;
+    // Parse one feature at the time, and apply the changes in batches
+    try (JsonParser parser = mapper.getFactory().createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new BadRequestException("The body must be a GeoJSON FeatureCollection");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (!"features".equals(field) || token != JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
         }
-        // if the permission is NONE, and it is issued on an ADD or REMOVE operation skip any further action since nothing should be changed logically
-        if (
-          permission == StreetTraversalPermission.NONE &&
-          (method == METHOD.ADD || method == METHOD.REMOVE)
-        ) {
-          Map<String, Object> messageObj = new HashMap<>();
-          String requestName = feature.getProperty(PROPERTY_NAME) != null
-            ? feature.getProperty(PROPERTY_NAME)
-            : "unknown";
-          if (method == METHOD.ADD) {
-            messageObj.put("requestName", requestName);
-            messageObj.put(
-              "message",
-              "Adding the permission 'NONE' to edges does not modify the edge permissions."
-            );
-            messageObj.put("updates", 0);
-            messageObj.put("method", method.toString());
-          } else if (method == METHOD.REMOVE) {
-            messageObj.put("requestName", requestName);
-            messageObj.put(
-              "message",
-              "Removing the permission 'NONE' from edges does not modify the edge permissions."
-            );
-            messageObj.put("updates", 0);
-            messageObj.put("method", method.toString());
+        hasFeatures = true;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          Feature feature = mapper.readValue(parser, Feature.class);
+          parseFeature(feature, messages, changes, changeMessages);
+          if (changes.size() >= BATCH_SIZE) {
+            numOfOverallEdgeUpdates += applyBatch(transaction, changes, changeMessages);
           }
-          messages.add(messageObj);
-        } else {
-          int numOfUpdates =
-            switch (method) {
-              case REMOVE -> permissionsPushUpdater.removePermissions(
-                (Polygon) convertGeoJsonToJtsGeometry(feature.getGeometry()),
-                permission,
-                parseFeatureForPermission(feature, PROPERTY_ORIGINAL_PERMISSION)
-              );
-              case ADD -> permissionsPushUpdater.addPermissions(
-                (Polygon) convertGeoJsonToJtsGeometry(feature.getGeometry()),
-                permission,
-                parseFeatureForPermission(feature, PROPERTY_ORIGINAL_PERMISSION)
-              );
-              case SET -> permissionsPushUpdater.setPermissions(
-                (Polygon) convertGeoJsonToJtsGeometry(feature.getGeometry()),
-                permission,
-                parseFeatureForPermission(feature, PROPERTY_ORIGINAL_PERMISSION)
-              );
-              default -> 0;
-            };
-          Map<String, Object> messageObj = new HashMap<>();
-          String requestName = feature.getProperty(PROPERTY_NAME) != null
-            ? feature.getProperty(PROPERTY_NAME)
-            : "unknown";
-          messageObj.put("requestName", requestName);
-          messageObj.put(
-            "message",
-            "Updated the permission of " +
-            numOfUpdates +
-            " edges with permission '" +
-            permission.name() +
-            "'"
-          );
-          messageObj.put("updates", numOfUpdates);
-          messageObj.put("method", method.toString());
-          messages.add(messageObj);
-          numOfOverallEdgeUpdates = numOfOverallEdgeUpdates + numOfUpdates;
         }
       }
     }
+    // check if body has features
+    if (!hasFeatures) {
+      LOG.debug("No features found in body");
+      throw new BadRequestException("No features found in body");
+    }
+    numOfOverallEdgeUpdates += applyBatch(transaction, changes, changeMessages);
+    var overlay = transaction.commit();
     watch.stop();
     LOG.info("Processing time: {}", watch.getTime());
     Map<String, Object> responseObj = new HashMap<>();
@@ -272,10 +226,113 @@ public class Permissions {
       "message",
       "Permissions modified, " + numOfOverallEdgeUpdates + " edges updated!"
     );
+    responseObj.put("version", overlay.version());
     responseObj.put("processingTimeInSeconds", watch.getTime() * 0.001);
     return responseObj;
   }
 
+  /**
+   * Validate the feature and add it to the list of changes, or add a message if the feature does
+   * not change anything.
+   */
+  private void parseFeature(
+    Feature feature,
+    List<Map<String, Object>> messages,
+    List<PermissionChange> changes,
+    List<Map<String, Object>> changeMessages
+  ) throws UnsupportedGeometryException {
+    StreetTraversalPermission permission = parseFeatureForPermission(feature, PROPERTY_PERMISSION);
+    if (permission == null) {
+      String permissionStr = feature.getProperty(PROPERTY_PERMISSION);
+      throw new BadRequestException(
+        "Unable to parse permission property '" +
+        permissionStr +
+        "', must contain PEDESTRIAN, BICYCLE or CAR!"
+      );
+    }
+    METHOD method = parseFeatureToMethod(feature, PROPERTY_METHOD);
+    if (method == null) {
+      String methodStr = feature.getProperty(PROPERTY_METHOD);
+      throw new BadRequestException(
+        "Unable to parse permission property '" + methodStr + "', must be either SET, ADD or REMOVE"
+      );
+    }
+    Map<String, Object> messageObj = new HashMap<>();
+    String requestName = feature.getProperty(PROPERTY_NAME) != null
+      ? feature.getProperty(PROPERTY_NAME)
+      : "unknown";
+    messageObj.put("requestName", requestName);
+    messageObj.put("method", method.toString());
+    messages.add(messageObj);
+    // if the permission is NONE, and it is issued on an ADD or REMOVE operation skip any further action since nothing should be changed logically
+    if (permission == StreetTraversalPermission.NONE && method == METHOD.ADD) {
+      messageObj.put(
+        "message",
+        "Adding the permission 'NONE' to edges does not modify the edge permissions."
+      );
+      messageObj.put("updates", 0);
+    } else if (permission == StreetTraversalPermission.NONE && method == METHOD.REMOVE) {
+      messageObj.put(
+        "message",
+        "Removing the permission 'NONE' from edges does not modify the edge permissions."
+      );
+      messageObj.put("updates", 0);
+    } else {
+      changes.add(
+        new PermissionChange(
+          parseFeatureForArea(feature),
+          PermissionChange.Method.valueOf(method.name()),
+          permission,
+          parseFeatureForPermission(feature, PROPERTY_ORIGINAL_PERMISSION)
+        )
+      );
+      changeMessages.add(messageObj);
+    }
+  }
+
+  /**
+   * Apply the changes to the transaction and add the result to the messages. The lists are cleared
+   * for the next batch.
+   *
+   * @return the number of updated edges.
+   */
+  private static int applyBatch(
+    PermissionsPushUpdater.Transaction transaction,
+    List<PermissionChange> changes,
+    List<Map<String, Object>> changeMessages
+  ) {
+    int numOfEdgeUpdates = 0;
+    int[] numOfUpdates = transaction.apply(changes);
+    for (int i = 0; i < changes.size(); i++) {
+      Map<String, Object> messageObj = changeMessages.get(i);
+      messageObj.put(
+        "message",
+        "Updated the permission of " +
+        numOfUpdates[i] +
+        " edges with permission '" +
+        changes.get(i).permission().name() +
+        "'"
+      );
+      messageObj.put("updates", numOfUpdates[i]);
+      numOfEdgeUpdates += numOfUpdates[i];
+    }
+    changes.clear();
+    changeMessages.clear();
+    return numOfEdgeUpdates;
+  }
+
+  private Geometry parseFeatureForArea(Feature feature) throws UnsupportedGeometryException {
+    Geometry area = convertGeoJsonToJtsGeometry(feature.getGeometry());
+    if (!(area instanceof Polygonal)) {
+      throw new BadRequestException(
+        "Unable to use geometry of type '" +
+        area.getGeometryType() +
+        "', must be a Polygon or MultiPolygon"
+      );
+    }
+    return area;
+  }
+
   private METHOD parseFeatureToMethod(Feature feature, String propertyName) {
     String methodStr = feature.getProperty(propertyName);
     String methodStrNormalized = methodStr.toLowerCase();
@@ -19,6 +19,28 @@ public class WebMercatorTile {
     return new Envelope(maxLon, minLon, maxLat, minLat);
   }
 
+  /**
+   * The x number of the tile containing the given longitude, in the range [0, 2^zoom).
+   */
+  public static int lon2tileX(double lon, int zoom) {
+    int n = 1 << zoom;
+    return clamp((int) Math.floor((lon + 180.0) / 360.0 * n), n);
+  }
+
+  /**
+   * The y number of the tile containing the given latitude, in the range [0, 2^zoom).
+   */
+  public static int lat2tileY(double lat, int zoom) {
+    int n = 1 << zoom;
+    double latRad = Math.toRadians(lat);
+    double y = (1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * n;
+    return clamp((int) Math.floor(y), n);
+  }
+
+  private static int clamp(int tile, int n) {
+    return Math.max(0, Math.min(n - 1, tile));
+  }
+
   private static double tile2lon(int x, int z) {
     return x / Math.pow(2.0, z) * 360.0 - 180;
   }
@@ -24,6 +24,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Find the shortest path between graph vertices using A*. A basic Dijkstra search is a special case
  * of AStar where the heuristic is always zero.
+ * <p>
+ * Every edge traversal creates a new state, also when the state is dominated and dropped right
+ * away. The weight, time and mode changes of an edge are only computed by
+ * {@link AStarEdge#traverse(AStarState)}, so the search can not keep them in primitive arrays and
+ * create the states of the resulting paths later without duplicating the traversal logic of every
+ * edge type. What is avoided is the per vertex overhead: the {@link ShortestPathTree} stores a
+ * single state without a list, and the {@link BinHeap} keeps the keys in a primitive array.
  */
 public class AStar<
   State extends AStarState<State, Edge, Vertex>,
@@ -44,7 +44,12 @@ public class ShortestPathTree<
 
   public final DominanceFunction<State> dominanceFunction;
 
-  private final Map<Vertex, List<State>> stateSets;
+  /**
+   * The states for each vertex. Most vertices only have one state, so to avoid allocating a list
+   * for every vertex reached the value is either a single {@code State} or a {@code List<State>}
+   * if there are more than one co-dominant states. Use {@link #statesAt(Object)} to read it.
+   */
+  private final Map<Vertex, Object> stateSets;
 
   /** Indicates that the search timed out or was otherwise aborted. */
   private boolean aborted = false;
@@ -85,9 +90,8 @@ public class ShortestPathTree<
     Multiset<Integer> histogram = HashMultiset.create();
     int statesCount = 0;
     int maxSize = 0;
-    for (Map.Entry<Vertex, List<State>> kv : stateSets.entrySet()) {
-      List<State> states = kv.getValue();
-      int size = states.size();
+    for (Object value : stateSets.values()) {
+      int size = statesAt(value).size();
       histogram.add(size);
       statesCount += size;
       if (size > maxSize) {
@@ -125,18 +129,36 @@ public class ShortestPathTree<
    * @return a boolean value indicating whether the state was added to the tree and should therefore
    * be enqueued
    */
+  @SuppressWarnings("unchecked")
   public boolean add(State newState) {
     Vertex vertex = newState.getVertex();
-    List<State> states = stateSets.get(vertex);
+    Object value = stateSets.get(vertex);
 
     // if the vertex has no states, add one and return
-    if (states == null) {
-      states = new ArrayList<>();
-      stateSets.put(vertex, states);
-      states.add(newState);
+    if (value == null) {
+      stateSets.put(vertex, newState);
+      return true;
+    }
+
+    if (!(value instanceof List)) {
+      State oldState = (State) value;
+      if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+        return false;
+      }
+      if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+        stateSets.put(vertex, newState);
+      } else {
+        // the states are co-dominant, keep both
+        List<State> states = new ArrayList<>(4);
+        states.add(oldState);
+        states.add(newState);
+        stateSets.put(vertex, states);
+      }
       return true;
     }
 
+    List<State> states = (List<State>) value;
+
     // if the vertex has any states that dominate the new state, don't add the state
     // if the new state dominates any old states, remove them
     Iterator<State> it = states.iterator();
@@ -164,13 +186,13 @@ public class ShortestPathTree<
    * @return a 'best' state at that vertex
    */
   public State getState(Vertex dest) {
-    Collection<State> states = stateSets.get(dest);
-    if (states == null) {
+    Object value = stateSets.get(dest);
+    if (value == null) {
       return null;
     }
     State ret = null;
     // TODO are we only checking path parser acceptance when we fetch states via this specific method?
-    for (State s : states) {
+    for (State s : statesAt(value)) {
       if ((ret == null || s.getWeight() < ret.getWeight()) && s.isFinal()) {
         ret = s;
       }
@@ -188,7 +210,8 @@ public class ShortestPathTree<
    * @return a collection of 'interesting' states at that vertex
    */
   public List<State> getStates(Vertex dest) {
-    return stateSets.get(dest);
+    Object value = stateSets.get(dest);
+    return value == null ? null : statesAt(value);
   }
 
   /** @return number of vertices referenced in this SPT */
@@ -221,21 +244,25 @@ public class ShortestPathTree<
    * @return - whether this state is still considered worth visiting.
    */
   public boolean visit(State state) {
-    boolean ret = false;
-    for (State s : stateSets.get(state.getVertex())) {
-      if (s == state) {
-        ret = true;
-        break;
+    Object value = stateSets.get(state.getVertex());
+    if (value == state) {
+      return true;
+    }
+    if (value instanceof List<?> states) {
+      for (Object s : states) {
+        if (s == state) {
+          return true;
+        }
       }
     }
-    return ret;
+    return false;
   }
 
   /** @return every state in this tree */
   public Collection<State> getAllStates() {
     ArrayList<State> allStates = new ArrayList<>();
-    for (List<State> stateSet : stateSets.values()) {
-      allStates.addAll(stateSet);
+    for (Object value : stateSets.values()) {
+      allStates.addAll(statesAt(value));
     }
     return allStates;
   }
@@ -251,4 +278,9 @@ public class ShortestPathTree<
   public String toString() {
     return "ShortestPathTree(" + this.stateSets.size() + " vertices)";
   }
+
+  @SuppressWarnings("unchecked")
+  private List<State> statesAt(Object value) {
+    return value instanceof List ? (List<State>) value : List.of((State) value);
+  }
 }
@@ -106,6 +106,15 @@ public interface DataSource {
     );
   }
 
+  /**
+   * Same as {@link #asInputStream()}, but optimized for reading a large data source once from start
+   * to end. Local files are memory-mapped to avoid a read system call per buffer. The default is to
+   * return {@link #asInputStream()}.
+   */
+  default InputStream asMemoryMappedInputStream() {
+    return asInputStream();
+  }
+
   /**
    * Return the content as a byte array. The implementation may chose to implement this in a more
    * efficient way - not reading the input stream. Do not change the data returned.
@@ -9,6 +9,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.framework.io.MemoryMappedInputStream;
 
 public class FileDataSource extends AbstractFileDataSource {
 
@@ -35,6 +36,19 @@ public class FileDataSource extends AbstractFileDataSource {
     }
   }
 
+  @Override
+  public InputStream asMemoryMappedInputStream() {
+    // Compressed files must be read through the GZIP stream
+    if (file.getName().endsWith(".gz")) {
+      return asInputStream();
+    }
+    try {
+      return new MemoryMappedInputStream(file);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to load " + path() + ": " + e.getLocalizedMessage(), e);
+    }
+  }
+
   @Override
   public OutputStream asOutputStream() {
     try {
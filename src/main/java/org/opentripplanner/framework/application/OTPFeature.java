@@ -51,6 +51,12 @@ public enum OTPFeature {
     "OTP will inspect all itineraries found and optimize where (which stops) the transfer will happen. Waiting time, priority and guaranteed transfers are taken into account."
   ),
 
+  ParallelGraphBuild(
+    false,
+    false,
+    "Run independent graph build modules concurrently, like loading OSM and transit data, or " +
+    "checking the graph and generating transfers. This uses more memory."
+  ),
   ParallelRouting(false, false, "Enable performing parts of the trip planning in parallel."),
   TransferConstraints(
     true,
@@ -0,0 +1,404 @@
+package org.opentripplanner.framework.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An immutable hash map with structural sharing, implemented as a hash array mapped trie (HAMT).
+ * Adding or removing a key returns a new map, and only the nodes on the path from the root to the
+ * key are copied - everything else is shared with the original map. This makes it cheap to keep
+ * many versions of a big map alive at the same time, like when a new snapshot is published after
+ * a few changes.
+ * <p>
+ * The map implements the read-only part of {@link java.util.Map}, any attempt to modify it using
+ * the {@link java.util.Map} interface will throw an {@link UnsupportedOperationException}. Use
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} instead. Null keys and values are not
+ * allowed.
+ * <p>
+ * This class is thread-safe, the map is never changed after it is created.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(Node.EMPTY, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Return a new map with the given key mapped to the given value. If the key is already mapped to
+   * the same value instance, this map is returned.
+   */
+  public PersistentMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    var change = new Change();
+    Node newRoot = root.put(0, hash(key), new Leaf(key, value), change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, change.sizeChanged ? size + 1 : size);
+  }
+
+  /**
+   * Return a new map without the given key. If the key does not exist, this map is returned.
+   */
+  public PersistentMap<K, V> minus(Object key) {
+    if (key == null) {
+      return this;
+    }
+    Node newRoot = root.remove(0, hash(key), key);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+  }
+
+  /**
+   * Return a new map without all keys matching the given predicate. If no keys match, this map is
+   * returned.
+   */
+  public PersistentMap<K, V> minusIf(Predicate<? super K> predicate) {
+    List<K> keysToRemove = new ArrayList<>();
+    for (K key : keySet()) {
+      if (predicate.test(key)) {
+        keysToRemove.add(key);
+      }
+    }
+    var result = this;
+    for (K key : keysToRemove) {
+      result = result.minus(key);
+    }
+    return result;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    Leaf leaf = root.find(0, hash(key), key);
+    return leaf == null ? null : (V) leaf.getValue();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && root.find(0, hash(key), key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new LeafIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /* private methods */
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  /**
+   * Create a sub-tree containing the two given elements. The elements are either {@link Leaf}s or
+   * {@link Collision}s with the given hash codes.
+   */
+  private static Object merge(int shift, int hash1, Object e1, int hash2, Object e2) {
+    if (hash1 == hash2) {
+      // The hash of a collision node is equal to the hash of its leafs
+      return e1 instanceof Collision c
+        ? c.put((Leaf) e2, new Change())
+        : new Collision(hash1, new Leaf[] { (Leaf) e1, (Leaf) e2 });
+    }
+    int bit1 = bit(hash1, shift);
+    int bit2 = bit(hash2, shift);
+    if (bit1 == bit2) {
+      return new Node(bit1, new Object[] { merge(shift + BITS, hash1, e1, hash2, e2) });
+    }
+    return bit1 < bit2
+      ? new Node(bit1 | bit2, new Object[] { e1, e2 })
+      : new Node(bit1 | bit2, new Object[] { e2, e1 });
+  }
+
+  private static int hashOf(Object element) {
+    return element instanceof Collision c ? c.hash : hash(((Leaf) element).getKey());
+  }
+
+  /** Used to report back if an insert added a new key. */
+  private static class Change {
+
+    boolean sizeChanged = false;
+  }
+
+  private static final class Leaf extends SimpleImmutableEntry<Object, Object> {
+
+    Leaf(Object key, Object value) {
+      super(key, value);
+    }
+  }
+
+  /**
+   * A trie node. Each slot is a {@link Leaf}, a {@link Collision} or a sub-{@link Node}. The
+   * bitmap tell which of the 32 possible slots are present, the slots are stored in a compact
+   * array.
+   */
+  private static final class Node {
+
+    static final Node EMPTY = new Node(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] slots;
+
+    Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    Leaf find(int shift, int hash, Object key) {
+      Node node = this;
+      while (true) {
+        int bit = bit(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+          return null;
+        }
+        Object slot = node.slots[node.index(bit)];
+        if (slot instanceof Node n) {
+          node = n;
+          shift += BITS;
+        } else if (slot instanceof Collision c) {
+          return c.hash == hash ? c.find(key) : null;
+        } else {
+          Leaf leaf = (Leaf) slot;
+          return key.equals(leaf.getKey()) ? leaf : null;
+        }
+      }
+    }
+
+    Node put(int shift, int hash, Leaf leaf, Change change) {
+      int bit = bit(hash, shift);
+      int index = index(bit);
+
+      if ((bitmap & bit) == 0) {
+        change.sizeChanged = true;
+        Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        newSlots[index] = leaf;
+        System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+        return new Node(bitmap | bit, newSlots);
+      }
+
+      Object slot = slots[index];
+      Object newSlot;
+
+      if (slot instanceof Node n) {
+        newSlot = n.put(shift + BITS, hash, leaf, change);
+      } else if (slot instanceof Collision c && c.hash == hash) {
+        newSlot = c.put(leaf, change);
+      } else if (slot instanceof Leaf old && old.getKey().equals(leaf.getKey())) {
+        newSlot = old.getValue() == leaf.getValue() ? old : leaf;
+      } else {
+        change.sizeChanged = true;
+        newSlot = merge(shift + BITS, hashOf(slot), slot, hash, leaf);
+      }
+      return newSlot == slot ? this : withSlot(index, newSlot);
+    }
+
+    /** Return the new node, {@code this} if not changed or {@code null} if empty. */
+    Node remove(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object slot = slots[index];
+      Object newSlot;
+
+      if (slot instanceof Node n) {
+        Node newNode = n.remove(shift + BITS, hash, key);
+        // Pull a single leaf or collision up, so the trie stays compact
+        newSlot =
+          newNode != null && newNode.slots.length == 1 && !(newNode.slots[0] instanceof Node)
+            ? newNode.slots[0]
+            : newNode;
+      } else if (slot instanceof Collision c) {
+        newSlot = c.hash == hash ? c.remove(key) : c;
+      } else {
+        newSlot = key.equals(((Leaf) slot).getKey()) ? null : slot;
+      }
+
+      if (newSlot == slot) {
+        return this;
+      }
+      if (newSlot != null) {
+        return withSlot(index, newSlot);
+      }
+      if (slots.length == 1) {
+        return null;
+      }
+      Object[] newSlots = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, newSlots, 0, index);
+      System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+      return new Node(bitmap & ~bit, newSlots);
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private Node withSlot(int index, Object slot) {
+      Object[] newSlots = slots.clone();
+      newSlots[index] = slot;
+      return new Node(bitmap, newSlots);
+    }
+  }
+
+  /** Leafs with different keys, but the same hash code. */
+  private static final class Collision {
+
+    final int hash;
+    final Leaf[] leafs;
+
+    Collision(int hash, Leaf[] leafs) {
+      this.hash = hash;
+      this.leafs = leafs;
+    }
+
+    Leaf find(Object key) {
+      int i = indexOf(key);
+      return i < 0 ? null : leafs[i];
+    }
+
+    Collision put(Leaf leaf, Change change) {
+      int i = indexOf(leaf.getKey());
+      if (i < 0) {
+        change.sizeChanged = true;
+        Leaf[] newLeafs = Arrays.copyOf(leafs, leafs.length + 1);
+        newLeafs[leafs.length] = leaf;
+        return new Collision(hash, newLeafs);
+      }
+      if (leafs[i].getValue() == leaf.getValue()) {
+        return this;
+      }
+      Leaf[] newLeafs = leafs.clone();
+      newLeafs[i] = leaf;
+      return new Collision(hash, newLeafs);
+    }
+
+    /** Return the new collision, the single leaf left or {@code this} if not changed. */
+    Object remove(Object key) {
+      int i = indexOf(key);
+      if (i < 0) {
+        return this;
+      }
+      if (leafs.length == 2) {
+        return leafs[1 - i];
+      }
+      Leaf[] newLeafs = new Leaf[leafs.length - 1];
+      System.arraycopy(leafs, 0, newLeafs, 0, i);
+      System.arraycopy(leafs, i + 1, newLeafs, i, newLeafs.length - i);
+      return new Collision(hash, newLeafs);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < leafs.length; ++i) {
+        if (key.equals(leafs[i].getKey())) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /** Depth-first iterator over all leafs in the trie. */
+  private static final class LeafIterator<K, V> implements Iterator<Entry<K, V>> {
+
+    private final Deque<Iterator<Object>> stack = new ArrayDeque<>();
+    private Leaf next;
+
+    LeafIterator(Node root) {
+      stack.push(Arrays.asList(root.slots).iterator());
+      next = findNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      var current = next;
+      next = findNext();
+      return (Entry<K, V>) (Entry<?, ?>) current;
+    }
+
+    private Leaf findNext() {
+      while (!stack.isEmpty()) {
+        var it = stack.peek();
+        if (!it.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        Object slot = it.next();
+        if (slot instanceof Node n) {
+          stack.push(Arrays.asList(n.slots).iterator());
+        } else if (slot instanceof Collision c) {
+          stack.push(Arrays.<Object>asList((Object[]) c.leafs).iterator());
+        } else {
+          return (Leaf) slot;
+        }
+      }
+      return null;
+    }
+  }
+}
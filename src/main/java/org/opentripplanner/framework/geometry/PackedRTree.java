@@ -0,0 +1,371 @@
+package org.opentripplanner.framework.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A static, packed R-tree. All objects are added with a {@link Builder} before the tree is built,
+ * the objects are sorted along a Hilbert curve and packed into nodes of {@link #NODE_SIZE}
+ * entries, level by level. The tree is stored in a few flat arrays:
+ * <ul>
+ *   <li>the bounding boxes of all nodes, as floats rounded outwards, leaves first and the root
+ *   last</li>
+ *   <li>the objects, in the same order as the leaves</li>
+ * </ul>
+ * The children of a node are stored next to each other, so the tree is navigated using int
+ * offsets, without any node objects or child pointers. Each object is stored once, so a query
+ * does not return duplicates, and the bounding box of each object is checked, so a query only
+ * returns false positives within the float rounding.
+ * <p>
+ * Objects can not be added after the tree is built, but they can be removed. This is intended for
+ * large indexes which are built once and mostly read, see {@link HashGridSpatialIndex} for an
+ * index supporting inserts.
+ * <p>
+ * Note: For performance reasons, remove is not synchronized, it must be taken care by the client.
+ * Read-only operation are multi-thread-safe.
+ *
+ * @param <T> Type of objects to be spatial indexed.
+ */
+public class PackedRTree<T> {
+
+  static final int NODE_SIZE = 16;
+
+  private static final int HILBERT_MAX = (1 << 16) - 1;
+
+  private static final PackedRTree<?> EMPTY = new PackedRTree<>(
+    new float[0],
+    new Object[0],
+    new int[] { 0 }
+  );
+
+  /** minX, minY, maxX, maxY for each node, the leaves first and the root last */
+  private final float[] boxes;
+
+  /** The indexed objects in the same order as the leaves, {@code null} if removed */
+  private final Object[] items;
+
+  /** The index of the first node after each level, the leaves are level 0 */
+  private final int[] levelEnds;
+
+  private int size;
+
+  private PackedRTree(float[] boxes, Object[] items, int[] levelEnds) {
+    this.boxes = boxes;
+    this.items = items;
+    this.levelEnds = levelEnds;
+    this.size = items.length;
+  }
+
+  public static <T> Builder<T> of() {
+    return new Builder<>();
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> PackedRTree<T> empty() {
+    return (PackedRTree<T>) EMPTY;
+  }
+
+  /**
+   * The number of objects in the index.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return the objects whose bounding box intersects with the given envelope. The returned list is
+   * modifiable.
+   */
+  public List<T> query(Envelope envelope) {
+    List<T> result = new ArrayList<>();
+    query(envelope, result::add);
+    return result;
+  }
+
+  /**
+   * Call the visitor for each object whose bounding box intersects with the given envelope.
+   */
+  @SuppressWarnings("unchecked")
+  public void query(Envelope envelope, Consumer<T> visitor) {
+    if (items.length == 0 || envelope.isNull()) {
+      return;
+    }
+    float minX = roundDown(envelope.getMinX());
+    float minY = roundDown(envelope.getMinY());
+    float maxX = roundUp(envelope.getMaxX());
+    float maxY = roundUp(envelope.getMaxY());
+
+    // Each entry is a node index and its level, the root is the last node
+    int[] stack = new int[2 * NODE_SIZE * levelEnds.length];
+    int top = 0;
+    stack[top++] = boxes.length / 4 - 1;
+    stack[top++] = levelEnds.length - 1;
+
+    while (top > 0) {
+      int level = stack[--top];
+      int node = stack[--top];
+      if (!intersects(node, minX, minY, maxX, maxY)) {
+        continue;
+      }
+      if (level == 0) {
+        Object item = items[node];
+        if (item != null) {
+          visitor.accept((T) item);
+        }
+        continue;
+      }
+      int firstChild = firstChild(node, level);
+      int end = Math.min(firstChild + NODE_SIZE, levelEnds[level - 1]);
+      for (int child = firstChild; child < end; ++child) {
+        stack[top++] = child;
+        stack[top++] = level - 1;
+      }
+    }
+  }
+
+  /**
+   * Remove the given object, the envelope must intersect with the envelope the object was added
+   * with. The node bounding boxes are not shrunk.
+   *
+   * @return {@code true} if the object was found and removed.
+   */
+  public boolean remove(Envelope envelope, Object item) {
+    if (items.length == 0) {
+      return false;
+    }
+    float minX = roundDown(envelope.getMinX());
+    float minY = roundDown(envelope.getMinY());
+    float maxX = roundUp(envelope.getMaxX());
+    float maxY = roundUp(envelope.getMaxY());
+
+    int[] stack = new int[2 * NODE_SIZE * levelEnds.length];
+    int top = 0;
+    stack[top++] = boxes.length / 4 - 1;
+    stack[top++] = levelEnds.length - 1;
+
+    while (top > 0) {
+      int level = stack[--top];
+      int node = stack[--top];
+      if (!intersects(node, minX, minY, maxX, maxY)) {
+        continue;
+      }
+      if (level == 0) {
+        if (items[node] == item) {
+          items[node] = null;
+          --size;
+          return true;
+        }
+        continue;
+      }
+      int firstChild = firstChild(node, level);
+      int end = Math.min(firstChild + NODE_SIZE, levelEnds[level - 1]);
+      for (int child = firstChild; child < end; ++child) {
+        stack[top++] = child;
+        stack[top++] = level - 1;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      Locale.ROOT,
+      "PackedRTree %d objs, %d nodes, %d levels",
+      size,
+      boxes.length / 4,
+      levelEnds.length
+    );
+  }
+
+  /**
+   * The Hilbert curve distance of the given point on a 2^16 x 2^16 grid. Ported from the
+   * "Fast Hilbert curve generation" algorithm by rawrunprotected, as used by the flatbush library.
+   */
+  static int hilbert(int x, int y) {
+    int a = x ^ y;
+    int b = 0xFFFF ^ a;
+    int c = 0xFFFF ^ (x | y);
+    int d = x & (y ^ 0xFFFF);
+
+    int A = a | (b >>> 1);
+    int B = (a >>> 1) ^ a;
+    int C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+    int D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    A = (a & (a >>> 2)) ^ (b & (b >>> 2));
+    B = (a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2));
+    C ^= (a & (c >>> 2)) ^ (b & (d >>> 2));
+    D ^= (b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2));
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    A = (a & (a >>> 4)) ^ (b & (b >>> 4));
+    B = (a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4));
+    C ^= (a & (c >>> 4)) ^ (b & (d >>> 4));
+    D ^= (b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4));
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    C ^= (a & (c >>> 8)) ^ (b & (d >>> 8));
+    D ^= (b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8));
+
+    a = C ^ (C >>> 1);
+    b = D ^ (D >>> 1);
+
+    int i0 = x ^ y;
+    int i1 = b | (0xFFFF ^ (i0 | a));
+
+    return (interleave(i1) << 1) | interleave(i0);
+  }
+
+  private int firstChild(int node, int level) {
+    int levelStart = levelEnds[level - 1];
+    int childLevelStart = level == 1 ? 0 : levelEnds[level - 2];
+    return childLevelStart + (node - levelStart) * NODE_SIZE;
+  }
+
+  private boolean intersects(int node, float minX, float minY, float maxX, float maxY) {
+    int i = 4 * node;
+    return !(
+      boxes[i] > maxX ||
+      boxes[i + 1] > maxY ||
+      boxes[i + 2] < minX ||
+      boxes[i + 3] < minY
+    );
+  }
+
+  private static int interleave(int x) {
+    x = (x | (x << 8)) & 0x00FF00FF;
+    x = (x | (x << 4)) & 0x0F0F0F0F;
+    x = (x | (x << 2)) & 0x33333333;
+    x = (x | (x << 1)) & 0x55555555;
+    return x;
+  }
+
+  private static float roundDown(double value) {
+    float f = (float) value;
+    return f > value ? Math.nextDown(f) : f;
+  }
+
+  private static float roundUp(double value) {
+    float f = (float) value;
+    return f < value ? Math.nextUp(f) : f;
+  }
+
+  /**
+   * Collect the objects and their bounding boxes, and build the tree. The builder is not
+   * thread-safe.
+   */
+  public static class Builder<T> {
+
+    private final List<Object> items = new ArrayList<>();
+    private double[] bounds = new double[64];
+    private final Envelope extent = new Envelope();
+
+    private Builder() {}
+
+    public Builder<T> add(Envelope envelope, T item) {
+      int i = 4 * items.size();
+      if (i + 4 > bounds.length) {
+        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+      }
+      bounds[i] = envelope.getMinX();
+      bounds[i + 1] = envelope.getMinY();
+      bounds[i + 2] = envelope.getMaxX();
+      bounds[i + 3] = envelope.getMaxY();
+      items.add(item);
+      extent.expandToInclude(envelope);
+      return this;
+    }
+
+    public int size() {
+      return items.size();
+    }
+
+    public PackedRTree<T> build() {
+      int n = items.size();
+      if (n == 0) {
+        return empty();
+      }
+
+      // Sort the objects by the Hilbert value of the center, the index is kept in the low bits
+      double width = extent.getWidth() == 0 ? 1 : extent.getWidth();
+      double height = extent.getHeight() == 0 ? 1 : extent.getHeight();
+      long[] keys = new long[n];
+      for (int i = 0; i < n; ++i) {
+        int b = 4 * i;
+        double cx = (bounds[b] + bounds[b + 2]) / 2;
+        double cy = (bounds[b + 1] + bounds[b + 3]) / 2;
+        int x = (int) Math.floor(HILBERT_MAX * (cx - extent.getMinX()) / width);
+        int y = (int) Math.floor(HILBERT_MAX * (cy - extent.getMinY()) / height);
+        keys[i] = ((hilbert(x, y) & 0xFFFFFFFFL) << 31) | i;
+      }
+      Arrays.sort(keys);
+
+      List<Integer> levelEnds = new ArrayList<>();
+      int numNodes = n;
+      int levelSize = n;
+      levelEnds.add(n);
+      while (levelSize > 1) {
+        levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+        numNodes += levelSize;
+        levelEnds.add(numNodes);
+      }
+
+      float[] boxes = new float[4 * numNodes];
+      Object[] sortedItems = new Object[n];
+      for (int leaf = 0; leaf < n; ++leaf) {
+        int i = (int) (keys[leaf] & Integer.MAX_VALUE);
+        sortedItems[leaf] = items.get(i);
+        boxes[4 * leaf] = roundDown(bounds[4 * i]);
+        boxes[4 * leaf + 1] = roundDown(bounds[4 * i + 1]);
+        boxes[4 * leaf + 2] = roundUp(bounds[4 * i + 2]);
+        boxes[4 * leaf + 3] = roundUp(bounds[4 * i + 3]);
+      }
+
+      // Each parent node covers NODE_SIZE consecutive nodes on the level below
+      int childStart = 0;
+      for (int level = 1; level < levelEnds.size(); ++level) {
+        int childEnd = levelEnds.get(level - 1);
+        int node = childEnd;
+        for (int child = childStart; child < childEnd; child += NODE_SIZE, ++node) {
+          int end = Math.min(child + NODE_SIZE, childEnd);
+          float minX = Float.POSITIVE_INFINITY;
+          float minY = Float.POSITIVE_INFINITY;
+          float maxX = Float.NEGATIVE_INFINITY;
+          float maxY = Float.NEGATIVE_INFINITY;
+          for (int c = child; c < end; ++c) {
+            minX = Math.min(minX, boxes[4 * c]);
+            minY = Math.min(minY, boxes[4 * c + 1]);
+            maxX = Math.max(maxX, boxes[4 * c + 2]);
+            maxY = Math.max(maxY, boxes[4 * c + 3]);
+          }
+          boxes[4 * node] = minX;
+          boxes[4 * node + 1] = minY;
+          boxes[4 * node + 2] = maxX;
+          boxes[4 * node + 3] = maxY;
+        }
+        childStart = childEnd;
+      }
+
+      return new PackedRTree<>(
+        boxes,
+        sortedItems,
+        levelEnds.stream().mapToInt(Integer::intValue).toArray()
+      );
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package org.opentripplanner.framework.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read a file sequentially using memory-mapped segments instead of read system calls. Java can
+ * only map 2 GB in one buffer, so large files are mapped one segment at the time.
+ * <p>
+ * This is a small I/O optimization for large files read once from start to end, like the
+ * serialized graph. It does not change how the content is decoded; everything read is still
+ * copied onto the heap by the caller.
+ */
+public class MemoryMappedInputStream extends InputStream {
+
+  /** Map 1 GB at the time, well below the 2 GB limit of a {@link MappedByteBuffer}. */
+  private static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long segmentSize;
+
+  /** The start position in the file of the current segment */
+  private long segmentStart = 0;
+  private MappedByteBuffer segment;
+
+  public MemoryMappedInputStream(File file) throws IOException {
+    this(file, DEFAULT_SEGMENT_SIZE);
+  }
+
+  MemoryMappedInputStream(File file, long segmentSize) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.size = channel.size();
+    this.segmentSize = segmentSize;
+    this.segment = map(0);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!hasRemaining()) {
+      return -1;
+    }
+    return segment.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(len, segment.remaining());
+    segment.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && hasRemaining()) {
+      int step = (int) Math.min(n - skipped, segment.remaining());
+      segment.position(segment.position() + step);
+      skipped += step;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return segment == null ? 0 : segment.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // The mapped buffer is released by the garbage collector
+    segment = null;
+    channel.close();
+  }
+
+  /* private methods */
+
+  /**
+   * Return {@code true} if there is more data to read, map the next segment if the current is
+   * fully read.
+   */
+  private boolean hasRemaining() throws IOException {
+    if (segment == null) {
+      throw new IOException("Stream closed");
+    }
+    if (segment.hasRemaining()) {
+      return true;
+    }
+    long nextStart = segmentStart + segment.capacity();
+    if (nextStart >= size) {
+      return false;
+    }
+    segment = map(nextStart);
+    segmentStart = nextStart;
+    return true;
+  }
+
+  private MappedByteBuffer map(long start) throws IOException {
+    long length = Math.min(segmentSize, size - start);
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+  }
+}
@@ -20,13 +20,15 @@ import org.opentripplanner.graph_builder.module.configure.DaggerGraphBuilderFact
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.service.worldenvelope.WorldEnvelopeRepository;
 import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.transit.service.TransitModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This makes a Graph out of various inputs like GTFS and OSM. It is modular: GraphBuilderModules
- * are placed in a list and run in sequence.
+ * are placed in a list and run in sequence. If the {@link OTPFeature#ParallelGraphBuild} is
+ * enabled, independent modules are run concurrently, see {@link GraphBuilderModuleScheduler}.
  */
 public class GraphBuilder implements Runnable {
 
@@ -56,6 +58,7 @@ public class GraphBuilder implements Runnable {
    */
   public static GraphBuilder create(
     BuildConfig config,
+    RouterConfig routerConfig,
     GraphBuilderDataSources dataSources,
     Graph graph,
     TransitModel transitModel,
@@ -74,6 +77,7 @@ public class GraphBuilder implements Runnable {
     var factory = DaggerGraphBuilderFactory
       .builder()
       .config(config)
+      .routerConfig(routerConfig)
       .graph(graph)
       .transitModel(transitModel)
       .worldEnvelopeRepository(worldEnvelopeRepository)
@@ -158,6 +162,15 @@ public class GraphBuilder implements Runnable {
 
     graphBuilder.addModule(factory.calculateWorldEnvelopeModule());
 
+    // Pre-render the vector tiles last, when the graph and transit model are complete
+    if (
+      hasTransitData &&
+      OTPFeature.SandboxAPIMapboxVectorTilesApi.isOn() &&
+      config.vectorTilePyramidMaxZoom > 0
+    ) {
+      graphBuilder.addModule(factory.vectorTilePyramidModule());
+    }
+
     return graphBuilder;
   }
 
@@ -171,9 +184,12 @@ public class GraphBuilder implements Runnable {
       builder.checkInputs();
     }
 
-    for (GraphBuilderModule load : graphBuilderModules) {
-      load.buildGraph();
-    }
+    var runs = new GraphBuilderModuleScheduler(
+      graphBuilderModules,
+      OTPFeature.ParallelGraphBuild.isOn()
+    )
+      .run();
+    GraphBuilderModuleScheduler.logReport(runs);
 
     new SummarizeDataImportIssues(issueStore.listIssues()).summarize();
 
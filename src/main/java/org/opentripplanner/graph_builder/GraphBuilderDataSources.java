@@ -206,6 +206,10 @@ public class GraphBuilderDataSources {
     return cacheDirectory;
   }
 
+  public File getBaseDirectory() {
+    return baseDirectory;
+  }
+
   /* private methods */
 
   private boolean hasOneOf(FileType... types) {
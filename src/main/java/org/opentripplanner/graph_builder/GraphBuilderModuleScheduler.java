@@ -0,0 +1,234 @@
+package org.opentripplanner.graph_builder;
+
+import static org.opentripplanner.framework.text.Table.Align.Left;
+import static org.opentripplanner.framework.text.Table.Align.Right;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opentripplanner.framework.text.FileSizeToTextConverter;
+import org.opentripplanner.framework.text.Table;
+import org.opentripplanner.framework.time.DurationUtils;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run the graph builder modules, and measure the wall time, CPU time and peak heap of each module.
+ * <p>
+ * If parallel is enabled, each module is run as soon as the modules added before it, which it
+ * depends on, are complete. A module depends on another module if one of them writes a
+ * {@link GraphBuilderResource} the other reads or writes. Modules which do not declare any
+ * resources read and write everything, so they run alone, in the order they are added. If a
+ * module fails, the modules depending on it are not run, and the exception is thrown when the
+ * running modules are complete.
+ * <p>
+ * The CPU time is the CPU time of the process while the module is running, including the work
+ * done in other threads, and the peak heap is the highest heap usage sampled while the module is
+ * running. For modules running concurrently, these include the work and memory of the other
+ * modules.
+ */
+class GraphBuilderModuleScheduler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GraphBuilderModuleScheduler.class);
+
+  private static final long HEAP_SAMPLE_INTERVAL_MS = 100;
+
+  private final List<GraphBuilderModule> modules;
+  private final boolean parallel;
+  private final Set<Measurement> running = ConcurrentHashMap.newKeySet();
+  private final long startTime = System.nanoTime();
+
+  GraphBuilderModuleScheduler(List<GraphBuilderModule> modules, boolean parallel) {
+    this.modules = List.copyOf(modules);
+    this.parallel = parallel;
+  }
+
+  /**
+   * For each module, the index of the modules added before it which it depends on.
+   */
+  static List<List<Integer>> dependencies(List<GraphBuilderModule> modules) {
+    List<List<Integer>> result = new ArrayList<>();
+    for (int i = 0; i < modules.size(); ++i) {
+      List<Integer> dependencies = new ArrayList<>();
+      for (int j = 0; j < i; ++j) {
+        if (conflicts(modules.get(j), modules.get(i))) {
+          dependencies.add(j);
+        }
+      }
+      result.add(List.copyOf(dependencies));
+    }
+    return result;
+  }
+
+  /**
+   * Run all modules, and return the measurements in the order the modules are added.
+   */
+  List<ModuleRun> run() {
+    var heapSampler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("GraphBuilderHeapSampler").setDaemon(true).build()
+    );
+    heapSampler.scheduleAtFixedRate(
+      this::sampleHeap,
+      HEAP_SAMPLE_INTERVAL_MS,
+      HEAP_SAMPLE_INTERVAL_MS,
+      TimeUnit.MILLISECONDS
+    );
+    try {
+      return parallel ? runParallel() : runSequential();
+    } finally {
+      heapSampler.shutdownNow();
+    }
+  }
+
+  /**
+   * Log a table with the measurements of each module.
+   */
+  static void logReport(List<ModuleRun> runs) {
+    var table = Table
+      .of()
+      .withAlights(Left, Right, Right, Right, Right)
+      .withHeaders("Module", "Start", "Wall time", "CPU time", "Peak heap");
+    for (ModuleRun it : runs) {
+      table.addRow(
+        it.module(),
+        DurationUtils.durationToStr(it.start()),
+        DurationUtils.durationToStr(it.wallTime()),
+        it.cpuTime() == null ? "-" : DurationUtils.durationToStr(it.cpuTime()),
+        FileSizeToTextConverter.fileSizeToString(it.peakHeapBytes())
+      );
+    }
+    LOG.info("Graph build modules:\n{}", String.join("\n", table.build().toTextRows()));
+  }
+
+  private List<ModuleRun> runSequential() {
+    List<ModuleRun> result = new ArrayList<>();
+    for (GraphBuilderModule module : modules) {
+      result.add(runModule(module));
+    }
+    return result;
+  }
+
+  private List<ModuleRun> runParallel() {
+    var dependencies = dependencies(modules);
+    ExecutorService executor = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("GraphBuilder-%d").build()
+    );
+    try {
+      List<CompletableFuture<ModuleRun>> futures = new ArrayList<>();
+      for (int i = 0; i < modules.size(); ++i) {
+        var module = modules.get(i);
+        var after = dependencies
+          .get(i)
+          .stream()
+          .map(futures::get)
+          .toArray(CompletableFuture[]::new);
+        futures.add(
+          CompletableFuture.allOf(after).thenApplyAsync(it -> runModule(module), executor)
+        );
+      }
+      try {
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException re) {
+          throw re;
+        }
+        throw e;
+      }
+      return futures.stream().map(CompletableFuture::join).toList();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private ModuleRun runModule(GraphBuilderModule module) {
+    var measurement = new Measurement();
+    running.add(measurement);
+    try {
+      module.buildGraph();
+    } finally {
+      running.remove(measurement);
+    }
+    return measurement.complete(module.getClass().getSimpleName());
+  }
+
+  private void sampleHeap() {
+    long used = usedHeap();
+    for (Measurement it : running) {
+      it.peakHeap.accumulateAndGet(used, Math::max);
+    }
+  }
+
+  private static boolean conflicts(GraphBuilderModule a, GraphBuilderModule b) {
+    return (
+      intersects(a.writes(), b.writes()) ||
+      intersects(a.writes(), b.reads()) ||
+      intersects(a.reads(), b.writes())
+    );
+  }
+
+  private static boolean intersects(Set<GraphBuilderResource> a, Set<GraphBuilderResource> b) {
+    return !Collections.disjoint(a, b);
+  }
+
+  private static long usedHeap() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * The CPU time used by the process in nanoseconds, or -1 if not supported by the JVM.
+   */
+  private static long processCpuTime() {
+    if (
+      ManagementFactory.getOperatingSystemMXBean() instanceof
+        com.sun.management.OperatingSystemMXBean os
+    ) {
+      return os.getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  /**
+   * @param start   The time from the first module was started until this module was started.
+   * @param cpuTime The CPU time of the process while the module was running, {@code null} if not
+   *                supported by the JVM.
+   */
+  record ModuleRun(
+    String module,
+    Duration start,
+    Duration wallTime,
+    Duration cpuTime,
+    long peakHeapBytes
+  ) {}
+
+  private class Measurement {
+
+    private final long wallStart = System.nanoTime();
+    private final long cpuStart = processCpuTime();
+    private final AtomicLong peakHeap = new AtomicLong(usedHeap());
+
+    ModuleRun complete(String module) {
+      long cpuEnd = processCpuTime();
+      peakHeap.accumulateAndGet(usedHeap(), Math::max);
+      return new ModuleRun(
+        module,
+        Duration.ofNanos(wallStart - startTime),
+        Duration.ofNanos(System.nanoTime() - wallStart),
+        cpuStart < 0 || cpuEnd < 0 ? null : Duration.ofNanos(cpuEnd - cpuStart),
+        peakHeap.get()
+      );
+    }
+  }
+}
@@ -2,6 +2,7 @@ package org.opentripplanner.graph_builder.issue.service;
 
 import jakarta.inject.Singleton;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssue;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
@@ -14,7 +15,8 @@ public class DefaultDataImportIssueStore implements DataImportIssueStore {
 
   private static final Logger ISSUE_LOG = LoggerFactory.getLogger(ISSUES_LOG_NAME);
 
-  private final List<DataImportIssue> issues = new ArrayList<>();
+  /** Synchronized, graph build modules may run concurrently */
+  private final List<DataImportIssue> issues = Collections.synchronizedList(new ArrayList<>());
 
   public DefaultDataImportIssueStore() {}
 
@@ -1,5 +1,7 @@
 package org.opentripplanner.graph_builder.model;
 
+import java.util.Set;
+
 /** Modules that add elements to a graph. These are plugins to the GraphBuilder. */
 public interface GraphBuilderModule {
   /**
@@ -10,4 +12,24 @@ public interface GraphBuilderModule {
 
   /** Check that all inputs to the graphbuilder are valid; throw an exception if not. */
   void checkInputs();
+
+  /**
+   * The parts of the model read by this module, see {@link #writes()}. The default is everything.
+   */
+  default Set<GraphBuilderResource> reads() {
+    return GraphBuilderResource.ALL;
+  }
+
+  /**
+   * The parts of the model changed by this module. If parallel graph building is enabled, a
+   * module is run as soon as all modules added before it, which write something this module
+   * reads or writes, or read something this module writes, are complete.
+   * <p>
+   * The default is everything, so the module is not run concurrently with any other module.
+   * Override both methods to declare a module independent of other modules. The issue store is
+   * thread-safe, and is not included.
+   */
+  default Set<GraphBuilderResource> writes() {
+    return GraphBuilderResource.ALL;
+  }
 }
@@ -0,0 +1,35 @@
+package org.opentripplanner.graph_builder.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The parts of the graph and transit model a {@link GraphBuilderModule} reads or writes. This is
+ * used to find the modules which are independent, and can run concurrently.
+ */
+public enum GraphBuilderResource {
+  /**
+   * The street vertices and edges in the graph, including the links between the streets and the
+   * transit vertices, and the street index.
+   */
+  STREETS,
+  /**
+   * The transit vertices and edges in the graph: stops, entrances, pathway nodes, boarding areas
+   * and the pathway and elevator edges between them. They are stored in the same graph as the
+   * streets, but adding vertices to the graph and edges to a vertex is thread-safe, and the street
+   * modules skip vertices and edges which are not street vertices and edges. So a module adding
+   * transit vertices and edges can run at the same time as a module building the streets.
+   */
+  TRANSIT_GRAPH,
+  /** The transit model, and the graph deduplicator used when importing transit data. */
+  TRANSIT,
+  /** The fare service in the graph. */
+  FARES,
+  /** The vehicle parking service in the graph. */
+  VEHICLE_PARKING;
+
+  public static final Set<GraphBuilderResource> ALL = Collections.unmodifiableSet(
+    EnumSet.allOf(GraphBuilderResource.class)
+  );
+}
@@ -2,18 +2,36 @@ package org.opentripplanner.graph_builder.module;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
+import java.io.File;
+import java.io.IOException;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.opentripplanner.framework.application.OTPFeature;
+import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.StopNotLinkedForTransfers;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.model.PathTransfer;
 import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.BikePreferences;
+import org.opentripplanner.routing.api.request.preference.CarPreferences;
+import org.opentripplanner.routing.api.request.preference.StreetPreferences;
+import org.opentripplanner.routing.api.request.preference.WalkPreferences;
+import org.opentripplanner.routing.api.request.preference.WheelchairPreferences;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
@@ -34,9 +52,16 @@ import org.slf4j.LoggerFactory;
  * <p>
  * It will use the street network if OSM data has already been loaded into the graph. Otherwise it
  * will use straight-line distance between stops.
+ * <p>
+ * Transfer profiles which result in the same street search are only searched once for each stop.
+ * If a nearby stop cache file is given, the street searches from each stop are saved in it, and
+ * reused in the next build for the stops which are not changed, if the street graph is the same.
+ * This is the case when the transit data is built on a saved street graph.
  */
 public class DirectTransferGenerator implements GraphBuilderModule {
 
+  public static final String NEARBY_STOP_CACHE_FILENAME = "nearbyStops.bin";
+
   private static final Logger LOG = LoggerFactory.getLogger(DirectTransferGenerator.class);
 
   private final Duration radiusByDuration;
@@ -45,6 +70,7 @@ public class DirectTransferGenerator implements GraphBuilderModule {
   private final Graph graph;
   private final TransitModel transitModel;
   private final DataImportIssueStore issueStore;
+  private final File nearbyStopCacheFile;
 
   public DirectTransferGenerator(
     Graph graph,
@@ -52,12 +78,29 @@ public class DirectTransferGenerator implements GraphBuilderModule {
     DataImportIssueStore issueStore,
     Duration radiusByDuration,
     List<RouteRequest> transferRequests
+  ) {
+    this(graph, transitModel, issueStore, radiusByDuration, transferRequests, null);
+  }
+
+  /**
+   * @param nearbyStopCacheFile the file with the street searches of the previous build, and where
+   *                            the searches of this build are saved. If {@code null}, all stops
+   *                            are searched.
+   */
+  public DirectTransferGenerator(
+    Graph graph,
+    TransitModel transitModel,
+    DataImportIssueStore issueStore,
+    Duration radiusByDuration,
+    List<RouteRequest> transferRequests,
+    File nearbyStopCacheFile
   ) {
     this.graph = graph;
     this.transitModel = transitModel;
     this.issueStore = issueStore;
     this.radiusByDuration = radiusByDuration;
     this.transferRequests = transferRequests;
+    this.nearbyStopCacheFile = nearbyStopCacheFile;
   }
 
   @Override
@@ -84,6 +127,32 @@ public class DirectTransferGenerator implements GraphBuilderModule {
 
     List<TransitStopVertex> stops = graph.getVerticesOfType(TransitStopVertex.class);
 
+    List<RouteRequest> profiles = distinctTransferProfiles(nearbyStopFinder.useStreets);
+    if (profiles.size() < transferRequests.size()) {
+      LOG.info(
+        "{} of {} transfer profiles result in the same street search as another profile.",
+        transferRequests.size() - profiles.size(),
+        transferRequests.size()
+      );
+    }
+
+    Map<String, StopLocation> stopsById = new HashMap<>();
+    stops.forEach(it -> stopsById.put(it.getStop().getId().toString(), it.getStop()));
+
+    boolean useCache = nearbyStopCacheFile != null && isCacheSupported(nearbyStopFinder, profiles);
+    String cacheKey = useCache ? cacheKey(profiles) : null;
+    NearbyStopCache previousSearches = useCache ? readCache(cacheKey) : null;
+    List<NearbyStopCache.ElementEntry> elements = useCache
+      ? NearbyStopCache.encodeElements(graph.getVertices())
+      : null;
+    Set<StopLocation> unchangedStops = previousSearches == null
+      ? Set.of()
+      : findUnchangedStops(previousSearches, stops, elements, profiles);
+    Map<String, NearbyStopCache.StopEntry> searchesToCache = useCache
+      ? new ConcurrentHashMap<>()
+      : null;
+    AtomicInteger nReusedStops = new AtomicInteger();
+
     ProgressTracker progress = ProgressTracker.track(
       "Create transfer edges for stops",
       1000,
@@ -108,19 +177,46 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         RegularStop stop = ts0.getStop();
 
         if (stop.transfersNotAllowed()) {
+          if (searchesToCache != null) {
+            // Cache the stop without searches, so it is not seen as a new stop in the next build
+            searchesToCache.put(stop.getId().toString(), NearbyStopCache.encode(stop, List.of()));
+          }
           return;
         }
 
         LOG.debug("Linking stop '{}' {}", stop, ts0);
 
-        for (RouteRequest transferProfile : transferRequests) {
-          for (NearbyStop sd : findNearbyStops(
-            nearbyStopFinder,
-            ts0,
-            transferProfile,
-            transferProfile.journey().transfer(),
-            false
-          )) {
+        List<List<NearbyStop>> searches = null;
+        if (unchangedStops.contains(stop)) {
+          var entry = previousSearches.get(stop);
+          var initialStates = profiles
+            .stream()
+            .map(it -> nearbyStopFinder.createInitialState(ts0, it, it.journey().transfer()))
+            .toList();
+          searches = NearbyStopCache.decode(entry, initialStates, stopsById::get);
+          if (searches != null) {
+            searchesToCache.put(entry.stopId(), entry);
+            nReusedStops.incrementAndGet();
+          }
+        }
+        if (searches == null) {
+          searches =
+            profiles
+              .stream()
+              .map(it ->
+                nearbyStopFinder.findNearbyStops(ts0, it, it.journey().transfer(), false)
+              )
+              .toList();
+          if (searchesToCache != null) {
+            searchesToCache.put(stop.getId().toString(), NearbyStopCache.encode(stop, searches));
+          }
+        }
+
+        for (int i = 0; i < profiles.size(); ++i) {
+          RouteRequest transferProfile = profiles.get(i);
+          for (NearbyStop sd : OTPFeature.ConsiderPatternsForDirectTransfers.isOn()
+            ? nearbyStopFinder.closestStopsOnPatterns(searches.get(i), false)
+            : searches.get(i)) {
             // Skip the origin stop, loop transfers are not needed.
             if (sd.stop == stop) {
               continue;
@@ -186,6 +282,32 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       nTransfersTotal,
       nLinkedStops
     );
+
+    if (searchesToCache != null) {
+      LOG.info(
+        "Reused the street searches of the previous build for {} of {} stops.",
+        nReusedStops,
+        stops.size()
+      );
+      writeCache(cacheKey, searchesToCache.values(), elements);
+    }
+  }
+
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(
+      GraphBuilderResource.STREETS,
+      GraphBuilderResource.TRANSIT_GRAPH,
+      GraphBuilderResource.TRANSIT
+    );
+  }
+
+  /**
+   * The transfers are added to the transit model, the graph is only searched.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of(GraphBuilderResource.TRANSIT);
   }
 
   @Override
@@ -210,5 +332,191 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       : nearbyStopFinder.findNearbyStops(vertex, request, streetRequest, reverseDirection);
   }
 
+  /**
+   * Remove the transfer profiles which result in the same street search as a profile before it.
+   * Without streets, the search is the same for all profiles.
+   */
+  private List<RouteRequest> distinctTransferProfiles(boolean useStreets) {
+    if (!useStreets) {
+      return transferRequests.isEmpty() ? List.of() : List.of(transferRequests.get(0));
+    }
+    Map<TransferProfileKey, RouteRequest> profiles = new LinkedHashMap<>();
+    for (RouteRequest it : transferRequests) {
+      profiles.putIfAbsent(TransferProfileKey.of(it), it);
+    }
+    return List.copyOf(profiles.values());
+  }
+
+  /**
+   * The searches can only be reused if they only depend on the street graph and the location of
+   * the stops. The searches for flex, and the heuristics used when driving, depend on the transit
+   * data. Driving searches reach too far for any stop to be unchanged.
+   */
+  private static boolean isCacheSupported(NearbyStopFinder finder, List<RouteRequest> profiles) {
+    if (
+      !finder.useStreets ||
+      OTPFeature.FlexRouting.isOn() ||
+      OTPFeature.VehicleToStopHeuristics.isOn()
+    ) {
+      return false;
+    }
+    return profiles
+      .stream()
+      .map(it -> it.journey().transfer().mode())
+      .noneMatch(it -> it.includesDriving() || it.includesRenting() || it.includesParking());
+  }
+
+  /**
+   * The street graph is identified by the time it was built, it is not changed when the transit
+   * data is built on a saved street graph.
+   */
+  private String cacheKey(List<RouteRequest> profiles) {
+    return (
+      graph.buildTime +
+      ";" +
+      radiusByDuration +
+      ";" +
+      profiles.stream().map(TransferProfileKey::of).map(Record::toString).toList()
+    );
+  }
+
+  private NearbyStopCache readCache(String key) {
+    try {
+      var cache = NearbyStopCache.read(nearbyStopCacheFile, key);
+      if (cache == null) {
+        LOG.info("No nearby stop searches from a build with the same street graph were found.");
+      }
+      return cache;
+    } catch (IOException e) {
+      LOG.warn("Unable to read nearby stops from {}: {}", nearbyStopCacheFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private void writeCache(
+    String key,
+    Collection<NearbyStopCache.StopEntry> entries,
+    Collection<NearbyStopCache.ElementEntry> elements
+  ) {
+    try {
+      NearbyStopCache.write(nearbyStopCacheFile, key, entries, elements);
+    } catch (IOException e) {
+      LOG.error("Unable to save nearby stops to {}: {}", nearbyStopCacheFile, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Find the stops with the same location as in the previous build, and with no added, moved or
+   * removed stops, or added, removed or changed station elements, within the distance they can
+   * reach. The searches from these stops have the same result as in the previous build.
+   */
+  private Set<StopLocation> findUnchangedStops(
+    NearbyStopCache previous,
+    List<TransitStopVertex> stops,
+    List<NearbyStopCache.ElementEntry> elements,
+    List<RouteRequest> profiles
+  ) {
+    double maxSpeed = 0;
+    for (RouteRequest it : profiles) {
+      maxSpeed = Math.max(maxSpeed, it.preferences().walk().speed());
+      if (it.journey().transfer().mode().includesBiking()) {
+        maxSpeed = Math.max(maxSpeed, it.preferences().bike().speed());
+      }
+    }
+    double maxDistance = radiusByDuration.toSeconds() * maxSpeed;
+
+    HashGridSpatialIndex<Coordinate> changedLocations = new HashGridSpatialIndex<>();
+    Set<String> currentStopIds = new HashSet<>();
+    Set<StopLocation> candidates = new HashSet<>();
+    for (TransitStopVertex it : stops) {
+      StopLocation stop = it.getStop();
+      currentStopIds.add(stop.getId().toString());
+      var entry = previous.get(stop);
+      if (entry != null && entry.isSameStop(stop)) {
+        candidates.add(stop);
+      } else {
+        addLocation(changedLocations, stop.getLat(), stop.getLon());
+        if (entry != null) {
+          addLocation(changedLocations, entry.lat(), entry.lon());
+        }
+      }
+    }
+    for (NearbyStopCache.StopEntry it : previous.entries()) {
+      if (!currentStopIds.contains(it.stopId())) {
+        addLocation(changedLocations, it.lat(), it.lon());
+      }
+    }
+    Set<String> currentElements = new HashSet<>();
+    for (NearbyStopCache.ElementEntry it : elements) {
+      currentElements.add(it.label());
+      var entry = previous.getElement(it.label());
+      if (entry == null || !entry.isSameElement(it)) {
+        addLocation(changedLocations, it.lat(), it.lon());
+        if (entry != null) {
+          addLocation(changedLocations, entry.lat(), entry.lon());
+        }
+      }
+    }
+    for (NearbyStopCache.ElementEntry it : previous.elements()) {
+      if (!currentElements.contains(it.label())) {
+        addLocation(changedLocations, it.lat(), it.lon());
+      }
+    }
+
+    Set<StopLocation> result = new HashSet<>();
+    for (StopLocation stop : candidates) {
+      var envelope = SphericalDistanceLibrary.bounds(
+        stop.getLat(),
+        stop.getLon(),
+        maxDistance,
+        maxDistance
+      );
+      if (changedLocations.query(envelope).isEmpty()) {
+        result.add(stop);
+      }
+    }
+    return result;
+  }
+
+  private static void addLocation(HashGridSpatialIndex<Coordinate> index, double lat, double lon) {
+    var c = new Coordinate(lon, lat);
+    index.insert(new Envelope(c), c);
+  }
+
   private record TransferKey(StopLocation source, StopLocation target, List<Edge> edges) {}
+
+  /**
+   * The parts of a transfer profile used by the street search. The preferences are value objects,
+   * so profiles with the same values have the same key.
+   */
+  private record TransferProfileKey(
+    StreetMode mode,
+    boolean wheelchair,
+    WalkPreferences walk,
+    BikePreferences bike,
+    CarPreferences car,
+    StreetPreferences street,
+    WheelchairPreferences wheelchairPreferences,
+    RouteRequest vehicleRequest
+  ) {
+    static TransferProfileKey of(RouteRequest request) {
+      StreetMode mode = request.journey().transfer().mode();
+      var preferences = request.preferences();
+      return new TransferProfileKey(
+        mode,
+        request.wheelchair(),
+        preferences.walk(),
+        preferences.bike(),
+        preferences.car(),
+        preferences.street(),
+        preferences.wheelchair(),
+        // The rental and parking requests, and the heuristics, are not compared
+        mode.includesRenting() ||
+        mode.includesParking() ||
+        OTPFeature.VehicleToStopHeuristics.isOn()
+          ? request
+          : null
+      );
+    }
+  }
 }
@@ -1,8 +1,10 @@
 package org.opentripplanner.graph_builder.module;
 
 import jakarta.inject.Inject;
+import java.util.Set;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.vertex.Vertex;
@@ -59,6 +61,19 @@ public class GraphCoherencyCheckerModule implements GraphBuilderModule {
     LOG.info("edge lists and from/to members are {}coherent.", coherent ? "" : "not ");
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.STREETS, GraphBuilderResource.TRANSIT_GRAPH);
+  }
+
+  /**
+   * The problems found are only reported to the issue store.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of();
+  }
+
   @Override
   public void checkInputs() {
     //No inputs other than the graph itself
@@ -0,0 +1,440 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.ElevatorHopEdge;
+import org.opentripplanner.street.model.edge.PathwayEdge;
+import org.opentripplanner.street.model.edge.WheelchairTraversalInformation;
+import org.opentripplanner.street.model.vertex.ElevatorOffboardVertex;
+import org.opentripplanner.street.model.vertex.ElevatorOnboardVertex;
+import org.opentripplanner.street.model.vertex.SplitterVertex;
+import org.opentripplanner.street.model.vertex.StationElementVertex;
+import org.opentripplanner.street.model.vertex.TransitBoardingAreaVertex;
+import org.opentripplanner.street.model.vertex.TransitEntranceVertex;
+import org.opentripplanner.street.model.vertex.TransitPathwayNodeVertex;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * The result of the nearby stop searches of the {@link DirectTransferGenerator} from the previous
+ * graph build, used to avoid searching again from the stops which are not changed.
+ * <p>
+ * The searches of one stop are encoded as a tree of the edges of the paths to the nearby stops,
+ * since the paths share most of their edges. An edge is identified by the label of the vertex it
+ * leads to, or by the coordinate for the vertices created when the stops are linked to the
+ * streets, since the labels of these depend on the order the stops are linked in. When the
+ * searches are decoded, each edge is looked up in the outgoing edges of the previous vertex, if an
+ * edge no longer exists the stop must be searched again. The edges are traversed again, and the
+ * weight of the path to each stop must be the same as in the previous build.
+ * <p>
+ * The vertices created from the station elements of the transit data, like the pathway nodes,
+ * entrances and boarding areas, are saved with a hash of their attributes and the attributes of
+ * their outgoing edges. The stops near the station elements which are added, removed or changed
+ * are searched again, since the pathways may give them other paths.
+ * <p>
+ * The cache is only valid for the same street graph, search parameters and transfer profiles,
+ * this is identified by a key given by the caller. This class is thread-safe.
+ */
+class NearbyStopCache {
+
+  private static final int VERSION = 2;
+
+  /** The tolerance used when comparing the coordinates of vertices, about 1 cm. */
+  private static final double COORDINATE_EPSILON = 1e-7;
+
+  /** The tolerance used when comparing the length of edges. */
+  private static final double DISTANCE_EPSILON = 0.01;
+
+  /** The tolerance used when comparing the weight of paths. */
+  private static final double WEIGHT_EPSILON = 1e-6;
+
+  private final Map<String, StopEntry> stops;
+  private final Map<String, ElementEntry> elements;
+
+  private NearbyStopCache(Map<String, StopEntry> stops, Map<String, ElementEntry> elements) {
+    this.stops = stops;
+    this.elements = elements;
+  }
+
+  /**
+   * Read the cache from the file, return {@code null} if the file does not exist or was written
+   * with another key.
+   */
+  static NearbyStopCache read(File file, String key) throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+    try (
+      var in = new DataInputStream(
+        new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))
+      )
+    ) {
+      if (in.readInt() != VERSION || !in.readUTF().equals(key)) {
+        return null;
+      }
+      int size = in.readInt();
+      Map<String, StopEntry> stops = new HashMap<>(size);
+      for (int i = 0; i < size; ++i) {
+        var entry = new StopEntry(
+          in.readUTF(),
+          in.readDouble(),
+          in.readDouble(),
+          in.readUTF(),
+          in.readNBytes(in.readInt())
+        );
+        stops.put(entry.stopId(), entry);
+      }
+      size = in.readInt();
+      Map<String, ElementEntry> elements = new HashMap<>(size);
+      for (int i = 0; i < size; ++i) {
+        var entry = new ElementEntry(in.readUTF(), in.readDouble(), in.readDouble(), in.readInt());
+        elements.put(entry.label(), entry);
+      }
+      return new NearbyStopCache(stops, elements);
+    }
+  }
+
+  static void write(
+    File file,
+    String key,
+    Collection<StopEntry> stops,
+    Collection<ElementEntry> elements
+  ) throws IOException {
+    try (
+      var out = new DataOutputStream(
+        new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))
+      )
+    ) {
+      out.writeInt(VERSION);
+      out.writeUTF(key);
+      out.writeInt(stops.size());
+      for (StopEntry it : stops) {
+        out.writeUTF(it.stopId());
+        out.writeDouble(it.lat());
+        out.writeDouble(it.lon());
+        out.writeUTF(it.code());
+        out.writeInt(it.searches().length);
+        out.write(it.searches());
+      }
+      out.writeInt(elements.size());
+      for (ElementEntry it : elements) {
+        out.writeUTF(it.label());
+        out.writeDouble(it.lat());
+        out.writeDouble(it.lon());
+        out.writeInt(it.attributes());
+      }
+    }
+  }
+
+  /**
+   * Encode the result of the forward searches from a stop, one list of nearby stops per search.
+   */
+  static StopEntry encode(RegularStop stop, List<List<NearbyStop>> searches) {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new DataOutputStream(bytes)) {
+      out.writeInt(searches.size());
+      for (List<NearbyStop> search : searches) {
+        encodeSearch(search, out);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new StopEntry(
+      stop.getId().toString(),
+      stop.getLat(),
+      stop.getLon(),
+      Objects.requireNonNullElse(stop.getCode(), ""),
+      bytes.toByteArray()
+    );
+  }
+
+  /**
+   * Encode the station element vertices of the graph, the pathway nodes, entrances, boarding areas
+   * and stops, and the elevator vertices created from the pathways.
+   */
+  static List<ElementEntry> encodeElements(Collection<Vertex> vertices) {
+    List<ElementEntry> result = new ArrayList<>();
+    for (Vertex it : vertices) {
+      if (
+        it instanceof StationElementVertex ||
+        it instanceof ElevatorOffboardVertex ||
+        it instanceof ElevatorOnboardVertex
+      ) {
+        result.add(encodeElement(it));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the cached entry for the stop, or {@code null} if the stop is not in the cache.
+   */
+  StopEntry get(StopLocation stop) {
+    return stops.get(stop.getId().toString());
+  }
+
+  /**
+   * Return the cached entry for the station element vertex with the given label, or {@code null}
+   * if it is not in the cache.
+   */
+  ElementEntry getElement(String label) {
+    return elements.get(label);
+  }
+
+  Collection<StopEntry> entries() {
+    return Collections.unmodifiableCollection(stops.values());
+  }
+
+  Collection<ElementEntry> elements() {
+    return Collections.unmodifiableCollection(elements.values());
+  }
+
+  /**
+   * Decode the searches from a stop, return {@code null} if a path can not be traversed in the
+   * current graph, or the weight of it is changed.
+   *
+   * @param initialStates the initial state of each search at the stop vertex, a search with no
+   *                      initial state is not decoded.
+   * @param stopsById the current stops, by the string value of their id.
+   */
+  static List<List<NearbyStop>> decode(
+    StopEntry entry,
+    List<State> initialStates,
+    Function<String, StopLocation> stopsById
+  ) {
+    try (var in = new DataInputStream(new ByteArrayInputStream(entry.searches()))) {
+      int n = in.readInt();
+      if (n != initialStates.size()) {
+        return null;
+      }
+      List<List<NearbyStop>> result = new ArrayList<>(n);
+      for (int i = 0; i < n; ++i) {
+        var search = decodeSearch(in, initialStates.get(i), stopsById);
+        if (search == null) {
+          return null;
+        }
+        result.add(search);
+      }
+      return result;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void encodeSearch(List<NearbyStop> search, DataOutputStream out)
+    throws IOException {
+    // The nodes of the tree, node 0 is the origin. Each node is the edge leading to it.
+    List<Edge> nodes = new ArrayList<>();
+    List<Integer> parents = new ArrayList<>();
+    Map<TreeKey, Integer> index = new HashMap<>();
+    nodes.add(null);
+    parents.add(-1);
+
+    int[] stopNodes = new int[search.size()];
+    for (int i = 0; i < search.size(); ++i) {
+      int node = 0;
+      for (Edge edge : search.get(i).edges) {
+        var key = new TreeKey(node, edge);
+        Integer child = index.get(key);
+        if (child == null) {
+          child = nodes.size();
+          nodes.add(edge);
+          parents.add(node);
+          index.put(key, child);
+        }
+        node = child;
+      }
+      stopNodes[i] = node;
+    }
+
+    out.writeInt(nodes.size() - 1);
+    for (int i = 1; i < nodes.size(); ++i) {
+      Edge edge = nodes.get(i);
+      Vertex to = edge.getToVertex();
+      boolean splitter = to instanceof SplitterVertex;
+      out.writeInt(parents.get(i));
+      out.writeDouble(edge.getDistanceMeters());
+      out.writeBoolean(splitter);
+      if (splitter) {
+        out.writeDouble(to.getLat());
+        out.writeDouble(to.getLon());
+      } else {
+        out.writeUTF(to.getLabel());
+      }
+    }
+    out.writeInt(search.size());
+    for (int i = 0; i < search.size(); ++i) {
+      NearbyStop it = search.get(i);
+      out.writeUTF(it.stop.getId().toString());
+      out.writeInt(stopNodes[i]);
+      out.writeDouble(it.state == null ? it.distance : it.state.getWeight());
+    }
+  }
+
+  private static List<NearbyStop> decodeSearch(
+    DataInputStream in,
+    State initialState,
+    Function<String, StopLocation> stopsById
+  ) throws IOException {
+    int nNodes = in.readInt();
+    // The state at each node, from traversing the edge leading to it from the parent node
+    State[] states = new State[nNodes + 1];
+    states[0] = initialState;
+    boolean valid = initialState != null;
+
+    for (int i = 1; i <= nNodes; ++i) {
+      int parent = in.readInt();
+      double distance = in.readDouble();
+      boolean splitter = in.readBoolean();
+      double lat = splitter ? in.readDouble() : 0;
+      double lon = splitter ? in.readDouble() : 0;
+      String label = splitter ? null : in.readUTF();
+
+      // Keep reading the rest of the search, the data of the following searches is after it
+      if (!valid) {
+        continue;
+      }
+      for (Edge edge : states[parent].getVertex().getOutgoing()) {
+        Vertex to = edge.getToVertex();
+        if (Math.abs(edge.getDistanceMeters() - distance) > DISTANCE_EPSILON) {
+          continue;
+        }
+        boolean match = splitter
+          ? to instanceof SplitterVertex &&
+          Math.abs(to.getLat() - lat) < COORDINATE_EPSILON &&
+          Math.abs(to.getLon() - lon) < COORDINATE_EPSILON
+          : to.getLabel().equals(label);
+        if (match) {
+          states[i] = edge.traverse(states[parent]);
+          break;
+        }
+      }
+      valid = states[i] != null;
+    }
+
+    int nStops = in.readInt();
+    List<NearbyStop> result = new ArrayList<>(nStops);
+    for (int i = 0; i < nStops; ++i) {
+      StopLocation stop = stopsById.apply(in.readUTF());
+      int node = in.readInt();
+      double weight = in.readDouble();
+      if (!valid) {
+        continue;
+      }
+      State state = states[node];
+      if (
+        !(state.getVertex() instanceof TransitStopVertex tsv) ||
+        tsv.getStop() != stop ||
+        Math.abs(state.getWeight() - weight) > WEIGHT_EPSILON
+      ) {
+        valid = false;
+        continue;
+      }
+      result.add(NearbyStop.nearbyStopForState(state, stop));
+    }
+    return valid ? result : null;
+  }
+
+  /**
+   * The hash of the attributes is saved in the file, so it must be the same in each JVM. The enums
+   * are hashed by name, since the hash code of an enum is the identity hash code.
+   */
+  private static ElementEntry encodeElement(Vertex vertex) {
+    List<Object> attributes = new ArrayList<>();
+    attributes.add(vertex.getClass().getSimpleName());
+    if (vertex instanceof TransitStopVertex it) {
+      attributes.add(String.valueOf(it.getWheelchairAccessibility()));
+      attributes.add(it.getStreetToStopTime());
+    } else if (vertex instanceof TransitEntranceVertex it) {
+      attributes.add(String.valueOf(it.getWheelchairAccessibility()));
+    } else if (vertex instanceof TransitBoardingAreaVertex it) {
+      attributes.add(it.isWheelchairAccessible());
+    } else if (vertex instanceof TransitPathwayNodeVertex it) {
+      attributes.add(it.isWheelchairEntrance());
+    }
+    // The sum does not depend on the order of the edges
+    int edges = 0;
+    for (Edge edge : vertex.getOutgoing()) {
+      edges += edgeAttributes(edge).hashCode();
+    }
+    attributes.add(edges);
+    return new ElementEntry(
+      vertex.getLabel(),
+      vertex.getLat(),
+      vertex.getLon(),
+      attributes.hashCode()
+    );
+  }
+
+  private static List<Object> edgeAttributes(Edge edge) {
+    Vertex to = edge.getToVertex();
+    List<Object> attributes = new ArrayList<>();
+    attributes.add(edge.getClass().getSimpleName());
+    // The labels of the splitter vertices depend on the order the stops are linked in
+    attributes.add(to instanceof SplitterVertex ? to.getCoordinate() : to.getLabel());
+    attributes.add(edge.getDistanceMeters());
+    attributes.add(edge.getDistanceIndependentTime());
+    if (edge instanceof WheelchairTraversalInformation it) {
+      attributes.add(it.isWheelchairAccessible());
+    }
+    if (edge instanceof PathwayEdge it) {
+      attributes.add(it.getSteps());
+      attributes.add(it.getSlope());
+      attributes.add(String.valueOf(it.getMode()));
+    } else if (edge instanceof ElevatorHopEdge it) {
+      attributes.add(it.getLevels());
+      attributes.add(it.getTravelTime());
+      attributes.add(String.valueOf(it.getPermission()));
+    }
+    return attributes;
+  }
+
+  /**
+   * The location and code of a stop, and the encoded searches from it. The location and code are
+   * used to find the stops which are changed, since the links to the streets depend on these.
+   */
+  record StopEntry(String stopId, double lat, double lon, String code, byte[] searches) {
+    boolean isSameStop(StopLocation stop) {
+      return (
+        lat == stop.getLat() &&
+        lon == stop.getLon() &&
+        code.equals(Objects.requireNonNullElse(stop.getCode(), ""))
+      );
+    }
+  }
+
+  /**
+   * The location of a station element vertex, and a hash of the attributes used when it and its
+   * outgoing edges are traversed.
+   */
+  record ElementEntry(String label, double lat, double lon, int attributes) {
+    boolean isSameElement(ElementEntry other) {
+      return lat == other.lat && lon == other.lon && attributes == other.attributes;
+    }
+  }
+
+  private record TreeKey(int parent, Edge edge) {}
+}
@@ -10,6 +10,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.astar.model.ShortestPathTree;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
@@ -28,6 +29,7 @@ import org.opentripplanner.routing.graphfinder.DirectGraphFinder;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
@@ -63,6 +65,7 @@ public class NearbyStopFinder {
 
   private final Duration durationLimit;
   private final DataOverlayContext dataOverlayContext;
+  private final StreetPermissionOverlay permissionOverlay;
 
   private DirectGraphFinder directGraphFinder;
 
@@ -77,9 +80,30 @@ public class NearbyStopFinder {
     Duration durationLimit,
     DataOverlayContext dataOverlayContext,
     boolean useStreets
+  ) {
+    this(
+      transitService,
+      durationLimit,
+      dataOverlayContext,
+      StreetPermissionOverlay.EMPTY,
+      useStreets
+    );
+  }
+
+  /**
+   * Construct a NearbyStopFinder for a routing request, the street search use the custom street
+   * permissions in the given overlay.
+   */
+  public NearbyStopFinder(
+    TransitService transitService,
+    Duration durationLimit,
+    DataOverlayContext dataOverlayContext,
+    StreetPermissionOverlay permissionOverlay,
+    boolean useStreets
   ) {
     this.transitService = transitService;
     this.dataOverlayContext = dataOverlayContext;
+    this.permissionOverlay = permissionOverlay;
     this.useStreets = useStreets;
     this.durationLimit = durationLimit;
 
@@ -102,6 +126,21 @@ public class NearbyStopFinder {
     RouteRequest routingRequest,
     StreetRequest streetRequest,
     boolean reverseDirection
+  ) {
+    /* Find nearby stops via the street network or using straight-line distance. */
+    return closestStopsOnPatterns(
+      findNearbyStops(vertex, routingRequest, streetRequest, reverseDirection),
+      reverseDirection
+    );
+  }
+
+  /**
+   * Return the nearby stops which are the closest stop on some trip pattern or flex trip, see
+   * {@link #findNearbyStopsConsideringPatterns(Vertex, RouteRequest, StreetRequest, boolean)}.
+   */
+  public Set<NearbyStop> closestStopsOnPatterns(
+    Collection<NearbyStop> nearbyStops,
+    boolean reverseDirection
   ) {
     /* Track the closest stop on each pattern passing nearby. */
     MinMap<TripPattern, NearbyStop> closestStopForPattern = new MinMap<>();
@@ -109,13 +148,7 @@ public class NearbyStopFinder {
     /* Track the closest stop on each flex trip nearby. */
     MinMap<FlexTrip<?, ?>, NearbyStop> closestStopForFlexTrip = new MinMap<>();
 
-    /* Iterate over nearby stops via the street network or using straight-line distance, depending on the graph. */
-    for (NearbyStop nearbyStop : findNearbyStops(
-      vertex,
-      routingRequest,
-      streetRequest,
-      reverseDirection
-    )) {
+    for (NearbyStop nearbyStop : nearbyStops) {
       StopLocation ts1 = nearbyStop.stop;
 
       if (ts1 instanceof RegularStop) {
@@ -211,6 +244,7 @@ public class NearbyStopFinder {
       .setFrom(reverseDirection ? null : originVertices)
       .setTo(reverseDirection ? originVertices : null)
       .setDataOverlayContext(dataOverlayContext)
+      .setPermissionOverlay(permissionOverlay)
       .getShortestPathTree();
 
     // Only used if OTPFeature.FlexRouting.isOn()
@@ -265,6 +299,28 @@ public class NearbyStopFinder {
     return stopsFound;
   }
 
+  /**
+   * Create the initial state of a forward street search from the given vertex, with the same
+   * request as {@link #findNearbyStopsViaStreets}. The paths of a previous search can be traversed
+   * again from it. Return {@code null} if the search does not start with exactly one state.
+   */
+  @Nullable
+  public State createInitialState(
+    Vertex origin,
+    RouteRequest request,
+    StreetRequest streetRequest
+  ) {
+    var states = StreetSearchBuilder
+      .of()
+      .setRequest(request)
+      .setArriveBy(false)
+      .setStreetRequest(streetRequest)
+      .setDataOverlayContext(dataOverlayContext)
+      .setPermissionOverlay(permissionOverlay)
+      .getInitialStates(Set.of(origin));
+    return states.size() == 1 ? states.iterator().next() : null;
+  }
+
   private List<NearbyStop> findNearbyStopsViaDirectTransfers(Vertex vertex) {
     // It make sense for the directGraphFinder to use meters as a limit, so we convert first
     double limitMeters = durationLimit.toSeconds() * WalkPreferences.DEFAULT.speed();
@@ -348,7 +404,8 @@ public class NearbyStopFinder {
     return edges
       .stream()
       .anyMatch(e ->
-        e instanceof StreetEdge && ((StreetEdge) e).getPermission().allows(TraverseMode.CAR)
+        e instanceof StreetEdge streetEdge &&
+        streetEdge.getPermission(permissionOverlay).allows(TraverseMode.CAR)
       );
   }
 }
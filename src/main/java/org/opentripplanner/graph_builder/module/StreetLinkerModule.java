@@ -9,6 +9,7 @@ import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.ParkAndRideEntranceRemoved;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.linking.LinkingDirection;
 import org.opentripplanner.routing.vehicle_parking.VehicleParking;
@@ -77,6 +78,25 @@ public class StreetLinkerModule implements GraphBuilderModule {
     graph.calculateConvexHull();
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(
+      GraphBuilderResource.STREETS,
+      GraphBuilderResource.TRANSIT_GRAPH,
+      GraphBuilderResource.TRANSIT,
+      GraphBuilderResource.VEHICLE_PARKING
+    );
+  }
+
+  /**
+   * Indexing the transit model and removing unlinked vehicle parking entrances also change the
+   * transit model and the vehicle parking service. Only the fares are not used.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return reads();
+  }
+
   @Override
   public void checkInputs() {
     //no inputs
@@ -6,7 +6,9 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.transit.service.TransitModel;
 
@@ -56,6 +58,16 @@ public class TimeZoneAdjusterModule implements GraphBuilderModule {
       });
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.TRANSIT);
+  }
+
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return reads();
+  }
+
   @Override
   public void checkInputs() {}
 }
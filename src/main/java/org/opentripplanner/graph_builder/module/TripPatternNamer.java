@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.transit.model.network.Route;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopLocation;
@@ -32,6 +33,16 @@ public class TripPatternNamer implements GraphBuilderModule {
     generateUniqueNames(transitModel.getAllTripPatterns());
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.TRANSIT);
+  }
+
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return reads();
+  }
+
   @Override
   public void checkInputs() {}
 
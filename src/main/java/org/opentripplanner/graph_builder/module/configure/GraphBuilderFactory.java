@@ -9,6 +9,7 @@ import javax.annotation.Nullable;
 import org.opentripplanner.ext.dataoverlay.EdgeUpdaterModule;
 import org.opentripplanner.ext.flex.FlexLocationsToStreetEdgesMapper;
 import org.opentripplanner.ext.transferanalyzer.DirectTransferAnalyzer;
+import org.opentripplanner.ext.vectortiles.VectorTilePyramidModule;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.graph_builder.GraphBuilderDataSources;
 import org.opentripplanner.graph_builder.issue.report.DataImportIssueReporter;
@@ -28,6 +29,7 @@ import org.opentripplanner.netex.NetexModule;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.service.worldenvelope.WorldEnvelopeRepository;
 import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.transit.service.TransitModel;
 
 @Singleton
@@ -52,12 +54,16 @@ public interface GraphBuilderFactory {
   EdgeUpdaterModule dataOverlayFactory();
   DataImportIssueReporter dataImportIssueReporter();
   CalculateWorldEnvelopeModule calculateWorldEnvelopeModule();
+  VectorTilePyramidModule vectorTilePyramidModule();
 
   @Component.Builder
   interface Builder {
     @BindsInstance
     Builder config(BuildConfig config);
 
+    @BindsInstance
+    Builder routerConfig(RouterConfig routerConfig);
+
     @BindsInstance
     Builder graph(Graph graph);
 
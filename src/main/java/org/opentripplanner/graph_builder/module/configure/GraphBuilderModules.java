@@ -13,6 +13,7 @@ import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.dataoverlay.EdgeUpdaterModule;
 import org.opentripplanner.ext.dataoverlay.configure.DataOverlayFactory;
 import org.opentripplanner.ext.transferanalyzer.DirectTransferAnalyzer;
+import org.opentripplanner.ext.vectortiles.VectorTilePyramidModule;
 import org.opentripplanner.graph_builder.ConfiguredDataSource;
 import org.opentripplanner.graph_builder.GraphBuilderDataSources;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
@@ -32,12 +33,14 @@ import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFacto
 import org.opentripplanner.gtfs.graphbuilder.GtfsBundle;
 import org.opentripplanner.gtfs.graphbuilder.GtfsFeedParameters;
 import org.opentripplanner.gtfs.graphbuilder.GtfsModule;
+import org.opentripplanner.inspector.vector.VectorTilePyramid;
 import org.opentripplanner.netex.NetexModule;
 import org.opentripplanner.netex.configure.NetexConfigure;
 import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
 import org.opentripplanner.routing.api.request.preference.WalkPreferences;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.transit.service.TransitModel;
 
 /**
@@ -198,6 +201,7 @@ public class GraphBuilderModules {
   @Singleton
   static DirectTransferGenerator provideDirectTransferGenerator(
     BuildConfig config,
+    GraphBuilderDataSources dataSources,
     Graph graph,
     TransitModel transitModel,
     DataImportIssueStore issueStore
@@ -208,7 +212,13 @@ public class GraphBuilderModules {
       transitModel,
       issueStore,
       maxTransferDuration,
-      config.transferRequests
+      config.transferRequests,
+      config.reuseTransferSearches
+        ? new File(
+          dataSources.getBaseDirectory(),
+          DirectTransferGenerator.NEARBY_STOP_CACHE_FILENAME
+        )
+        : null
     );
   }
 
@@ -234,6 +244,25 @@ public class GraphBuilderModules {
     return DataOverlayFactory.create(graph, config.dataOverlay);
   }
 
+  @Provides
+  @Singleton
+  static VectorTilePyramidModule provideVectorTilePyramidModule(
+    BuildConfig config,
+    RouterConfig routerConfig,
+    GraphBuilderDataSources dataSources,
+    Graph graph,
+    TransitModel transitModel
+  ) {
+    return new VectorTilePyramidModule(
+      graph,
+      transitModel,
+      routerConfig.vectorTileLayers().layers(),
+      routerConfig.routingRequestDefaults().locale(),
+      config.vectorTilePyramidMaxZoom,
+      new File(dataSources.getBaseDirectory(), VectorTilePyramid.FILENAME)
+    );
+  }
+
   @Provides
   @Singleton
   static DataImportIssueStore provideDataImportIssuesStore() {
@@ -13,6 +13,7 @@ import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.GraphConnectivity;
 import org.opentripplanner.graph_builder.issues.IsolatedStop;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.graph.Graph;
@@ -116,6 +117,24 @@ public class PruneIslands implements GraphBuilderModule {
     LOG.info("Removed {} edgeless street vertices", removed);
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(
+      GraphBuilderResource.STREETS,
+      GraphBuilderResource.TRANSIT_GRAPH,
+      GraphBuilderResource.TRANSIT
+    );
+  }
+
+  /**
+   * Removing the links of the stops in an island, and linking them again, change the edges of the
+   * transit vertices.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of(GraphBuilderResource.STREETS, GraphBuilderResource.TRANSIT_GRAPH);
+  }
+
   @Override
   public void checkInputs() {
     //no inputs
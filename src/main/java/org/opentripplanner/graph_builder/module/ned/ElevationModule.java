@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.geotools.geometry.DirectPosition2D;
@@ -35,6 +36,7 @@ import org.opentripplanner.graph_builder.issues.ElevationFlattened;
 import org.opentripplanner.graph_builder.issues.ElevationProfileFailure;
 import org.opentripplanner.graph_builder.issues.Graphwide;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFactory;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model.edge.Edge;
@@ -279,6 +281,16 @@ public class ElevationModule implements GraphBuilderModule {
     );
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.STREETS);
+  }
+
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return reads();
+  }
+
   @Override
   public void checkInputs() {
     gridCoverageFactory.checkInputs();
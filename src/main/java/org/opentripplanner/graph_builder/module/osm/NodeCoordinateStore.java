@@ -0,0 +1,255 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Store the id and coordinates of OSM nodes in a memory-mapped temporary file, instead of keeping
+ * an {@link OSMNode} on the heap for each node. This is used for the untagged nodes of ways, which
+ * is the vast majority of the nodes in an extract. Each node use 32 bytes in the file, and no heap.
+ * <p>
+ * The nodes are looked up by a binary search, so the entries are sorted by id the first time a
+ * node is looked up after a node is added. The nodes in a PBF file are normally sorted by id, in
+ * this case no sorting is needed. If a node is added more than once, only the first is kept, like
+ * for the nodes kept on the heap. The entries with the same id are ordered by the order they were
+ * added in, so that the sort keeps the first even though it is not stable.
+ * <p>
+ * The nodes returned are new instances without tags, so two lookups of the same node do not return
+ * the same instance. This class is not thread-safe.
+ */
+class NodeCoordinateStore implements Closeable {
+
+  private static final int ENTRY_BYTES = 4 * Long.BYTES;
+  private static final int LAT_OFFSET = Long.BYTES;
+  private static final int LON_OFFSET = 2 * Long.BYTES;
+  private static final int INSERTION_OFFSET = 3 * Long.BYTES;
+
+  /** The file is mapped in segments, since a mapped buffer can not be larger than 2 GB */
+  private static final int SEGMENT_ENTRIES = 1 << 24;
+  private static final long SEGMENT_BYTES = (long) SEGMENT_ENTRIES * ENTRY_BYTES;
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final FileChannel channel;
+  private final List<ByteBuffer> segments = new ArrayList<>();
+  private long size = 0;
+
+  /** The number of nodes added, including the duplicates removed. */
+  private long inserted = 0;
+  private long lastId = Long.MIN_VALUE;
+  private boolean sorted = true;
+
+  private NodeCoordinateStore(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Create a store backed by a new temporary file, the file is deleted when the store is closed.
+   */
+  static NodeCoordinateStore createTemporary() {
+    try {
+      var file = Files.createTempFile("otp-osm-nodes-", ".bin");
+      return new NodeCoordinateStore(
+        FileChannel.open(
+          file,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE
+        )
+      );
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to create OSM node file: " + e.getLocalizedMessage(), e);
+    }
+  }
+
+  void add(long id, double lat, double lon) {
+    int segment = (int) (size / SEGMENT_ENTRIES);
+    if (segment == segments.size()) {
+      segments.add(mapSegment(segment));
+    }
+    var buffer = segments.get(segment);
+    int offset = (int) (size % SEGMENT_ENTRIES) * ENTRY_BYTES;
+    buffer.putLong(offset, id);
+    buffer.putDouble(offset + LAT_OFFSET, lat);
+    buffer.putDouble(offset + LON_OFFSET, lon);
+    buffer.putLong(offset + INSERTION_OFFSET, inserted++);
+    if (id <= lastId) {
+      sorted = false;
+    }
+    lastId = id;
+    ++size;
+  }
+
+  /**
+   * Return a new node with the id and coordinate of the stored node, or {@code null} if the node
+   * does not exist.
+   */
+  OSMNode getNode(long id) {
+    long index = indexOf(id);
+    if (index < 0) {
+      return null;
+    }
+    var node = new OSMNode();
+    node.setId(id);
+    node.lat = buffer(index).getDouble(offset(index) + LAT_OFFSET);
+    node.lon = buffer(index).getDouble(offset(index) + LON_OFFSET);
+    return node;
+  }
+
+  boolean contains(long id) {
+    return indexOf(id) >= 0;
+  }
+
+  long size() {
+    sortAndRemoveDuplicates();
+    return size;
+  }
+
+  @Override
+  public void close() throws IOException {
+    segments.clear();
+    channel.close();
+  }
+
+  private long indexOf(long id) {
+    sortAndRemoveDuplicates();
+    long low = 0;
+    long high = size - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      long midId = id(mid);
+      if (midId < id) {
+        low = mid + 1;
+      } else if (midId > id) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private void sortAndRemoveDuplicates() {
+    if (sorted) {
+      return;
+    }
+    sort(0, size - 1);
+
+    long n = 0;
+    for (long i = 0; i < size; ++i) {
+      if (n == 0 || id(i) != id(n - 1)) {
+        copy(i, n++);
+      }
+    }
+    size = n;
+    lastId = n == 0 ? Long.MIN_VALUE : id(n - 1);
+    sorted = true;
+  }
+
+  /**
+   * Sort the entries in the range by id and insertion order. The smaller partition is sorted
+   * recursively and the larger in the loop, to limit the depth of the recursion.
+   */
+  private void sort(long low, long high) {
+    while (high - low >= INSERTION_SORT_THRESHOLD) {
+      long pivot = medianOfThree(low, (low + high) >>> 1, high);
+      long pivotId = id(pivot);
+      long pivotInsertion = insertion(pivot);
+      long i = low;
+      long j = high;
+      while (i <= j) {
+        while (compare(i, pivotId, pivotInsertion) < 0) {
+          ++i;
+        }
+        while (compare(j, pivotId, pivotInsertion) > 0) {
+          --j;
+        }
+        if (i <= j) {
+          swap(i++, j--);
+        }
+      }
+      if (j - low < high - i) {
+        sort(low, j);
+        low = i;
+      } else {
+        sort(i, high);
+        high = j;
+      }
+    }
+    for (long i = low + 1; i <= high; ++i) {
+      for (long j = i; j > low && compare(j - 1, id(j), insertion(j)) > 0; --j) {
+        swap(j - 1, j);
+      }
+    }
+  }
+
+  private long medianOfThree(long a, long b, long c) {
+    if (compare(a, b) < 0) {
+      return compare(b, c) < 0 ? b : (compare(a, c) < 0 ? c : a);
+    }
+    return compare(a, c) < 0 ? a : (compare(b, c) < 0 ? c : b);
+  }
+
+  private int compare(long a, long b) {
+    return compare(a, id(b), insertion(b));
+  }
+
+  private int compare(long index, long id, long insertion) {
+    int c = Long.compare(id(index), id);
+    return c != 0 ? c : Long.compare(insertion(index), insertion);
+  }
+
+  private long id(long index) {
+    return buffer(index).getLong(offset(index));
+  }
+
+  private long insertion(long index) {
+    return buffer(index).getLong(offset(index) + INSERTION_OFFSET);
+  }
+
+  private void swap(long a, long b) {
+    var bufferA = buffer(a);
+    var bufferB = buffer(b);
+    int offsetA = offset(a);
+    int offsetB = offset(b);
+    for (int i = 0; i < ENTRY_BYTES; i += Long.BYTES) {
+      long tmp = bufferA.getLong(offsetA + i);
+      bufferA.putLong(offsetA + i, bufferB.getLong(offsetB + i));
+      bufferB.putLong(offsetB + i, tmp);
+    }
+  }
+
+  private void copy(long from, long to) {
+    if (from == to) {
+      return;
+    }
+    var bufferFrom = buffer(from);
+    var bufferTo = buffer(to);
+    for (int i = 0; i < ENTRY_BYTES; i += Long.BYTES) {
+      bufferTo.putLong(offset(to) + i, bufferFrom.getLong(offset(from) + i));
+    }
+  }
+
+  private ByteBuffer buffer(long index) {
+    return segments.get((int) (index / SEGMENT_ENTRIES));
+  }
+
+  private static int offset(long index) {
+    return (int) (index % SEGMENT_ENTRIES) * ENTRY_BYTES;
+  }
+
+  private ByteBuffer mapSegment(int segment) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, segment * SEGMENT_BYTES, SEGMENT_BYTES);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to map OSM node file: " + e.getLocalizedMessage(), e);
+    }
+  }
+}
@@ -9,6 +9,7 @@ import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -61,6 +62,12 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
   /* Map of all nodes used in ways/areas keyed by their OSM ID */
   private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
 
+  /*
+   * The coordinates of the untagged way nodes which are not in nodesById, null if all nodes are
+   * kept on the heap.
+   */
+  private final NodeCoordinateStore nodeCoordinates;
+
   /* Map of all bike parking nodes, keyed by their OSM ID */
   private final TLongObjectMap<OSMNode> bikeParkingNodes = new TLongObjectHashMap<>();
 
@@ -131,12 +138,34 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
   private final Set<String> boardingAreaRefTags;
 
   public OSMDatabase(DataImportIssueStore issueStore, Set<String> boardingAreaRefTags) {
+    this(issueStore, boardingAreaRefTags, OsmNodeStorage.HEAP);
+  }
+
+  /**
+   * If the node storage is {@link OsmNodeStorage#MEMORY_MAPPED}, the database must be closed with
+   * {@link #close()} when it is no longer used, to delete the temporary file.
+   */
+  public OSMDatabase(
+    DataImportIssueStore issueStore,
+    Set<String> boardingAreaRefTags,
+    OsmNodeStorage nodeStorage
+  ) {
     this.issueStore = issueStore;
     this.boardingAreaRefTags = boardingAreaRefTags;
+    this.nodeCoordinates =
+      nodeStorage == OsmNodeStorage.MEMORY_MAPPED ? NodeCoordinateStore.createTemporary() : null;
   }
 
+  /**
+   * Untagged way nodes may be kept as coordinates only, a new instance is returned for each call
+   * for these.
+   */
   public OSMNode getNode(Long nodeId) {
-    return nodesById.get(nodeId);
+    OSMNode node = nodesById.get(nodeId);
+    if (node == null && nodeCoordinates != null) {
+      node = nodeCoordinates.getNode(nodeId);
+    }
+    return node;
   }
 
   public OSMWay getWay(Long nodeId) {
@@ -152,7 +181,11 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
   }
 
   public int nodeCount() {
-    return nodesById.size();
+    long size = nodesById.size();
+    if (nodeCoordinates != null) {
+      size += nodeCoordinates.size();
+    }
+    return (int) size;
   }
 
   public int wayCount() {
@@ -232,6 +265,10 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
     if (nodesById.containsKey(node.getId())) {
       return;
     }
+    if (nodeCoordinates != null && isCoordinateOnly(node)) {
+      nodeCoordinates.add(node.getId(), node.lat, node.lon);
+      return;
+    }
     nodesById.put(node.getId(), node);
   }
 
@@ -361,6 +398,19 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
     processSingleWayAreas();
   }
 
+  /**
+   * Delete the temporary node file, if any. The database can not be used after this.
+   */
+  public void close() {
+    if (nodeCoordinates != null) {
+      try {
+        nodeCoordinates.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close OSM node file: {}", e.getLocalizedMessage(), e);
+      }
+    }
+  }
+
   /**
    * After all loading is done (from multiple OSM sources), post-process.
    */
@@ -415,8 +465,8 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
 
       // For each segment of the way
       for (int i = 0; i < way.getNodeRefs().size() - 1; i++) {
-        OSMNode nA = nodesById.get(way.getNodeRefs().get(i));
-        OSMNode nB = nodesById.get(way.getNodeRefs().get(i + 1));
+        OSMNode nA = getNode(way.getNodeRefs().get(i));
+        OSMNode nB = getNode(way.getNodeRefs().get(i + 1));
         if (nA == null || nB == null) {
           continue;
         }
@@ -689,6 +739,32 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
     }
   }
 
+  /**
+   * The nodes of areas are compared by identity when the areas are built, so they are always kept
+   * as instances.
+   */
+  private boolean isCoordinateOnly(OSMNode node) {
+    return (
+      (node.getTags() == null || node.getTags().isEmpty()) && !areaNodeIds.contains(node.getId())
+    );
+  }
+
+  /**
+   * Make sure an area node is kept as an instance, and return false if the node does not exist. A
+   * node may be stored as coordinates only if it was loaded from another OSM file than the area.
+   */
+  private boolean loadAreaNode(long nodeId) {
+    if (nodesById.containsKey(nodeId)) {
+      return true;
+    }
+    OSMNode node = nodeCoordinates == null ? null : nodeCoordinates.getNode(nodeId);
+    if (node == null) {
+      return false;
+    }
+    nodesById.put(nodeId, node);
+    return true;
+  }
+
   private void markNodesForKeeping(Collection<OSMWay> osmWays, TLongSet nodeSet) {
     for (OSMWay way : osmWays) {
       // Since the way is kept, update nodes-with-neighbors
@@ -710,7 +786,7 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
       TLongIterator longIterator = way.getNodeRefs().iterator();
       while (longIterator.hasNext()) {
         long nodeRef = longIterator.next();
-        if (!nodesById.containsKey(nodeRef)) {
+        if (!loadAreaNode(nodeRef)) {
           continue AREA;
         }
       }
@@ -765,7 +841,7 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
         TLongIterator wayNodeIterator = way.getNodeRefs().iterator();
         while (wayNodeIterator.hasNext()) {
           long nodeId = wayNodeIterator.next();
-          if (nodesById.containsKey(nodeId)) {
+          if (loadAreaNode(nodeId)) {
             MapUtils.addToMapSet(areasForNode, nodeId, way);
           } else {
             // this area is missing some nodes, perhaps because it is on
@@ -1113,8 +1189,8 @@ public class OSMDatabase implements org.opentripplanner.openstreetmap.spi.OSMDat
         } else {
           issueStore.add(new TooManyAreasInRelation(relation));
         }
-      } else if ("node".equals(member.getType()) && nodesById.containsKey(member.getRef())) {
-        platformsNodes.add(nodesById.get(member.getRef()));
+      } else if ("node".equals(member.getType()) && getNode(member.getRef()) != null) {
+        platformsNodes.add(getNode(member.getRef()));
       }
     }
     if (platformArea != null && !platformsNodes.isEmpty()) {
@@ -23,6 +23,7 @@ import org.opentripplanner.graph_builder.issues.Graphwide;
 import org.opentripplanner.graph_builder.issues.StreetCarSpeedZero;
 import org.opentripplanner.graph_builder.issues.TurnRestrictionBad;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
 import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
 import org.opentripplanner.openstreetmap.model.OSMLevel;
@@ -93,6 +94,10 @@ public class OpenStreetMapModule implements GraphBuilderModule {
    */
   public boolean banDiscouragedWalking = false;
   public boolean banDiscouragedBiking = false;
+  /**
+   * How the OSM nodes are kept while the graph is built.
+   */
+  public OsmNodeStorage nodeStorage = OsmNodeStorage.HEAP;
 
   public OpenStreetMapModule(
     Collection<OpenStreetMapProvider> providers,
@@ -123,25 +128,40 @@ public class OpenStreetMapModule implements GraphBuilderModule {
     this.banDiscouragedWalking = config.banDiscouragedWalking;
     this.banDiscouragedBiking = config.banDiscouragedBiking;
     this.maxAreaNodes = config.maxAreaNodes;
+    this.nodeStorage = config.osmNodeStorage;
   }
 
   @Override
   public void buildGraph() {
-    OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags);
-    Handler handler = new Handler(graph, osmdb);
-    for (OpenStreetMapProvider provider : providers) {
-      LOG.info("Gathering OSM from provider: {}", provider);
-      LOG.info(
-        "Using OSM way configuration from {}.",
-        provider.getOsmTagMapper().getClass().getSimpleName()
-      );
-      provider.readOSM(osmdb);
+    OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags, nodeStorage);
+    try {
+      Handler handler = new Handler(graph, osmdb);
+      for (OpenStreetMapProvider provider : providers) {
+        LOG.info("Gathering OSM from provider: {}", provider);
+        LOG.info(
+          "Using OSM way configuration from {}.",
+          provider.getOsmTagMapper().getClass().getSimpleName()
+        );
+        provider.readOSM(osmdb);
+      }
+      osmdb.postLoad();
+
+      LOG.info("Building street graph from OSM");
+      handler.buildGraph();
+      graph.hasStreets = true;
+    } finally {
+      osmdb.close();
     }
-    osmdb.postLoad();
+  }
+
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.STREETS);
+  }
 
-    LOG.info("Building street graph from OSM");
-    handler.buildGraph();
-    graph.hasStreets = true;
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of(GraphBuilderResource.STREETS, GraphBuilderResource.VEHICLE_PARKING);
   }
 
   @Override
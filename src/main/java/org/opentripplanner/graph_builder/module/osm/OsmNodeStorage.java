@@ -0,0 +1,14 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+/**
+ * How the OSM nodes are kept while the street graph is built, see {@link OSMDatabase}.
+ */
+public enum OsmNodeStorage {
+  /** Keep all nodes as {@code OSMNode} instances on the heap. */
+  HEAP,
+  /**
+   * Keep the coordinates of untagged way nodes in a memory-mapped temporary file, see
+   * {@link NodeCoordinateStore}. All other nodes are kept on the heap.
+   */
+  MEMORY_MAPPED,
+}
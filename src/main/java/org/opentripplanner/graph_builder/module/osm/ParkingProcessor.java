@@ -431,6 +431,7 @@ class ParkingProcessor {
     OSMWithTags entity
   ) {
     List<VehicleParking.VehicleParkingEntranceCreator> entrances = new ArrayList<>();
+    var permissionOverlay = graph.getStreetPermissionOverlay();
     var sortedAccessVertices = accessVertices
       .stream()
       .sorted(Comparator.comparing(vn -> vn.vertex().getLabel()))
@@ -464,8 +465,8 @@ class ParkingProcessor {
           .name(entranceName)
           .coordinate(new WgsCoordinate(access.vertex().getCoordinate()))
           .vertex(access.vertex())
-          .walkAccessible(access.vertex().isConnectedToWalkingEdge())
-          .carAccessible(access.vertex().isConnectedToDriveableEdge())
+          .walkAccessible(access.vertex().isConnectedToWalkingEdge(permissionOverlay))
+          .carAccessible(access.vertex().isConnectedToDriveableEdge(permissionOverlay))
       );
     }
 
@@ -35,6 +35,7 @@ import org.opentripplanner.ext.flex.FlexTripsMapper;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.graph_builder.module.AddTransitModelEntitiesToGraph;
 import org.opentripplanner.graph_builder.module.GtfsFeedId;
 import org.opentripplanner.graph_builder.module.ValidateAndInterpolateStopTimesForEachTrip;
@@ -201,6 +202,24 @@ public class GtfsModule implements GraphBuilderModule {
     transitModel.updateCalendarServiceData(hasTransit, calendarServiceData, issueStore);
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.TRANSIT, GraphBuilderResource.FARES);
+  }
+
+  /**
+   * Adding the stops, pathways and elevators also add vertices and edges to the graph, but they
+   * are not linked to the streets here.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of(
+      GraphBuilderResource.TRANSIT_GRAPH,
+      GraphBuilderResource.TRANSIT,
+      GraphBuilderResource.FARES
+    );
+  }
+
   @Override
   public void checkInputs() {
     for (GtfsBundle bundle : gtfsBundles) {
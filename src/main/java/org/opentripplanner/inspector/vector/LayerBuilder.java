@@ -37,6 +37,15 @@ public abstract class LayerBuilder<T> {
    */
   protected abstract List<Geometry> getGeometries(Envelope query);
 
+  /**
+   * The version of the data in this layer, used to find out if a cached tile is still valid. The
+   * default is for layers with data which only change when a new graph is loaded. Layers with
+   * realtime data must return a new value each time the data is updated.
+   */
+  protected long dataVersion() {
+    return 0;
+  }
+
   final VectorTile.Tile.Layer build(Envelope envelope) {
     Envelope query = new Envelope(envelope);
     query.expandBy(envelope.getWidth() * expansionFactor, envelope.getHeight() * expansionFactor);
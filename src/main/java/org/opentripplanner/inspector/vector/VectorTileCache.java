@@ -0,0 +1,149 @@
+package org.opentripplanner.inspector.vector;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache the encoded vector tiles. Map clients request the same tiles over and over again, and
+ * building a tile requires querying the spatial indexes and encoding the features for each layer.
+ * <p>
+ * The cache key is the requested layers, the tile coordinates, the locale and the
+ * {@link LayerBuilder#dataVersion()} of each layer. Layers with static data always have the same
+ * version, so these tiles are kept until they are evicted, a new graph is loaded with a new cache.
+ * Layers with realtime data get a new version each time an updater changes the data, so the old
+ * tiles are not used after that, and are evicted when the cache is full.
+ * <p>
+ * The tiles are stored GZIP compressed, and the size of the cache is limited by the total size of
+ * the compressed tiles. The least recently used tiles are evicted first.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public class VectorTileCache {
+
+  /** The approximate size of a cache entry, not including the tile data */
+  private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+  /** {@code null} if the cache is disabled */
+  private final Cache<TileKey, EncodedTile> cache;
+
+  /**
+   * @param maximumSizeMegabytes the maximum total size of the cached tiles, zero disables it.
+   */
+  public VectorTileCache(int maximumSizeMegabytes) {
+    this.cache =
+      maximumSizeMegabytes <= 0
+        ? null
+        : CacheBuilder
+          .newBuilder()
+          .maximumWeight(maximumSizeMegabytes * 1024L * 1024L)
+          .weigher((TileKey key, EncodedTile tile) -> ENTRY_OVERHEAD_BYTES + tile.data().length)
+          .build();
+  }
+
+  public static VectorTileCache disabled() {
+    return new VectorTileCache(0);
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Return the cached tile, or build and encode it if not cached. If the cache is disabled the
+   * tile is built, but not compressed.
+   */
+  public EncodedTile get(TileKey key, Supplier<byte[]> buildTile) {
+    if (cache == null) {
+      return EncodedTile.of(buildTile.get());
+    }
+    var tile = cache.getIfPresent(key);
+
+    if (tile == null) {
+      tile = EncodedTile.ofCompressed(buildTile.get());
+      cache.put(key, tile);
+    }
+    return tile;
+  }
+
+  /**
+   * Remove all entries, this is only needed if static data in the graph is changed.
+   */
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  long size() {
+    return cache == null ? 0 : cache.size();
+  }
+
+  /**
+   * @param layers   The name of the layers included in the tile, in the configured order.
+   * @param versions The {@link LayerBuilder#dataVersion()} of each layer, in the same order.
+   */
+  public record TileKey(
+    List<String> layers,
+    List<Long> versions,
+    int x,
+    int y,
+    int z,
+    Locale locale
+  ) {}
+
+  /**
+   * An encoded vector tile and its entity tag. The tag is a hash of the uncompressed tile, so the
+   * tag is the same for the same tile also when it is rebuilt, or built by another server.
+   *
+   * @param data       The protobuf encoded tile, GZIP compressed if {@code compressed} is set.
+   * @param compressed {@code true} if the data is GZIP compressed.
+   * @param etag       The quoted entity tag of the tile.
+   */
+  public record EncodedTile(byte[] data, boolean compressed, String etag) {
+    static EncodedTile of(byte[] tile) {
+      return new EncodedTile(tile, false, etag(tile));
+    }
+
+    static EncodedTile ofCompressed(byte[] tile) {
+      return new EncodedTile(gzip(tile), true, etag(tile));
+    }
+
+    /**
+     * The protobuf encoded tile, not compressed.
+     */
+    public byte[] uncompressed() {
+      if (!compressed) {
+        return data;
+      }
+      try (var in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+        return in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static String etag(byte[] tile) {
+      return "\"" + Hashing.murmur3_128().hashBytes(tile) + "\"";
+    }
+
+    private static byte[] gzip(byte[] tile) {
+      var out = new ByteArrayOutputStream(tile.length / 2 + 32);
+      try (var gzip = new GZIPOutputStream(out)) {
+        gzip.write(tile);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package org.opentripplanner.inspector.vector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Vector tiles pre-rendered when the graph is built, for layers which only depend on the graph.
+ * The file is memory mapped, so serving a tile is a lookup in a sorted index and a copy of the
+ * encoded bytes.
+ * <p>
+ * Each layer is stored for one language and a range of zoom levels, with the parameters used to
+ * render it. A layer is only used if the name, type, mapper and expansion factor of the configured
+ * layer match, and the language of the request is the same. Otherwise, the layer is rendered for
+ * each request as usual. The file is written by {@link VectorTilePyramidBuilder}, the format is:
+ * <pre>
+ * magic: int, format version: int, graph id: string, number of layers: int
+ * for each layer:
+ *   name: string, type: string, mapper: string, expansion factor: double, language: string,
+ *   min zoom: int, max zoom: int, number of tiles: int
+ * for each layer, the index sorted by tile key:
+ *   tile key: long (zoom << 48 | x << 24 | y), data offset: int, data length: int
+ * data: each tile is a protobuf encoded vector tile with one layer
+ * </pre>
+ * Strings are UTF-8 bytes prefixed with the length as a short. Tiles without any features are not
+ * stored.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE
+ */
+public class VectorTilePyramid {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorTilePyramid.class);
+
+  /** The name of the file, it is written to the base directory */
+  public static final String FILENAME = "vectorTiles.bin";
+
+  public static final VectorTilePyramid EMPTY = new VectorTilePyramid(List.of(), null);
+
+  static final int MAGIC = 0x4F545054;
+  static final int FORMAT_VERSION = 1;
+  static final int INDEX_ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+
+  private static final ByteBuffer NO_TILE = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+  private final List<LayerEntry> layers;
+  private final ByteBuffer buffer;
+
+  private VectorTilePyramid(List<LayerEntry> layers, ByteBuffer buffer) {
+    this.layers = layers;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Open the pre-rendered tiles in the given file. {@link #EMPTY} is returned if the file does not
+   * exist, can not be read, or is built for another graph.
+   *
+   * @param graphId the id of the tiles built with the graph, see
+   *                {@link org.opentripplanner.routing.graph.Graph#getVectorTilePyramidId()}.
+   */
+  public static VectorTilePyramid open(File file, @Nullable String graphId) {
+    if (graphId == null || !file.exists()) {
+      return EMPTY;
+    }
+    try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        LOG.error("The vector tile file {} is too large, it is not used.", file);
+        return EMPTY;
+      }
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        LOG.warn("The vector tile file {} has an unknown format, it is not used.", file);
+        return EMPTY;
+      }
+      String id = readString(buffer);
+      if (!id.equals(graphId)) {
+        LOG.warn("The vector tile file {} is not built with this graph, it is not used.", file);
+        return EMPTY;
+      }
+      int numOfLayers = buffer.getInt();
+      List<LayerMetadata> metadata = new ArrayList<>();
+      for (int i = 0; i < numOfLayers; ++i) {
+        metadata.add(LayerMetadata.read(buffer));
+      }
+      List<LayerEntry> layers = new ArrayList<>();
+      int indexStart = buffer.position();
+      for (LayerMetadata it : metadata) {
+        layers.add(new LayerEntry(it, indexStart));
+        indexStart += it.numOfTiles() * INDEX_ENTRY_SIZE;
+      }
+      var pyramid = new VectorTilePyramid(List.copyOf(layers), buffer.asReadOnlyBuffer());
+      LOG.info("Using pre-rendered vector tiles from {}: {}", file, pyramid);
+      return pyramid;
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Unable to read vector tile file {}: {}", file, e.getMessage(), e);
+      return EMPTY;
+    }
+  }
+
+  public boolean isEmpty() {
+    return layers.isEmpty();
+  }
+
+  /**
+   * Find the pre-rendered tile for the given layer.
+   *
+   * @return the protobuf encoded tile with the layer, an empty buffer if the layer has no features
+   * in the tile, or {@code null} if the layer is not pre-rendered for the given parameters, locale
+   * and zoom level.
+   */
+  @Nullable
+  public ByteBuffer find(LayerParameters<?> layer, Locale locale, int x, int y, int z) {
+    for (LayerEntry entry : layers) {
+      if (entry.metadata().matches(layer, locale, z)) {
+        return find(entry, tileKey(x, y, z));
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return layers.stream().map(l -> l.metadata().toString()).toList().toString();
+  }
+
+  static long tileKey(int x, int y, int z) {
+    return ((long) z << 48) | ((long) x << 24) | y;
+  }
+
+  static String language(Locale locale) {
+    return locale == null ? "" : locale.getLanguage();
+  }
+
+  static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private ByteBuffer find(LayerEntry entry, long key) {
+    int low = 0;
+    int high = entry.metadata().numOfTiles() - 1;
+
+    // The buffer is shared by all threads, so only absolute reads are used
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int pos = entry.indexStart() + mid * INDEX_ENTRY_SIZE;
+      long midKey = buffer.getLong(pos);
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        int offset = buffer.getInt(pos + Long.BYTES);
+        int length = buffer.getInt(pos + Long.BYTES + Integer.BYTES);
+        return buffer.slice(offset, length);
+      }
+    }
+    return NO_TILE;
+  }
+
+  /**
+   * The parameters used to render a layer, and the tiles included.
+   */
+  record LayerMetadata(
+    String name,
+    String type,
+    String mapper,
+    double expansionFactor,
+    String language,
+    int minZoom,
+    int maxZoom,
+    int numOfTiles
+  ) {
+    static LayerMetadata read(ByteBuffer buffer) {
+      return new LayerMetadata(
+        readString(buffer),
+        readString(buffer),
+        readString(buffer),
+        buffer.getDouble(),
+        readString(buffer),
+        buffer.getInt(),
+        buffer.getInt(),
+        buffer.getInt()
+      );
+    }
+
+    boolean matches(LayerParameters<?> layer, Locale locale, int z) {
+      return (
+        minZoom <= z &&
+        z <= maxZoom &&
+        name.equals(layer.name()) &&
+        type.equals(layer.type().name()) &&
+        mapper.equals(layer.mapper()) &&
+        expansionFactor == layer.expansionFactor() &&
+        language.equals(VectorTilePyramid.language(locale))
+      );
+    }
+
+    @Override
+    public String toString() {
+      return name + "(" + language + ", zoom " + minZoom + "-" + maxZoom + ")";
+    }
+  }
+
+  private record LayerEntry(LayerMetadata metadata, int indexStart) {}
+}
@@ -0,0 +1,240 @@
+package org.opentripplanner.inspector.vector;
+
+import static org.opentripplanner.inspector.vector.VectorTilePyramid.FORMAT_VERSION;
+import static org.opentripplanner.inspector.vector.VectorTilePyramid.INDEX_ENTRY_SIZE;
+import static org.opentripplanner.inspector.vector.VectorTilePyramid.MAGIC;
+
+import edu.colorado.cires.cmg.mvt.VectorTile;
+import gnu.trove.list.array.TLongArrayList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.api.resource.WebMercatorTile;
+import org.opentripplanner.framework.text.FileSizeToTextConverter;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.service.TransitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Render the vector tiles for the given layers and zoom levels, and write them to a file read by
+ * {@link VectorTilePyramid}. Only the tiles close to a feature in the layer are rendered, the
+ * tiles of each zoom level are rendered in parallel.
+ */
+public class VectorTilePyramidBuilder<LayerType extends Enum<LayerType>> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorTilePyramidBuilder.class);
+
+  private static final Envelope WORLD = new Envelope(-180, 180, -85.0511, 85.0511);
+
+  private final List<LayerParameters<LayerType>> layers;
+  private final VectorTileResponseFactory.LayerBuilderFactory<LayerType> layerBuilderFactory;
+  private final Graph graph;
+  private final TransitService transitService;
+  private final Locale locale;
+  private final int maxZoom;
+
+  /**
+   * @param maxZoom the highest zoom level to render, a layer is rendered from its own min zoom
+   *                level up to the lowest of its own max zoom level and this.
+   */
+  public VectorTilePyramidBuilder(
+    List<LayerParameters<LayerType>> layers,
+    VectorTileResponseFactory.LayerBuilderFactory<LayerType> layerBuilderFactory,
+    Graph graph,
+    TransitService transitService,
+    Locale locale,
+    int maxZoom
+  ) {
+    this.layers = layers;
+    this.layerBuilderFactory = layerBuilderFactory;
+    this.graph = graph;
+    this.transitService = transitService;
+    this.locale = locale;
+    this.maxZoom = maxZoom;
+  }
+
+  /**
+   * Render all tiles and write them to the given file, replacing any existing file.
+   *
+   * @param graphId the id to save in the graph, see {@link Graph#setVectorTilePyramidId(String)}.
+   */
+  public void write(File file, String graphId) throws IOException {
+    File dataFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".data");
+    File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    List<VectorTilePyramid.LayerMetadata> metadata = new ArrayList<>();
+    List<long[]> indexes = new ArrayList<>();
+
+    try {
+      // The tiles are written to a data file first, since the size of the index is not known
+      try (
+        var data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)))
+      ) {
+        for (LayerParameters<LayerType> layer : layers) {
+          int minZoom = layer.minZoom();
+          int layerMaxZoom = Math.min(layer.maxZoom(), maxZoom);
+          if (minZoom > layerMaxZoom) {
+            continue;
+          }
+          var index = new TLongArrayList();
+          for (int z = minZoom; z <= layerMaxZoom; ++z) {
+            renderZoomLevel(layer, z, data, index);
+          }
+          metadata.add(
+            new VectorTilePyramid.LayerMetadata(
+              layer.name(),
+              layer.type().name(),
+              layer.mapper(),
+              layer.expansionFactor(),
+              VectorTilePyramid.language(locale),
+              minZoom,
+              layerMaxZoom,
+              index.size() / 3
+            )
+          );
+          indexes.add(index.toArray());
+        }
+      }
+
+      try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+        int headerSize = writeHeader(out, graphId, metadata);
+        long dataStart = headerSize;
+        for (long[] index : indexes) {
+          dataStart += (long) (index.length / 3) * INDEX_ENTRY_SIZE;
+        }
+        if (dataStart + dataFile.length() > Integer.MAX_VALUE) {
+          throw new IOException("The vector tiles are too large, reduce the max zoom level.");
+        }
+        for (long[] index : indexes) {
+          for (int i = 0; i < index.length; i += 3) {
+            out.writeLong(index[i]);
+            out.writeInt((int) (dataStart + index[i + 1]));
+            out.writeInt((int) index[i + 2]);
+          }
+        }
+        Files.copy(dataFile.toPath(), out);
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(dataFile.toPath());
+      Files.deleteIfExists(tmp.toPath());
+    }
+    LOG.info(
+      "Vector tiles for {} layers written to {}, size {}.",
+      metadata.size(),
+      file,
+      FileSizeToTextConverter.fileSizeToString(file.length())
+    );
+  }
+
+  /**
+   * Render the tiles of a zoom level, the index entries (key, offset and length) are added to the
+   * given index.
+   */
+  private void renderZoomLevel(
+    LayerParameters<LayerType> layer,
+    int z,
+    DataOutputStream data,
+    TLongArrayList index
+  ) throws IOException {
+    List<Long> keys = candidateTiles(layer, z);
+    List<byte[]> tiles = keys.parallelStream().map(key -> render(layer, key)).toList();
+
+    int numOfTiles = 0;
+    for (int i = 0; i < keys.size(); ++i) {
+      byte[] tile = tiles.get(i);
+      if (tile == null) {
+        continue;
+      }
+      index.add(keys.get(i));
+      index.add(data.size());
+      index.add(tile.length);
+      data.write(tile);
+      ++numOfTiles;
+    }
+    LOG.info("Rendered {} vector tiles for layer {} at zoom {}.", numOfTiles, layer.name(), z);
+  }
+
+  /**
+   * Find the tiles close to the features in the layer, sorted by the tile key. A tile includes
+   * features within the expansion factor of the tile size, this is less than one tile for all
+   * reasonable values, so the neighbour tiles are included.
+   */
+  private List<Long> candidateTiles(LayerParameters<LayerType> layer, int z) {
+    int expand = (int) Math.ceil(layer.expansionFactor());
+    int n = 1 << z;
+    var keys = new TreeSet<Long>();
+    for (Geometry geometry : createLayerBuilder(layer).getGeometries(WORLD)) {
+      Envelope env = geometry.getEnvelopeInternal();
+      int minX = Math.max(0, WebMercatorTile.lon2tileX(env.getMinX(), z) - expand);
+      int maxX = Math.min(n - 1, WebMercatorTile.lon2tileX(env.getMaxX(), z) + expand);
+      // The y axis points south
+      int minY = Math.max(0, WebMercatorTile.lat2tileY(env.getMaxY(), z) - expand);
+      int maxY = Math.min(n - 1, WebMercatorTile.lat2tileY(env.getMinY(), z) + expand);
+      for (int x = minX; x <= maxX; ++x) {
+        for (int y = minY; y <= maxY; ++y) {
+          keys.add(VectorTilePyramid.tileKey(x, y, z));
+        }
+      }
+    }
+    return List.copyOf(keys);
+  }
+
+  /**
+   * Render a tile with one layer, {@code null} is returned if there are no features in the tile.
+   */
+  private byte[] render(LayerParameters<LayerType> layer, long key) {
+    int z = (int) (key >> 48);
+    int x = (int) ((key >> 24) & 0xFFFFFF);
+    int y = (int) (key & 0xFFFFFF);
+    VectorTile.Tile.Layer tileLayer = createLayerBuilder(layer)
+      .build(WebMercatorTile.tile2Envelope(x, y, z));
+    if (tileLayer.getFeaturesCount() == 0) {
+      return null;
+    }
+    return VectorTile.Tile.newBuilder().addLayers(tileLayer).build().toByteArray();
+  }
+
+  private LayerBuilder<?> createLayerBuilder(LayerParameters<LayerType> layer) {
+    return layerBuilderFactory.crateLayerBuilder(layer, locale, graph, transitService);
+  }
+
+  private static int writeHeader(
+    DataOutputStream out,
+    String graphId,
+    List<VectorTilePyramid.LayerMetadata> metadata
+  ) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    writeString(out, graphId);
+    out.writeInt(metadata.size());
+    for (VectorTilePyramid.LayerMetadata it : metadata) {
+      writeString(out, it.name());
+      writeString(out, it.type());
+      writeString(out, it.mapper());
+      out.writeDouble(it.expansionFactor());
+      writeString(out, it.language());
+      out.writeInt(it.minZoom());
+      out.writeInt(it.maxZoom());
+      out.writeInt(it.numOfTiles());
+    }
+    return out.size();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+}
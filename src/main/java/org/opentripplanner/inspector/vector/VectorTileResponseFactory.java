@@ -2,9 +2,14 @@ package org.opentripplanner.inspector.vector;
 
 import edu.colorado.cires.cmg.mvt.VectorTile;
 import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Envelope;
 import org.opentripplanner.api.resource.WebMercatorTile;
 import org.opentripplanner.routing.graph.Graph;
@@ -12,9 +17,17 @@ import org.opentripplanner.transit.service.TransitService;
 
 /**
  * Common functionality for creating a vector tile response.
+ * <p>
+ * The response has an entity tag, and if the client already has the tile (the tag matches the
+ * {@code If-None-Match} header) a {@code 304 Not Modified} is returned without the tile. If the
+ * tile is fetched from a {@link VectorTileCache}, it is returned GZIP compressed to clients
+ * accepting it. Layers pre-rendered when the graph was built are read from the
+ * {@link VectorTilePyramid} of the graph.
  */
 public class VectorTileResponseFactory {
 
+  private static final String GZIP = "gzip";
+
   public static <LayerType extends Enum<LayerType>> Response create(
     int x,
     int y,
@@ -24,12 +37,15 @@ public class VectorTileResponseFactory {
     List<LayerParameters<LayerType>> availableLayers,
     LayerBuilderFactory<LayerType> layerBuilderFactory,
     Graph graph,
-    TransitService transitService
+    TransitService transitService,
+    VectorTileCache cache,
+    @Nullable HttpHeaders headers
   ) {
-    VectorTile.Tile.Builder mvtBuilder = VectorTile.Tile.newBuilder();
-    Envelope envelope = WebMercatorTile.tile2Envelope(x, y, z);
-
     int cacheMaxSeconds = Integer.MAX_VALUE;
+    List<String> layerNames = new ArrayList<>();
+    List<Long> versions = new ArrayList<>();
+    List<LayerParameters<LayerType>> layers = new ArrayList<>();
+    List<LayerBuilder<?>> layerBuilders = new ArrayList<>();
 
     for (LayerParameters<LayerType> layerParameters : availableLayers) {
       if (
@@ -38,22 +54,125 @@ public class VectorTileResponseFactory {
         z <= layerParameters.maxZoom()
       ) {
         cacheMaxSeconds = Math.min(cacheMaxSeconds, layerParameters.cacheMaxSeconds());
-        VectorTile.Tile.Layer layer = layerBuilderFactory
-          .crateLayerBuilder(layerParameters, locale, graph, transitService)
-          .build(envelope);
-        mvtBuilder.addLayers(layer);
+        var layerBuilder = layerBuilderFactory.crateLayerBuilder(
+          layerParameters,
+          locale,
+          graph,
+          transitService
+        );
+        layers.add(layerParameters);
+        layerNames.add(layerParameters.name());
+        // The version is read before the tile is built, so a tile built while the data is
+        // updated is not cached with the new version
+        versions.add(layerBuilder.dataVersion());
+        layerBuilders.add(layerBuilder);
       }
     }
 
+    var key = new VectorTileCache.TileKey(layerNames, versions, x, y, z, locale);
+    var pyramid = graph.getVectorTilePyramid();
+    var tile = cache.get(key, () -> buildTile(x, y, z, locale, layers, layerBuilders, pyramid));
+
     CacheControl cacheControl = new CacheControl();
     if (cacheMaxSeconds != Integer.MAX_VALUE) {
       cacheControl.setMaxAge(cacheMaxSeconds);
     }
-    return Response
+
+    if (headers != null && matchesEtag(headers.getHeaderString(HttpHeaders.IF_NONE_MATCH), tile)) {
+      return Response
+        .status(Response.Status.NOT_MODIFIED)
+        .cacheControl(cacheControl)
+        .header(HttpHeaders.ETAG, tile.etag())
+        .build();
+    }
+
+    var response = Response
       .status(Response.Status.OK)
       .cacheControl(cacheControl)
-      .entity(mvtBuilder.build().toByteArray())
-      .build();
+      .header(HttpHeaders.ETAG, tile.etag());
+
+    if (!tile.compressed()) {
+      return response.entity(tile.data()).build();
+    }
+    response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (headers != null && acceptsGzip(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).entity(tile.data()).build();
+    }
+    return response.entity(tile.uncompressed()).build();
+  }
+
+  /**
+   * Build the tile, the layers pre-rendered in the {@link VectorTilePyramid} are copied as they
+   * are. A tile is a list of layers, so the encoded tile with all layers is the concatenation of
+   * the encoded tiles with each layer.
+   */
+  private static <LayerType extends Enum<LayerType>> byte[] buildTile(
+    int x,
+    int y,
+    int z,
+    Locale locale,
+    List<LayerParameters<LayerType>> layers,
+    List<LayerBuilder<?>> layerBuilders,
+    VectorTilePyramid pyramid
+  ) {
+    Envelope envelope = WebMercatorTile.tile2Envelope(x, y, z);
+    var out = new ByteArrayOutputStream();
+
+    for (int i = 0; i < layers.size(); ++i) {
+      ByteBuffer preRendered = pyramid.find(layers.get(i), locale, x, y, z);
+      if (preRendered != null) {
+        byte[] bytes = new byte[preRendered.remaining()];
+        preRendered.get(bytes);
+        out.writeBytes(bytes);
+      } else {
+        VectorTile.Tile.Layer layer = layerBuilders.get(i).build(envelope);
+        out.writeBytes(VectorTile.Tile.newBuilder().addLayers(layer).build().toByteArray());
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Check if the {@code If-None-Match} header contains the entity tag of the tile. Weak tags are
+   * accepted, since the tile is the same also if it is returned with another content encoding.
+   */
+  static boolean matchesEtag(@Nullable String ifNoneMatch, VectorTileCache.EncodedTile tile) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(tile.etag())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if the {@code Accept-Encoding} header contains gzip, and it is not disabled with
+   * {@code q=0}.
+   */
+  static boolean acceptsGzip(@Nullable String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+        for (int i = 1; i < parts.length; ++i) {
+          String param = parts[i].replace(" ", "");
+          if (param.matches("q=0(\\.0*)?")) {
+            return false;
+          }
+        }
+        return true;
+      }
+    }
+    return false;
   }
 
   @FunctionalInterface
@@ -1,19 +1,17 @@
 package org.opentripplanner.model;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.collection.PersistentMap;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.framework.Result;
@@ -38,6 +36,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * At this point, only one writing thread at a time is supported.
  * <p>
+ * All indexes are kept in {@link PersistentMap}s. An update copies only the path to the changed
+ * key, and a commit shares the maps with the read-only snapshot instead of cloning them. This
+ * keeps the allocation caused by frequent commits proportional to the number of changes, not to
+ * the size of the realtime data.
+ * <p>
  *  TODO OTP2 - Move this to package: org.opentripplanner.model
  *            - after ass Entur NeTEx PRs are merged.
  */
@@ -51,41 +54,47 @@ public class TimetableSnapshot {
    */
   private final Set<Timetable> dirtyTimetables = new HashSet<>();
 
+  /**
+   * The dirty timetables which were removed since the last commit, because the last trip added by
+   * realtime updates was reverted. They are kept in the dirty timetables until they are replaced,
+   * so the transit layer is updated on commit.
+   */
+  private final Set<Timetable> removedTimetables = new HashSet<>();
+
   /**
    * The timetables for different days, for each TripPattern (each sequence of stops on a particular
    * Route) for which we have an updated Timetable. The keys include both TripPatterns from the
    * scheduled GTFS, and TripPatterns added by realtime messages and tracked by the
    * TripPatternCache. Note that the keys will not include all scheduled TripPatterns, only those
-   * for which we've got an update. We use a HashMap rather than a Map so we can clone it. If this
-   * turns out to be slow/spacious we can use an array with integer pattern indexes. The SortedSet
-   * members are copy-on-write.
+   * for which we've got an update. The SortedSet members are copy-on-write.
    * FIXME: this could be made into a flat hashtable with compound keys.
    */
-  private HashMap<TripPattern, SortedSet<Timetable>> timetables = new HashMap();
+  private PersistentMap<TripPattern, SortedSet<Timetable>> timetables = PersistentMap.empty();
 
   /**
    * <p>
    * Map containing the current trip pattern given a trip id and a service date, if it has been
    * changed from the scheduled pattern with an update, for which the stopPattern is different.
    * </p>
-   * <p>
-   * This is a HashMap and not a Map so the clone function is available.
    */
-  private HashMap<TripIdAndServiceDate, TripPattern> realtimeAddedTripPattern = new HashMap<>();
+  private PersistentMap<TripIdAndServiceDate, TripPattern> realtimeAddedTripPattern =
+    PersistentMap.empty();
 
-  private HashMap<FeedScopedId, TripOnServiceDate> realtimeAddedTripOnServiceDate = new HashMap<>();
-  private HashMap<TripIdAndServiceDate, TripOnServiceDate> realtimeAddedTripOnServiceDateByTripIdAndServiceDate = new HashMap<>();
+  private PersistentMap<FeedScopedId, TripOnServiceDate> realtimeAddedTripOnServiceDate =
+    PersistentMap.empty();
+  private PersistentMap<TripIdAndServiceDate, TripOnServiceDate> realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
+    PersistentMap.empty();
 
   /**
    * This maps contains all of the new or updated TripPatterns added by realtime data indexed on
    * stop. This has to be kept in order for them to be included in the stop times api call on a
    * specific stop.
    * <p>
-   * This is a SetMultimap, so that each pattern can only be added once.
+   * The pattern sets are copy-on-write, so that each pattern can only be added once.
    * <p>
    * TODO Find a generic way to keep all realtime indexes.
    */
-  private SetMultimap<StopLocation, TripPattern> patternsForStop = HashMultimap.create();
+  private PersistentMap<StopLocation, Set<TripPattern>> patternsForStop = PersistentMap.empty();
 
   /**
    * Boolean value indicating that timetable snapshot is read only if true. Once it is true, it
@@ -191,26 +200,7 @@ public class TimetableSnapshot {
       throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
     }
 
-    Timetable tt = resolve(pattern, serviceDate);
-    // we need to perform the copy of Timetable here rather than in Timetable.update()
-    // to avoid repeatedly copying in case several updates are applied to the same timetable
-    if (!dirtyTimetables.contains(tt)) {
-      Timetable old = tt;
-      tt = new Timetable(tt, serviceDate);
-      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
-      if (sortedTimetables == null) {
-        sortedTimetables = new TreeSet<>(new SortedTimetableComparator());
-      } else {
-        SortedSet<Timetable> temp = new TreeSet<>(new SortedTimetableComparator());
-        temp.addAll(sortedTimetables);
-        sortedTimetables = temp;
-      }
-      if (old.getServiceDate() != null) sortedTimetables.remove(old);
-      sortedTimetables.add(tt);
-      timetables.put(pattern, sortedTimetables);
-      dirtyTimetables.add(tt);
-      dirty = true;
-    }
+    Timetable tt = getDirtyTimetable(pattern, serviceDate);
 
     // Assume all trips in a pattern are from the same feed, which should be the case.
     // Find trip index
@@ -227,7 +217,7 @@ public class TimetableSnapshot {
       // Remember this pattern for the added trip id and service date
       FeedScopedId tripId = updatedTripTimes.getTrip().getId();
       TripIdAndServiceDate tripIdAndServiceDate = new TripIdAndServiceDate(tripId, serviceDate);
-      realtimeAddedTripPattern.put(tripIdAndServiceDate, pattern);
+      realtimeAddedTripPattern = realtimeAddedTripPattern.plus(tripIdAndServiceDate, pattern);
     }
 
     // To make these trip patterns visible for departureRow searches.
@@ -238,13 +228,64 @@ public class TimetableSnapshot {
     return Result.success(UpdateSuccess.noWarnings());
   }
 
+  /**
+   * Revert the realtime updates of a trip on a service date, with the same result as if the
+   * updates of the trip were cleared from the snapshot. The trip times of the trip in the scheduled
+   * pattern are set back to the scheduled trip times, and the trip is removed from the pattern it
+   * was added to by a realtime update. If this was the last trip of the added pattern on the
+   * service date, the timetable is removed, and so is the pattern from the stop index when it has
+   * no timetables left.
+   *
+   * @param tripId           trip id
+   * @param serviceDate      service date
+   * @param scheduledPattern the scheduled pattern of the trip, or null if the trip is added by a
+   *                         realtime update
+   */
+  public void revertTrip(
+    FeedScopedId tripId,
+    LocalDate serviceDate,
+    @Nullable TripPattern scheduledPattern
+  ) {
+    if (readOnly) {
+      throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
+    }
+
+    if (scheduledPattern != null) {
+      Timetable scheduledTimetable = scheduledPattern.getScheduledTimetable();
+      TripTimes scheduledTripTimes = scheduledTimetable.getTripTimes(tripId);
+      Timetable timetable = resolve(scheduledPattern, serviceDate);
+      if (
+        scheduledTripTimes != null &&
+        timetable != scheduledTimetable &&
+        timetable.getTripTimes(tripId) != scheduledTripTimes
+      ) {
+        Timetable tt = getDirtyTimetable(scheduledPattern, serviceDate);
+        tt.setTripTimes(tt.getTripIndex(tripId), scheduledTripTimes);
+      }
+    }
+
+    TripPattern addedPattern = getRealtimeAddedTripPattern(tripId, serviceDate);
+    if (addedPattern != null) {
+      Timetable tt = getDirtyTimetable(addedPattern, serviceDate);
+      int tripIndex = tt.getTripIndex(tripId);
+      if (tripIndex != -1) {
+        tt.getTripTimes().remove(tripIndex);
+        if (tt.getTripTimes().isEmpty()) {
+          removeTimetable(addedPattern, tt);
+        }
+      }
+      removeLastAddedTripPattern(tripId, serviceDate);
+      dirty = true;
+    }
+  }
+
   /**
    * This produces a small delay of typically around 50ms, which is almost entirely due to the
-   * indexing step. Cloning the map is much faster (2ms). It is perhaps better to index timetables
-   * as they are changed to avoid experiencing all this lag at once, but we want to avoid
-   * re-indexing when receiving multiple updates for the same timetable in rapid succession. This
-   * compromise is expressed by the maxSnapshotFrequency property of StoptimeUpdater. The indexing
-   * could be made much more efficient as well.
+   * indexing step. The maps are immutable and shared with the new snapshot, so they are not
+   * copied. It is perhaps better to index timetables as they are changed to avoid experiencing all
+   * this lag at once, but we want to avoid re-indexing when receiving multiple updates for the
+   * same timetable in rapid succession. This compromise is expressed by the maxSnapshotFrequency
+   * property of StoptimeUpdater. The indexing could be made much more efficient as well.
    *
    * @return an immutable copy of this TimetableSnapshot with all updates applied
    */
@@ -252,7 +293,6 @@ public class TimetableSnapshot {
     return commit(null, false);
   }
 
-  @SuppressWarnings("unchecked")
   public TimetableSnapshot commit(TransitLayerUpdater transitLayerUpdater, boolean force) {
     if (readOnly) {
       throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
@@ -262,22 +302,21 @@ public class TimetableSnapshot {
     if (!force && !this.isDirty()) {
       return null;
     }
-    ret.timetables = (HashMap<TripPattern, SortedSet<Timetable>>) this.timetables.clone();
-    ret.realtimeAddedTripPattern =
-      (HashMap<TripIdAndServiceDate, TripPattern>) this.realtimeAddedTripPattern.clone();
+    ret.timetables = this.timetables;
+    ret.realtimeAddedTripPattern = this.realtimeAddedTripPattern;
 
     if (transitLayerUpdater != null) {
       transitLayerUpdater.update(dirtyTimetables, timetables);
     }
 
-    ret.realtimeAddedTripOnServiceDate =
-      (HashMap<FeedScopedId, TripOnServiceDate>) this.realtimeAddedTripOnServiceDate.clone();
+    ret.realtimeAddedTripOnServiceDate = this.realtimeAddedTripOnServiceDate;
     ret.realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
-      (HashMap<TripIdAndServiceDate, TripOnServiceDate>) this.realtimeAddedTripOnServiceDateByTripIdAndServiceDate.clone();
+      this.realtimeAddedTripOnServiceDateByTripIdAndServiceDate;
     this.dirtyTimetables.clear();
+    this.removedTimetables.clear();
     this.dirty = false;
 
-    ret.setPatternsForStop(HashMultimap.create(this.patternsForStop));
+    ret.patternsForStop = this.patternsForStop;
 
     ret.readOnly = true; // mark the snapshot as henceforth immutable
     return ret;
@@ -307,7 +346,8 @@ public class TimetableSnapshot {
    * trip times from the timetable the trip has been added to.
    */
   public void removeLastAddedTripPattern(FeedScopedId feedScopedTripId, LocalDate serviceDate) {
-    realtimeAddedTripPattern.remove(new TripIdAndServiceDate(feedScopedTripId, serviceDate));
+    realtimeAddedTripPattern =
+      realtimeAddedTripPattern.minus(new TripIdAndServiceDate(feedScopedTripId, serviceDate));
   }
 
   /**
@@ -319,37 +359,34 @@ public class TimetableSnapshot {
     }
 
     boolean modified = false;
-    for (Iterator<TripPattern> it = timetables.keySet().iterator(); it.hasNext();) {
-      TripPattern pattern = it.next();
-      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+    var purgedTimetables = timetables;
+    for (Map.Entry<TripPattern, SortedSet<Timetable>> it : timetables.entrySet()) {
+      TripPattern pattern = it.getKey();
       SortedSet<Timetable> toKeepTimetables = new TreeSet<>(new SortedTimetableComparator());
-      for (Timetable timetable : sortedTimetables) {
+      for (Timetable timetable : it.getValue()) {
         if (serviceDate.compareTo(timetable.getServiceDate()) < 0) {
           toKeepTimetables.add(timetable);
-        } else {
-          modified = true;
         }
       }
 
-      if (toKeepTimetables.isEmpty()) {
-        it.remove();
-      } else {
-        timetables.put(pattern, toKeepTimetables);
+      if (toKeepTimetables.size() == it.getValue().size()) {
+        continue;
       }
+      modified = true;
+      purgedTimetables =
+        toKeepTimetables.isEmpty()
+          ? purgedTimetables.minus(pattern)
+          : purgedTimetables.plus(pattern, toKeepTimetables);
     }
+    timetables = purgedTimetables;
 
     // Also remove last added trip pattern for days that are purged
-    for (
-      Iterator<Entry<TripIdAndServiceDate, TripPattern>> iterator = realtimeAddedTripPattern
-        .entrySet()
-        .iterator();
-      iterator.hasNext();
-    ) {
-      TripIdAndServiceDate tripIdAndServiceDate = iterator.next().getKey();
-      if (serviceDate.compareTo(tripIdAndServiceDate.serviceDate()) >= 0) {
-        iterator.remove();
-        modified = true;
-      }
+    var purgedTripPatterns = realtimeAddedTripPattern.minusIf(tripIdAndServiceDate ->
+      serviceDate.compareTo(tripIdAndServiceDate.serviceDate()) >= 0
+    );
+    if (purgedTripPatterns != realtimeAddedTripPattern) {
+      realtimeAddedTripPattern = purgedTripPatterns;
+      modified = true;
     }
 
     return modified;
@@ -368,26 +405,24 @@ public class TimetableSnapshot {
   }
 
   public Collection<TripPattern> getPatternsForStop(StopLocation stop) {
-    return patternsForStop.get(stop);
-  }
-
-  public void setPatternsForStop(SetMultimap<StopLocation, TripPattern> patternsForStop) {
-    this.patternsForStop = patternsForStop;
+    return patternsForStop.getOrDefault(stop, Set.of());
   }
 
   public void addLastAddedTripOnServiceDate(TripOnServiceDate tripOnServiceDate) {
-    realtimeAddedTripOnServiceDate.put(tripOnServiceDate.getId(), tripOnServiceDate);
-    realtimeAddedTripOnServiceDateByTripIdAndServiceDate.put(
-      tripOnServiceDate.getTripIdAndServiceDate(),
-      tripOnServiceDate
-    );
+    realtimeAddedTripOnServiceDate =
+      realtimeAddedTripOnServiceDate.plus(tripOnServiceDate.getId(), tripOnServiceDate);
+    realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
+      realtimeAddedTripOnServiceDateByTripIdAndServiceDate.plus(
+        tripOnServiceDate.getTripIdAndServiceDate(),
+        tripOnServiceDate
+      );
   }
 
-  public HashMap<FeedScopedId, TripOnServiceDate> getRealtimeAddedTripOnServiceDate() {
+  public Map<FeedScopedId, TripOnServiceDate> getRealtimeAddedTripOnServiceDate() {
     return realtimeAddedTripOnServiceDate;
   }
 
-  public HashMap<TripIdAndServiceDate, TripOnServiceDate> getRealtimeAddedTripOnServiceDateByTripIdAndServiceDate() {
+  public Map<TripIdAndServiceDate, TripOnServiceDate> getRealtimeAddedTripOnServiceDateByTripIdAndServiceDate() {
     return realtimeAddedTripOnServiceDateByTripIdAndServiceDate;
   }
 
@@ -398,7 +433,9 @@ public class TimetableSnapshot {
    * @return true if the timetable changed as a result of the call
    */
   protected boolean clearTimetable(String feedId) {
-    return timetables.keySet().removeIf(tripPattern -> feedId.equals(tripPattern.getFeedId()));
+    var old = timetables;
+    timetables = timetables.minusIf(tripPattern -> feedId.equals(tripPattern.getFeedId()));
+    return timetables != old;
   }
 
   /**
@@ -408,11 +445,43 @@ public class TimetableSnapshot {
    * @return true if the realtimeAddedTripPattern changed as a result of the call
    */
   protected boolean clearRealtimeAddedTripPattern(String feedId) {
-    return realtimeAddedTripPattern
-      .keySet()
-      .removeIf(realtimeAddedTripPattern ->
-        feedId.equals(realtimeAddedTripPattern.tripId().getFeedId())
+    var old = realtimeAddedTripPattern;
+    realtimeAddedTripPattern =
+      realtimeAddedTripPattern.minusIf(tripIdAndServiceDate ->
+        feedId.equals(tripIdAndServiceDate.tripId().getFeedId())
       );
+    return realtimeAddedTripPattern != old;
+  }
+
+  /**
+   * Return the timetable of the pattern on the service date which can be modified, copying the
+   * current timetable the first time it is modified after a commit. The copy is done here rather
+   * than in the Timetable to avoid repeatedly copying in case several updates are applied to the
+   * same timetable.
+   */
+  private Timetable getDirtyTimetable(TripPattern pattern, LocalDate serviceDate) {
+    Timetable tt = resolve(pattern, serviceDate);
+    if (!dirtyTimetables.contains(tt)) {
+      if (!removedTimetables.isEmpty()) {
+        replaceRemovedTimetable(pattern, serviceDate);
+      }
+      Timetable old = tt;
+      tt = new Timetable(tt, serviceDate);
+      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+      if (sortedTimetables == null) {
+        sortedTimetables = new TreeSet<>(new SortedTimetableComparator());
+      } else {
+        SortedSet<Timetable> temp = new TreeSet<>(new SortedTimetableComparator());
+        temp.addAll(sortedTimetables);
+        sortedTimetables = temp;
+      }
+      if (old.getServiceDate() != null) sortedTimetables.remove(old);
+      sortedTimetables.add(tt);
+      timetables = timetables.plus(pattern, sortedTimetables);
+      dirtyTimetables.add(tt);
+      dirty = true;
+    }
+    return tt;
   }
 
   /**
@@ -423,7 +492,60 @@ public class TimetableSnapshot {
       //TODO - SIRI: Add pattern to index?
 
       for (var stop : tripPattern.getStops()) {
-        patternsForStop.put(stop, tripPattern);
+        Set<TripPattern> patterns = patternsForStop.getOrDefault(stop, Set.of());
+        if (!patterns.contains(tripPattern)) {
+          Set<TripPattern> newPatterns = new HashSet<>(patterns);
+          newPatterns.add(tripPattern);
+          patternsForStop = patternsForStop.plus(stop, Set.copyOf(newPatterns));
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the timetable from the timetables of the pattern, and the pattern from the stop index if
+   * it has no timetables left. The timetable is still dirty, so the transit layer is updated.
+   */
+  private void removeTimetable(TripPattern pattern, Timetable timetable) {
+    SortedSet<Timetable> sortedTimetables = new TreeSet<>(new SortedTimetableComparator());
+    sortedTimetables.addAll(timetables.getOrDefault(pattern, new TreeSet<>()));
+    sortedTimetables.remove(timetable);
+    if (sortedTimetables.isEmpty()) {
+      timetables = timetables.minus(pattern);
+      removePatternFromIndex(pattern);
+    } else {
+      timetables = timetables.plus(pattern, sortedTimetables);
+    }
+    removedTimetables.add(timetable);
+  }
+
+  /**
+   * A timetable removed since the last commit is replaced by the new timetable of the same pattern
+   * and service date, so only the new one is applied to the transit layer.
+   */
+  private void replaceRemovedTimetable(TripPattern pattern, LocalDate serviceDate) {
+    removedTimetables.removeIf(it -> {
+      if (it.getPattern() == pattern && serviceDate.equals(it.getServiceDate())) {
+        dirtyTimetables.remove(it);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * Remove the pattern from the stop index, the reverse of {@link #addPatternToIndex(TripPattern)}.
+   */
+  private void removePatternFromIndex(TripPattern tripPattern) {
+    for (var stop : tripPattern.getStops()) {
+      Set<TripPattern> patterns = patternsForStop.getOrDefault(stop, Set.of());
+      if (patterns.contains(tripPattern)) {
+        Set<TripPattern> newPatterns = new HashSet<>(patterns);
+        newPatterns.remove(tripPattern);
+        patternsForStop =
+          newPatterns.isEmpty()
+            ? patternsForStop.minus(stop)
+            : patternsForStop.plus(stop, Set.copyOf(newPatterns));
       }
     }
   }
@@ -1,10 +1,12 @@
 package org.opentripplanner.netex;
 
 import java.util.List;
+import java.util.Set;
 import org.opentripplanner.ext.flex.FlexTripsMapper;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
 import org.opentripplanner.graph_builder.module.AddTransitModelEntitiesToGraph;
 import org.opentripplanner.graph_builder.module.ValidateAndInterpolateStopTimesForEachTrip;
 import org.opentripplanner.model.OtpTransitService;
@@ -112,6 +114,20 @@ public class NetexModule implements GraphBuilderModule {
     new ValidateAndInterpolateStopTimesForEachTrip(stopTimesByTrip, false, false, issueStore).run();
   }
 
+  @Override
+  public Set<GraphBuilderResource> reads() {
+    return Set.of(GraphBuilderResource.TRANSIT);
+  }
+
+  /**
+   * Adding the stops, pathways and elevators also add vertices and edges to the graph, but they
+   * are not linked to the streets here.
+   */
+  @Override
+  public Set<GraphBuilderResource> writes() {
+    return Set.of(GraphBuilderResource.TRANSIT_GRAPH, GraphBuilderResource.TRANSIT);
+  }
+
   @Override
   public void checkInputs() {
     netexBundles.forEach(NetexBundle::checkInputs);
@@ -1,9 +1,9 @@
 package org.opentripplanner.openstreetmap;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
 import org.openstreetmap.osmosis.osmbinary.BinaryParser;
 import org.openstreetmap.osmosis.osmbinary.Osmformat;
 import org.opentripplanner.openstreetmap.api.OSMProvider;
@@ -16,19 +16,34 @@ import org.opentripplanner.openstreetmap.spi.OSMDatabase;
 
 /**
  * Parser for the OpenStreetMap PBF Format.
+ * <p>
+ * A parser decodes one block of the file, and keeps the entities of the current phase until they
+ * are added to the database with {@link #addTo(OSMDatabase)}. This allows the blocks to be
+ * decoded in parallel, and added to the database in the order of the file, see
+ * {@link OsmPbfReader}.
  *
  * @since 0.4
  */
 class OpenStreetMapParser extends BinaryParser {
 
-  private final OSMDatabase osmdb;
-  private final Map<String, String> stringTable = new HashMap<>();
+  private final ConcurrentMap<String, String> stringTable;
   private final OSMProvider provider;
-  private OsmParserPhase parsePhase;
+  private final OsmParserPhase parsePhase;
+  private final List<OSMRelation> relations = new ArrayList<>();
+  private final List<OSMWay> ways = new ArrayList<>();
+  private final List<OSMNode> nodes = new ArrayList<>();
 
-  public OpenStreetMapParser(OSMDatabase osmdb, OSMProvider provider) {
-    this.osmdb = Objects.requireNonNull(osmdb);
+  /**
+   * @param stringTable the strings of all entities read, shared by the parsers of all blocks.
+   */
+  public OpenStreetMapParser(
+    OSMProvider provider,
+    OsmParserPhase parsePhase,
+    ConcurrentMap<String, String> stringTable
+  ) {
     this.provider = Objects.requireNonNull(provider);
+    this.parsePhase = Objects.requireNonNull(parsePhase);
+    this.stringTable = Objects.requireNonNull(stringTable);
   }
 
   // The strings are already being pulled from a string table in the PBF file,
@@ -36,12 +51,17 @@ class OpenStreetMapParser extends BinaryParser {
   // String.intern grinds to a halt on large PBF files (as it did on GTFS import), so
   // we implement our own.
   public String internalize(String s) {
-    String fromTable = stringTable.get(s);
-    if (fromTable == null) {
-      stringTable.put(s, s);
-      return s;
-    }
-    return fromTable;
+    String fromTable = stringTable.putIfAbsent(s, s);
+    return fromTable == null ? s : fromTable;
+  }
+
+  /**
+   * Add the entities decoded by this parser to the database, in the order of the file.
+   */
+  public void addTo(OSMDatabase osmdb) {
+    relations.forEach(osmdb::addRelation);
+    ways.forEach(osmdb::addWay);
+    nodes.forEach(osmdb::addNode);
   }
 
   @Override
@@ -49,13 +69,6 @@ class OpenStreetMapParser extends BinaryParser {
     // Jump in circles
   }
 
-  /**
-   * Set the phase to be parsed
-   */
-  public void setPhase(OsmParserPhase phase) {
-    this.parsePhase = phase;
-  }
-
   @Override
   protected void parseRelations(List<Osmformat.Relation> rels) {
     if (parsePhase != OsmParserPhase.Relations) {
@@ -99,7 +112,7 @@ class OpenStreetMapParser extends BinaryParser {
         tmp.addMember(relMember);
       }
 
-      osmdb.addRelation(tmp);
+      relations.add(tmp);
     }
   }
 
@@ -144,7 +157,7 @@ class OpenStreetMapParser extends BinaryParser {
         j++; // Skip over the '0' delimiter.
       }
 
-      osmdb.addNode(tmp);
+      this.nodes.add(tmp);
     }
   }
 
@@ -171,7 +184,7 @@ class OpenStreetMapParser extends BinaryParser {
         tmp.addTag(tag);
       }
 
-      osmdb.addNode(tmp);
+      this.nodes.add(tmp);
     }
   }
 
@@ -201,7 +214,7 @@ class OpenStreetMapParser extends BinaryParser {
         lastId = j + lastId;
       }
 
-      osmdb.addWay(tmp);
+      this.ways.add(tmp);
     }
   }
 
@@ -1,11 +1,14 @@
 package org.opentripplanner.openstreetmap;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.ZoneId;
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -22,12 +25,16 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes: First the relations, then
- * the ways, then the nodes are also loaded.
+ * the ways, then the nodes are also loaded. The blocks of the file are decoded in parallel, see
+ * {@link OsmPbfReader}.
  */
 public class OpenStreetMapProvider implements OSMProvider {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenStreetMapProvider.class);
 
+  /** The number of blocks decoded ahead of the database, for each decoder thread */
+  private static final int BLOCKS_IN_PROGRESS_PER_THREAD = 4;
+
   private final DataSource source;
   private final boolean cacheDataInMem;
 
@@ -60,19 +67,31 @@ public class OpenStreetMapProvider implements OSMProvider {
   }
 
   public void readOSM(OSMDatabase osmdb) {
+    int nThreads = Runtime.getRuntime().availableProcessors();
+    ExecutorService executor = Executors.newFixedThreadPool(
+      nThreads,
+      new ThreadFactoryBuilder().setNameFormat("OsmPbfDecoder-%d").setDaemon(true).build()
+    );
     try {
-      OpenStreetMapParser parser = new OpenStreetMapParser(osmdb, this);
-
-      parsePhase(parser, OsmParserPhase.Relations);
+      var reader = new OsmPbfReader(
+        this,
+        new ConcurrentHashMap<>(),
+        executor,
+        BLOCKS_IN_PROGRESS_PER_THREAD * nThreads
+      );
+
+      parsePhase(reader, osmdb, OsmParserPhase.Relations);
       osmdb.doneFirstPhaseRelations();
 
-      parsePhase(parser, OsmParserPhase.Ways);
+      parsePhase(reader, osmdb, OsmParserPhase.Ways);
       osmdb.doneSecondPhaseWays();
 
-      parsePhase(parser, OsmParserPhase.Nodes);
+      parsePhase(reader, osmdb, OsmParserPhase.Nodes);
       osmdb.doneThirdPhaseNodes();
     } catch (Exception ex) {
       throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -98,12 +117,12 @@ public class OpenStreetMapProvider implements OSMProvider {
     return ProgressTracker.track("Parse OSM " + phase, 1000, size, inputStream, m -> LOG.info(m));
   }
 
-  private void parsePhase(OpenStreetMapParser parser, OsmParserPhase phase) throws IOException {
-    parser.setPhase(phase);
-    BlockInputStream in = null;
+  private void parsePhase(OsmPbfReader reader, OSMDatabase osmdb, OsmParserPhase phase)
+    throws IOException {
+    InputStream in = null;
     try {
-      in = new BlockInputStream(createInputStream(phase), parser);
-      in.process();
+      in = createInputStream(phase);
+      reader.read(in, phase, osmdb);
     } finally {
       // Close
       try {
@@ -0,0 +1,156 @@
+package org.opentripplanner.openstreetmap;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+import org.opentripplanner.openstreetmap.api.OSMProvider;
+import org.opentripplanner.openstreetmap.spi.OSMDatabase;
+
+/**
+ * Read the blocks of an OSM PBF file, and decode them in parallel. The blocks are read from the
+ * input stream by the calling thread, and inflated and decoded by the given executor. The decoded
+ * blocks are added to the database by the calling thread, in the order of the file, so the
+ * database is not accessed concurrently.
+ * <p>
+ * The number of blocks read, but not added to the database, is limited to keep the memory usage
+ * low. Each block contains up to 8000 entities.
+ */
+class OsmPbfReader {
+
+  private static final String OSM_HEADER = "OSMHeader";
+  private static final String OSM_DATA = "OSMData";
+
+  /** The max size of the header and data of a block, as defined by the PBF format */
+  private static final int MAX_HEADER_SIZE = 64 * 1024;
+  private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+  private final OSMProvider provider;
+  private final ConcurrentMap<String, String> stringTable;
+  private final ExecutorService executor;
+  private final int maxBlocksInProgress;
+
+  /**
+   * @param stringTable         used to internalize the strings of all blocks.
+   * @param maxBlocksInProgress the max number of blocks read, but not added to the database.
+   */
+  OsmPbfReader(
+    OSMProvider provider,
+    ConcurrentMap<String, String> stringTable,
+    ExecutorService executor,
+    int maxBlocksInProgress
+  ) {
+    this.provider = provider;
+    this.stringTable = stringTable;
+    this.executor = executor;
+    this.maxBlocksInProgress = maxBlocksInProgress;
+  }
+
+  /**
+   * Read all blocks in the input stream, and add the entities of the given phase to the database.
+   */
+  void read(InputStream input, OsmParserPhase phase, OSMDatabase osmdb) throws IOException {
+    var in = new DataInputStream(input);
+    Deque<Future<OpenStreetMapParser>> inProgress = new ArrayDeque<>();
+    try {
+      while (true) {
+        int headerSize;
+        try {
+          headerSize = in.readInt();
+        } catch (EOFException e) {
+          break;
+        }
+        var header = Fileformat.BlobHeader.parseFrom(readBytes(in, headerSize, MAX_HEADER_SIZE));
+        byte[] blob = readBytes(in, header.getDatasize(), MAX_BLOB_SIZE);
+        String type = header.getType();
+
+        // Unknown block types are skipped, as the format requires
+        if (OSM_HEADER.equals(type) || OSM_DATA.equals(type)) {
+          inProgress.add(executor.submit(() -> decode(type, blob, phase)));
+        }
+        if (inProgress.size() >= maxBlocksInProgress) {
+          await(inProgress.poll()).addTo(osmdb);
+        }
+      }
+      while (!inProgress.isEmpty()) {
+        await(inProgress.poll()).addTo(osmdb);
+      }
+    } finally {
+      inProgress.forEach(it -> it.cancel(true));
+    }
+  }
+
+  private OpenStreetMapParser decode(String type, byte[] data, OsmParserPhase phase)
+    throws IOException {
+    ByteString block = inflate(Fileformat.Blob.parseFrom(data));
+    var parser = new OpenStreetMapParser(provider, phase, stringTable);
+    if (OSM_HEADER.equals(type)) {
+      parser.parse(Osmformat.HeaderBlock.parseFrom(block));
+    } else {
+      parser.parse(Osmformat.PrimitiveBlock.parseFrom(block));
+    }
+    return parser;
+  }
+
+  private static ByteString inflate(Fileformat.Blob blob) throws IOException {
+    if (blob.hasRaw()) {
+      return blob.getRaw();
+    }
+    if (!blob.hasZlibData()) {
+      throw new IOException("Unsupported compression of OSM PBF block, only zlib is supported.");
+    }
+    byte[] result = new byte[blob.getRawSize()];
+    var inflater = new Inflater();
+    try {
+      inflater.setInput(blob.getZlibData().asReadOnlyByteBuffer());
+      int size = inflater.inflate(result);
+      if (size != result.length || !inflater.finished()) {
+        throw new IOException("The size of the inflated OSM PBF block is wrong.");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Unable to inflate OSM PBF block: " + e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+    // The array is not changed after this, so it is not copied
+    return UnsafeByteOperations.unsafeWrap(result);
+  }
+
+  private static byte[] readBytes(DataInputStream in, int size, int maxSize) throws IOException {
+    if (size < 0 || size > maxSize) {
+      throw new IOException("Invalid OSM PBF block size: " + size);
+    }
+    byte[] bytes = new byte[size];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static OpenStreetMapParser await(Future<OpenStreetMapParser> block) throws IOException {
+    try {
+      return block.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading OSM PBF file.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -2,11 +2,14 @@ package org.opentripplanner.raptor;
 
 import java.util.stream.Collectors;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorBatchRequest;
 import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.response.RaptorBatchResponse;
 import org.opentripplanner.raptor.api.response.RaptorResponse;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.raptor.service.DefaultStopArrivals;
 import org.opentripplanner.raptor.service.HeuristicSearchTask;
+import org.opentripplanner.raptor.service.RangeRaptorBatchSearch;
 import org.opentripplanner.raptor.service.RangeRaptorDynamicSearch;
 import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
 import org.slf4j.Logger;
@@ -50,6 +53,18 @@ public class RaptorService<T extends RaptorTripSchedule> {
     return response;
   }
 
+  /**
+   * Search all origins in the given batch request and return the best arrival time at each stop
+   * for each origin. The transit data is shared by all searches.
+   */
+  public RaptorBatchResponse route(
+    RaptorBatchRequest<T> request,
+    RaptorTransitDataProvider<T> transitData
+  ) {
+    LOG.debug("Batch request: {}", request);
+    return new RangeRaptorBatchSearch<>(config, transitData, request).route();
+  }
+
   /**
    * TODO Add back the possibility to compare heuristics using a test - like the SpeedTest,
    *      but maybe better to make a separate test.
@@ -0,0 +1,74 @@
+package org.opentripplanner.raptor.api.request;
+
+import static org.opentripplanner.raptor.api.request.RaptorRequest.assertProperty;
+
+import java.util.List;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+
+/**
+ * A batch of one-to-many searches, one search for each origin. All searches share the same search
+ * parameters and transit data, only the access paths are different. This is used to calculate
+ * travel-time matrices, where many origins are searched and no paths are needed. Use
+ * {@link RaptorRequestBuilder#buildBatch(List)} to create a new batch request.
+ * <p>
+ * Each origin is searched using a forward {@link RaptorProfile#BEST_TIME} search, and only the
+ * best arrival time for each stop is returned, see
+ * {@link org.opentripplanner.raptor.api.response.RaptorBatchResponse}. The egress paths are not
+ * used, so {@link SearchParams#allowEmptyEgressPaths()} must be set.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public class RaptorBatchRequest<T extends RaptorTripSchedule> {
+
+  private final List<RaptorRequest<T>> requests;
+
+  RaptorBatchRequest(List<RaptorRequest<T>> requests) {
+    this.requests = List.copyOf(requests);
+    verify();
+  }
+
+  public int numberOfOrigins() {
+    return requests.size();
+  }
+
+  /**
+   * The request for the origin with the given index, the index is the same as the index of the
+   * access paths passed in to the builder.
+   */
+  public RaptorRequest<T> requestForOrigin(int originIndex) {
+    return requests.get(originIndex);
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(RaptorBatchRequest.class)
+      .addNum("numberOfOrigins", requests.size())
+      .addObj("firstRequest", requests.isEmpty() ? null : requests.get(0))
+      .toString();
+  }
+
+  /* private methods */
+
+  private void verify() {
+    for (RaptorRequest<T> it : requests) {
+      assertProperty(
+        it.profile().is(RaptorProfile.BEST_TIME),
+        "The 'profile' must be BEST_TIME in a batch request."
+      );
+      assertProperty(
+        it.searchDirection().isForward(),
+        "Only forward searches are supported in a batch request."
+      );
+      assertProperty(
+        it.searchParams().isEarliestDepartureTimeSet(),
+        "The 'earliestDepartureTime' is required in a batch request."
+      );
+      assertProperty(
+        it.searchParams().allowEmptyEgressPaths(),
+        "The 'allowEmptyEgressPaths' must be set in a batch request, egress paths are not used."
+      );
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package org.opentripplanner.raptor.api.request;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 import org.opentripplanner.raptor.api.debug.RaptorTimers;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
 import org.opentripplanner.raptor.api.model.SearchDirection;
 
@@ -58,6 +61,16 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
     this.debug = new DebugRequestBuilder(defaults.debug());
   }
 
+  /** Create a copy of the given builder, the copy can be changed without changing the original. */
+  private RaptorRequestBuilder(RaptorRequestBuilder<T> original) {
+    this.searchParams = new SearchParamsBuilder<>(this, original.searchParams.buildSearchParam());
+    this.searchDirection = original.searchDirection;
+    this.profile = original.profile;
+    this.optimizations.addAll(original.optimizations);
+    this.performanceTimers = original.performanceTimers;
+    this.debug = new DebugRequestBuilder(original.debug.build());
+  }
+
   public SearchParamsBuilder<T> searchParams() {
     return searchParams;
   }
@@ -119,6 +132,25 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
     return new RaptorRequest<>(this);
   }
 
+  /**
+   * Build a batch request with one search for each set of access paths in the given list. All
+   * other parameters are the same for all searches. Each request is built from a copy of this
+   * builder with the access paths replaced, so any access paths added to this builder are ignored
+   * and this builder is not changed.
+   */
+  public RaptorBatchRequest<T> buildBatch(
+    List<? extends Collection<? extends RaptorAccessEgress>> accessPathsPerOrigin
+  ) {
+    List<RaptorRequest<T>> requests = new ArrayList<>();
+    for (Collection<? extends RaptorAccessEgress> accessPaths : accessPathsPerOrigin) {
+      var builder = new RaptorRequestBuilder<>(this);
+      builder.searchParams.accessPaths().clear();
+      builder.searchParams.addAccessPaths(accessPaths);
+      requests.add(builder.build());
+    }
+    return new RaptorBatchRequest<>(requests);
+  }
+
   /**
    * Generate a name to the RaptorRouting request that can be used in debugging, logging
    * and/or performance monitoring.
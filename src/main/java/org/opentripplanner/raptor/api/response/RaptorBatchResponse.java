@@ -0,0 +1,41 @@
+package org.opentripplanner.raptor.api.response;
+
+import java.util.List;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.raptor.api.request.RaptorBatchRequest;
+
+/**
+ * The result of a {@link RaptorBatchRequest}. For each origin the best arrival time at each stop
+ * is returned as an array indexed by the stop index. The arrival time include access, transit and
+ * transfers, the same as {@link StopArrivals#bestArrivalTime(int)}.
+ * <p>
+ * To save memory the arrays are not copied, the caller should not modify them.
+ */
+public class RaptorBatchResponse {
+
+  private final List<int[]> arrivalTimes;
+
+  public RaptorBatchResponse(List<int[]> arrivalTimes) {
+    this.arrivalTimes = List.copyOf(arrivalTimes);
+  }
+
+  public int numberOfOrigins() {
+    return arrivalTimes.size();
+  }
+
+  /**
+   * The best arrival time for each stop for the given origin. If a stop is not reached the time is
+   * {@code RaptorConstants.TIME_UNREACHED_FORWARD}.
+   */
+  public int[] arrivalTimes(int originIndex) {
+    return arrivalTimes.get(originIndex);
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(RaptorBatchResponse.class)
+      .addNum("numberOfOrigins", arrivalTimes.size())
+      .toString();
+  }
+}
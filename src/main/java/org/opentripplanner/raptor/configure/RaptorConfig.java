@@ -1,5 +1,6 @@
 package org.opentripplanner.raptor.configure;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
@@ -62,6 +63,17 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
       .createWorker(heuristics, (s, w) -> createWorker(context, s, w));
   }
 
+  /**
+   * Merge the results of multi-criteria searches for partitions of the search-window in the given
+   * request.
+   */
+  public RaptorWorkerResult<T> mergeMcResults(
+    RaptorRequest<T> request,
+    List<RaptorWorkerResult<T>> results
+  ) {
+    return McRangeRaptorConfig.mergeResults(request, results);
+  }
+
   public RaptorWorker<T> createHeuristicSearch(
     RaptorTransitDataProvider<T> transitData,
     RaptorRequest<T> request
@@ -87,6 +99,17 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
     return threadPool;
   }
 
+  /**
+   * The size of each search-window partition, when the multi-criteria search is split and run in
+   * parallel. The size is rounded down to a whole number of iteration steps, zero means the
+   * search-window is not partitioned.
+   */
+  public int searchWindowPartitionSeconds() {
+    int step = tuningParameters.iterationDepartureStepInSeconds();
+    int size = tuningParameters.searchWindowPartitionMinutes() * 60;
+    return size <= 0 ? 0 : Math.max(step, size - size % step);
+  }
+
   public void shutdown() {
     if (threadPool != null) {
       threadPool.shutdown();
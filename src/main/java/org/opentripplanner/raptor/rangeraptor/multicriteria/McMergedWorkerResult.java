@@ -0,0 +1,100 @@
+package org.opentripplanner.raptor.rangeraptor.multicriteria;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.util.paretoset.ParetoComparator;
+import org.opentripplanner.raptor.util.paretoset.ParetoSet;
+
+/**
+ * Merge the results of multi-criteria searches for partitions of the same search-window. The
+ * paths are merged into one pareto set, and for the stop arrivals the best value across all
+ * results is used. Only forward searches are partitioned, so the smallest value is the best for all
+ * the stop arrival criteria.
+ * <p>
+ * Searching the whole search-window in one worker, the stop arrivals of later iterations prune
+ * the stop arrivals of earlier iterations. To approximate this, a path is dropped if one of its
+ * stop arrivals is dominated by the final stop arrivals of a partition with a later departure
+ * time. The result is not always the same as for one worker, see
+ * {@code PartitionedRangeRaptorSearch}.
+ */
+public class McMergedWorkerResult<T extends RaptorTripSchedule> implements RaptorWorkerResult<T> {
+
+  private final List<McRaptorWorkerResult<T>> results;
+  private final Collection<RaptorPath<T>> paths;
+
+  /**
+   * @param results The results of each partition, sorted on the departure time of the partition,
+   *                the earliest first.
+   */
+  public McMergedWorkerResult(
+    List<McRaptorWorkerResult<T>> results,
+    ParetoComparator<RaptorPath<T>> pathComparator
+  ) {
+    this.results = results;
+    var set = new ParetoSet<>(pathComparator);
+    for (int i = 0; i < results.size(); ++i) {
+      var result = results.get(i);
+      var laterPartitions = results.subList(i + 1, results.size());
+      for (RaptorPath<T> path : result.extractPaths()) {
+        if (laterPartitions.stream().noneMatch(it -> it.isPruned(result, path))) {
+          set.add(path);
+        }
+      }
+    }
+    this.paths = List.copyOf(set);
+  }
+
+  @Override
+  public Collection<RaptorPath<T>> extractPaths() {
+    return paths;
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestOverallArrivals() {
+    return bestOf(RaptorWorkerResult::extractBestOverallArrivals);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestTransitArrivals() {
+    return bestOf(RaptorWorkerResult::extractBestTransitArrivals);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestNumberOfTransfers() {
+    return bestOf(RaptorWorkerResult::extractBestNumberOfTransfers);
+  }
+
+  private SingleCriteriaStopArrivals bestOf(
+    Function<RaptorWorkerResult<T>, SingleCriteriaStopArrivals> extract
+  ) {
+    var arrivals = results.stream().map(extract).toList();
+
+    return new SingleCriteriaStopArrivals() {
+      @Override
+      public boolean isReached(int stop) {
+        for (SingleCriteriaStopArrivals it : arrivals) {
+          if (it.isReached(stop)) {
+            return true;
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public int value(int stop) {
+        int best = Integer.MAX_VALUE;
+        for (SingleCriteriaStopArrivals it : arrivals) {
+          if (it.isReached(stop)) {
+            best = Math.min(best, it.value(stop));
+          }
+        }
+        return best;
+      }
+    };
+  }
+}
@@ -5,6 +5,7 @@ import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
 import org.opentripplanner.raptor.api.path.RaptorPath;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.rangeraptor.multicriteria.arrivals.AbstractStopArrival;
 import org.opentripplanner.raptor.rangeraptor.path.DestinationArrivalPaths;
 
 public class McRaptorWorkerResult<T extends RaptorTripSchedule> implements RaptorWorkerResult<T> {
@@ -22,6 +23,22 @@ public class McRaptorWorkerResult<T extends RaptorTripSchedule> implements Rapto
     return paths.listPaths();
   }
 
+  /**
+   * Return {@code true} if one of the stop arrivals the given path is created from is dominated by
+   * the stop arrivals of this search. The path is from another search, and would have been pruned
+   * if its stop arrivals were added to the stop arrivals of this search.
+   */
+  boolean isPruned(McRaptorWorkerResult<T> pathResult, RaptorPath<T> path) {
+    var arrival = pathResult.egressStopArrival(path);
+    while (arrival != null) {
+      if (stopArrivals.dominates(arrival)) {
+        return true;
+      }
+      arrival = arrival.previous();
+    }
+    return false;
+  }
+
   @Override
   public SingleCriteriaStopArrivals extractBestOverallArrivals() {
     return new SingleCriteriaStopArrivals() {
@@ -66,4 +83,12 @@ public class McRaptorWorkerResult<T extends RaptorTripSchedule> implements Rapto
       }
     };
   }
+
+  /**
+   * All stop arrivals in a multi-criteria search are {@link AbstractStopArrival}s, so is the
+   * arrival at the egress stop.
+   */
+  private AbstractStopArrival<T> egressStopArrival(RaptorPath<T> path) {
+    return (AbstractStopArrival<T>) paths.egressStopArrival(path);
+  }
 }
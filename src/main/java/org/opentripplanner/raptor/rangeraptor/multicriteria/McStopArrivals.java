@@ -78,6 +78,24 @@ public final class McStopArrivals<T extends RaptorTripSchedule> {
       .orElseThrow();
   }
 
+  /**
+   * Return {@code true} if an arrival at the same stop in this set dominates or is equivalent to the
+   * given arrival. The given arrival would be rejected if it was added to this set.
+   */
+  boolean dominates(AbstractStopArrival<T> arrival) {
+    StopArrivalParetoSet<T> set = arrivals[arrival.stop()];
+    if (set == null) {
+      return false;
+    }
+    var comparator = AbstractStopArrival.<T>compareArrivalTimeRoundAndCost();
+    for (AbstractStopArrival<T> it : set) {
+      if (!comparator.leftDominanceExist(arrival, it)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   boolean updateExist() {
     return !touchedStops.isEmpty();
   }
@@ -1,13 +1,20 @@
 package org.opentripplanner.raptor.rangeraptor.multicriteria.configure;
 
+import static org.opentripplanner.raptor.rangeraptor.path.PathParetoSetComparators.paretoComparator;
+
+import java.util.List;
 import java.util.function.BiFunction;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
 import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerState;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RoutingStrategy;
+import org.opentripplanner.raptor.rangeraptor.multicriteria.McMergedWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.multicriteria.McRangeRaptorWorkerState;
+import org.opentripplanner.raptor.rangeraptor.multicriteria.McRaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.multicriteria.McStopArrivals;
 import org.opentripplanner.raptor.rangeraptor.multicriteria.MultiCriteriaRoutingStrategy;
 import org.opentripplanner.raptor.rangeraptor.multicriteria.heuristic.HeuristicsProvider;
@@ -42,6 +49,22 @@ public class McRangeRaptorConfig<T extends RaptorTripSchedule> {
     return createWorker.apply(state, createTransitWorkerStrategy(state));
   }
 
+  /**
+   * Merge the results of searching partitions of the search-window in the given request, the
+   * paths are merged using the same pareto criteria as the destination arrival paths. The results
+   * must be created by multi-criteria workers, and be sorted on the departure time of the
+   * partitions, the earliest first.
+   */
+  public static <T extends RaptorTripSchedule> RaptorWorkerResult<T> mergeResults(
+    RaptorRequest<T> request,
+    List<RaptorWorkerResult<T>> results
+  ) {
+    return new McMergedWorkerResult<>(
+      results.stream().map(it -> (McRaptorWorkerResult<T>) it).toList(),
+      paretoComparator(request.searchParams(), true, request.searchDirection())
+    );
+  }
+
   /* private factory methods */
 
   private RoutingStrategy<T> createTransitWorkerStrategy(McRangeRaptorWorkerState<T> state) {
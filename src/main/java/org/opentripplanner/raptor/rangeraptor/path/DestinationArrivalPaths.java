@@ -2,6 +2,8 @@ package org.opentripplanner.raptor.rangeraptor.path;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.opentripplanner.framework.lang.OtpNumberFormat;
 import org.opentripplanner.framework.logging.ThrottleLogger;
@@ -20,6 +22,8 @@ import org.opentripplanner.raptor.rangeraptor.transit.RaptorTransitCalculator;
 import org.opentripplanner.raptor.spi.CostCalculator;
 import org.opentripplanner.raptor.util.paretoset.ParetoComparator;
 import org.opentripplanner.raptor.util.paretoset.ParetoSet;
+import org.opentripplanner.raptor.util.paretoset.ParetoSetEventListener;
+import org.opentripplanner.raptor.util.paretoset.ParetoSetEventListenerComposite;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +47,12 @@ public class DestinationArrivalPaths<T extends RaptorTripSchedule> {
   private static final Logger LOG_MISS_MATCH = ThrottleLogger.throttle(LOG);
 
   private final ParetoSet<RaptorPath<T>> paths;
+
+  /**
+   * The stop arrival at the egress stop for each path in the pareto set, the key is the path
+   * instance. Paths dropped from the set are removed.
+   */
+  private final Map<RaptorPath<T>, ArrivalView<T>> egressStopArrivals = new IdentityHashMap<>();
   private final RaptorTransitCalculator<T> transitCalculator;
 
   @Nullable
@@ -65,8 +75,17 @@ public class DestinationArrivalPaths<T extends RaptorTripSchedule> {
     RaptorStopNameResolver stopNameResolver,
     WorkerLifeCycle lifeCycle
   ) {
-    this.paths =
-      new ParetoSet<>(paretoComparator, debugHandlerFactory.paretoSetDebugPathListener());
+    ParetoSetEventListener<RaptorPath<T>> listener = new ParetoSetEventListener<>() {
+      @Override
+      public void notifyElementDropped(RaptorPath<T> element, RaptorPath<T> droppedByElement) {
+        egressStopArrivals.remove(element);
+      }
+    };
+    var debugListener = debugHandlerFactory.paretoSetDebugPathListener();
+    if (debugListener != null) {
+      listener = new ParetoSetEventListenerComposite<>(debugListener, listener);
+    }
+    this.paths = new ParetoSet<>(paretoComparator, listener);
     this.transitCalculator = transitCalculator;
     this.costCalculator = costCalculator;
     this.slackProvider = slackProvider;
@@ -93,6 +112,7 @@ public class DestinationArrivalPaths<T extends RaptorTripSchedule> {
 
       boolean added = paths.add(path);
       if (added) {
+        egressStopArrivals.put(path, stopArrival);
         reachedCurrentRound = true;
       }
     }
@@ -123,6 +143,14 @@ public class DestinationArrivalPaths<T extends RaptorTripSchedule> {
     return paths;
   }
 
+  /**
+   * Return the stop arrival at the egress stop the given path was created from. The path must be
+   * one of the paths returned by {@link #listPaths()}.
+   */
+  public ArrivalView<T> egressStopArrival(RaptorPath<T> path) {
+    return egressStopArrivals.get(path);
+  }
+
   public void debugReject(ArrivalView<T> stopArrival, RaptorAccessEgress egress, String reason) {
     if (isDebugOn()) {
       var destinationArrival = createDestinationArrivalView(stopArrival, egress);
@@ -0,0 +1,151 @@
+package org.opentripplanner.raptor.service;
+
+import static org.opentripplanner.raptor.api.request.RaptorProfile.MULTI_CRITERIA;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.SearchParams;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Split the search-window of a multi-criteria Range Raptor search into partitions and search each
+ * partition in parallel. Each partition is searched by its own worker with its own state. The
+ * paths found are merged into one pareto set at the end, see
+ * {@link RaptorConfig#mergeMcResults(RaptorRequest, List)}.
+ * <p>
+ * The result approximates the result of searching the whole search-window in one worker. In one
+ * worker the stop arrivals of later iterations prune the arrivals of earlier iterations, this
+ * pruning is lost at the partition borders. The merge drops the paths with a stop arrival
+ * dominated by the final stop arrivals of a later partition, which removes most of the extra
+ * paths. It can not redo the pruning which depends on the state of the worker while searching:
+ * <ul>
+ *   <li>Stop arrivals are checked against the destination arrivals found in later iterations,
+ *   each partition only has its own destination arrivals.</li>
+ *   <li>A stop arrival dropped this way in one worker may dominate an arrival of an earlier
+ *   iteration, so the merge may drop a path the single worker keeps.</li>
+ *   <li>With a relaxed pareto comparator dominance is not transitive, so checking against the
+ *   final stop arrivals is not the same as checking against them as they are added.</li>
+ * </ul>
+ * So the result may contain extra paths, and in rare cases miss a path a single worker finds. All
+ * partitions use the same heuristics, and search the same departure times as one worker would.
+ * <p>
+ * Range Raptor reuse the state from later iterations in earlier iterations, so the total work
+ * increase with the number of partitions. This only pays off for long search-windows on servers
+ * with idle cores, and is turned off by default. See
+ * {@link org.opentripplanner.raptor.api.request.RaptorTuningParameters#searchWindowPartitionMinutes()}.
+ */
+class PartitionedRangeRaptorSearch<T extends RaptorTripSchedule> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PartitionedRangeRaptorSearch.class);
+
+  private final RaptorConfig<T> config;
+  private final RaptorTransitDataProvider<T> transitData;
+  private final RaptorRequest<T> request;
+  private final Heuristics heuristics;
+
+  PartitionedRangeRaptorSearch(
+    RaptorConfig<T> config,
+    RaptorTransitDataProvider<T> transitData,
+    RaptorRequest<T> request,
+    @Nullable Heuristics heuristics
+  ) {
+    this.config = config;
+    this.transitData = transitData;
+    this.request = request;
+    this.heuristics = heuristics;
+  }
+
+  /**
+   * Partitioning is only done for forward multi-criteria searches, with a search-window longer
+   * than the partition size. Debugging stops or a path is not supported, the debug
+   * handlers are not thread-safe.
+   */
+  static boolean isEnabled(RaptorConfig<?> config, RaptorRequest<?> request) {
+    SearchParams s = request.searchParams();
+    int partitionSize = config.searchWindowPartitionSeconds();
+    return (
+      partitionSize > 0 &&
+      config.isMultiThreaded() &&
+      request.runInParallel() &&
+      request.profile().is(MULTI_CRITERIA) &&
+      request.searchDirection().isForward() &&
+      request.debug().stops().isEmpty() &&
+      request.debug().path().isEmpty() &&
+      s.isSearchWindowSet() &&
+      s.searchWindowInSeconds() > partitionSize
+    );
+  }
+
+  RaptorWorkerResult<T> route() {
+    List<RaptorRequest<T>> requests = partitionRequests(
+      request,
+      config.searchWindowPartitionSeconds()
+    );
+    LOG.debug("Route using RangeRaptor - search-window split in {} partitions.", requests.size());
+
+    try {
+      // Run the first (earliest) partition in this thread, and the rest in the thread-pool
+      List<Future<RaptorWorkerResult<T>>> futures = new ArrayList<>();
+      for (RaptorRequest<T> it : requests.subList(1, requests.size())) {
+        futures.add(config.threadPool().submit(() -> route(it)));
+      }
+
+      List<RaptorWorkerResult<T>> results = new ArrayList<>();
+      results.add(route(requests.get(0)));
+      for (Future<RaptorWorkerResult<T>> future : futures) {
+        results.add(future.get());
+      }
+      return config.mergeMcResults(request, results);
+    } catch (ExecutionException | InterruptedException e) {
+      LOG.error(e.getMessage() + ". Request: " + request, e);
+      throw new IllegalStateException(
+        "Failed to run partitioned RangeRaptor search in parallel. Details: " + e.getMessage()
+      );
+    }
+  }
+
+  /**
+   * Split the search-window in partitions of the given size, the last partition may be longer to
+   * cover the rest of the search-window. The partition size must be a whole number of iteration
+   * steps, so the same departure times are searched as in the original request. See
+   * {@link RaptorConfig#searchWindowPartitionSeconds()}.
+   */
+  static <T extends RaptorTripSchedule> List<RaptorRequest<T>> partitionRequests(
+    RaptorRequest<T> request,
+    int partitionSize
+  ) {
+    SearchParams s = request.searchParams();
+    int edt = s.earliestDepartureTime();
+    int searchWindow = s.searchWindowInSeconds();
+    int nPartitions = Math.max(1, searchWindow / partitionSize);
+
+    List<RaptorRequest<T>> requests = new ArrayList<>();
+    for (int i = 0; i < nPartitions; ++i) {
+      int start = edt + i * partitionSize;
+      int end = i == nPartitions - 1 ? edt + searchWindow : start + partitionSize;
+      requests.add(
+        request
+          .mutate()
+          .searchParams()
+          .earliestDepartureTime(start)
+          .searchWindowInSeconds(end - start)
+          .build()
+      );
+    }
+    return requests;
+  }
+
+  private RaptorWorkerResult<T> route(RaptorRequest<T> partition) {
+    return config.createMcWorker(transitData, partition, heuristics).route();
+  }
+}
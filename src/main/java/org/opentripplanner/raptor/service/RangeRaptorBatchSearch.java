@@ -0,0 +1,83 @@
+package org.opentripplanner.raptor.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.opentripplanner.raptor.api.RaptorConstants;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorBatchRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.response.RaptorBatchResponse;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run a standard Range Raptor search for each origin in a {@link RaptorBatchRequest}. The
+ * searches share the transit data, and are run in parallel in the Raptor thread pool if it is
+ * enabled. No paths are created, only the best arrival time for each stop is collected.
+ */
+public class RangeRaptorBatchSearch<T extends RaptorTripSchedule> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RangeRaptorBatchSearch.class);
+
+  private final RaptorConfig<T> config;
+  private final RaptorTransitDataProvider<T> transitData;
+  private final RaptorBatchRequest<T> request;
+
+  public RangeRaptorBatchSearch(
+    RaptorConfig<T> config,
+    RaptorTransitDataProvider<T> transitData,
+    RaptorBatchRequest<T> request
+  ) {
+    this.config = config;
+    this.transitData = transitData;
+    this.request = request;
+  }
+
+  public RaptorBatchResponse route() {
+    if (config.isMultiThreaded() && request.numberOfOrigins() > 1) {
+      return routeInParallel();
+    }
+    List<int[]> result = new ArrayList<>();
+    for (int i = 0; i < request.numberOfOrigins(); ++i) {
+      result.add(route(request.requestForOrigin(i)));
+    }
+    return new RaptorBatchResponse(result);
+  }
+
+  private RaptorBatchResponse routeInParallel() {
+    try {
+      List<Future<int[]>> futures = new ArrayList<>();
+      for (int i = 0; i < request.numberOfOrigins(); ++i) {
+        RaptorRequest<T> it = request.requestForOrigin(i);
+        futures.add(config.threadPool().submit(() -> route(it)));
+      }
+      List<int[]> result = new ArrayList<>();
+      for (Future<int[]> future : futures) {
+        result.add(future.get());
+      }
+      return new RaptorBatchResponse(result);
+    } catch (ExecutionException | InterruptedException e) {
+      LOG.error(e.getMessage() + ". Request: " + request, e);
+      throw new IllegalStateException(
+        "Failed to run batch RangeRaptor search in parallel. Details: " + e.getMessage()
+      );
+    }
+  }
+
+  private int[] route(RaptorRequest<T> request) {
+    var worker = config.createStdWorker(transitData, request);
+    SingleCriteriaStopArrivals arrivals = worker.route().extractBestOverallArrivals();
+
+    int[] arrivalTimes = new int[transitData.numberOfStops()];
+    for (int stop = 0; stop < arrivalTimes.length; ++stop) {
+      arrivalTimes[stop] =
+        arrivals.isReached(stop) ? arrivals.value(stop) : RaptorConstants.TIME_UNREACHED_FORWARD;
+    }
+    return arrivalTimes;
+  }
+}
@@ -19,7 +19,7 @@ import org.opentripplanner.raptor.api.request.SearchParamsBuilder;
 import org.opentripplanner.raptor.api.response.RaptorResponse;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
-import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.transit.RaptorSearchWindowCalculator;
 import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
 import org.slf4j.Logger;
@@ -129,18 +129,19 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
 
   private RaptorResponse<T> createAndRunDynamicRRWorker(RaptorRequest<T> request) {
     LOG.debug("Main request: {}", request);
-    RaptorWorker<T> raptorWorker;
-
-    // Create worker
-    if (request.profile().is(MULTI_CRITERIA)) {
-      raptorWorker = config.createMcWorker(transitData, request, getDestinationHeuristics());
+    RaptorWorkerResult<T> result;
+
+    // Create worker and route
+    if (PartitionedRangeRaptorSearch.isEnabled(config, request)) {
+      result =
+        new PartitionedRangeRaptorSearch<>(config, transitData, request, getDestinationHeuristics())
+          .route();
+    } else if (request.profile().is(MULTI_CRITERIA)) {
+      result = config.createMcWorker(transitData, request, getDestinationHeuristics()).route();
     } else {
-      raptorWorker = config.createStdWorker(transitData, request);
+      result = config.createStdWorker(transitData, request).route();
     }
 
-    // Route
-    var result = raptorWorker.route();
-
     // create and return response
     return new RaptorResponse<>(
       result.extractPaths(),
@@ -14,36 +14,36 @@ import java.util.List;
  */
 public class ParetoSetEventListenerComposite<T> implements ParetoSetEventListener<T> {
 
-  private final List<ParetoSetEventListener<T>> listeners = new ArrayList<>();
+  private final List<ParetoSetEventListener<? super T>> listeners = new ArrayList<>();
 
   @SafeVarargs
-  public ParetoSetEventListenerComposite(ParetoSetEventListener<T>... listeners) {
+  public ParetoSetEventListenerComposite(ParetoSetEventListener<? super T>... listeners) {
     this(Arrays.asList(listeners));
   }
 
   private ParetoSetEventListenerComposite(
-    Collection<? extends ParetoSetEventListener<T>> listeners
+    Collection<? extends ParetoSetEventListener<? super T>> listeners
   ) {
     this.listeners.addAll(listeners);
   }
 
   @Override
   public void notifyElementAccepted(T newElement) {
-    for (ParetoSetEventListener<T> it : listeners) {
+    for (ParetoSetEventListener<? super T> it : listeners) {
       it.notifyElementAccepted(newElement);
     }
   }
 
   @Override
   public void notifyElementDropped(T element, T droppedByElement) {
-    for (ParetoSetEventListener<T> it : listeners) {
+    for (ParetoSetEventListener<? super T> it : listeners) {
       it.notifyElementDropped(element, droppedByElement);
     }
   }
 
   @Override
   public void notifyElementRejected(T element, T rejectedByElement) {
-    for (ParetoSetEventListener<T> it : listeners) {
+    for (ParetoSetEventListener<? super T> it : listeners) {
       it.notifyElementRejected(element, rejectedByElement);
     }
   }
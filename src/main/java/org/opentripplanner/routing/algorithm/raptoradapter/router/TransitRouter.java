@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.raptor.RaptorService;
@@ -29,6 +30,7 @@ import org.opentripplanner.routing.api.response.RoutingError;
 import org.opentripplanner.routing.api.response.RoutingErrorCode;
 import org.opentripplanner.routing.error.RoutingValidationException;
 import org.opentripplanner.routing.framework.DebugTimingAggregator;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 
@@ -160,7 +162,8 @@ public class TransitRouter {
         serverContext.graph(),
         request,
         request.journey().access().mode(),
-        request.journey().egress().mode()
+        request.journey().egress().mode(),
+        serverContext.streetPermissionOverlay()
       )
     ) {
       var accessCalculator = (Runnable) () -> {
@@ -211,15 +214,50 @@ public class TransitRouter {
       accessRequest.journey().rental().setAllowArrivingInRentedVehicleAtDestination(false);
     }
 
-    var nearbyStops = AccessEgressRouter.streetSearch(
-      accessRequest,
-      temporaryVertices,
-      serverContext.transitService(),
-      streetRequest,
-      serverContext.dataOverlayContext(accessRequest),
-      isEgress,
-      accessRequest.preferences().street().maxAccessEgressDuration().valueOf(streetRequest.mode())
-    );
+    var durationLimit = accessRequest
+      .preferences()
+      .street()
+      .maxAccessEgressDuration()
+      .valueOf(streetRequest.mode());
+    var dataOverlayContext = serverContext.dataOverlayContext(accessRequest);
+
+    Supplier<Collection<NearbyStop>> streetSearch = () ->
+      AccessEgressRouter.streetSearch(
+        accessRequest,
+        temporaryVertices,
+        serverContext.transitService(),
+        streetRequest,
+        dataOverlayContext,
+        serverContext.streetPermissionOverlay(),
+        isEgress,
+        durationLimit
+      );
+
+    // The data overlay is not part of the cache key, so these searches are not cached
+    var nearbyStops = dataOverlayContext != null
+      ? streetSearch.get()
+      : serverContext
+        .accessEgressCache()
+        .streetSearch(
+          accessRequest,
+          isEgress ? temporaryVertices.getToVertices() : temporaryVertices.getFromVertices(),
+          streetRequest.mode(),
+          isEgress,
+          durationLimit,
+          serverContext.streetPermissionOverlay(),
+          serverContext.graph().getVehicleRentalService(),
+          serverContext.graph().getVehicleParkingService(),
+          streetSearch,
+          cached ->
+            AccessEgressRouter.copyStreetSearch(
+              cached,
+              accessRequest,
+              temporaryVertices,
+              streetRequest,
+              serverContext.streetPermissionOverlay(),
+              isEgress
+            )
+        );
 
     var results = new ArrayList<>(accessEgressMapper.mapNearbyStops(nearbyStops, isEgress));
 
@@ -0,0 +1,285 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.framework.i18n.I18NString;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.BikePreferences;
+import org.opentripplanner.routing.api.request.preference.CarPreferences;
+import org.opentripplanner.routing.api.request.preference.StreetPreferences;
+import org.opentripplanner.routing.api.request.preference.VehicleParkingPreferences;
+import org.opentripplanner.routing.api.request.preference.VehicleRentalPreferences;
+import org.opentripplanner.routing.api.request.preference.WalkPreferences;
+import org.opentripplanner.routing.api.request.preference.WheelchairPreferences;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
+import org.opentripplanner.routing.vehicle_rental.VehicleRentalService;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * Cache the stops found by the access/egress street search for an origin/destination. Requests
+ * are often clustered around the same places, like major stations and airports, and for these the
+ * street search can be skipped.
+ * <p>
+ * The cache key is the origin vertices, the street mode, the preferences used by the street
+ * search and the version of the custom street permissions. Temporary vertices are created for each
+ * request, so these are identified by their coordinate and name. For modes with vehicle rental or
+ * parking, the rental and parking filters and the number of changes to the rental and parking
+ * places are also part of the key, so an entry is not used after a realtime update.
+ * <p>
+ * The cached states start at the temporary vertices of the request which created the entry, these
+ * are disposed when that request is done. Before the stops are returned to another request, the
+ * paths are traversed again from the vertices of that request. This is much faster than the
+ * search, and the states get the start time of the request using them.
+ * <p>
+ * The flexible mode is not cached. The entries are evicted when the cache is full (least recently
+ * used) or when the time-to-live expire. Call {@link #invalidateAll()} when the street network
+ * change.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public class AccessEgressCache {
+
+  private static final Set<StreetMode> CACHED_MODES = Set.of(
+    StreetMode.WALK,
+    StreetMode.BIKE,
+    StreetMode.BIKE_TO_PARK,
+    StreetMode.BIKE_RENTAL,
+    StreetMode.SCOOTER_RENTAL,
+    StreetMode.CAR,
+    StreetMode.CAR_TO_PARK,
+    StreetMode.CAR_PICKUP,
+    StreetMode.CAR_RENTAL
+  );
+
+  /** {@code null} if the cache is disabled */
+  private final Cache<CacheKey, List<NearbyStop>> cache;
+
+  /**
+   * @param maximumSize the maximum number of origins/destinations to cache, zero disables it.
+   */
+  public AccessEgressCache(int maximumSize, Duration timeToLive) {
+    this.cache =
+      maximumSize <= 0
+        ? null
+        : CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).build();
+  }
+
+  public static AccessEgressCache disabled() {
+    return new AccessEgressCache(0, Duration.ZERO);
+  }
+
+  /**
+   * Return the cached stops for the given search, or run the search if not cached.
+   *
+   * @param copyToRequest traverse the cached paths again from the origin of this request, return
+   *                      {@code null} if not possible. The stops are then searched again.
+   */
+  public Collection<NearbyStop> streetSearch(
+    RouteRequest request,
+    Set<Vertex> originVertices,
+    StreetMode streetMode,
+    boolean fromTarget,
+    Duration durationLimit,
+    StreetPermissionOverlay permissionOverlay,
+    VehicleRentalService rentalService,
+    VehicleParkingService parkingService,
+    Supplier<Collection<NearbyStop>> search,
+    UnaryOperator<Collection<NearbyStop>> copyToRequest
+  ) {
+    if (cache == null || !CACHED_MODES.contains(streetMode)) {
+      return search.get();
+    }
+    var key = new CacheKey(
+      request,
+      originVertices,
+      streetMode,
+      fromTarget,
+      durationLimit,
+      permissionOverlay.version(),
+      streetMode.includesRenting() ? rentalService.getModificationCount() : 0,
+      streetMode.includesParking() ? parkingService.getModificationCount() : 0
+    );
+    var cached = cache.getIfPresent(key);
+
+    if (cached != null) {
+      var stops = copyToRequest.apply(cached);
+      if (stops != null) {
+        return stops;
+      }
+    }
+    var stops = search.get();
+    cache.put(key, List.copyOf(stops));
+    return stops;
+  }
+
+  /**
+   * Remove all entries, this should be called when the street network is changed.
+   */
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  long size() {
+    return cache == null ? 0 : cache.size();
+  }
+
+  private static class CacheKey {
+
+    private final Set<Object> origin;
+    private final StreetMode streetMode;
+    private final StreetMode accessMode;
+    private final boolean fromTarget;
+    private final Duration durationLimit;
+    private final long permissionVersion;
+    private final long rentalVersion;
+    private final long parkingVersion;
+    private final boolean wheelchair;
+    private final WalkPreferences walk;
+    private final BikePreferences bike;
+    private final CarPreferences car;
+    private final StreetPreferences street;
+    private final WheelchairPreferences wheelchairPreferences;
+    private final VehicleRentalPreferences rental;
+    private final Set<String> allowedRentalNetworks;
+    private final Set<String> bannedRentalNetworks;
+    private final boolean allowArrivingInRentedVehicle;
+    private final VehicleParkingPreferences parking;
+    private final Set<String> requiredParkingTags;
+    private final Set<String> bannedParkingTags;
+    private final int hashCode;
+
+    private CacheKey(
+      RouteRequest request,
+      Set<Vertex> originVertices,
+      StreetMode streetMode,
+      boolean fromTarget,
+      Duration durationLimit,
+      long permissionVersion,
+      long rentalVersion,
+      long parkingVersion
+    ) {
+      this.origin =
+        originVertices.stream().map(CacheKey::vertexKey).collect(Collectors.toUnmodifiableSet());
+      this.streetMode = streetMode;
+      // The access mode is used to select the street search heuristics, also for egress
+      this.accessMode = request.journey().access().mode();
+      this.fromTarget = fromTarget;
+      this.durationLimit = durationLimit;
+      this.permissionVersion = permissionVersion;
+      this.rentalVersion = rentalVersion;
+      this.parkingVersion = parkingVersion;
+      this.wheelchair = request.wheelchair();
+
+      var preferences = request.preferences();
+      this.walk = preferences.walk();
+      this.bike = streetMode.includesBiking() ? preferences.bike() : BikePreferences.DEFAULT;
+      this.car = streetMode.includesDriving() ? preferences.car() : CarPreferences.DEFAULT;
+      this.street = preferences.street();
+      this.wheelchairPreferences =
+        wheelchair ? preferences.wheelchair() : WheelchairPreferences.DEFAULT;
+
+      var journey = request.journey();
+      boolean renting = streetMode.includesRenting();
+      this.rental = renting ? preferences.rental() : VehicleRentalPreferences.DEFAULT;
+      this.allowedRentalNetworks = renting ? journey.rental().allowedNetworks() : Set.of();
+      this.bannedRentalNetworks = renting ? journey.rental().bannedNetworks() : Set.of();
+      this.allowArrivingInRentedVehicle =
+        renting && journey.rental().allowArrivingInRentedVehicleAtDestination();
+
+      boolean parkingUsed = streetMode.includesParking();
+      this.parking = parkingUsed ? preferences.parking() : VehicleParkingPreferences.DEFAULT;
+      this.requiredParkingTags = parkingUsed ? journey.parking().requiredTags() : Set.of();
+      this.bannedParkingTags = parkingUsed ? journey.parking().bannedTags() : Set.of();
+
+      this.hashCode =
+        Objects.hash(
+          origin,
+          streetMode,
+          accessMode,
+          fromTarget,
+          durationLimit,
+          permissionVersion,
+          rentalVersion,
+          parkingVersion,
+          wheelchair,
+          walk,
+          bike,
+          car,
+          street,
+          wheelchairPreferences,
+          rental,
+          allowedRentalNetworks,
+          bannedRentalNetworks,
+          allowArrivingInRentedVehicle,
+          parking,
+          requiredParkingTags,
+          bannedParkingTags
+        );
+    }
+
+    /**
+     * Temporary vertices are created for each request, use the coordinate and name to identify
+     * them. The name is the label of the place given in the request.
+     */
+    private static Object vertexKey(Vertex vertex) {
+      return vertex instanceof TemporaryVertex
+        ? new TemporaryVertexKey(vertex.getCoordinate(), vertex.getName())
+        : vertex;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey that)) {
+        return false;
+      }
+      return (
+        streetMode == that.streetMode &&
+        accessMode == that.accessMode &&
+        fromTarget == that.fromTarget &&
+        permissionVersion == that.permissionVersion &&
+        rentalVersion == that.rentalVersion &&
+        parkingVersion == that.parkingVersion &&
+        wheelchair == that.wheelchair &&
+        allowArrivingInRentedVehicle == that.allowArrivingInRentedVehicle &&
+        origin.equals(that.origin) &&
+        durationLimit.equals(that.durationLimit) &&
+        walk.equals(that.walk) &&
+        bike.equals(that.bike) &&
+        car.equals(that.car) &&
+        street.equals(that.street) &&
+        wheelchairPreferences.equals(that.wheelchairPreferences) &&
+        rental.equals(that.rental) &&
+        allowedRentalNetworks.equals(that.allowedRentalNetworks) &&
+        bannedRentalNetworks.equals(that.bannedRentalNetworks) &&
+        parking.equals(that.parking) &&
+        requiredParkingTags.equals(that.requiredParkingTags) &&
+        bannedParkingTags.equals(that.bannedParkingTags)
+      );
+    }
+  }
+
+  private record TemporaryVertexKey(Coordinate coordinate, I18NString name) {}
+}
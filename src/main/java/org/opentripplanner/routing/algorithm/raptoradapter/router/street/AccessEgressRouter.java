@@ -3,11 +3,14 @@ package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.opentripplanner.ext.dataoverlay.routing.DataOverlayContext;
 import org.opentripplanner.graph_builder.module.NearbyStopFinder;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.street.search.StreetSearchBuilder;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 import org.opentripplanner.transit.service.TransitService;
 import org.slf4j.Logger;
@@ -33,6 +36,7 @@ public class AccessEgressRouter {
     TransitService transitService,
     StreetRequest streetRequest,
     DataOverlayContext dataOverlayContext,
+    StreetPermissionOverlay permissionOverlay,
     boolean fromTarget,
     Duration durationLimit
   ) {
@@ -40,6 +44,7 @@ public class AccessEgressRouter {
       transitService,
       durationLimit,
       dataOverlayContext,
+      permissionOverlay,
       true
     );
     List<NearbyStop> nearbyStopList = nearbyStopFinder.findNearbyStopsViaStreets(
@@ -53,4 +58,33 @@ public class AccessEgressRouter {
 
     return nearbyStopList;
   }
+
+  /**
+   * Traverse the paths of a street search from another request again from the origin of this
+   * request, see {@link AccessEgressCache}. The other request started at its own temporary
+   * vertices, which are disposed when it is done.
+   *
+   * @return the stops with states of this request, or {@code null} if a path can not be traversed
+   * from the origin of this request.
+   */
+  @Nullable
+  public static List<NearbyStop> copyStreetSearch(
+    Collection<NearbyStop> nearbyStops,
+    RouteRequest request,
+    TemporaryVerticesContainer verticesContainer,
+    StreetRequest streetRequest,
+    StreetPermissionOverlay permissionOverlay,
+    boolean fromTarget
+  ) {
+    var initialStates = StreetSearchBuilder
+      .of()
+      .setRequest(request)
+      .setArriveBy(fromTarget)
+      .setStreetRequest(streetRequest)
+      .setPermissionOverlay(permissionOverlay)
+      .getInitialStates(
+        fromTarget ? verticesContainer.getToVertices() : verticesContainer.getFromVertices()
+      );
+    return new NearbyStopCopier(initialStates, fromTarget).copy(nearbyStops);
+  }
 }
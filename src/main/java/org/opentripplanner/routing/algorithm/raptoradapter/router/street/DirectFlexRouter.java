@@ -28,7 +28,8 @@ public class DirectFlexRouter {
         serverContext.graph(),
         request,
         request.journey().direct().mode(),
-        request.journey().direct().mode()
+        request.journey().direct().mode(),
+        serverContext.streetPermissionOverlay()
       )
     ) {
       // Prepare access/egress transfers
@@ -38,6 +39,7 @@ public class DirectFlexRouter {
         serverContext.transitService(),
         request.journey().direct(),
         serverContext.dataOverlayContext(request),
+        serverContext.streetPermissionOverlay(),
         false,
         serverContext.flexConfig().maxAccessWalkDuration()
       );
@@ -47,6 +49,7 @@ public class DirectFlexRouter {
         serverContext.transitService(),
         request.journey().direct(),
         serverContext.dataOverlayContext(request),
+        serverContext.streetPermissionOverlay(),
         true,
         serverContext.flexConfig().maxEgressWalkDuration()
       );
@@ -30,7 +30,8 @@ public class DirectStreetRouter {
         serverContext.graph(),
         directRequest,
         request.journey().direct().mode(),
-        request.journey().direct().mode()
+        request.journey().direct().mode(),
+        serverContext.streetPermissionOverlay()
       )
     ) {
       if (!straightLineDistanceIsWithinLimit(directRequest, temporaryVertices)) {
@@ -41,7 +42,8 @@ public class DirectStreetRouter {
       GraphPathFinder gpFinder = new GraphPathFinder(
         serverContext.traverseVisitor(),
         serverContext.streetRoutingTimeout(),
-        serverContext.dataOverlayContext(request)
+        serverContext.dataOverlayContext(request),
+        serverContext.streetPermissionOverlay()
       );
       List<GraphPath<State, Edge, Vertex>> paths = gpFinder.graphPathFinderEntryPoint(
         directRequest,
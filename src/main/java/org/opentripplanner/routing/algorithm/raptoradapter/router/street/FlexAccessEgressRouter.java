@@ -37,6 +37,7 @@ public class FlexAccessEgressRouter {
         transitService,
         new StreetRequest(StreetMode.WALK),
         dataOverlayContext,
+        serverContext.streetPermissionOverlay(),
         false,
         serverContext.flexConfig().maxAccessWalkDuration()
       )
@@ -49,6 +50,7 @@ public class FlexAccessEgressRouter {
         transitService,
         new StreetRequest(StreetMode.WALK),
         dataOverlayContext,
+        serverContext.streetPermissionOverlay(),
         true,
         serverContext.flexConfig().maxEgressWalkDuration()
       )
@@ -0,0 +1,168 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.state.State;
+
+/**
+ * Copy the states of a street search from another request, by traversing the paths again from
+ * the initial states of this request. The paths of the other request start at its temporary
+ * vertices, these are replaced by the temporary vertices of this request at the same coordinate.
+ * The states of the permanent part of a path are shared by many stops, so each state is only
+ * copied once.
+ * <p>
+ * A path is copied if it only use temporary vertices at the start of the path. It is possible to
+ * pass through the temporary vertices of the other end of the journey, these paths can not be
+ * copied.
+ */
+class NearbyStopCopier {
+
+  private final Collection<State> initialStates;
+  private final boolean arriveBy;
+  private final Map<State, State> copies = new IdentityHashMap<>();
+
+  NearbyStopCopier(Collection<State> initialStates, boolean arriveBy) {
+    this.initialStates = initialStates;
+    this.arriveBy = arriveBy;
+  }
+
+  /**
+   * Return a copy of the given stops, or {@code null} if the path to one of the stops can not be
+   * traversed from the initial states.
+   */
+  @Nullable
+  List<NearbyStop> copy(Collection<NearbyStop> nearbyStops) {
+    List<NearbyStop> result = new ArrayList<>(nearbyStops.size());
+    for (NearbyStop it : nearbyStops) {
+      if (!startsAtTemporaryVertex(it.state)) {
+        result.add(it);
+        continue;
+      }
+      State state = copy(it.state);
+      if (state == null) {
+        return null;
+      }
+      result.add(NearbyStop.nearbyStopForState(state, it.stop));
+    }
+    return result;
+  }
+
+  @Nullable
+  private State copy(State state) {
+    // The states not copied yet, the last is the first state of the path
+    List<State> path = new ArrayList<>();
+    State copy = null;
+    for (State it = state; it != null; it = it.getBackState()) {
+      copy = copies.get(it);
+      if (copy != null) {
+        break;
+      }
+      path.add(it);
+    }
+
+    for (int i = path.size() - 1; i >= 0; --i) {
+      State it = path.get(i);
+      copy = copy == null ? findInitialState(it) : traverse(copy, it);
+      if (copy == null) {
+        return null;
+      }
+      copies.put(it, copy);
+    }
+    return copy;
+  }
+
+  @Nullable
+  private State findInitialState(State original) {
+    for (State it : initialStates) {
+      if (isSameVertex(it.getVertex(), original.getVertex()) && isSameKindOfState(it, original)) {
+        return it;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Traverse the back edge of the original state from the given state, and return the result
+   * matching the original state.
+   */
+  @Nullable
+  private State traverse(State state, State original) {
+    Edge edge = findEdge(state.getVertex(), original.getBackEdge());
+    if (edge == null) {
+      return null;
+    }
+    for (State it = edge.traverse(state); it != null; it = it.getNextResult()) {
+      if (isSameKindOfState(it, original)) {
+        return it;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the edge to traverse from the given vertex. Permanent edges are used as they are, while
+   * temporary edges are looked up among the edges of the temporary vertex of this request.
+   */
+  @Nullable
+  private Edge findEdge(Vertex vertex, Edge original) {
+    Vertex from = arriveBy ? original.getToVertex() : original.getFromVertex();
+    Vertex to = arriveBy ? original.getFromVertex() : original.getToVertex();
+
+    if (!(from instanceof TemporaryVertex) && !(to instanceof TemporaryVertex)) {
+      return from == vertex ? original : null;
+    }
+    // Other temporary edges may be connected to a permanent vertex, only follow the temporary
+    // edges of the temporary vertex reached from the origin.
+    if (!(vertex instanceof TemporaryVertex) || !isSameVertex(vertex, from)) {
+      return null;
+    }
+    for (Edge it : arriveBy ? vertex.getIncoming() : vertex.getOutgoing()) {
+      Vertex itTo = arriveBy ? it.getFromVertex() : it.getToVertex();
+      if (it.getClass() == original.getClass() && isSameVertex(itTo, to)) {
+        return it;
+      }
+    }
+    return null;
+  }
+
+  private static boolean startsAtTemporaryVertex(State state) {
+    State first = state;
+    while (first.getBackState() != null) {
+      first = first.getBackState();
+    }
+    return first.getVertex() instanceof TemporaryVertex;
+  }
+
+  /**
+   * Permanent vertices are the same instance, temporary vertices are created for each request and
+   * are identified by their type and coordinate.
+   */
+  private static boolean isSameVertex(Vertex a, Vertex b) {
+    if (a == b) {
+      return true;
+    }
+    return (
+      a instanceof TemporaryVertex &&
+      a.getClass() == b.getClass() &&
+      a.getCoordinate().equals2D(b.getCoordinate())
+    );
+  }
+
+  private static boolean isSameKindOfState(State a, State b) {
+    return (
+      a.getNonTransitMode() == b.getNonTransitMode() &&
+      a.getVehicleRentalState() == b.getVehicleRentalState() &&
+      a.isVehicleParked() == b.isVehicleParked() &&
+      Objects.equals(a.getCarPickupState(), b.getCarPickupState())
+    );
+  }
+}
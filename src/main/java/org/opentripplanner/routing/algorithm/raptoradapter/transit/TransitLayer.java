@@ -14,6 +14,7 @@ import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtr
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferForPatternByStopPos;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.service.StopModel;
@@ -43,6 +44,8 @@ public class TransitLayer {
 
   private final RaptorRequestTransferCache transferCache;
 
+  private final RaptorRequestTripPatternCache tripPatternCache;
+
   private ConstrainedTransfersForPatterns constrainedTransfers;
 
   private final TransferIndexGenerator transferIndexGenerator;
@@ -52,7 +55,8 @@ public class TransitLayer {
   /**
    * Makes a shallow copy of the TransitLayer, except for the tripPatternsForDate, where a shallow
    * copy of the HashMap is made. This is sufficient, as the TransitLayerUpdater will replace entire
-   * keys and their values in the map.
+   * keys and their values in the map. The trip pattern cache is also copied, entries are evicted
+   * when the dates they cover are replaced.
    */
   public TransitLayer(TransitLayer transitLayer) {
     this(
@@ -62,6 +66,7 @@ public class TransitLayer {
       transitLayer.stopModel,
       transitLayer.transitDataZoneId,
       transitLayer.transferCache,
+      transitLayer.tripPatternCache.copy(),
       transitLayer.constrainedTransfers,
       transitLayer.transferIndexGenerator,
       transitLayer.stopBoardAlightCosts
@@ -75,6 +80,7 @@ public class TransitLayer {
     StopModel stopModel,
     ZoneId transitDataZoneId,
     RaptorRequestTransferCache transferCache,
+    RaptorRequestTripPatternCache tripPatternCache,
     ConstrainedTransfersForPatterns constrainedTransfers,
     TransferIndexGenerator transferIndexGenerator,
     int[] stopBoardAlightCosts
@@ -85,6 +91,7 @@ public class TransitLayer {
     this.stopModel = stopModel;
     this.transitDataZoneId = transitDataZoneId;
     this.transferCache = transferCache;
+    this.tripPatternCache = tripPatternCache;
     this.constrainedTransfers = constrainedTransfers;
     this.transferIndexGenerator = transferIndexGenerator;
     this.stopBoardAlightCosts = stopBoardAlightCosts;
@@ -138,6 +145,10 @@ public class TransitLayer {
     return transferCache;
   }
 
+  public RaptorRequestTripPatternCache getTripPatternCache() {
+    return tripPatternCache;
+  }
+
   public List<TransferForPatternByStopPos> getForwardConstrainedTransfers() {
     return constrainedTransfers != null ? constrainedTransfers.forward() : null;
   }
@@ -156,13 +167,15 @@ public class TransitLayer {
 
   /**
    * Replaces all the TripPatternForDates for a single date. This is an atomic operation according
-   * to the HashMap implementation.
+   * to the HashMap implementation. Cached trip patterns for searches including the date are
+   * evicted.
    */
   public void replaceTripPatternsForDate(
     LocalDate date,
     List<TripPatternForDate> tripPatternForDates
   ) {
     this.tripPatternsRunningOnDate.replace(date, tripPatternForDates);
+    this.tripPatternCache.invalidate(date);
   }
 
   public void setConstrainedTransfers(ConstrainedTransfersForPatterns constrainedTransfers) {
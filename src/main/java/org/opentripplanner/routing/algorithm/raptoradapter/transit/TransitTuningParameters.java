@@ -46,6 +46,21 @@ public interface TransitTuningParameters {
       return 5;
     }
 
+    @Override
+    public int tripPatternCacheMaxSize() {
+      return 5;
+    }
+
+    @Override
+    public int accessEgressCacheMaxSize() {
+      return 0;
+    }
+
+    @Override
+    public Duration accessEgressCacheTimeToLive() {
+      return Duration.ofMinutes(10);
+    }
+
     @Override
     public List<Duration> pagingSearchWindowAdjustments() {
       return PAGING_SEARCH_WINDOW_ADJUSTMENTS;
@@ -71,6 +86,24 @@ public interface TransitTuningParameters {
    */
   int transferCacheMaxSize();
 
+  /**
+   * The maximum number of distinct search days and transit filters for which the trip patterns
+   * used by Raptor should be cached. Each entry holds the timetables for all search days, so this
+   * should be kept small. Set it to zero to disable the cache.
+   */
+  int tripPatternCacheMaxSize();
+
+  /**
+   * The maximum number of origins/destinations for which the stops found by the access/egress
+   * street search should be cached. Set it to zero to disable the cache.
+   */
+  int accessEgressCacheMaxSize();
+
+  /**
+   * How long the access/egress stops are cached before they are searched again.
+   */
+  Duration accessEgressCacheTimeToLive();
+
   /**
    * This parameter is used to reduce the number of pages a client have to step through for a
    * journey where there are few alternatives/low frequency. This also work well to adjust for
@@ -23,6 +23,7 @@ import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtr
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.cost.RaptorCostConverter;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopTransferPriority;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -91,6 +92,9 @@ public class TransitLayerMapper {
     }
 
     var transferCache = new RaptorRequestTransferCache(tuningParameters.transferCacheMaxSize());
+    var tripPatternCache = new RaptorRequestTripPatternCache(
+      tuningParameters.tripPatternCacheMaxSize()
+    );
 
     LOG.info("Mapping complete.");
 
@@ -101,6 +105,7 @@ public class TransitLayerMapper {
       stopModel,
       transitModel.getTimeZone(),
       transferCache,
+      tripPatternCache,
       constrainedTransfers,
       transferIndexGenerator,
       createStopTransferCosts(stopModel, tuningParameters)
@@ -3,14 +3,20 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 import gnu.trove.set.TIntSet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.Timetable;
@@ -51,7 +57,26 @@ public class TransitLayerUpdater {
    */
   private final Map<TripIdAndServiceDate, TripPatternForDate> tripPatternsForTripIdAndServiceDateCache = new HashMap<>();
 
-  private final Map<LocalDate, Set<TripPatternForDate>> tripPatternsRunningOnDateMapCache = new HashMap<>();
+  /**
+   * Cache the TripPatternForDates running on each date. The dates are updated in parallel, so this
+   * is a concurrent map. Each set is only modified by the thread updating its date.
+   */
+  private final Map<LocalDate, Set<TripPatternForDate>> tripPatternsRunningOnDateMapCache = new ConcurrentHashMap<>();
+
+  private final Timer updateTimer = Timer
+    .builder("transit_layer_updater.update")
+    .description("Time to update the realtime transit layer with the timetables of a commit")
+    .register(Metrics.globalRegistry);
+
+  private final DistributionSummary updatedPatterns = DistributionSummary
+    .builder("transit_layer_updater.patterns")
+    .description("Number of trip patterns for a date updated by a commit")
+    .register(Metrics.globalRegistry);
+
+  private final DistributionSummary updatedDates = DistributionSummary
+    .builder("transit_layer_updater.dates")
+    .description("Number of running dates of the transit layer updated by a commit")
+    .register(Metrics.globalRegistry);
 
   public TransitLayerUpdater(
     TransitModel transitModel,
@@ -69,7 +94,7 @@ public class TransitLayerUpdater {
       return;
     }
 
-    long startTime = System.currentTimeMillis();
+    long startTime = System.nanoTime();
 
     // Make a shallow copy of the realtime transit layer. Only the objects that are copied will be
     // changed during this update process.
@@ -80,16 +105,30 @@ public class TransitLayerUpdater {
       serviceCodesRunningForDate
     );
 
-    Set<LocalDate> datesToBeUpdated = new HashSet<>();
-    SetMultimap<TripPattern, TripPatternForDate> newTripPatternsForDate = HashMultimap.create();
-    SetMultimap<TripPattern, TripPatternForDate> oldTripPatternsForDate = HashMultimap.create();
+    // Map the updated timetables in parallel, the mapper is thread-safe
+    Map<Timetable, Optional<TripPatternForDate>> mappedTimetables = updatedTimetables
+      .parallelStream()
+      .collect(
+        Collectors.toMap(
+          timetable -> timetable,
+          timetable ->
+            Optional.ofNullable(
+              tripPatternForDateMapper.map(timetable, timetable.getServiceDate())
+            )
+        )
+      );
+
+    // The old and new TripPatternsForDate indexed on the dates they are running on, and the
+    // previously used TripPatternsForDate indexed on their service date
+    SetMultimap<LocalDate, TripPatternForDate> oldPatternsForRunningDate = HashMultimap.create();
+    SetMultimap<LocalDate, TripPatternForDate> newPatternsForRunningDate = HashMultimap.create();
+    SetMultimap<LocalDate, TripPatternForDate> previouslyUsedPatterns = HashMultimap.create();
 
     TransferIndexGenerator transferIndexGenerator = null;
     if (OTPFeature.TransferConstraints.isOn()) {
       transferIndexGenerator = realtimeTransitLayer.getTransferIndexGenerator();
     }
-    Set<TripPatternForDate> previouslyUsedPatterns = new HashSet<>();
-    // Map new TriPatternForDate and index for old and new TripPatternsForDate on service date
+    // Index the old and new TripPatternsForDate on the dates they are running on
     for (Timetable timetable : updatedTimetables) {
       LocalDate date = timetable.getServiceDate();
       TripPattern tripPattern = timetable.getPattern();
@@ -108,19 +147,18 @@ public class TransitLayerUpdater {
 
       if (oldTripPatternForDate != null) {
         tripPatternsStartingOnDateMapCache.get(date).remove(tripPattern, oldTripPatternForDate);
-        oldTripPatternsForDate.put(tripPattern, oldTripPatternForDate);
-        datesToBeUpdated.addAll(oldTripPatternForDate.getRunningPeriodDates());
+        for (LocalDate runningDate : oldTripPatternForDate.getRunningPeriodDates()) {
+          oldPatternsForRunningDate.put(runningDate, oldTripPatternForDate);
+        }
       }
 
-      TripPatternForDate newTripPatternForDate = tripPatternForDateMapper.map(
-        timetable,
-        timetable.getServiceDate()
-      );
+      TripPatternForDate newTripPatternForDate = mappedTimetables.get(timetable).orElse(null);
 
       if (newTripPatternForDate != null) {
         tripPatternsStartingOnDateMapCache.get(date).put(tripPattern, newTripPatternForDate);
-        newTripPatternsForDate.put(tripPattern, newTripPatternForDate);
-        datesToBeUpdated.addAll(newTripPatternForDate.getRunningPeriodDates());
+        for (LocalDate runningDate : newTripPatternForDate.getRunningPeriodDates()) {
+          newPatternsForRunningDate.put(runningDate, newTripPatternForDate);
+        }
         if (transferIndexGenerator != null && tripPattern.isCreatedByRealtimeUpdater()) {
           transferIndexGenerator.addRealtimeTrip(
             tripPattern,
@@ -138,7 +176,10 @@ public class TransitLayerUpdater {
             newTripPatternForDate
           );
           if (previousTripPatternForDate != null) {
-            previouslyUsedPatterns.add(previousTripPatternForDate);
+            previouslyUsedPatterns.put(
+              previousTripPatternForDate.getLocalDate(),
+              previousTripPatternForDate
+            );
           } else {
             LOG.debug(
               "NEW TripPatternForDate: {} - {}",
@@ -150,69 +191,30 @@ public class TransitLayerUpdater {
       }
     }
 
-    // Now loop through all running period dates of old and new TripPatternsForDate and update
-    // the tripPatternsByRunningPeriodDate accordingly
-    for (LocalDate date : datesToBeUpdated) {
-      tripPatternsRunningOnDateMapCache.computeIfAbsent(
-        date,
-        p -> new HashSet<>(realtimeTransitLayer.getTripPatternsRunningOnDateCopy(date))
-      );
-
-      // Remove old cached tripPatterns where tripTimes are no longer running
-      Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.get(date);
-
-      for (Map.Entry<TripPattern, Collection<TripPatternForDate>> entry : oldTripPatternsForDate
-        .asMap()
-        .entrySet()) {
-        for (TripPatternForDate oldTripPatternForDate : entry.getValue()) {
-          // Remove old TripPatternForDate for this date if it was valid on this date
-          if (oldTripPatternForDate != null) {
-            if (oldTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.remove(oldTripPatternForDate);
-            }
-          }
-        }
-      }
-
-      for (TripPatternForDate tripPatternForDate : previouslyUsedPatterns) {
-        if (tripPatternForDate.getLocalDate().equals(date)) {
-          TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
-          if (!pattern.isCreatedByRealtimeUpdater()) {
-            continue;
-          }
-          var oldTimeTable = timetables.get(pattern);
-          if (oldTimeTable != null) {
-            var toRemove = oldTimeTable
-              .stream()
-              .filter(tt -> tt.getServiceDate().equals(date))
-              .findFirst()
-              .map(tt -> tt.getTripTimes().isEmpty())
-              .orElse(false);
-
-            if (toRemove) {
-              patternsForDate.remove(tripPatternForDate);
-            }
-          } else {
-            LOG.warn("Could not fetch timetable for {}", pattern);
-          }
-        }
-      }
+    // Now update the TripPatternsForDate of all running period dates of the old and new
+    // TripPatternsForDate. Each date only depends on its own patterns, so the dates are updated in
+    // parallel. The TripPatternsForDate which are not changed are kept.
+    Set<LocalDate> datesToBeUpdated = new HashSet<>(oldPatternsForRunningDate.keySet());
+    datesToBeUpdated.addAll(newPatternsForRunningDate.keySet());
 
-      for (Map.Entry<TripPattern, Collection<TripPatternForDate>> entry : newTripPatternsForDate
-        .asMap()
-        .entrySet()) {
-        for (TripPatternForDate newTripPatternForDate : entry.getValue()) {
-          // Add new TripPatternForDate for this date if it mapped correctly and is valid on this date
-          if (newTripPatternForDate != null) {
-            if (newTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.add(newTripPatternForDate);
-            }
-          }
-        }
-      }
+    Map<LocalDate, List<TripPatternForDate>> updatedTripPatternsForDate = datesToBeUpdated
+      .parallelStream()
+      .collect(
+        Collectors.toMap(
+          date -> date,
+          date ->
+            updateTripPatternsRunningOnDate(
+              date,
+              realtimeTransitLayer,
+              timetables,
+              oldPatternsForRunningDate.get(date),
+              previouslyUsedPatterns.get(date),
+              newPatternsForRunningDate.get(date)
+            )
+        )
+      );
 
-      realtimeTransitLayer.replaceTripPatternsForDate(date, new ArrayList<>(patternsForDate));
-    }
+    updatedTripPatternsForDate.forEach(realtimeTransitLayer::replaceTripPatternsForDate);
 
     if (transferIndexGenerator != null) {
       realtimeTransitLayer.setConstrainedTransfers(transferIndexGenerator.generateTransfers());
@@ -222,10 +224,67 @@ public class TransitLayerUpdater {
     // guarantee that the reference is set after all the fields have been updated.
     transitModel.setRealtimeTransitLayer(realtimeTransitLayer);
 
+    long duration = System.nanoTime() - startTime;
+    updateTimer.record(duration, TimeUnit.NANOSECONDS);
+    updatedPatterns.record(updatedTimetables.size());
+    updatedDates.record(datesToBeUpdated.size());
+
     LOG.debug(
-      "UPDATING {} tripPatterns took {} ms",
+      "UPDATING {} tripPatterns on {} dates took {} ms",
       updatedTimetables.size(),
-      System.currentTimeMillis() - startTime
+      datesToBeUpdated.size(),
+      TimeUnit.NANOSECONDS.toMillis(duration)
+    );
+  }
+
+  /**
+   * Remove the old TripPatternsForDate from the patterns running on the date and add the new ones.
+   * This is called for different dates in parallel, the cached set of patterns for the date is
+   * only modified here.
+   *
+   * @return the TripPatternsForDate running on the date after the update
+   */
+  private List<TripPatternForDate> updateTripPatternsRunningOnDate(
+    LocalDate date,
+    TransitLayer realtimeTransitLayer,
+    Map<TripPattern, SortedSet<Timetable>> timetables,
+    Set<TripPatternForDate> oldTripPatternsForDate,
+    Set<TripPatternForDate> previouslyUsedPatterns,
+    Set<TripPatternForDate> newTripPatternsForDate
+  ) {
+    Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.computeIfAbsent(
+      date,
+      p -> new HashSet<>(realtimeTransitLayer.getTripPatternsRunningOnDateCopy(date))
     );
+
+    // Remove old cached tripPatterns where tripTimes are no longer running
+    patternsForDate.removeAll(oldTripPatternsForDate);
+
+    for (TripPatternForDate tripPatternForDate : previouslyUsedPatterns) {
+      TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
+      if (!pattern.isCreatedByRealtimeUpdater()) {
+        continue;
+      }
+      var oldTimeTable = timetables.get(pattern);
+      if (oldTimeTable != null) {
+        var toRemove = oldTimeTable
+          .stream()
+          .filter(tt -> tt.getServiceDate().equals(date))
+          .findFirst()
+          .map(tt -> tt.getTripTimes().isEmpty())
+          .orElse(false);
+
+        if (toRemove) {
+          patternsForDate.remove(tripPatternForDate);
+        }
+      } else {
+        LOG.warn("Could not fetch timetable for {}", pattern);
+      }
+    }
+
+    // Add new TripPatternsForDate which are valid on this date
+    patternsForDate.addAll(newTripPatternsForDate);
+
+    return new ArrayList<>(patternsForDate);
   }
 }
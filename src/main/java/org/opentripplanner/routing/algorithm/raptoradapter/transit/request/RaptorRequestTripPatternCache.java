@@ -0,0 +1,141 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+
+/**
+ * Cache the trip patterns and the per-stop pattern index used by {@link
+ * RaptorRoutingRequestTransitData}. Creating these is a large part of the transit search setup,
+ * and the result only depends on the search days and the {@link TransitDataProviderFilter}, so
+ * requests on the same days with an equal filter {@link TransitDataProviderFilter#cacheKey()} can
+ * share them.
+ * <p>
+ * There is one cache per {@link TransitLayer}. When the realtime updater creates a new transit
+ * layer, the cache is copied and only the entries covering the updated dates are evicted, see
+ * {@link #invalidate(LocalDate)}. The cached data is immutable and safe to share between threads.
+ */
+public class RaptorRequestTripPatternCache {
+
+  private final int maximumSize;
+  private final Cache<CacheKey, TripPatternsForSearch> cache;
+
+  public RaptorRequestTripPatternCache(int maximumSize) {
+    this.maximumSize = maximumSize;
+    this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * Create a new cache with the same content. Used when a new {@link TransitLayer} is created
+   * from an existing one, the new layer must not share entries added later by the old layer.
+   */
+  public RaptorRequestTripPatternCache copy() {
+    var copy = new RaptorRequestTripPatternCache(maximumSize);
+    copy.cache.putAll(cache.asMap());
+    return copy;
+  }
+
+  /**
+   * Remove all entries where the given date is one of the search days. This must be called when
+   * the trip patterns running on the date is replaced.
+   */
+  public void invalidate(LocalDate date) {
+    cache.asMap().keySet().removeIf(key -> key.includesDate(date));
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  TripPatternsForSearch get(
+    TransitLayer transitLayer,
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter
+  ) {
+    var filterKey = filter.cacheKey();
+
+    if (filterKey == null) {
+      return create(
+        transitLayer,
+        transitSearchTimeZero,
+        additionalPastSearchDays,
+        additionalFutureSearchDays,
+        filter
+      );
+    }
+
+    var key = new CacheKey(
+      transitSearchTimeZero,
+      additionalPastSearchDays,
+      additionalFutureSearchDays,
+      filterKey
+    );
+    try {
+      return cache.get(
+        key,
+        () ->
+          create(
+            transitLayer,
+            transitSearchTimeZero,
+            additionalPastSearchDays,
+            additionalFutureSearchDays,
+            filter
+          )
+      );
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to get item from trip pattern cache", e);
+    }
+  }
+
+  private static TripPatternsForSearch create(
+    TransitLayer transitLayer,
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter
+  ) {
+    var transitDataCreator = new RaptorRoutingRequestTransitDataCreator(
+      transitLayer,
+      transitSearchTimeZero
+    );
+    List<TripPatternForDates> tripPatterns = transitDataCreator.createTripPatterns(
+      additionalPastSearchDays,
+      additionalFutureSearchDays,
+      filter
+    );
+    return new TripPatternsForSearch(
+      transitDataCreator.createPatternIndex(tripPatterns),
+      transitDataCreator.createTripPatternsPerStop(tripPatterns)
+    );
+  }
+
+  /**
+   * @param patternIndex              Trip patterns by route index
+   * @param activeTripPatternsPerStop Active route indices by stop index
+   */
+  record TripPatternsForSearch(
+    List<TripPatternForDates> patternIndex,
+    List<int[]> activeTripPatternsPerStop
+  ) {}
+
+  private record CacheKey(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    Object filterKey
+  ) {
+    boolean includesDate(LocalDate date) {
+      LocalDate departureDate = transitSearchTimeZero.toLocalDate();
+      return (
+        !date.isBefore(departureDate.minusDays(additionalPastSearchDays)) &&
+        !date.isAfter(departureDate.plusDays(additionalFutureSearchDays))
+      );
+    }
+  }
+}
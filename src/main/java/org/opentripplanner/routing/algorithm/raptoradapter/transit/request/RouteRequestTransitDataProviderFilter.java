@@ -159,6 +159,27 @@ public class RouteRequestTransitDataProviderFilter implements TransitDataProvide
     return boardingPossible;
   }
 
+  /**
+   * The filtered transit data can be shared if the trips are not filtered on sub-mode. The
+   * sub-mode filters are matched against each trip, and the {@link TransitFilter}s do not
+   * implement equals/hashCode. All other parameters are compared by value.
+   */
+  @Override
+  public Object cacheKey() {
+    if (hasSubModeFilters) {
+      return null;
+    }
+    return new CacheKey(
+      requireBikesAllowed,
+      wheelchairEnabled,
+      wheelchairEnabled ? wheelchairPreferences : null,
+      includePlannedCancellations,
+      includeRealtimeCancellations,
+      bannedTrips,
+      bannedRoutes
+    );
+  }
+
   public static Set<FeedScopedId> bannedRoutes(
     List<TransitFilter> filters,
     Collection<Route> routes
@@ -177,4 +198,14 @@ public class RouteRequestTransitDataProviderFilter implements TransitDataProvide
     FeedScopedId routeId = tripPatternForDate.getTripPattern().route().getId();
     return !bannedRoutes.contains(routeId);
   }
+
+  private record CacheKey(
+    boolean requireBikesAllowed,
+    boolean wheelchairEnabled,
+    WheelchairPreferences wheelchairPreferences,
+    boolean includePlannedCancellations,
+    boolean includeRealtimeCancellations,
+    Set<FeedScopedId> bannedTrips,
+    Set<FeedScopedId> bannedRoutes
+  ) {}
 }
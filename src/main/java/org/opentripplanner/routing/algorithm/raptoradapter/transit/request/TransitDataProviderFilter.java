@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
 import java.util.BitSet;
+import javax.annotation.Nullable;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
 import org.opentripplanner.transit.model.network.RoutingTripPattern;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -32,4 +33,16 @@ public interface TransitDataProviderFilter {
    * @return Information if stops are available for boarding or alighting
    */
   BitSet filterAvailableStops(RoutingTripPattern tripPattern, BitSet boardingPossible);
+
+  /**
+   * Return a value identifying the result of applying this filter to the transit data. Two filters
+   * with equal cache keys must accept exactly the same patterns, trips and stops, so the filtered
+   * transit data can be shared between requests.
+   *
+   * @return the cache key, or {@code null} if the filtered data can not be shared.
+   */
+  @Nullable
+  default Object cacheKey() {
+    return null;
+  }
 }
@@ -48,8 +48,8 @@ public class TripPatternForDates
   private final int[] arrivalTimes;
 
   /**
-   * The arrival times in a nStops * numberOfTripSchedules sized array. The order is the same as in
-   * arrivalTimes.
+   * The departure times in a nStops * numberOfTripSchedules sized array. The order is the same as
+   * in arrivalTimes.
    */
   private final int[] departureTimes;
 
@@ -207,14 +207,22 @@ public class TripPatternForDates
     return (int index) -> departureTimes[base + index];
   }
 
-  public IntUnaryOperator getArrivalTimesForTrip(int index) {
-    return (int stopPositionInPattern) ->
-      arrivalTimes[stopPositionInPattern * numberOfTripSchedules + index];
+  /**
+   * The arrival time for the given trip at the given stop position. This reads the time directly
+   * from the stop-major time table, and should be used in the inner loops instead of the
+   * {@link IntUnaryOperator} returned by {@link #getArrivalTimes(int)}.
+   */
+  public int arrivalTime(int tripIndex, int stopPositionInPattern) {
+    return arrivalTimes[stopPositionInPattern * numberOfTripSchedules + tripIndex];
   }
 
-  public IntUnaryOperator getDepartureTimesForTrip(int index) {
-    return (int stopPositionInPattern) ->
-      departureTimes[stopPositionInPattern * numberOfTripSchedules + index];
+  /**
+   * The departure time for the given trip at the given stop position. This reads the time directly
+   * from the stop-major time table, and should be used in the inner loops instead of the
+   * {@link IntUnaryOperator} returned by {@link #getDepartureTimes(int)}.
+   */
+  public int departureTime(int tripIndex, int stopPositionInPattern) {
+    return departureTimes[stopPositionInPattern * numberOfTripSchedules + tripIndex];
   }
 
   @Override
@@ -62,7 +62,7 @@ public final class TripScheduleAlightSearch<T extends RaptorTripSchedule>
 
   @Override
   public int time() {
-    return candidateTrip.arrival(stopPositionInPattern);
+    return arrivalTimes.applyAsInt(candidateTripIndex);
   }
 
   @Override
@@ -60,7 +60,7 @@ public final class TripScheduleBoardSearch<T extends RaptorTripSchedule>
 
   @Override
   public int time() {
-    return candidateTrip.departure(stopPositionInPattern);
+    return departureTimes.applyAsInt(candidateTripIndex);
   }
 
   @Override
@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.prefs.Preferences;
@@ -20,6 +21,7 @@ import org.opentripplanner.ext.dataoverlay.configuration.DataOverlayParameterBin
 import org.opentripplanner.ext.geocoder.LuceneIndex;
 import org.opentripplanner.framework.geometry.CompactElevationProfile;
 import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.inspector.vector.VectorTilePyramid;
 import org.opentripplanner.model.calendar.openinghours.OpeningHoursCalendarService;
 import org.opentripplanner.routing.fares.FareService;
 import org.opentripplanner.routing.graph.index.StreetIndex;
@@ -29,11 +31,13 @@ import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
 import org.opentripplanner.routing.vehicle_rental.VehicleRentalService;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.framework.Deduplicator;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.updater.permissions.PermissionsFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +63,24 @@ public class Graph implements Serializable {
 
   private transient StreetIndex streetIndex;
 
+  /**
+   * The current version of the custom street permissions. This is not serialized, the changes are
+   * pushed to a running server.
+   */
+  private transient volatile StreetPermissionOverlay streetPermissionOverlay;
+
+  /** The file the custom street permissions are saved to, {@code null} if they are not saved. */
+  private transient PermissionsFile permissionsFile;
+
+  /**
+   * Identify the pre-rendered vector tiles built together with this graph, {@code null} if not
+   * built. The tiles are stored in a separate file, which is only used if the id match.
+   */
+  private String vectorTilePyramidId = null;
+
+  /** The pre-rendered vector tiles, this is not serialized; it is opened when the server start. */
+  private transient VectorTilePyramid vectorTilePyramid;
+
   //ConvexHull of all the graph vertices. Generated at Graph build time.
   private Geometry convexHull = null;
 
@@ -280,6 +302,48 @@ public class Graph implements Serializable {
     return this.openingHoursCalendarService;
   }
 
+  /**
+   * The current version of the custom street permissions. Capture this once at the start of a
+   * request, to get a consistent view during the request.
+   */
+  public StreetPermissionOverlay getStreetPermissionOverlay() {
+    var overlay = streetPermissionOverlay;
+    return overlay == null ? StreetPermissionOverlay.EMPTY : overlay;
+  }
+
+  /**
+   * Publish a new version of the custom street permissions, only one thread should update this.
+   */
+  public void setStreetPermissionOverlay(StreetPermissionOverlay streetPermissionOverlay) {
+    this.streetPermissionOverlay = Objects.requireNonNull(streetPermissionOverlay);
+  }
+
+  @Nullable
+  public PermissionsFile getPermissionsFile() {
+    return permissionsFile;
+  }
+
+  public void setPermissionsFile(@Nullable PermissionsFile permissionsFile) {
+    this.permissionsFile = permissionsFile;
+  }
+
+  @Nullable
+  public String getVectorTilePyramidId() {
+    return vectorTilePyramidId;
+  }
+
+  public void setVectorTilePyramidId(String vectorTilePyramidId) {
+    this.vectorTilePyramidId = vectorTilePyramidId;
+  }
+
+  public VectorTilePyramid getVectorTilePyramid() {
+    return vectorTilePyramid == null ? VectorTilePyramid.EMPTY : vectorTilePyramid;
+  }
+
+  public void setVectorTilePyramid(VectorTilePyramid vectorTilePyramid) {
+    this.vectorTilePyramid = Objects.requireNonNull(vectorTilePyramid);
+  }
+
   /**
    * Get streetIndex, safe to use while routing, but do not use during graph build.
    * @see #getStreetIndexSafe(StopModel)
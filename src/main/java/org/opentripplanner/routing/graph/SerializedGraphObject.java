@@ -7,18 +7,19 @@ import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.framework.application.OtpAppException;
 import org.opentripplanner.framework.geometry.CompactElevationProfile;
+import org.opentripplanner.framework.io.MemoryMappedInputStream;
 import org.opentripplanner.framework.lang.OtpNumberFormat;
 import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.model.projectinfo.GraphFileHeader;
@@ -51,6 +52,12 @@ public class SerializedGraphObject implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(SerializedGraphObject.class);
 
+  /**
+   * Kryo read the input in chunks of this size, the Kryo default of 4 KB result in a large number
+   * of small reads for a graph of several GB.
+   */
+  private static final int INPUT_BUFFER_SIZE = 1 << 20;
+
   public final Graph graph;
   public final TransitModel transitModel;
   public final WorldEnvelopeRepository worldEnvelopeRepository;
@@ -109,14 +116,14 @@ public class SerializedGraphObject implements Serializable {
   }
 
   public static SerializedGraphObject load(DataSource source) {
-    return load(source.asInputStream(), source.path());
+    return load(source.asMemoryMappedInputStream(), source.path());
   }
 
   public static SerializedGraphObject load(File file) {
     try {
-      return load(new FileInputStream(file), file.getAbsolutePath());
-    } catch (FileNotFoundException e) {
-      LOG.error("Graph file not found: " + file, e);
+      return load(new MemoryMappedInputStream(file), file.getAbsolutePath());
+    } catch (IOException e) {
+      LOG.error("Unable to open graph file: " + file, e);
       throw new OtpAppException(e.getMessage());
     }
   }
@@ -155,7 +162,7 @@ public class SerializedGraphObject implements Serializable {
     // TODO store version information, halt load if versions mismatch
     try (inputStream) {
       LOG.info("Reading graph from '{}'", sourceDescription);
-      Input input = new Input(inputStream);
+      Input input = new Input(inputStream, INPUT_BUFFER_SIZE);
 
       validateGraphSerializationId(
         input.readBytes(GraphFileHeader.headerLength()),
@@ -171,9 +178,7 @@ public class SerializedGraphObject implements Serializable {
         serObj.graph.getDistanceBetweenElevationSamples()
       );
       LOG.debug("Graph read.");
-      serObj.reconstructEdgeLists();
-      serObj.transitModel.getStopModel().reindexAfterDeserialization();
-      serObj.transitModel.index();
+      serObj.indexAfterDeserialization();
       logSerializationCompleteStatus(serObj.graph, serObj.transitModel);
       return serObj;
     } catch (IOException e) {
@@ -198,6 +203,22 @@ public class SerializedGraphObject implements Serializable {
     }
   }
 
+  /**
+   * Rebuild the street edge lists and the transit indexes after deserialization. The transit
+   * indexes do not depend on the street edge lists, so the street graph is processed in another
+   * thread while the transit model is indexed.
+   */
+  private void indexAfterDeserialization() {
+    var edgeLists = CompletableFuture.runAsync(this::reconstructEdgeLists);
+    transitModel.getStopModel().reindexAfterDeserialization();
+    transitModel.index();
+    try {
+      edgeLists.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException re ? re : e;
+    }
+  }
+
   @SuppressWarnings("Convert2MethodRef")
   private static OutputStream wrapOutputStreamWithProgressTracker(
     OutputStream outputStream,
@@ -1,9 +1,11 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.List;
 import java.util.stream.Stream;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedRTree;
 import org.opentripplanner.routing.linking.Scope;
 import org.opentripplanner.street.model.edge.Edge;
 
@@ -29,13 +31,29 @@ import org.opentripplanner.street.model.edge.Edge;
  * edge then back again to where the realtime element was connected.
  * <p>
  * See #3351
+ * <p>
+ * The edges of the street graph are added to the permanent index when it is created, and stored
+ * in a packed {@link PackedRTree}. Edges added to the permanent index later, when linking during
+ * the graph build, are kept in a {@link HashGridSpatialIndex} together with the realtime edges.
+ * These are few compared with the street graph, the packed tree is built again when the graph is
+ * loaded.
  */
 public class EdgeSpatialIndex {
 
+  private final PackedRTree<Edge> permanentEdgeTree;
+
   private final HashGridSpatialIndex<Edge> permanentEdgeIndex = new HashGridSpatialIndex<>();
 
   private final HashGridSpatialIndex<Edge> realTimeEdgeIndex = new HashGridSpatialIndex<>();
 
+  public EdgeSpatialIndex(PackedRTree<Edge> permanentEdgeTree) {
+    this.permanentEdgeTree = permanentEdgeTree;
+  }
+
+  public EdgeSpatialIndex() {
+    this(PackedRTree.empty());
+  }
+
   public void insert(LineString lineString, Object obj, Scope scope) {
     switch (scope) {
       case PERMANENT -> permanentEdgeIndex.insert(lineString, obj);
@@ -46,7 +64,11 @@ public class EdgeSpatialIndex {
 
   public void remove(Envelope envelope, final Object item, Scope scope) {
     switch (scope) {
-      case PERMANENT -> permanentEdgeIndex.remove(envelope, item);
+      case PERMANENT -> {
+        if (!permanentEdgeIndex.remove(envelope, item)) {
+          permanentEdgeTree.remove(envelope, item);
+        }
+      }
       case REALTIME -> realTimeEdgeIndex.remove(envelope, item);
       case REQUEST -> throw new IllegalArgumentException();
     }
@@ -54,9 +76,9 @@ public class EdgeSpatialIndex {
 
   public final Stream<Edge> query(Envelope envelope, Scope scope) {
     return switch (scope) {
-      case PERMANENT, REALTIME -> permanentEdgeIndex.query(envelope).stream();
+      case PERMANENT, REALTIME -> queryPermanent(envelope);
       case REQUEST -> Stream.concat(
-        permanentEdgeIndex.query(envelope).stream(),
+        queryPermanent(envelope),
         realTimeEdgeIndex.query(envelope).stream()
       );
     };
@@ -65,4 +87,23 @@ public class EdgeSpatialIndex {
   public void compact() {
     permanentEdgeIndex.compact();
   }
+
+  @Override
+  public String toString() {
+    return (
+      getClass().getSimpleName() +
+      " -- permanent: " +
+      permanentEdgeTree +
+      ", added: " +
+      permanentEdgeIndex +
+      " -- realtime: " +
+      realTimeEdgeIndex
+    );
+  }
+
+  private Stream<Edge> queryPermanent(Envelope envelope) {
+    List<Edge> edges = permanentEdgeTree.query(envelope);
+    edges.addAll(permanentEdgeIndex.query(envelope));
+    return edges.stream();
+  }
 }
@@ -11,7 +11,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.geometry.GeometryUtils;
-import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedRTree;
 import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.framework.geometry.SplitLineString;
 import org.opentripplanner.framework.i18n.I18NString;
@@ -27,6 +27,7 @@ import org.opentripplanner.routing.linking.Scope;
 import org.opentripplanner.routing.linking.VertexLinker;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.edge.TemporaryFreeEdge;
 import org.opentripplanner.street.model.edge.TemporaryPartialStreetEdge;
 import org.opentripplanner.street.model.vertex.StreetVertex;
@@ -60,18 +61,20 @@ public class StreetIndex {
   private final Map<FeedScopedId, TransitStopVertex> transitStopVertices;
 
   private final EdgeSpatialIndex edgeSpatialIndex;
-  private final HashGridSpatialIndex<Vertex> verticesTree;
+  private final PackedRTree<Vertex> verticesTree;
 
   /**
    * Should only be called by the graph.
    */
   public StreetIndex(Graph graph, StopModel stopModel) {
     this.stopModel = stopModel;
-    this.edgeSpatialIndex = new EdgeSpatialIndex();
-    this.verticesTree = new HashGridSpatialIndex<>();
+    var edges = PackedRTree.<Edge>of();
+    var vertices = PackedRTree.<Vertex>of();
+    postSetup(graph.getVertices(), edges, vertices);
+    this.edgeSpatialIndex = new EdgeSpatialIndex(edges.build());
+    this.verticesTree = vertices.build();
     this.vertexLinker = new VertexLinker(graph, stopModel, edgeSpatialIndex);
     this.transitStopVertices = toImmutableMap(graph.getVerticesOfType(TransitStopVertex.class));
-    postSetup(graph.getVertices());
   }
 
   /**
@@ -173,11 +176,13 @@ public class StreetIndex {
    * the stop or station types by id, and if not successful it uses the coordinates if provided.
    *
    * @param endVertex: whether this is a start vertex (if it's false) or end vertex (if it's true)
+   * @param permissionOverlay: the custom street permissions of the request, used when linking
    */
   public Set<Vertex> getVerticesForLocation(
     GenericLocation location,
     StreetMode streetMode,
     boolean endVertex,
+    StreetPermissionOverlay permissionOverlay,
     Set<DisposableEdgeCollection> tempEdges
   ) {
     // Differentiate between driving and non-driving, as driving is not available from transit stops
@@ -209,7 +214,9 @@ public class StreetIndex {
 
     // Check if coordinate is provided and connect it to graph
     if (location.getCoordinate() != null) {
-      return Set.of(createVertexFromLocation(location, streetMode, endVertex, tempEdges));
+      return Set.of(
+        createVertexFromLocation(location, streetMode, endVertex, permissionOverlay, tempEdges)
+      );
     }
 
     return null;
@@ -241,7 +248,13 @@ public class StreetIndex {
     if (location.getCoordinate() == null) {
       return null;
     }
-    return createVertexFromLocation(location, streetMode, endVertex, tempEdges);
+    return createVertexFromLocation(
+      location,
+      streetMode,
+      endVertex,
+      StreetPermissionOverlay.EMPTY,
+      tempEdges
+    );
   }
 
   /**
@@ -332,6 +345,7 @@ public class StreetIndex {
     GenericLocation location,
     StreetMode streetMode,
     boolean endVertex,
+    StreetPermissionOverlay permissionOverlay,
     Set<DisposableEdgeCollection> tempEdges
   ) {
     if (endVertex) {
@@ -365,6 +379,7 @@ public class StreetIndex {
         temporaryStreetLocation,
         new TraverseModeSet(nonTransitMode),
         endVertex ? LinkingDirection.OUTGOING : LinkingDirection.INCOMING,
+        permissionOverlay,
         endVertex
           ? (vertex, streetVertex) ->
             List.of(new TemporaryFreeEdge(streetVertex, (TemporaryStreetLocation) vertex))
@@ -396,25 +411,25 @@ public class StreetIndex {
     return nonTransitMode;
   }
 
-  private void postSetup(Collection<Vertex> vertices) {
+  private static void postSetup(
+    Collection<Vertex> vertices,
+    PackedRTree.Builder<Edge> edges,
+    PackedRTree.Builder<Vertex> verticesTree
+  ) {
     var progress = ProgressTracker.track("Index street vertex", 1000, vertices.size());
     LOG.info(progress.startMessage());
 
     for (Vertex gv : vertices) {
       for (Edge e : gv.getOutgoing()) {
         LineString geometry = edgeGeometryOrStraightLine(e);
-        edgeSpatialIndex.insert(geometry, e, Scope.PERMANENT);
+        edges.add(geometry.getEnvelopeInternal(), e);
       }
       Envelope env = new Envelope(gv.getCoordinate());
-      verticesTree.insert(env, gv);
+      verticesTree.add(env, gv);
 
       //noinspection Convert2MethodRef
       progress.step(m -> LOG.info(m));
     }
-
-    // Trim the sizes of the indices
-    edgeSpatialIndex.compact();
-    verticesTree.compact();
     LOG.info(progress.completeMessage());
   }
 
@@ -88,12 +88,14 @@ public class StreetGraphFinder implements GraphFinder {
     rr.setNumItineraries(1);
     // RR dateTime defaults to currentTime.
     // If elapsed time is not capped, searches are very slow.
+    var permissionOverlay = graph.getStreetPermissionOverlay();
     try (
       var temporaryVertices = new TemporaryVerticesContainer(
         graph,
         rr,
         StreetMode.WALK,
-        StreetMode.WALK
+        StreetMode.WALK,
+        permissionOverlay
       )
     ) {
       StreetSearchBuilder
@@ -103,6 +105,7 @@ public class StreetGraphFinder implements GraphFinder {
         .setDominanceFunction(new DominanceFunctions.LeastWalk())
         .setRequest(rr)
         .setVerticesContainer(temporaryVertices)
+        .setPermissionOverlay(permissionOverlay)
         .getShortestPathTree();
     }
   }
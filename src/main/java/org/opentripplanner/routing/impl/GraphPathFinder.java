@@ -16,6 +16,7 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.preference.StreetPreferences;
 import org.opentripplanner.routing.error.PathNotFoundException;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
@@ -58,21 +59,25 @@ public class GraphPathFinder {
 
   private final DataOverlayContext dataOverlayContext;
 
+  private final StreetPermissionOverlay permissionOverlay;
+
   public GraphPathFinder(
     @Nullable TraverseVisitor<State, Edge> traverseVisitor,
     Duration streetRoutingTimeout
   ) {
-    this(traverseVisitor, streetRoutingTimeout, null);
+    this(traverseVisitor, streetRoutingTimeout, null, StreetPermissionOverlay.EMPTY);
   }
 
   public GraphPathFinder(
     @Nullable TraverseVisitor<State, Edge> traverseVisitor,
     Duration streetRoutingTimeout,
-    @Nullable DataOverlayContext dataOverlayContext
+    @Nullable DataOverlayContext dataOverlayContext,
+    StreetPermissionOverlay permissionOverlay
   ) {
     this.traverseVisitor = traverseVisitor;
     this.streetRoutingTimeout = streetRoutingTimeout;
     this.dataOverlayContext = dataOverlayContext;
+    this.permissionOverlay = permissionOverlay;
   }
 
   /**
@@ -101,6 +106,7 @@ public class GraphPathFinder {
       .setFrom(from)
       .setTo(to)
       .setDataOverlayContext(dataOverlayContext)
+      .setPermissionOverlay(permissionOverlay)
       .setTimeout(streetRoutingTimeout);
 
     // If the search has a traverseVisitor(GraphVisualizer) attached to it, set it as a callback
@@ -6,14 +6,21 @@ import org.locationtech.jts.geom.Point;
 import org.opentripplanner.framework.geometry.GeometryUtils;
 import org.opentripplanner.street.model.StreetTraversalPermission;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.SplitterVertex;
 import org.opentripplanner.transit.model.site.AreaStop;
 import org.opentripplanner.transit.service.StopModel;
 
 class FlexLocationAdder {
 
-  static void addFlexLocations(StreetEdge edge, SplitterVertex v0, StopModel stopModel) {
-    if (edge.getPermission().allows(StreetTraversalPermission.PEDESTRIAN_AND_CAR)) {
+  static void addFlexLocations(
+    StreetEdge edge,
+    SplitterVertex v0,
+    StopModel stopModel,
+    StreetPermissionOverlay permissionOverlay
+  ) {
+    var permission = edge.getPermission(permissionOverlay);
+    if (permission.allows(StreetTraversalPermission.PEDESTRIAN_AND_CAR)) {
       Point p = GeometryUtils.getGeometryFactory().createPoint(v0.getCoordinate());
       Envelope env = p.getEnvelopeInternal();
       for (AreaStop location : stopModel.queryLocationIndex(env)) {
@@ -20,6 +20,7 @@ import org.opentripplanner.routing.graph.index.EdgeSpatialIndex;
 import org.opentripplanner.street.model.edge.AreaEdge;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.SplitterVertex;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TemporarySplitterVertex;
@@ -79,31 +80,58 @@ public class VertexLinker {
     this.stopModel = stopModel;
   }
 
+  /**
+   * Link the vertex to the street edges traversable with the permissions of the edges. The custom
+   * street permissions are not used, since the links outlive them.
+   */
   public void linkVertexPermanently(
     Vertex vertex,
     TraverseModeSet traverseModes,
     LinkingDirection direction,
     BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction
   ) {
-    link(vertex, traverseModes, direction, Scope.PERMANENT, edgeFunction);
+    link(
+      vertex,
+      traverseModes,
+      direction,
+      Scope.PERMANENT,
+      StreetPermissionOverlay.EMPTY,
+      edgeFunction
+    );
   }
 
+  /**
+   * Link the vertex to the street edges traversable with the current custom street permissions of
+   * the graph.
+   */
   public DisposableEdgeCollection linkVertexForRealTime(
     Vertex vertex,
     TraverseModeSet traverseModes,
     LinkingDirection direction,
     BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction
   ) {
-    return link(vertex, traverseModes, direction, Scope.REALTIME, edgeFunction);
+    return link(
+      vertex,
+      traverseModes,
+      direction,
+      Scope.REALTIME,
+      graph.getStreetPermissionOverlay(),
+      edgeFunction
+    );
   }
 
+  /**
+   * Link the vertex to the street edges traversable with the custom street permissions of the
+   * request, this is the version the request captured when it started.
+   */
   public DisposableEdgeCollection linkVertexForRequest(
     Vertex vertex,
     TraverseModeSet traverseModes,
     LinkingDirection direction,
+    StreetPermissionOverlay permissionOverlay,
     BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction
   ) {
-    return link(vertex, traverseModes, direction, Scope.REQUEST, edgeFunction);
+    return link(vertex, traverseModes, direction, Scope.REQUEST, permissionOverlay, edgeFunction);
   }
 
   public void removeEdgeFromIndex(Edge edge, Scope scope) {
@@ -183,6 +211,7 @@ public class VertexLinker {
    * @param traverseModes Only street edges allowing one of these modes will be linked
    * @param direction     The direction of the new edges to be created
    * @param scope         The scope of the split
+   * @param permissionOverlay The custom street permissions used to find the traversable edges
    * @param edgeFunction  How the provided vertex should be linked into the street graph
    * @return A DisposableEdgeCollection with edges created by this method. It is the caller's
    * responsibility to call the dispose method on this object when the edges are no longer needed.
@@ -192,6 +221,7 @@ public class VertexLinker {
     TraverseModeSet traverseModes,
     LinkingDirection direction,
     Scope scope,
+    StreetPermissionOverlay permissionOverlay,
     BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction
   ) {
     DisposableEdgeCollection tempEdges = (scope != Scope.PERMANENT)
@@ -204,6 +234,7 @@ public class VertexLinker {
         traverseModes,
         direction,
         scope,
+        permissionOverlay,
         INITIAL_SEARCH_RADIUS_METERS,
         tempEdges
       );
@@ -214,6 +245,7 @@ public class VertexLinker {
             traverseModes,
             direction,
             scope,
+            permissionOverlay,
             MAX_SEARCH_RADIUS_METERS,
             tempEdges
           );
@@ -242,6 +274,7 @@ public class VertexLinker {
     TraverseModeSet traverseModes,
     LinkingDirection direction,
     Scope scope,
+    StreetPermissionOverlay permissionOverlay,
     int radiusMeters,
     DisposableEdgeCollection tempEdges
   ) {
@@ -263,7 +296,7 @@ public class VertexLinker {
       .query(env, scope)
       .filter(StreetEdge.class::isInstance)
       .map(StreetEdge.class::cast)
-      .filter(e -> e.canTraverse(traverseModes) && edgeReachableFromGraph(e))
+      .filter(e -> e.canTraverse(permissionOverlay, traverseModes) && edgeReachableFromGraph(e))
       .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
       .filter(ead -> ead.distanceDegreesLat < radiusDeg)
       .collect(Collectors.toList());
@@ -272,11 +305,15 @@ public class VertexLinker {
       return Set.of();
     }
 
-    Set<DistanceTo<StreetEdge>> closesEdges = getClosestEdgesPerMode(traverseModes, candidateEdges);
+    Set<DistanceTo<StreetEdge>> closesEdges = getClosestEdgesPerMode(
+      traverseModes,
+      permissionOverlay,
+      candidateEdges
+    );
 
     return closesEdges
       .stream()
-      .map(ce -> link(vertex, ce.item, xscale, scope, direction, tempEdges))
+      .map(ce -> link(vertex, ce.item, xscale, scope, direction, permissionOverlay, tempEdges))
       .collect(Collectors.toSet());
   }
 
@@ -287,6 +324,7 @@ public class VertexLinker {
    */
   private Set<DistanceTo<StreetEdge>> getClosestEdgesPerMode(
     TraverseModeSet traverseModeSet,
+    StreetPermissionOverlay permissionOverlay,
     List<DistanceTo<StreetEdge>> candidateEdges
   ) {
     final double DUPLICATE_WAY_EPSILON_DEGREES = SphericalDistanceLibrary.metersToDegrees(
@@ -311,7 +349,7 @@ public class VertexLinker {
 
       var candidateEdgesForMode = candidateEdges
         .stream()
-        .filter(e -> e.item.canTraverse(modeSet))
+        .filter(e -> e.item.canTraverse(permissionOverlay, modeSet))
         .toList();
 
       if (candidateEdgesForMode.isEmpty()) {
@@ -342,6 +380,7 @@ public class VertexLinker {
     double xScale,
     Scope scope,
     LinkingDirection direction,
+    StreetPermissionOverlay permissionOverlay,
     DisposableEdgeCollection tempEdges
   ) {
     // TODO: we've already built this line string, we should save it
@@ -385,7 +424,7 @@ public class VertexLinker {
 
       // TODO Consider moving this code
       if (OTPFeature.FlexRouting.isOn()) {
-        FlexLocationAdder.addFlexLocations(edge, v0, stopModel);
+        FlexLocationAdder.addFlexLocations(edge, v0, stopModel, permissionOverlay);
       }
 
       return v0;
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
@@ -29,6 +30,12 @@ public class VehicleParkingService implements Serializable {
    */
   private ImmutableListMultimap<VehicleParkingGroup, VehicleParking> vehicleParkingGroups = ImmutableListMultimap.of();
 
+  /**
+   * Increased on every update, the availability of the parking places is also updated before
+   * this. Used to invalidate cached data derived from the parking places, like vector tiles.
+   */
+  private final AtomicLong modificationCount = new AtomicLong();
+
   /**
    * Does atomic update of {@link VehicleParking} and index of {@link VehicleParkingGroup} in this
    * service by replacing the existing with a new copy that includes old ones that were not removed
@@ -59,6 +66,15 @@ public class VehicleParkingService implements Serializable {
     updatedVehicleParkings.removeAll(parkingToRemove);
     updatedVehicleParkings.addAll(parkingToAdd);
     vehicleParkings = Set.copyOf(updatedVehicleParkings);
+    modificationCount.incrementAndGet();
+  }
+
+  /**
+   * The number of updates, a new value means the parking places or their availability have
+   * changed.
+   */
+  public long getModificationCount() {
+    return modificationCount.get();
   }
 
   public Stream<VehicleParking> getBikeParks() {
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.opentripplanner.routing.vehicle_rental.RentalVehicleType.FormFactor;
@@ -14,6 +15,12 @@ public class VehicleRentalService implements Serializable {
 
   private final Map<FeedScopedId, VehicleRentalPlace> rentalPlaces = new HashMap<>();
 
+  /**
+   * Increased every time a rental place is added, updated or removed. Used to invalidate cached
+   * data derived from the rental places, like vector tiles.
+   */
+  private final AtomicLong modificationCount = new AtomicLong();
+
   public Collection<VehicleRentalPlace> getVehicleRentalPlaces() {
     return rentalPlaces.values();
   }
@@ -58,10 +65,20 @@ public class VehicleRentalService implements Serializable {
     // Remove old reference first, as adding will be a no-op if already present
     rentalPlaces.remove(vehicleRentalStation.getId());
     rentalPlaces.put(vehicleRentalStation.getId(), vehicleRentalStation);
+    modificationCount.incrementAndGet();
   }
 
   public void removeVehicleRentalStation(FeedScopedId vehicleRentalStationId) {
-    rentalPlaces.remove(vehicleRentalStationId);
+    if (rentalPlaces.remove(vehicleRentalStationId) != null) {
+      modificationCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * The number of changes to the rental places, a new value means the rental places have changed.
+   */
+  public long getModificationCount() {
+    return modificationCount.get();
   }
 
   public boolean hasRentalBikes() {
@@ -9,6 +9,7 @@ import org.geotools.util.WeakCollectionCleaner;
 import org.opentripplanner.framework.application.OtpAppException;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.SerializedGraphObject;
 import org.opentripplanner.standalone.config.CommandLineParameters;
 import org.opentripplanner.standalone.configure.ConstructApplication;
@@ -16,6 +17,7 @@ import org.opentripplanner.standalone.configure.LoadApplication;
 import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
+import org.opentripplanner.updater.permissions.PermissionsPushUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -186,7 +188,11 @@ public class OTPMain {
     if (params.doServe()) {
       GrizzlyServer grizzlyServer = app.createGrizzlyServer();
 
-      registerShutdownHookToGracefullyShutDownServer(app.transitModel(), app.raptorConfig());
+      registerShutdownHookToGracefullyShutDownServer(
+        app.graph(),
+        app.transitModel(),
+        app.raptorConfig()
+      );
 
       // Loop to restart server on uncaught fatal exceptions.
       while (true) {
@@ -209,17 +215,20 @@ public class OTPMain {
    * Shut down this server when evicted or (auto-)reloaded.
    * <ol>
    *   <li>Stop any real-time updater threads.</li>
+   *   <li>Save the latest version of the custom street permissions.</li>
    *   <li>Cleanup various stuff of some used libraries (org.geotools), which depend on the
    *   external client to call them for cleaning-up.</li>
    * </ol>
    */
   private static void registerShutdownHookToGracefullyShutDownServer(
+    Graph graph,
     TransitModel transitModel,
     RaptorConfig<?> raptorConfig
   ) {
     var hook = new Thread(() -> {
       LOG.info("OTP shutdown started...");
       UpdaterConfigurator.shutdownGraph(transitModel);
+      PermissionsPushUpdater.tearDown(graph);
       raptorConfig.shutdown();
       WeakCollectionCleaner.DEFAULT.exit();
       DeferredAuthorityFactory.exit();
@@ -8,8 +8,10 @@ import org.opentripplanner.ext.dataoverlay.routing.DataOverlayContext;
 import org.opentripplanner.ext.vectortiles.VectorTilesResource;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.inspector.raster.TileRendererManager;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.routing.api.RoutingService;
@@ -20,6 +22,7 @@ import org.opentripplanner.service.vehiclepositions.VehiclePositionService;
 import org.opentripplanner.service.worldenvelope.WorldEnvelopeService;
 import org.opentripplanner.standalone.config.sandbox.FlexConfig;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.search.state.State;
 import org.opentripplanner.transit.service.TransitService;
 import org.slf4j.Logger;
@@ -62,8 +65,22 @@ public interface OtpServerRequestContext {
 
   RaptorConfig<TripSchedule> raptorConfig();
 
+  /**
+   * The access/egress stop cache is shared by all requests, and must be invalidated if the street
+   * network is changed.
+   */
+  AccessEgressCache accessEgressCache();
+
   Graph graph();
 
+  /**
+   * The custom street permissions used by all street searches in this request. The version
+   * published on the graph when the request starts is used for the whole request, so permission
+   * updates published while the request is running are not visible to it.
+   */
+  @HttpRequestScoped
+  StreetPermissionOverlay streetPermissionOverlay();
+
   @HttpRequestScoped
   TransitService transitService();
 
@@ -115,6 +132,12 @@ public interface OtpServerRequestContext {
 
   VectorTilesResource.LayersParameters<VectorTilesResource.LayerType> vectorTileLayers();
 
+  /**
+   * The vector tile cache is shared by all requests, tiles with realtime data are invalidated
+   * using the data version of each layer.
+   */
+  VectorTileCache vectorTileCache();
+
   default DataOverlayContext dataOverlayContext(RouteRequest request) {
     return OTPFeature.DataOverlay.isOnElseNull(() ->
       new DataOverlayContext(
@@ -24,6 +24,7 @@ import org.opentripplanner.framework.geometry.CompactElevationProfile;
 import org.opentripplanner.framework.lang.ObjectUtils;
 import org.opentripplanner.graph_builder.module.ned.parameter.DemExtractParameters;
 import org.opentripplanner.graph_builder.module.ned.parameter.DemExtractParametersList;
+import org.opentripplanner.graph_builder.module.osm.OsmNodeStorage;
 import org.opentripplanner.graph_builder.module.osm.parameters.OsmExtractParameters;
 import org.opentripplanner.graph_builder.module.osm.parameters.OsmExtractParametersList;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
@@ -146,12 +147,15 @@ public class BuildConfig implements OtpDataStoreConfig {
 
   public final boolean osmCacheDataInMem;
 
+  public final OsmNodeStorage osmNodeStorage;
+
   /** See {@link IslandPruningConfig}. */
   public final IslandPruningConfig islandPruning;
 
   public final boolean banDiscouragedWalking;
   public final boolean banDiscouragedBiking;
   public final double maxTransferDurationSeconds;
+  public final boolean reuseTransferSearches;
   public final Boolean extraEdgesStopPlatformLink;
   public final NetexFeedParameters netexDefaults;
   public final GtfsFeedParameters gtfsDefaults;
@@ -163,6 +167,8 @@ public class BuildConfig implements OtpDataStoreConfig {
 
   public final int maxAreaNodes;
 
+  public final int vectorTilePyramidMaxZoom;
+
   public final DataOverlayConfig dataOverlay;
   public final double maxStopToShapeSnapDistance;
   public final Set<String> boardingLocationTags;
@@ -319,6 +325,22 @@ all of the elevation values in the street edges.
           "Transfers up to this duration with the default walk speed value will be pre-calculated and included in the Graph."
         )
         .asDouble((double) Duration.ofMinutes(30).toSeconds());
+    reuseTransferSearches =
+      root
+        .of("reuseTransferSearches")
+        .since(V2_3)
+        .summary("Reuse the transfer street searches of the previous build for unchanged stops.")
+        .description(
+          """
+When the transit data is built on a saved street graph (`--loadStreet`), the street searches used
+to create the transfers are saved in the `nearbyStops.bin` file in the base directory. The next
+build with the same street graph and transfer parameters only searches from the stops which are
+added or moved, or have an added, moved or removed stop within the transfer distance. The
+searches from the other stops are read from the file. This is not used for driving transfers, or
+if the `FlexRouting` or `VehicleToStopHeuristics` features are enabled.
+          """
+        )
+        .asBoolean(false);
     maxStopToShapeSnapDistance =
       root
         .of("maxStopToShapeSnapDistance")
@@ -361,6 +383,23 @@ all of the elevation values in the street edges.
       """
         )
         .asBoolean(false);
+    osmNodeStorage =
+      root
+        .of("osmNodeStorage")
+        .since(V2_3)
+        .summary("How the OSM nodes are stored while the street graph is built.")
+        .description(
+          """
+      Most of the nodes in an OSM extract are the untagged nodes of ways, which only contribute a
+      coordinate to the street geometry. With `heap` all nodes are kept as Java objects, which for
+      large extracts needs a lot of memory. With `memory-mapped` only the coordinates of untagged
+      way nodes are kept, in a memory-mapped temporary file, and the heap is only used for the
+      tagged nodes and the nodes of areas. This reduces the heap needed to build large extracts
+      considerably, at the cost of a slightly slower build. The file is created in the temporary
+      directory of the JVM (`java.io.tmpdir`) and deleted when the streets are built.
+      """
+        )
+        .asEnum(OsmNodeStorage.HEAP);
     platformEntriesLinking =
       root
         .of("platformEntriesLinking")
@@ -521,6 +560,23 @@ recommended.
         )
         .description("[Detailed documentation](BoardingLocations.md)")
         .asStringSet(List.copyOf(Set.of("ref")));
+    vectorTilePyramidMaxZoom =
+      root
+        .of("vectorTilePyramidMaxZoom")
+        .since(V2_3)
+        .summary("Pre-render the stop and station vector tiles up to this zoom level.")
+        .description(
+          """
+The stop and station vector tile layers only depend on the graph, so these can be rendered when the
+graph is built, instead of for each request. The tiles are saved in the `vectorTiles.bin` file in
+the base directory, next to the graph, and served from it when the server is started with the same
+graph. The layers are rendered with the `vectorTileLayers` and the `routingDefaults.locale` in the
+router-config, requests for other languages or with changed layer parameters are rendered as usual.
+Each zoom level has four times as many tiles as the previous one, so this should not be set higher
+than needed. Zero disables pre-rendering. Requires the `SandboxAPIMapboxVectorTilesApi` feature.
+          """
+        )
+        .asInt(0);
 
     var localFileNamePatternsConfig = root
       .of("localFileNamePatterns")
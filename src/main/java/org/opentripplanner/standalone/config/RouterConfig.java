@@ -4,6 +4,7 @@ import static org.opentripplanner.framework.application.OtpFileNames.ROUTER_CONF
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.NA;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_0;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
@@ -42,12 +43,14 @@ public class RouterConfig implements Serializable {
   private final NodeAdapter root;
   private final String configVersion;
   private final String requestLogFile;
+  private final String permissionsFile;
   private final TransmodelAPIConfig transmodelApi;
   private final Duration streetRoutingTimeout;
   private final RouteRequest routingRequestDefaults;
   private final TransitRoutingConfig transitConfig;
   private final UpdatersParameters updatersParameters;
   private final VectorTileConfig vectorTileLayers;
+  private final int vectorTileCacheMaxSize;
   private final FlexConfig flexConfig;
 
   public RouterConfig(JsonNode node, String source, boolean logUnusedParams) {
@@ -97,6 +100,20 @@ number of transit vehicles used in that itinerary.
           """
         )
         .asString(null);
+    this.permissionsFile =
+      root
+        .of("permissionsFile")
+        .since(V2_3)
+        .summary("The path of the file used to save the custom street permissions.")
+        .description(
+          """
+The custom street permissions set using the permissions API are saved to this GZIP compressed JSON
+file each time they are changed, and loaded from it when the server starts. If the file is not set,
+the permissions must be posted again after a restart. Edges are identified by their vertex labels,
+changes to edges not found in the graph are skipped when the file is loaded.
+          """
+        )
+        .asString(null);
     this.transmodelApi =
       new TransmodelAPIConfig(
         root
@@ -111,6 +128,20 @@ number of transit vehicles used in that itinerary.
       RouteRequestConfig.mapDefaultRouteRequest(root, "routingDefaults");
     this.updatersParameters = new UpdatersConfig(root);
     this.vectorTileLayers = VectorTileConfig.mapVectorTilesParameters(root, "vectorTileLayers");
+    this.vectorTileCacheMaxSize =
+      root
+        .of("vectorTileCacheMaxSize")
+        .since(V2_3)
+        .summary("The maximum size in megabytes of the vector tile cache.")
+        .description(
+          """
+The vector tiles are cached GZIP compressed, and returned compressed to clients accepting it. Tiles
+with realtime data, like vehicle rental and parking, are rebuilt when the data is updated. The least
+recently used tiles are evicted when the cache is full. Zero disables the cache. The tiles always
+have an ETag, so clients can revalidate them also when the cache is disabled.
+          """
+        )
+        .asInt(0);
     this.flexConfig = new FlexConfig(root, "flex");
 
     if (logUnusedParams && LOG.isWarnEnabled()) {
@@ -139,6 +170,13 @@ number of transit vehicles used in that itinerary.
     return requestLogFile;
   }
 
+  /**
+   * The file to save the custom street permissions to, {@code null} if not saved.
+   */
+  public String permissionsFile() {
+    return permissionsFile;
+  }
+
   /**
    * The preferred way to limit the search is to limit the distance for each street mode(WALK, BIKE,
    * CAR). So the default timeout for a street search is set quite high. This is used to abort the
@@ -168,6 +206,13 @@ number of transit vehicles used in that itinerary.
     return vectorTileLayers;
   }
 
+  /**
+   * The maximum size in megabytes of the vector tile cache, zero if disabled.
+   */
+  public int vectorTileCacheMaxSize() {
+    return vectorTileCacheMaxSize;
+  }
+
   public FlexConfig flexConfig() {
     return flexConfig;
   }
@@ -3,7 +3,9 @@ package org.opentripplanner.standalone.config.configure;
 import dagger.Module;
 import dagger.Provides;
 import jakarta.inject.Singleton;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.ConfigModel;
@@ -37,4 +39,20 @@ public class ConfigModule {
   static RaptorConfig<TripSchedule> providesRaptorConfig(ConfigModel config) {
     return new RaptorConfig<>(config.routerConfig().transitTuningConfig());
   }
+
+  @Provides
+  @Singleton
+  static AccessEgressCache providesAccessEgressCache(ConfigModel config) {
+    var tuning = config.routerConfig().transitTuningConfig();
+    return new AccessEgressCache(
+      tuning.accessEgressCacheMaxSize(),
+      tuning.accessEgressCacheTimeToLive()
+    );
+  }
+
+  @Provides
+  @Singleton
+  static VectorTileCache providesVectorTileCache(ConfigModel config) {
+    return new VectorTileCache(config.routerConfig().vectorTileCacheMaxSize());
+  }
 }
@@ -1,6 +1,7 @@
 package org.opentripplanner.standalone.config.routerconfig;
 
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.NA;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import java.time.Duration;
 import java.util.List;
@@ -20,7 +21,11 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
   private final int scheduledTripBinarySearchThreshold;
   private final int iterationDepartureStepInSeconds;
   private final int searchThreadPoolSize;
+  private final int searchWindowPartitionMinutes;
   private final int transferCacheMaxSize;
+  private final int accessEgressCacheMaxSize;
+  private final Duration accessEgressCacheTimeToLive;
+  private final int tripPatternCacheMaxSize;
   private final List<Duration> pagingSearchWindowAdjustments;
 
   private final Map<StopTransferPriority, Integer> stopTransferCost;
@@ -100,6 +105,27 @@ no extra threads are started and the search is done in one thread.
 """
         )
         .asInt(dft.searchThreadPoolSize());
+    this.searchWindowPartitionMinutes =
+      c
+        .of("searchWindowPartitionMinutes")
+        .since(V2_3)
+        .summary(
+          "Split the search-window of a multi-criteria search in partitions and search them in parallel."
+        )
+        .description(
+          """
+The search-window is split into partitions of the given number of minutes, and each partition is
+searched in a separate thread using the `searchThreadPoolSize` thread pool. The results are merged
+at the end. This reduces the response time of searches with a long search-window, but increases the
+total amount of work done. Use it if you have idle cores and want to reduce the latency of single
+slow requests. If 0, the search-window is not split. Only forward searches are split.
+
+The result is close to, but not always the same as, searching the whole search-window in one
+thread. Pruning across the partition borders is only partly redone when the results are merged, so
+the result may contain a few extra paths, and in rare cases miss one.
+"""
+        )
+        .asInt(dft.searchWindowPartitionMinutes());
     // Dynamic Search Window
     this.stopTransferCost =
       c
@@ -139,6 +165,45 @@ Use values in a range from `0` to `100 000`. **All key/value pairs are required
           " If too low, requests may be slower. If too high, more memory may be used then required."
         )
         .asInt(25);
+    this.tripPatternCacheMaxSize =
+      c
+        .of("tripPatternCacheMaxSize")
+        .since(V2_3)
+        .summary(
+          "The maximum number of distinct search days and transit filters to cache trip patterns for."
+        )
+        .description(
+          """
+Filtering and merging the trip patterns for the search days is a large part of the setup of each
+transit search. Requests for the same days with equal transit filters share the result. Each entry
+holds the timetables for all search days, so the memory used is considerable. Set this to `0` to
+disable the cache.
+"""
+        )
+        .asInt(5);
+    this.accessEgressCacheMaxSize =
+      c
+        .of("accessEgressCacheMaxSize")
+        .since(V2_3)
+        .summary(
+          "The maximum number of origins and destinations to cache the access/egress stops for."
+        )
+        .description(
+          """
+Requests are often clustered around the same places, like major stations and airports. For these
+the access/egress street search can be skipped by caching the stops found. Searches with vehicle
+rental or parking are not reused after the rental or parking places are updated by a realtime
+updater. The flexible mode is not cached. The cache is cleared when street permissions are
+changed. Set this to `0` to disable the cache.
+"""
+        )
+        .asInt(0);
+    this.accessEgressCacheTimeToLive =
+      c
+        .of("accessEgressCacheTimeToLive")
+        .since(V2_3)
+        .summary("How long the access/egress stops are cached.")
+        .asDuration(Duration.ofMinutes(10));
 
     this.pagingSearchWindowAdjustments =
       c
@@ -182,6 +247,11 @@ for more info."
     return searchThreadPoolSize;
   }
 
+  @Override
+  public int searchWindowPartitionMinutes() {
+    return searchWindowPartitionMinutes;
+  }
+
   @Override
   public DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients() {
     return dynamicSearchWindowCoefficients;
@@ -202,6 +272,21 @@ for more info."
     return transferCacheMaxSize;
   }
 
+  @Override
+  public int tripPatternCacheMaxSize() {
+    return tripPatternCacheMaxSize;
+  }
+
+  @Override
+  public int accessEgressCacheMaxSize() {
+    return accessEgressCacheMaxSize;
+  }
+
+  @Override
+  public Duration accessEgressCacheTimeToLive() {
+    return accessEgressCacheTimeToLive;
+  }
+
   @Override
   public List<Duration> pagingSearchWindowAdjustments() {
     return pagingSearchWindowAdjustments;
@@ -41,7 +41,8 @@ public class MqttGtfsRealtimeUpdaterConfig {
   The updated times are exposed through APIs.
 """
         )
-        .asEnum(BackwardsDelayPropagationType.REQUIRED_NO_DATA)
+        .asEnum(BackwardsDelayPropagationType.REQUIRED_NO_DATA),
+      TripUpdateBatchConfig.create(c)
     );
   }
 }
@@ -0,0 +1,54 @@
+package org.opentripplanner.standalone.config.routerconfig.updaters;
+
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
+
+import org.opentripplanner.standalone.config.framework.json.NodeAdapter;
+import org.opentripplanner.updater.trip.TripUpdateBatchParameters;
+
+/**
+ * The batching parameters shared by the updaters streaming GTFS-RT trip updates.
+ */
+public class TripUpdateBatchConfig {
+
+  public static TripUpdateBatchParameters create(NodeAdapter c) {
+    var dflt = TripUpdateBatchParameters.DEFAULT;
+    return new TripUpdateBatchParameters(
+      c
+        .of("maxBatchSize")
+        .since(V2_3)
+        .summary("The maximum number of trip updates applied to the graph at once.")
+        .description(
+          """
+          The incoming messages are queued and applied to the graph in batches. A batch is applied
+          when this many trips have an update in the queue, or when the oldest update has waited
+          for `maxBatchDelay`. Only the latest update of a trip is kept in the queue.
+          """
+        )
+        .asInt(dflt.maxBatchSize()),
+      c
+        .of("maxBatchDelay")
+        .since(V2_3)
+        .summary("The maximum time an update waits in the queue before it is applied.")
+        .description(
+          """
+          Only one batch is applied at a time, while a batch is applied the incoming updates wait
+          in the queue even if the delay has passed. Set this to zero to apply the updates as soon
+          as the previous batch is done.
+          """
+        )
+        .asDuration(dflt.maxBatchDelay()),
+      c
+        .of("maxQueueSize")
+        .since(V2_3)
+        .summary("The maximum number of trips with an update in the queue.")
+        .description(
+          """
+          When the queue is full, the updates of trips which are not already in the queue are
+          dropped until the next batch is applied. The number of queued and dropped updates are
+          reported as metrics when the `ActuatorAPI` feature is enabled.
+          """
+        )
+        .asInt(dflt.maxQueueSize())
+    );
+  }
+}
@@ -18,7 +18,8 @@ public class WebsocketGtfsRealtimeUpdaterConfig {
         .of("backwardsDelayPropagationType")
         .since(V1_5)
         .summary("TODO")
-        .asEnum(BackwardsDelayPropagationType.REQUIRED_NO_DATA)
+        .asEnum(BackwardsDelayPropagationType.REQUIRED_NO_DATA),
+      TripUpdateBatchConfig.create(c)
     );
   }
 }
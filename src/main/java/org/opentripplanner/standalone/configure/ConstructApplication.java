@@ -1,6 +1,7 @@
 package org.opentripplanner.standalone.configure;
 
 import jakarta.ws.rs.core.Application;
+import java.io.File;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.geocoder.LuceneIndex;
@@ -8,6 +9,7 @@ import org.opentripplanner.ext.transmodelapi.TransmodelAPI;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.graph_builder.GraphBuilderDataSources;
+import org.opentripplanner.inspector.vector.VectorTilePyramid;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
@@ -28,6 +30,8 @@ import org.opentripplanner.standalone.server.OTPWebApplication;
 import org.opentripplanner.street.model.elevation.ElevationUtils;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
+import org.opentripplanner.updater.permissions.PermissionsFile;
+import org.opentripplanner.updater.permissions.PermissionsPushUpdater;
 import org.opentripplanner.visualizer.GraphVisualizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -106,6 +110,7 @@ public class ConstructApplication {
     LOG.info("Wiring up and configuring graph builder task.");
     return GraphBuilder.create(
       buildConfig(),
+      routerConfig(),
       graphBuilderDataSources,
       graph(),
       transitModel(),
@@ -148,6 +153,22 @@ public class ConstructApplication {
 
     initEllipsoidToGeoidDifference();
 
+    var permissionsFile = routerConfig().permissionsFile();
+    PermissionsPushUpdater.setUp(
+      graph(),
+      permissionsFile == null ? null : new PermissionsFile(new File(permissionsFile))
+    );
+
+    if (OTPFeature.SandboxAPIMapboxVectorTilesApi.isOn()) {
+      graph()
+        .setVectorTilePyramid(
+          VectorTilePyramid.open(
+            new File(cli.getBaseDirectory(), VectorTilePyramid.FILENAME),
+            graph().getVectorTilePyramidId()
+          )
+        );
+    }
+
     if (OTPFeature.SandboxAPITransmodelApi.isOn()) {
       TransmodelAPI.setUp(
         routerConfig().transmodelApi(),
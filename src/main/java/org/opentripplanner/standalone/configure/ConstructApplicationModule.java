@@ -5,7 +5,9 @@ import dagger.Provides;
 import io.micrometer.core.instrument.Metrics;
 import javax.annotation.Nullable;
 import org.opentripplanner.astar.spi.TraverseVisitor;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.service.vehiclepositions.VehiclePositionService;
@@ -23,6 +25,8 @@ public class ConstructApplicationModule {
   OtpServerRequestContext providesServerContext(
     RouterConfig routerConfig,
     RaptorConfig<TripSchedule> raptorConfig,
+    AccessEgressCache accessEgressCache,
+    VectorTileCache vectorTileCache,
     Graph graph,
     TransitService transitService,
     WorldEnvelopeService worldEnvelopeService,
@@ -34,10 +38,12 @@ public class ConstructApplicationModule {
       routerConfig.routingRequestDefaults(),
       routerConfig.streetRoutingTimeout(),
       raptorConfig,
+      accessEgressCache,
       graph,
       transitService,
       Metrics.globalRegistry,
       routerConfig.vectorTileLayers(),
+      vectorTileCache,
       worldEnvelopeService,
       vehiclePositionService,
       routerConfig.flexConfig(),
@@ -7,8 +7,10 @@ import javax.annotation.Nullable;
 import org.opentripplanner.astar.spi.TraverseVisitor;
 import org.opentripplanner.ext.vectortiles.VectorTilesResource;
 import org.opentripplanner.inspector.raster.TileRendererManager;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.routing.api.RoutingService;
@@ -22,6 +24,7 @@ import org.opentripplanner.standalone.api.OtpServerRequestContext;
 import org.opentripplanner.standalone.config.routerconfig.TransitRoutingConfig;
 import org.opentripplanner.standalone.config.sandbox.FlexConfig;
 import org.opentripplanner.standalone.configure.RequestLoggerFactory;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.transit.service.TransitService;
 import org.slf4j.Logger;
 
@@ -30,15 +33,23 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
 
   private RouteRequest routeRequest = null;
   private final Graph graph;
+
+  /**
+   * The version of the street permissions used for the whole request, read when the request
+   * starts. The request may search on several threads, all of these must use the same version.
+   */
+  private final StreetPermissionOverlay streetPermissionOverlay;
   private final TransitService transitService;
   private final TransitRoutingConfig transitRoutingConfig;
   private final Duration streetRoutingTimeout;
   private final RouteRequest routeRequestDefaults;
   private final MeterRegistry meterRegistry;
   private final RaptorConfig<TripSchedule> raptorConfig;
+  private final AccessEgressCache accessEgressCache;
   private final Logger requestLogger;
   private final TileRendererManager tileRendererManager;
   private final VectorTilesResource.LayersParameters<VectorTilesResource.LayerType> vectorTileLayers;
+  private final VectorTileCache vectorTileCache;
   private final FlexConfig flexConfig;
   private final TraverseVisitor traverseVisitor;
   private final WorldEnvelopeService worldEnvelopeService;
@@ -49,29 +60,35 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
    */
   private DefaultServerRequestContext(
     Graph graph,
+    StreetPermissionOverlay streetPermissionOverlay,
     TransitService transitService,
     TransitRoutingConfig transitRoutingConfig,
     Duration streetRoutingTimeout,
     RouteRequest routeRequestDefaults,
     MeterRegistry meterRegistry,
     RaptorConfig<TripSchedule> raptorConfig,
+    AccessEgressCache accessEgressCache,
     Logger requestLogger,
     TileRendererManager tileRendererManager,
     VectorTilesResource.LayersParameters<VectorTilesResource.LayerType> vectorTileLayers,
+    VectorTileCache vectorTileCache,
     WorldEnvelopeService worldEnvelopeService,
     VehiclePositionService vehiclePositionService,
     FlexConfig flexConfig,
     TraverseVisitor traverseVisitor
   ) {
     this.graph = graph;
+    this.streetPermissionOverlay = streetPermissionOverlay;
     this.transitService = transitService;
     this.transitRoutingConfig = transitRoutingConfig;
     this.streetRoutingTimeout = streetRoutingTimeout;
     this.meterRegistry = meterRegistry;
     this.raptorConfig = raptorConfig;
+    this.accessEgressCache = accessEgressCache;
     this.requestLogger = requestLogger;
     this.tileRendererManager = tileRendererManager;
     this.vectorTileLayers = vectorTileLayers;
+    this.vectorTileCache = vectorTileCache;
     this.flexConfig = flexConfig;
     this.traverseVisitor = traverseVisitor;
     this.routeRequestDefaults = routeRequestDefaults;
@@ -87,10 +104,12 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
     RouteRequest routeRequestDefaults,
     Duration streetRoutingTimeout,
     RaptorConfig<TripSchedule> raptorConfig,
+    AccessEgressCache accessEgressCache,
     Graph graph,
     TransitService transitService,
     MeterRegistry meterRegistry,
     VectorTilesResource.LayersParameters<VectorTilesResource.LayerType> vectorTileLayers,
+    VectorTileCache vectorTileCache,
     WorldEnvelopeService worldEnvelopeService,
     VehiclePositionService vehiclePositionService,
     FlexConfig flexConfig,
@@ -99,15 +118,18 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
   ) {
     return new DefaultServerRequestContext(
       graph,
+      graph.getStreetPermissionOverlay(),
       transitService,
       transitRoutingConfig,
       streetRoutingTimeout,
       routeRequestDefaults,
       meterRegistry,
       raptorConfig,
+      accessEgressCache,
       RequestLoggerFactory.createLogger(requestLogFile),
       new TileRendererManager(graph, routeRequestDefaults.preferences()),
       vectorTileLayers,
+      vectorTileCache,
       worldEnvelopeService,
       vehiclePositionService,
       flexConfig,
@@ -137,11 +159,21 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
     return raptorConfig;
   }
 
+  @Override
+  public AccessEgressCache accessEgressCache() {
+    return accessEgressCache;
+  }
+
   @Override
   public Graph graph() {
     return graph;
   }
 
+  @Override
+  public StreetPermissionOverlay streetPermissionOverlay() {
+    return streetPermissionOverlay;
+  }
+
   @Override
   public TransitService transitService() {
     return transitService;
@@ -206,4 +238,9 @@ public class DefaultServerRequestContext implements OtpServerRequestContext {
   public VectorTilesResource.LayersParameters<VectorTilesResource.LayerType> vectorTileLayers() {
     return vectorTileLayers;
   }
+
+  @Override
+  public VectorTileCache vectorTileCache() {
+    return vectorTileCache;
+  }
 }
@@ -75,6 +75,14 @@ public class ElevatorHopEdge extends Edge implements ElevatorEdge, WheelchairTra
     return permission;
   }
 
+  public double getLevels() {
+    return levels;
+  }
+
+  public int getTravelTime() {
+    return travelTime;
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder.of(this.getClass()).addObj("from", fromv).addObj("to", tov).toString();
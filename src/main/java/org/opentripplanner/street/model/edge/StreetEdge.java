@@ -227,6 +227,14 @@ public class StreetEdge
     return getPermission().allows(modes);
   }
 
+  /**
+   * Same as {@link #canTraverse(TraverseModeSet)}, using the permission of this edge in the given
+   * version of the custom street permissions.
+   */
+  public boolean canTraverse(StreetPermissionOverlay overlay, TraverseModeSet modes) {
+    return getPermission(overlay).allows(modes);
+  }
+
   /**
    * This checks if start or end vertex is bollard If it is it creates intersection of street edge
    * permissions and from/to barriers. Then it checks if mode is allowed to traverse the edge.
@@ -239,7 +247,18 @@ public class StreetEdge
    * It is used in {@link #canTraverse(TraverseMode)}
    */
   public boolean canTraverse(TraverseMode mode) {
-    StreetTraversalPermission permission = getPermission();
+    return canTraverse(getPermission(), mode);
+  }
+
+  /**
+   * Same as {@link #canTraverse(TraverseMode)}, using the permission of this edge in the given
+   * version of the custom street permissions.
+   */
+  public boolean canTraverse(StreetPermissionOverlay overlay, TraverseMode mode) {
+    return canTraverse(getPermission(overlay), mode);
+  }
+
+  private boolean canTraverse(StreetTraversalPermission permission, TraverseMode mode) {
     if (fromv instanceof BarrierVertex) {
       permission = permission.intersection(((BarrierVertex) fromv).getBarrierPermissions());
     }
@@ -390,6 +409,9 @@ public class StreetEdge
   @Override
   public State traverse(State s0) {
     final StateEditor editor;
+    final StreetTraversalPermission permission = getPermission(
+      s0.getRequest().permissionOverlay()
+    );
 
     // if the traversal is banned for the current state because of a GBFS geofencing zone
     // we drop the vehicle and continue walking
@@ -401,14 +423,14 @@ public class StreetEdge
     }
     // If we are biking, or walking with a bike check if we may continue by biking or by walking
     else if (s0.getNonTransitMode() == TraverseMode.BICYCLE) {
-      if (canTraverse(TraverseMode.BICYCLE)) {
+      if (canTraverse(permission, TraverseMode.BICYCLE)) {
         editor = doTraverse(s0, TraverseMode.BICYCLE, false);
-      } else if (canTraverse(TraverseMode.WALK)) {
+      } else if (canTraverse(permission, TraverseMode.WALK)) {
         editor = doTraverse(s0, TraverseMode.WALK, true);
       } else {
         return null;
       }
-    } else if (canTraverse(s0.getNonTransitMode())) {
+    } else if (canTraverse(permission, s0.getNonTransitMode())) {
       editor = doTraverse(s0, s0.getNonTransitMode(), false);
     } else {
       editor = null;
@@ -429,7 +451,7 @@ public class StreetEdge
       }
     }
 
-    if (canPickupAndDrive(s0) && canTraverse(TraverseMode.CAR)) {
+    if (canPickupAndDrive(s0) && canTraverse(permission, TraverseMode.CAR)) {
       StateEditor inCar = doTraverse(s0, TraverseMode.CAR, false);
       if (inCar != null) {
         driveAfterPickup(s0, inCar);
@@ -444,8 +466,8 @@ public class StreetEdge
 
     if (
       canDropOffAfterDriving(s0) &&
-      !getPermission().allows(TraverseMode.CAR) &&
-      canTraverse(TraverseMode.WALK)
+      !permission.allows(TraverseMode.CAR) &&
+      canTraverse(permission, TraverseMode.WALK)
     ) {
       StateEditor dropOff = doTraverse(s0, TraverseMode.WALK, false);
       if (dropOff != null) {
@@ -580,6 +602,14 @@ public class StreetEdge
     return permission;
   }
 
+  /**
+   * The permission of this edge in the given version of the custom street permissions. Use this
+   * when routing, {@link #getPermission()} does not include the custom permissions.
+   */
+  public StreetTraversalPermission getPermission(StreetPermissionOverlay overlay) {
+    return overlay.permission(this);
+  }
+
   public void setPermission(StreetTraversalPermission permission) {
     this.permission = permission;
   }
@@ -588,10 +618,6 @@ public class StreetEdge
     return originalPermission;
   }
 
-  public void resetPermission() {
-    this.permission = this.originalPermission;
-  }
-
   /**
    * Marks that this edge is the reverse of the one defined in the source data. Does NOT mean
    * fromv/tov are reversed.
@@ -0,0 +1,122 @@
+package org.opentripplanner.street.model.edge;
+
+import java.util.Map;
+import org.opentripplanner.framework.collection.PersistentMap;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+
+/**
+ * A version of the custom street permissions, replacing the permission of some street edges. The
+ * overlay is immutable; a change creates a new version sharing most of its data with the previous
+ * one. The current version is published on the graph, and each request captures it when it starts,
+ * so a request never sees a half-applied set of changes. Rolling back all changes is done by
+ * publishing {@link #EMPTY}.
+ * <p>
+ * THIS CLASS IS IMMUTABLE AND THREAD-SAFE
+ */
+public final class StreetPermissionOverlay {
+
+  public static final StreetPermissionOverlay EMPTY = new StreetPermissionOverlay(
+    PersistentMap.empty(),
+    0
+  );
+
+  private final PersistentMap<StreetEdge, StreetTraversalPermission> permissions;
+  private final long version;
+
+  private StreetPermissionOverlay(
+    PersistentMap<StreetEdge, StreetTraversalPermission> permissions,
+    long version
+  ) {
+    this.permissions = permissions;
+    this.version = version;
+  }
+
+  /**
+   * Return the permission of the given edge in this version. The edges created when linking the
+   * origin and destination of a request get the permission of the edge they are split from.
+   */
+  public StreetTraversalPermission permission(StreetEdge edge) {
+    if (permissions.isEmpty()) {
+      return edge.getPermission();
+    }
+    var permission = permissions.get(
+      edge instanceof TemporaryPartialStreetEdge partial ? partial.getParentEdge() : edge
+    );
+    return permission == null ? edge.getPermission() : permission;
+  }
+
+  /**
+   * Start a new version based on this one.
+   */
+  public Builder copyOf() {
+    return new Builder(this);
+  }
+
+  /**
+   * An empty overlay, with a version number after this one. Use this to roll back all changes.
+   */
+  public StreetPermissionOverlay cleared() {
+    return copyOf().clear().build();
+  }
+
+  /**
+   * The edges with a permission different from the edge permission, and the permission in this
+   * version.
+   */
+  public Map<StreetEdge, StreetTraversalPermission> changedEdges() {
+    return permissions;
+  }
+
+  public boolean isEmpty() {
+    return permissions.isEmpty();
+  }
+
+  /**
+   * The version is increased every time a new overlay is built, it can be used to identify this
+   * version in caches.
+   */
+  public long version() {
+    return version;
+  }
+
+  @Override
+  public String toString() {
+    return "StreetPermissionOverlay{version: " + version + ", size: " + permissions.size() + "}";
+  }
+
+  public static class Builder {
+
+    private final StreetPermissionOverlay original;
+    private PersistentMap<StreetEdge, StreetTraversalPermission> permissions;
+
+    private Builder(StreetPermissionOverlay original) {
+      this.original = original;
+      this.permissions = original.permissions;
+    }
+
+    public StreetTraversalPermission permission(StreetEdge edge) {
+      var permission = permissions.get(edge);
+      return permission == null ? edge.getPermission() : permission;
+    }
+
+    public Builder withPermission(StreetEdge edge, StreetTraversalPermission permission) {
+      this.permissions =
+        permission == edge.getPermission()
+          ? permissions.minus(edge)
+          : permissions.plus(edge, permission);
+      return this;
+    }
+
+    /**
+     * Remove all custom permissions, use this to replace all permissions in the new version.
+     */
+    public Builder clear() {
+      this.permissions = PersistentMap.empty();
+      return this;
+    }
+
+    public StreetPermissionOverlay build() {
+      return new StreetPermissionOverlay(permissions, original.version + 1);
+    }
+  }
+}
@@ -10,6 +10,7 @@ import org.opentripplanner.framework.i18n.LocalizedString;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.transit.model.site.AreaStop;
 
@@ -58,23 +59,27 @@ public abstract class StreetVertex extends Vertex {
     }
   }
 
-  public boolean isConnectedToWalkingEdge() {
+  public boolean isConnectedToWalkingEdge(StreetPermissionOverlay permissionOverlay) {
     return this.getOutgoing()
       .stream()
       .anyMatch(edge ->
-        edge instanceof StreetEdge && ((StreetEdge) edge).getPermission().allows(TraverseMode.WALK)
+        edge instanceof StreetEdge streetEdge &&
+        streetEdge.getPermission(permissionOverlay).allows(TraverseMode.WALK)
       );
   }
 
-  public boolean isConnectedToDriveableEdge() {
+  public boolean isConnectedToDriveableEdge(StreetPermissionOverlay permissionOverlay) {
     return this.getOutgoing()
       .stream()
       .anyMatch(edge ->
-        edge instanceof StreetEdge && ((StreetEdge) edge).getPermission().allows(TraverseMode.CAR)
+        edge instanceof StreetEdge streetEdge &&
+        streetEdge.getPermission(permissionOverlay).allows(TraverseMode.CAR)
       );
   }
 
-  public boolean isEligibleForCarPickupDropoff() {
-    return isConnectedToDriveableEdge() && isConnectedToWalkingEdge();
+  public boolean isEligibleForCarPickupDropoff(StreetPermissionOverlay permissionOverlay) {
+    return (
+      isConnectedToDriveableEdge(permissionOverlay) && isConnectedToWalkingEdge(permissionOverlay)
+    );
   }
 }
@@ -10,6 +10,7 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.preference.StreetPreferences;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.intersection_model.IntersectionTraversalCalculator;
 import org.opentripplanner.street.search.request.StreetSearchRequest;
@@ -24,6 +25,7 @@ public class StreetSearchBuilder extends AStarBuilder<State, Edge, Vertex, Stree
   private StreetRequest streetRequest = new StreetRequest();
   private IntersectionTraversalCalculator intersectionTraversalCalculator;
   private DataOverlayContext dataOverlayContext;
+  private StreetPermissionOverlay permissionOverlay = StreetPermissionOverlay.EMPTY;
 
   public static StreetSearchBuilder of() {
     return new StreetSearchBuilder();
@@ -63,6 +65,24 @@ public class StreetSearchBuilder extends AStarBuilder<State, Edge, Vertex, Stree
     return this;
   }
 
+  /**
+   * The version of the custom street permissions to use, the default is no custom permissions.
+   */
+  public StreetSearchBuilder setPermissionOverlay(StreetPermissionOverlay permissionOverlay) {
+    this.permissionOverlay = permissionOverlay;
+    return this;
+  }
+
+  /**
+   * Create the initial states of a search from the given vertices, prepared like the states of a
+   * search, without searching. This is used to traverse known paths again.
+   */
+  public Collection<State> getInitialStates(Set<Vertex> originVertices) {
+    var initialStates = createInitialStates(originVertices);
+    prepareInitialStates(initialStates);
+    return initialStates;
+  }
+
   @Override
   protected Collection<State> createInitialStates(Set<Vertex> originVertices) {
     StreetSearchRequest streetSearchRequest = StreetSearchRequestMapper
@@ -88,6 +108,7 @@ public class StreetSearchBuilder extends AStarBuilder<State, Edge, Vertex, Stree
     for (var state : initialStates) {
       state.getRequest().setIntersectionTraversalCalculator(intersectionTraversalCalculator);
       state.getRequest().setDataOverlayContext(dataOverlayContext);
+      state.getRequest().setPermissionOverlay(permissionOverlay);
     }
   }
 
@@ -20,6 +20,7 @@ import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.index.StreetIndex;
 import org.opentripplanner.routing.linking.DisposableEdgeCollection;
 import org.opentripplanner.routing.linking.SameEdgeAdjuster;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 
@@ -42,14 +43,30 @@ public class TemporaryVerticesContainer implements AutoCloseable {
     RouteRequest opt,
     StreetMode accessMode,
     StreetMode egressMode
+  ) {
+    this(graph, opt, accessMode, egressMode, graph.getStreetPermissionOverlay());
+  }
+
+  /**
+   * @param permissionOverlay the custom street permissions used by the search, the origin and
+   *                          destination are only linked to edges it allows for the modes.
+   */
+  public TemporaryVerticesContainer(
+    Graph graph,
+    RouteRequest opt,
+    StreetMode accessMode,
+    StreetMode egressMode,
+    StreetPermissionOverlay permissionOverlay
   ) {
     this.tempEdges = new HashSet<>();
 
     this.graph = graph;
     StreetIndex index = this.graph.getStreetIndex();
     this.opt = opt;
-    fromVertices = index.getVerticesForLocation(opt.from(), accessMode, false, tempEdges);
-    toVertices = index.getVerticesForLocation(opt.to(), egressMode, true, tempEdges);
+    fromVertices =
+      index.getVerticesForLocation(opt.from(), accessMode, false, permissionOverlay, tempEdges);
+    toVertices =
+      index.getVerticesForLocation(opt.to(), egressMode, true, permissionOverlay, tempEdges);
 
     checkIfVerticesFound(opt.arriveBy());
 
@@ -14,6 +14,7 @@ import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
 import org.opentripplanner.routing.api.request.request.VehicleParkingRequest;
 import org.opentripplanner.routing.api.request.request.VehicleRentalRequest;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.intersection_model.IntersectionTraversalCalculator;
 import org.opentripplanner.street.search.state.State;
@@ -53,6 +54,8 @@ public class StreetSearchRequest implements AStarRequest {
 
   private DataOverlayContext dataOverlayContext;
 
+  private StreetPermissionOverlay permissionOverlay = StreetPermissionOverlay.EMPTY;
+
   /**
    * Constructor only used for creating a default instance.
    */
@@ -143,6 +146,13 @@ public class StreetSearchRequest implements AStarRequest {
     return dataOverlayContext;
   }
 
+  /**
+   * The version of the custom street permissions captured by the request.
+   */
+  public StreetPermissionOverlay permissionOverlay() {
+    return permissionOverlay;
+  }
+
   public StreetSearchRequestBuilder copyOfReversed(Instant time) {
     return copyOf(this).withStartTime(time).withArriveBy(!arriveBy);
   }
@@ -157,6 +167,10 @@ public class StreetSearchRequest implements AStarRequest {
     this.dataOverlayContext = dataOverlayContext;
   }
 
+  public void setPermissionOverlay(StreetPermissionOverlay permissionOverlay) {
+    this.permissionOverlay = permissionOverlay;
+  }
+
   /**
    * Returns if the vertex is considered "close" to the start or end point of the request. This is
    * useful if you want to allow loops in car routes under certain conditions.
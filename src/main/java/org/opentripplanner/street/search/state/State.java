@@ -421,6 +421,7 @@ public class State implements AStarState<State, Edge, Vertex>, Cloneable {
       .copyOfReversed(getTime())
       .withPreferences(p -> p.withRental(r -> r.withUseAvailabilityInformation(false)))
       .build();
+    reversedRequest.setPermissionOverlay(request.permissionOverlay());
     StateData newStateData = stateData.clone();
     newStateData.backMode = null;
     return new State(this.vertex, getTime(), newStateData, reversedRequest);
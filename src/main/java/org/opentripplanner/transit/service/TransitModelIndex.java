@@ -24,9 +24,11 @@ import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.organization.Agency;
 import org.opentripplanner.transit.model.organization.Operator;
 import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripOnServiceDate;
+import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +51,7 @@ public class TransitModelIndex {
   private final Map<Trip, TripPattern> patternForTrip = new HashMap<>();
   private final Multimap<Route, TripPattern> patternsForRoute = ArrayListMultimap.create();
   private final Multimap<StopLocation, TripPattern> patternsForStopId = ArrayListMultimap.create();
+  private final Multimap<TripStart, TripTimes> scheduledTripTimesForStart = ArrayListMultimap.create();
 
   private final Map<LocalDate, TIntSet> serviceCodesRunningForDate = new HashMap<>();
   private final Map<FeedScopedId, TripOnServiceDate> tripOnServiceDateById = new HashMap<>();
@@ -81,6 +84,16 @@ public class TransitModelIndex {
       for (StopLocation stop : pattern.getStops()) {
         patternsForStopId.put(stop, pattern);
       }
+      for (TripTimes tripTimes : pattern.getScheduledTimetable().getTripTimes()) {
+        scheduledTripTimesForStart.put(
+          new TripStart(
+            pattern.getRoute(),
+            pattern.getDirection(),
+            tripTimes.getScheduledDepartureTime(0)
+          ),
+          tripTimes
+        );
+      }
     }
     for (Route route : patternsForRoute.asMap().keySet()) {
       routeForId.put(route.getId(), route);
@@ -207,6 +220,19 @@ public class TransitModelIndex {
     return patternsForRoute;
   }
 
+  /**
+   * Return the scheduled trip times of the trips on the route and direction which depart from the
+   * first stop at the given time, in the order of the patterns of the route. This is used to match
+   * trips which are referenced without a trip id, see {@code GtfsRealtimeFuzzyTripMatcher}.
+   */
+  public Collection<TripTimes> getScheduledTripTimesForStart(
+    Route route,
+    Direction direction,
+    int startTime
+  ) {
+    return scheduledTripTimesForStart.get(new TripStart(route, direction, startTime));
+  }
+
   public Map<LocalDate, TIntSet> getServiceCodesRunningForDate() {
     return serviceCodesRunningForDate;
   }
@@ -259,4 +285,7 @@ public class TransitModelIndex {
   public Map<FeedScopedId, GroupOfRoutes> getGroupOfRoutesForId() {
     return groupOfRoutesForId;
   }
+
+  /** The route, direction and scheduled departure time from the first stop of a trip. */
+  private record TripStart(Route route, Direction direction, int startTime) {}
 }
@@ -10,7 +10,6 @@ import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.gtfs.mapping.DirectionMapper;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.network.Route;
-import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -22,6 +21,8 @@ import org.opentripplanner.transit.service.TransitService;
  * <p>
  * The class should only be used if we know that the feed producer is unable to produce trip_ids in
  * the GTFS-RT feed.
+ * <p>
+ * Only scheduled trips are matched, trips added by real-time updates always have a trip_id.
  */
 public class GtfsRealtimeFuzzyTripMatcher {
 
@@ -78,22 +79,20 @@ public class GtfsRealtimeFuzzyTripMatcher {
     return trip.toBuilder().setTripId(matchedTrip.getId().getId()).build();
   }
 
-  public synchronized Trip getTrip(
-    Route route,
-    Direction direction,
-    int startTime,
-    LocalDate date
-  ) {
+  /**
+   * Return the first scheduled trip on the route and direction which departs from the first stop
+   * at the given time on the service date. The trips are looked up in an index of the scheduled
+   * data, so this is safe to call concurrently.
+   */
+  public Trip getTrip(Route route, Direction direction, int startTime, LocalDate date) {
     TIntSet servicesRunningForDate = transitService.getServiceCodesRunningForDate(date);
-    for (TripPattern pattern : transitService.getPatternsForRoute(route)) {
-      if (pattern.getDirection() != direction) continue;
-      for (TripTimes times : pattern.getScheduledTimetable().getTripTimes()) {
-        if (
-          times.getScheduledDepartureTime(0) == startTime &&
-          servicesRunningForDate.contains(times.getServiceCode())
-        ) {
-          return times.getTrip();
-        }
+    for (TripTimes times : transitService.getScheduledTripTimesForStart(
+      route,
+      direction,
+      startTime
+    )) {
+      if (servicesRunningForDate.contains(times.getServiceCode())) {
+        return times.getTrip();
       }
     }
     return null;
@@ -0,0 +1,32 @@
+package org.opentripplanner.updater.permissions;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+
+/**
+ * A change of the permission for all street edges inside an area.
+ *
+ * @param area               A polygon or multi-polygon, only edges completely inside the area are
+ *                           changed.
+ * @param originalPermission If set, only change edges where the original permission allows this.
+ */
+public record PermissionChange(
+  Geometry area,
+  Method method,
+  StreetTraversalPermission permission,
+  @Nullable StreetTraversalPermission originalPermission
+) {
+  public PermissionChange {
+    Objects.requireNonNull(area);
+    Objects.requireNonNull(method);
+    Objects.requireNonNull(permission);
+  }
+
+  public enum Method {
+    SET,
+    ADD,
+    REMOVE,
+  }
+}
@@ -0,0 +1,268 @@
+package org.opentripplanner.updater.permissions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Save the custom street permissions to a GZIP compressed JSON file, and load them when the server
+ * starts, so the permissions do not need to be posted again after a restart.
+ * <p>
+ * The file contains the permission of each changed edge, not the changes posted. An edge is
+ * identified by the label of its from and to vertices, and by its name and length to tell parallel
+ * edges between the same vertices apart:
+ * <pre>
+ * { "edges": [
+ *   {
+ *     "from": "osm:node:1", "to": "osm:node:2", "name": "Main Street", "length": 52.7,
+ *     "permission": "PEDESTRIAN"
+ *   }
+ * ] }
+ * </pre>
+ * Parallel edges with the same name and length can not be told apart, the permission is then
+ * applied to all of them. Edges which do not exist in the graph are skipped when loading the file,
+ * this happens if a new graph is built.
+ * <p>
+ * The published versions are saved in the background by {@link #saveLater}, on a single thread.
+ * If several versions are published while the file is written, only the latest is saved. Call
+ * {@link #close()} to save the latest version before the server stops.
+ */
+public class PermissionsFile implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PermissionsFile.class);
+
+  private static final String EDGES = "edges";
+  private static final String FROM = "from";
+  private static final String TO = "to";
+  private static final String NAME = "name";
+  private static final String LENGTH = "length";
+  private static final String PERMISSION = "permission";
+
+  /** The tolerance used when comparing the length of edges, in meters. */
+  private static final double LENGTH_EPSILON = 0.01;
+
+  /** The time to wait for the latest version to be saved when the file is closed. */
+  private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final File file;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder().setNameFormat("PermissionsFileWriter").setDaemon(true).build()
+  );
+
+  /** The latest version not saved yet, {@code null} if a save of it is not pending. */
+  private final AtomicReference<StreetPermissionOverlay> pending = new AtomicReference<>();
+
+  public PermissionsFile(File file) {
+    this.file = file;
+  }
+
+  public File file() {
+    return file;
+  }
+
+  /**
+   * Create a new version of the given overlay with the permissions in the file. An empty version
+   * is returned if the file does not exist.
+   */
+  public StreetPermissionOverlay load(Graph graph, StreetPermissionOverlay overlay)
+    throws IOException {
+    var builder = overlay.copyOf().clear();
+    if (!file.exists()) {
+      LOG.info("Permissions file {} not found, no custom permissions loaded.", file);
+      return builder.build();
+    }
+    int numOfEdges = 0;
+    int numOfMissingEdges = 0;
+    try (
+      InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+      JsonParser parser = jsonFactory.createParser(in)
+    ) {
+      expect(parser.nextToken(), JsonToken.START_OBJECT);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (!EDGES.equals(field)) {
+          parser.skipChildren();
+          continue;
+        }
+        expect(token, JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          String from = null;
+          String to = null;
+          String edgeName = null;
+          Double length = null;
+          String permission = null;
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+              case FROM -> from = parser.getText();
+              case TO -> to = parser.getText();
+              case NAME -> edgeName = parser.getText();
+              case LENGTH -> length = parser.getDoubleValue();
+              case PERMISSION -> permission = parser.getText();
+              default -> parser.skipChildren();
+            }
+          }
+          var edgePermission = StreetTraversalPermission.valueOf(permission);
+          int found = 0;
+          for (StreetEdge edge : findEdges(graph, from, to, edgeName, length)) {
+            builder.withPermission(edge, edgePermission);
+            ++found;
+          }
+          if (found == 0) {
+            ++numOfMissingEdges;
+          }
+          numOfEdges += found;
+        }
+      }
+    }
+    if (numOfMissingEdges > 0) {
+      LOG.warn("{} edges in permissions file {} not found in the graph.", numOfMissingEdges, file);
+    }
+    LOG.info("Loaded custom permissions for {} edges from {}.", numOfEdges, file);
+    return builder.build();
+  }
+
+  /**
+   * Save the permissions in the given overlay. The file is written to a temporary file first, and
+   * then moved, so the previous file is kept if the server is stopped while writing.
+   */
+  public void save(StreetPermissionOverlay overlay) throws IOException {
+    File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    try (
+      OutputStream out = new GZIPOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tmp))
+      );
+      JsonGenerator gen = jsonFactory.createGenerator(out)
+    ) {
+      gen.writeStartObject();
+      gen.writeArrayFieldStart(EDGES);
+      for (Map.Entry<StreetEdge, StreetTraversalPermission> e : overlay
+        .changedEdges()
+        .entrySet()) {
+        gen.writeStartObject();
+        gen.writeStringField(FROM, e.getKey().getFromVertex().getLabel());
+        gen.writeStringField(TO, e.getKey().getToVertex().getLabel());
+        gen.writeStringField(NAME, e.getKey().getDefaultName());
+        gen.writeNumberField(LENGTH, e.getKey().getDistanceMeters());
+        gen.writeStringField(PERMISSION, e.getValue().name());
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+      gen.writeEndObject();
+    }
+    Files.move(
+      tmp.toPath(),
+      file.toPath(),
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE
+    );
+    LOG.debug("Saved custom permissions for {} edges to {}.", overlay.changedEdges().size(), file);
+  }
+
+  /**
+   * Save the given version in the background. If a save is already pending, the pending version is
+   * replaced, so only the latest version is written. The version is not saved if the file is
+   * closed.
+   */
+  public void saveLater(StreetPermissionOverlay overlay) {
+    if (pending.getAndSet(overlay) == null) {
+      try {
+        writer.execute(this::savePending);
+      } catch (RejectedExecutionException e) {
+        pending.set(null);
+        LOG.warn("Permissions file {} is closed, the custom permissions are not saved.", file);
+      }
+    }
+  }
+
+  /**
+   * Wait for the pending version to be saved, and stop the background writer.
+   */
+  @Override
+  public void close() {
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOG.warn("Timeout waiting for permissions file {} to be saved.", file);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void savePending() {
+    var overlay = pending.getAndSet(null);
+    if (overlay == null) {
+      return;
+    }
+    try {
+      save(overlay);
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Unable to save permissions file {}: {}", file, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Find the edges between the given vertices. The name and length are missing in files saved
+   * before they were added, then all edges between the vertices are returned.
+   */
+  private static Iterable<StreetEdge> findEdges(
+    Graph graph,
+    String from,
+    String to,
+    String name,
+    Double length
+  ) {
+    Vertex fromVertex = from == null ? null : graph.getVertex(from);
+    if (fromVertex == null) {
+      return List.of();
+    }
+    return fromVertex
+      .getOutgoingStreetEdges()
+      .stream()
+      .filter(e -> e.getToVertex().getLabel().equals(to))
+      .filter(e -> name == null || name.equals(e.getDefaultName()))
+      .filter(e -> length == null || Math.abs(e.getDistanceMeters() - length) < LENGTH_EPSILON)
+      .toList();
+  }
+
+  private void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException(
+        "Unexpected JSON in permissions file " + file + ": " + actual + ", expected " + expected
+      );
+    }
+  }
+}
@@ -1,110 +1,277 @@
 package org.opentripplanner.updater.permissions;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.List;
-import org.locationtech.jts.geom.Polygon;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model.StreetTraversalPermission;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.updater.permissions.PermissionChange.Method;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Change the permission of all street edges inside the given areas. The changes are applied as a
+ * batch: the edges inside each area are found in parallel, using the street spatial index and a
+ * prepared geometry for the containment test. Then the changes are applied one by one, in the
+ * given order, since changes with overlapping areas depend on each other.
+ * <p>
+ * The street edges are not changed, instead a new version of the {@link StreetPermissionOverlay}
+ * is published on the graph when all changes are applied. Requests already running continue to use
+ * the version they started with. Large updates can be applied in several batches using a
+ * {@link Transaction}, the version is published when the transaction is committed.
+ * <p>
+ * If a {@link PermissionsFile} is set up on the graph, each published version is saved in the
+ * background, and loaded again when the server starts.
+ */
 public class PermissionsPushUpdater {
 
   private static final Logger LOG = LoggerFactory.getLogger(PermissionsPushUpdater.class);
-  private static List<StreetEdge> touchedEdges = new ArrayList<>();
+
   private final Graph graph;
 
   public PermissionsPushUpdater(Graph graph) {
     this.graph = graph;
   }
 
-  public static List<StreetEdge> getTouchedEdges() {
-    return touchedEdges;
+  /**
+   * Load the permissions of the graph from the given file, and save all later changes to it. This
+   * should be called once, when the server starts.
+   */
+  public static void setUp(Graph graph, @Nullable PermissionsFile file) {
+    synchronized (PermissionsPushUpdater.class) {
+      graph.setPermissionsFile(file);
+      if (file == null) {
+        return;
+      }
+      try {
+        graph.setStreetPermissionOverlay(file.load(graph, graph.getStreetPermissionOverlay()));
+      } catch (IOException | RuntimeException e) {
+        LOG.error("Unable to load permissions file {}: {}", file.file(), e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Save the latest version of the permissions of the graph, if a file is set up. This should be
+   * called when the server stops.
+   */
+  public static void tearDown(Graph graph) {
+    var file = graph.getPermissionsFile();
+    if (file != null) {
+      file.close();
+    }
   }
 
-  public static void resetAllPermissions() {
-    // reset all previously modified edges
-    for (StreetEdge edge : touchedEdges) {
-      edge.resetPermission();
+  /**
+   * The edges with a custom permission, and the permission, in the current version.
+   */
+  public Map<StreetEdge, StreetTraversalPermission> getChangedEdges() {
+    return graph.getStreetPermissionOverlay().changedEdges();
+  }
+
+  /**
+   * Remove all custom permissions.
+   */
+  public void resetAllPermissions() {
+    synchronized (PermissionsPushUpdater.class) {
+      publish(graph.getStreetPermissionOverlay().cleared());
     }
-    touchedEdges.removeAll(touchedEdges);
   }
 
-  private enum METHOD {
-    SET,
-    ADD,
-    REMOVE,
+  /**
+   * Start a transaction, the changes applied to it are published when the transaction is
+   * committed.
+   *
+   * @param replaceAll if {@code true} all existing custom permissions are removed, and replaced by
+   *                   the changes in the transaction.
+   */
+  public Transaction newTransaction(boolean replaceAll) {
+    return new Transaction(graph.getStreetPermissionOverlay(), replaceAll);
   }
 
   public int setPermissions(
-    Polygon polygon,
+    Geometry area,
     StreetTraversalPermission permission,
     StreetTraversalPermission originalPermission
   ) {
-    LOG.info("run permission push updater and set permission to all edges in polygon.");
-    return modifyPermissions(polygon, permission, originalPermission, METHOD.SET);
+    return applyChange(new PermissionChange(area, Method.SET, permission, originalPermission));
   }
 
   public int removePermissions(
-    Polygon polygon,
+    Geometry area,
     StreetTraversalPermission permission,
     StreetTraversalPermission originalPermission
   ) {
-    LOG.info("run permission push updater and remove permission from all edges in polygon.");
-    return modifyPermissions(polygon, permission, originalPermission, METHOD.REMOVE);
+    return applyChange(new PermissionChange(area, Method.REMOVE, permission, originalPermission));
   }
 
   public int addPermissions(
-    Polygon polygon,
+    Geometry area,
     StreetTraversalPermission permission,
     StreetTraversalPermission originalPermission
   ) {
-    LOG.info("run permission push updater and add permission to all edges in polygon.");
-    return modifyPermissions(polygon, permission, originalPermission, METHOD.ADD);
+    return applyChange(new PermissionChange(area, Method.ADD, permission, originalPermission));
   }
 
-  private int modifyPermissions(
-    Polygon polygon,
-    StreetTraversalPermission permission,
-    StreetTraversalPermission originalPermission,
-    METHOD method
+  /**
+   * Apply all changes in the given order.
+   *
+   * @return the number of updated edges for each change.
+   */
+  public int[] applyChanges(List<PermissionChange> changes) {
+    // Hold the lock, so the transaction is not changed by other threads before it is committed
+    synchronized (PermissionsPushUpdater.class) {
+      var transaction = newTransaction(false);
+      int[] numOfUpdates = transaction.apply(changes);
+      transaction.commit();
+      return numOfUpdates;
+    }
+  }
+
+  private int applyChange(PermissionChange change) {
+    return applyChanges(List.of(change))[0];
+  }
+
+  /**
+   * Publish a new version, the caller must hold the class lock. The file is written in the
+   * background, so the lock is not held while it is written.
+   */
+  private void publish(StreetPermissionOverlay overlay) {
+    graph.setStreetPermissionOverlay(overlay);
+    var file = graph.getPermissionsFile();
+    if (file != null) {
+      file.saveLater(overlay);
+    }
+  }
+
+  private List<StreetEdge> findEdgesInside(Geometry area) {
+    PreparedGeometry preparedArea = PreparedGeometryFactory.prepare(area);
+    Envelope envelope = area.getEnvelopeInternal();
+    return candidateEdges(envelope)
+      .stream()
+      .filter(StreetEdge.class::isInstance)
+      .map(StreetEdge.class::cast)
+      .filter(e -> envelope.contains(e.getGeometry().getEnvelopeInternal()))
+      .filter(e -> preparedArea.contains(e.getGeometry()))
+      .toList();
+  }
+
+  private Collection<?> candidateEdges(Envelope envelope) {
+    var streetIndex = graph.getStreetIndex();
+    // The graph is not indexed in some tests
+    return streetIndex == null ? graph.getStreetEdges() : streetIndex.getEdgesForEnvelope(envelope);
+  }
+
+  private static int modifyPermissions(
+    StreetPermissionOverlay.Builder overlay,
+    PermissionChange change,
+    List<StreetEdge> edges
   ) {
+    var permission = change.permission();
+    var originalPermission = change.originalPermission();
     int numOfUpdates = 0;
-    // get collection of all StreetEdges in graph
-    Collection<StreetEdge> streetEdges = graph.getStreetEdges();
-    // set permissions for edges in polygon
-    for (StreetEdge edge : streetEdges) {
+
+    for (StreetEdge edge : edges) {
       boolean filterByOriginalPermission = true;
       if (originalPermission != null) {
         filterByOriginalPermission = edge.getOriginalPermission().allows(originalPermission);
       }
-      if (
-        polygon.contains(edge.getGeometry()) &&
-        edge.getPermission() != permission &&
-        filterByOriginalPermission
-      ) {
+      var oldPerm = overlay.permission(edge);
+      if (oldPerm != permission && filterByOriginalPermission) {
         numOfUpdates += 1;
-        String oldPerm = edge.getPermission().toString();
-        switch (method) {
-          case SET -> edge.setPermission(permission);
-          case ADD -> edge.setPermission(edge.getPermission().add(permission));
-          case REMOVE -> edge.setPermission(edge.getPermission().remove(permission));
-        }
-        LOG.info(
+        var newPerm =
+          switch (change.method()) {
+            case SET -> permission;
+            case ADD -> oldPerm.add(permission);
+            case REMOVE -> oldPerm.remove(permission);
+          };
+        overlay.withPermission(edge, newPerm);
+        LOG.debug(
           "{} permission '{}': '{}' to '{}' for edge '{}'.",
-          method.toString(),
-          permission.toString(),
+          change.method(),
+          permission,
           oldPerm,
-          edge.getPermission().toString(),
+          newPerm,
           edge
         );
-        if (!touchedEdges.contains(edge)) {
-          touchedEdges.add(edge);
-        }
       }
     }
+    LOG.info(
+      "{} permission '{}' for {} edges in area.",
+      change.method(),
+      permission,
+      numOfUpdates
+    );
     return numOfUpdates;
   }
+
+  /**
+   * A set of changes applied in batches, and published as one new version when committed. The
+   * transaction is based on the version published when it started, if another version is
+   * published before the transaction is committed the commit fails. This is not thread-safe, use
+   * one transaction per thread.
+   */
+  public class Transaction {
+
+    private final StreetPermissionOverlay base;
+    private final StreetPermissionOverlay.Builder overlay;
+
+    private Transaction(StreetPermissionOverlay base, boolean replaceAll) {
+      this.base = base;
+      this.overlay = replaceAll ? base.copyOf().clear() : base.copyOf();
+    }
+
+    /**
+     * Apply a batch of changes in the given order. The edges inside each area are found in
+     * parallel.
+     *
+     * @return the number of updated edges for each change.
+     */
+    public int[] apply(List<PermissionChange> changes) {
+      LOG.info("Run permission push updater for {} areas.", changes.size());
+      List<List<StreetEdge>> edgesByChange = changes
+        .parallelStream()
+        .map(c -> findEdgesInside(c.area()))
+        .toList();
+
+      int[] numOfUpdates = new int[changes.size()];
+      for (int i = 0; i < changes.size(); ++i) {
+        numOfUpdates[i] = modifyPermissions(overlay, changes.get(i), edgesByChange.get(i));
+      }
+      return numOfUpdates;
+    }
+
+    /**
+     * Publish all changes in the transaction as a new version.
+     *
+     * @throws ConcurrentModificationException if another version is published after the
+     *                                         transaction started.
+     */
+    public StreetPermissionOverlay commit() {
+      // Only one thread at the time may publish a new version
+      synchronized (PermissionsPushUpdater.class) {
+        if (graph.getStreetPermissionOverlay() != base) {
+          throw new ConcurrentModificationException(
+            "The permissions were changed by another update, version " +
+            graph.getStreetPermissionOverlay().version() +
+            ". The transaction started with version " +
+            base.version() +
+            "."
+          );
+        }
+        var newVersion = overlay.build();
+        publish(newVersion);
+        return newVersion;
+      }
+    }
+  }
 }
@@ -25,8 +25,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This class starts an Paho MQTT client which opens a connection to a GTFS-RT data source. A
- * callback is registered which handles incoming GTFS-RT messages as they stream in by placing a
- * GTFS-RT decoder Runnable task in the single-threaded executor for handling.
+ * callback is registered which handles incoming GTFS-RT messages as they stream in by queueing the
+ * decoded trip updates in a {@link TripUpdateBatcher}, which applies them to the graph in batches.
  * <p>
  * Usage example in the file 'router-config.json', inside the 'updaters' array:
  *
@@ -54,6 +54,7 @@ public class MqttGtfsRealtimeUpdater implements GraphUpdater {
   private final MemoryPersistence persistence = new MemoryPersistence();
   private final TimetableSnapshotSource snapshotSource;
   private final Consumer<UpdateResult> recordMetrics;
+  private final TripUpdateBatcher batcher;
   private WriteToGraphCallback saveResultOnGraph;
 
   private GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher = null;
@@ -78,6 +79,27 @@ public class MqttGtfsRealtimeUpdater implements GraphUpdater {
         new GtfsRealtimeFuzzyTripMatcher(new DefaultTransitService(transitModel));
     }
     this.recordMetrics = TripUpdateMetrics.streaming(parameters);
+    this.batcher =
+      new TripUpdateBatcher(
+        parameters.getBatchParameters(),
+        (fullDataset, updates) ->
+          new TripUpdateGraphWriterRunnable(
+            snapshotSource,
+            fuzzyTripMatcher,
+            backwardsDelayPropagationType,
+            fullDataset,
+            updates,
+            feedId,
+            recordMetrics
+          ),
+        runnable -> saveResultOnGraph.execute(runnable)
+      );
+    TripUpdateMetrics.streamingQueue(
+      parameters,
+      batcher,
+      TripUpdateBatcher::queueSize,
+      TripUpdateBatcher::dropped
+    );
   }
 
   @Override
@@ -105,6 +127,7 @@ public class MqttGtfsRealtimeUpdater implements GraphUpdater {
 
   @Override
   public void teardown() {
+    batcher.shutdown();
     try {
       client.disconnect();
     } catch (MqttException e) {
@@ -169,18 +192,8 @@ public class MqttGtfsRealtimeUpdater implements GraphUpdater {
       }
 
       if (updates != null) {
-        // Handle trip updates via graph writer runnable
-        saveResultOnGraph.execute(
-          new TripUpdateGraphWriterRunnable(
-            snapshotSource,
-            fuzzyTripMatcher,
-            backwardsDelayPropagationType,
-            fullDataset,
-            updates,
-            feedId,
-            recordMetrics
-          )
-        );
+        // Queue the trip updates, they are applied in batches by a graph writer runnable
+        batcher.add(fullDataset, updates);
       }
     }
 
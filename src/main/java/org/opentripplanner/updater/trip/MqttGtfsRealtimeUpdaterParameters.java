@@ -9,6 +9,7 @@ public class MqttGtfsRealtimeUpdaterParameters implements UrlUpdaterParameters {
   private final int qos;
   private final boolean fuzzyTripMatching;
   private final BackwardsDelayPropagationType backwardsDelayPropagationType;
+  private final TripUpdateBatchParameters batchParameters;
 
   public MqttGtfsRealtimeUpdaterParameters(
     String configRef,
@@ -17,7 +18,8 @@ public class MqttGtfsRealtimeUpdaterParameters implements UrlUpdaterParameters {
     String topic,
     int qos,
     boolean fuzzyTripMatching,
-    BackwardsDelayPropagationType backwardsDelayPropagationType
+    BackwardsDelayPropagationType backwardsDelayPropagationType,
+    TripUpdateBatchParameters batchParameters
   ) {
     this.configRef = configRef;
     this.feedId = feedId;
@@ -26,6 +28,7 @@ public class MqttGtfsRealtimeUpdaterParameters implements UrlUpdaterParameters {
     this.qos = qos;
     this.fuzzyTripMatching = fuzzyTripMatching;
     this.backwardsDelayPropagationType = backwardsDelayPropagationType;
+    this.batchParameters = batchParameters;
   }
 
   public String getUrl() {
@@ -52,6 +55,10 @@ public class MqttGtfsRealtimeUpdaterParameters implements UrlUpdaterParameters {
     return backwardsDelayPropagationType;
   }
 
+  TripUpdateBatchParameters getBatchParameters() {
+    return batchParameters;
+  }
+
   /** The config name/type for the updater. Used to reference the configuration element. */
   public String configRef() {
     return configRef;
@@ -15,6 +15,7 @@ import static org.opentripplanner.model.UpdateError.UpdateErrorType.TRIP_NOT_FOU
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Multimaps;
+import com.google.common.hash.Hashing;
 import com.google.transit.realtime.GtfsRealtime;
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate;
@@ -41,6 +42,7 @@ import org.opentripplanner.model.StopTime;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.model.TimetableSnapshot;
 import org.opentripplanner.model.TimetableSnapshotProvider;
+import org.opentripplanner.model.TripTimesPatch;
 import org.opentripplanner.model.UpdateError;
 import org.opentripplanner.model.UpdateSuccess;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
@@ -55,6 +57,7 @@ import org.opentripplanner.transit.model.organization.Agency;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.model.timetable.RealTimeState;
 import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitEditorService;
@@ -135,6 +138,14 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    */
   private final Supplier<LocalDate> localDateNow;
 
+  /**
+   * The trip updates applied from the last full dataset of each feed, by feed id. This is used to
+   * skip the updates which are unchanged since the last dataset, so that only the changed
+   * timetables are dirty. Should only be accessed by a thread that holds a lock on
+   * {@link #bufferLock}.
+   */
+  private final Map<String, Map<TripIdAndServiceDate, AppliedTripUpdate>> lastFullDatasetUpdates = new HashMap<>();
+
   public TimetableSnapshotSource(
     TimetableSnapshotSourceParameters parameters,
     TransitModel transitModel
@@ -215,6 +226,15 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
       return UpdateResult.empty();
     }
 
+    // Decode and match the updates, and create the updated trip times of scheduled trips, in
+    // parallel before the buffer is locked. This does not depend on the buffer.
+    LOG.debug("message contains {} trip updates", updates.size());
+    List<DecodedTripUpdate> decodedUpdates = updates
+      .parallelStream()
+      .map(it -> decode(fuzzyTripMatcher, backwardsDelayPropagationType, fullDataset, it, feedId))
+      .filter(Objects::nonNull)
+      .toList();
+
     // Acquire lock on buffer
     bufferLock.lock();
 
@@ -222,68 +242,32 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     List<Result<UpdateSuccess, UpdateError>> results = new ArrayList<>();
 
     try {
+      Map<TripIdAndServiceDate, AppliedTripUpdate> appliedUpdates = new HashMap<>();
+      List<DecodedTripUpdate> updatesToApply;
       if (fullDataset) {
-        // Remove all updates from the buffer
-        buffer.clear(feedId);
+        updatesToApply = removeUnchangedUpdates(feedId, decodedUpdates, appliedUpdates, results);
+      } else {
+        // The incremental updates change the trips of the last full dataset of the feed
+        lastFullDatasetUpdates.remove(feedId);
+        updatesToApply = decodedUpdates;
       }
 
-      LOG.debug("message contains {} trip updates", updates.size());
       int uIndex = 0;
-      for (TripUpdate tripUpdate : updates) {
-        if (!tripUpdate.hasTrip()) {
-          debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
-          continue;
-        }
-
-        if (fuzzyTripMatcher != null) {
-          final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
-          tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
-        }
-
+      for (DecodedTripUpdate decodedUpdate : updatesToApply) {
+        final TripUpdate tripUpdate = decodedUpdate.tripUpdate();
         final TripDescriptor tripDescriptor = tripUpdate.getTrip();
-
-        if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
-          debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
-          continue;
-        }
-
-        FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
-
-        LocalDate serviceDate;
-        if (tripDescriptor.hasStartDate()) {
-          try {
-            serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
-          } catch (final ParseException e) {
-            debug(
-              tripId,
-              "Failed to parse start date in gtfs-rt trip update: {}",
-              tripDescriptor.getStartDate()
-            );
-            continue;
-          }
-        } else {
-          // TODO: figure out the correct service date. For the special case that a trip
-          // starts for example at 40:00, yesterday would probably be a better guess.
-          serviceDate = localDateNow.get();
-        }
+        final FeedScopedId tripId = decodedUpdate.tripId();
+        final LocalDate serviceDate = decodedUpdate.serviceDate();
 
         uIndex += 1;
         LOG.debug("trip update #{} ({} updates) :", uIndex, tripUpdate.getStopTimeUpdateCount());
         LOG.trace("{}", tripUpdate);
 
-        // Determine what kind of trip update this is
-        final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
-          tripDescriptor
-        );
+        var tripScheduleRelationship = decodedUpdate.scheduleRelationship();
 
         Result<UpdateSuccess, UpdateError> result =
           switch (tripScheduleRelationship) {
-            case SCHEDULED -> handleScheduledTrip(
-              tripUpdate,
-              tripId,
-              serviceDate,
-              backwardsDelayPropagationType
-            );
+            case SCHEDULED -> handleScheduledTrip(decodedUpdate);
             case ADDED -> validateAndHandleAddedTrip(
               tripUpdate,
               tripDescriptor,
@@ -303,6 +287,14 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
           };
 
         results.add(result);
+        if (fullDataset) {
+          // Failed updates and trips with more than one update are never skipped
+          var key = decodedUpdate.tripIdAndServiceDate();
+          var success = result.isSuccess() && !appliedUpdates.containsKey(key)
+            ? result.successValue()
+            : null;
+          appliedUpdates.put(key, new AppliedTripUpdate(decodedUpdate.contentHash(), success));
+        }
         if (result.isFailure()) {
           debug(tripId, "Failed to apply TripUpdate.");
           LOG.trace(" Contents: {}", tripUpdate);
@@ -315,11 +307,19 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
         }
       }
 
+      if (fullDataset) {
+        lastFullDatasetUpdates.put(feedId, appliedUpdates);
+      }
+
       // Make a snapshot after each message in anticipation of incoming requests
       // Purge data if necessary (and force new snapshot if anything was purged)
       // Make sure that the public (locking) getTimetableSnapshot function is not called.
       if (purgeExpiredData) {
         final boolean modified = purgeExpiredData();
+        if (modified) {
+          // The next full datasets are applied to a cleared buffer, not to the purged updates
+          lastFullDatasetUpdates.clear();
+        }
         getTimetableSnapshot(modified);
       } else {
         getTimetableSnapshot(false);
@@ -337,6 +337,166 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     return updateResult;
   }
 
+  /**
+   * Compare the updates of a full dataset with the updates last applied from the same feed. The
+   * updates which are unchanged are skipped, and their previous result is added to the results.
+   * The trips which were updated by the last dataset, but whose update is changed or no longer in
+   * the dataset, are reverted in the buffer. This leaves the buffer in the same state as if all
+   * updates of the feed were cleared, but only the changed timetables become dirty.
+   * <p>
+   * If there is no last dataset of the feed, all updates of the feed are cleared from the buffer.
+   *
+   * @param appliedUpdates the unchanged updates are added to this map
+   * @return the updates which must be applied
+   */
+  private List<DecodedTripUpdate> removeUnchangedUpdates(
+    String feedId,
+    List<DecodedTripUpdate> updates,
+    Map<TripIdAndServiceDate, AppliedTripUpdate> appliedUpdates,
+    List<Result<UpdateSuccess, UpdateError>> results
+  ) {
+    var lastUpdates = lastFullDatasetUpdates.get(feedId);
+    if (lastUpdates == null) {
+      // Remove all updates from the buffer
+      buffer.clear(feedId);
+      return updates;
+    }
+
+    // The updates of a trip with more than one update in the dataset depend on each other
+    Map<TripIdAndServiceDate, Integer> updatesPerTrip = new HashMap<>();
+    for (DecodedTripUpdate update : updates) {
+      updatesPerTrip.merge(update.tripIdAndServiceDate(), 1, Integer::sum);
+    }
+
+    List<DecodedTripUpdate> changedUpdates = new ArrayList<>();
+    for (DecodedTripUpdate update : updates) {
+      var key = update.tripIdAndServiceDate();
+      var last = lastUpdates.get(key);
+      if (
+        last != null &&
+        last.success() != null &&
+        last.contentHash() == update.contentHash() &&
+        updatesPerTrip.get(key) == 1
+      ) {
+        appliedUpdates.put(key, last);
+        results.add(Result.success(last.success()));
+      } else {
+        changedUpdates.add(update);
+      }
+    }
+
+    for (TripIdAndServiceDate key : lastUpdates.keySet()) {
+      if (!appliedUpdates.containsKey(key)) {
+        buffer.revertTrip(key.tripId(), key.serviceDate(), getPatternForTripId(key.tripId()));
+      }
+    }
+
+    LOG.debug(
+      "[feedId: {}] {} of {} trip updates are unchanged since the last dataset",
+      feedId,
+      updates.size() - changedUpdates.size(),
+      updates.size()
+    );
+    return changedUpdates;
+  }
+
+  /**
+   * Match the trip update to a trip and service date, and create the updated trip times if it is
+   * an update of a scheduled trip. This only reads the scheduled data, so it can be done for the
+   * updates of a message in parallel without holding the buffer lock. The content hash used to
+   * find the unchanged updates of a full dataset is also computed here.
+   *
+   * @return the decoded update, or {@code null} if the update should be skipped
+   */
+  private DecodedTripUpdate decode(
+    GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher,
+    BackwardsDelayPropagationType backwardsDelayPropagationType,
+    boolean fullDataset,
+    TripUpdate tripUpdate,
+    String feedId
+  ) {
+    if (!tripUpdate.hasTrip()) {
+      debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
+      return null;
+    }
+
+    if (fuzzyTripMatcher != null) {
+      final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
+      tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
+    }
+
+    final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+
+    if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
+      debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
+      return null;
+    }
+
+    FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
+
+    LocalDate serviceDate;
+    if (tripDescriptor.hasStartDate()) {
+      try {
+        serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
+      } catch (final ParseException e) {
+        debug(
+          tripId,
+          "Failed to parse start date in gtfs-rt trip update: {}",
+          tripDescriptor.getStartDate()
+        );
+        return null;
+      }
+    } else {
+      // TODO: figure out the correct service date. For the special case that a trip
+      // starts for example at 40:00, yesterday would probably be a better guess.
+      serviceDate = localDateNow.get();
+    }
+
+    // Determine what kind of trip update this is
+    final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
+      tripDescriptor
+    );
+
+    TripPattern pattern = null;
+    Result<TripTimesPatch, UpdateError> tripTimesPatch = null;
+    if (tripScheduleRelationship == TripDescriptor.ScheduleRelationship.SCHEDULED) {
+      pattern = getPatternForTripId(tripId);
+      if (pattern != null && tripUpdate.getStopTimeUpdateCount() > 0) {
+        // Get new TripTimes based on scheduled timetable
+        tripTimesPatch =
+          pattern
+            .getScheduledTimetable()
+            .createUpdatedTripTimes(
+              tripUpdate,
+              timeZone,
+              serviceDate,
+              backwardsDelayPropagationType
+            );
+      }
+    }
+
+    return new DecodedTripUpdate(
+      tripUpdate,
+      tripId,
+      serviceDate,
+      tripScheduleRelationship,
+      pattern,
+      tripTimesPatch,
+      fullDataset ? contentHash(tripUpdate) : 0
+    );
+  }
+
+  /**
+   * A hash of the content of the trip update. The timestamp is not included, since many producers
+   * set it to the time the dataset is created.
+   */
+  private static long contentHash(TripUpdate tripUpdate) {
+    return Hashing
+      .murmur3_128()
+      .hashBytes(tripUpdate.toBuilder().clearTimestamp().build().toByteArray())
+      .asLong();
+  }
+
   private static void logUpdateResult(
     String feedId,
     int updates,
@@ -395,20 +555,17 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     return tripScheduleRelationship;
   }
 
-  private Result<UpdateSuccess, UpdateError> handleScheduledTrip(
-    TripUpdate tripUpdate,
-    FeedScopedId tripId,
-    LocalDate serviceDate,
-    BackwardsDelayPropagationType backwardsDelayPropagationType
-  ) {
-    final TripPattern pattern = getPatternForTripId(tripId);
+  private Result<UpdateSuccess, UpdateError> handleScheduledTrip(DecodedTripUpdate update) {
+    final FeedScopedId tripId = update.tripId();
+    final LocalDate serviceDate = update.serviceDate();
+    final TripPattern pattern = update.pattern();
 
     if (pattern == null) {
       debug(tripId, "No pattern found for tripId, skipping TripUpdate.");
       return UpdateError.result(tripId, TRIP_NOT_FOUND);
     }
 
-    if (tripUpdate.getStopTimeUpdateCount() < 1) {
+    if (update.tripUpdate().getStopTimeUpdateCount() < 1) {
       debug(tripId, "TripUpdate contains no updates, skipping.");
       return UpdateError.result(tripId, NO_UPDATES);
     }
@@ -418,10 +575,8 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     // mark that previously created trip as DELETED.
     cancelPreviouslyAddedTrip(tripId, serviceDate, CancelationType.DELETE);
 
-    // Get new TripTimes based on scheduled timetable
-    var result = pattern
-      .getScheduledTimetable()
-      .createUpdatedTripTimes(tripUpdate, timeZone, serviceDate, backwardsDelayPropagationType);
+    // The new TripTimes are created from the scheduled timetable when the update is decoded
+    var result = update.tripTimesPatch();
 
     if (result.isFailure()) {
       // necessary so the success type is correct
@@ -1145,6 +1300,31 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     LOG.debug(m, params);
   }
 
+  /**
+   * A trip update matched to a trip and service date. For updates of scheduled trips the pattern
+   * and the updated trip times are included, these are {@code null} if the trip or the stop time
+   * updates are missing. The content hash is only computed for full datasets.
+   */
+  private record DecodedTripUpdate(
+    TripUpdate tripUpdate,
+    FeedScopedId tripId,
+    LocalDate serviceDate,
+    TripDescriptor.ScheduleRelationship scheduleRelationship,
+    TripPattern pattern,
+    Result<TripTimesPatch, UpdateError> tripTimesPatch,
+    long contentHash
+  ) {
+    TripIdAndServiceDate tripIdAndServiceDate() {
+      return new TripIdAndServiceDate(tripId, serviceDate);
+    }
+  }
+
+  /**
+   * The content hash and result of a trip update applied from a full dataset. The result is
+   * {@code null} if the update must be applied again, even if it is unchanged.
+   */
+  private record AppliedTripUpdate(long contentHash, UpdateSuccess success) {}
+
   private enum CancelationType {
     CANCEL,
     DELETE,
@@ -0,0 +1,47 @@
+package org.opentripplanner.updater.trip;
+
+import java.time.Duration;
+
+/**
+ * How the streaming trip updaters merge incoming messages into batches, see
+ * {@link TripUpdateBatcher}.
+ * <p>
+ * {@link org.opentripplanner.standalone.config.routerconfig.updaters.TripUpdateBatchConfig}
+ */
+public record TripUpdateBatchParameters(
+  int maxBatchSize,
+  Duration maxBatchDelay,
+  int maxQueueSize
+) {
+  public static final TripUpdateBatchParameters DEFAULT = new TripUpdateBatchParameters(
+    1000,
+    Duration.ofSeconds(1),
+    100_000
+  );
+
+  public TripUpdateBatchParameters {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+    }
+    if (maxBatchDelay.isNegative()) {
+      throw new IllegalArgumentException("maxBatchDelay can not be negative: " + maxBatchDelay);
+    }
+    if (maxQueueSize < 1) {
+      throw new IllegalArgumentException("maxQueueSize must be at least 1: " + maxQueueSize);
+    }
+  }
+
+  /* Factory functions, used instead of a builder - useful in tests. */
+
+  public TripUpdateBatchParameters withMaxBatchSize(int maxBatchSize) {
+    return new TripUpdateBatchParameters(maxBatchSize, maxBatchDelay, maxQueueSize);
+  }
+
+  public TripUpdateBatchParameters withMaxBatchDelay(Duration maxBatchDelay) {
+    return new TripUpdateBatchParameters(maxBatchSize, maxBatchDelay, maxQueueSize);
+  }
+
+  public TripUpdateBatchParameters withMaxQueueSize(int maxQueueSize) {
+    return new TripUpdateBatchParameters(maxBatchSize, maxBatchDelay, maxQueueSize);
+  }
+}
@@ -0,0 +1,200 @@
+package org.opentripplanner.updater.trip;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import org.opentripplanner.updater.GraphWriterRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merge the trip updates of the messages streamed in by the websocket and MQTT updaters into
+ * batches, so that a burst of small messages is applied to the graph in one
+ * {@link TimetableSnapshotSource#applyTripUpdates} call instead of one per message.
+ * <p>
+ * The differential updates are queued until {@code maxBatchSize} trips are waiting, or the first
+ * of them has waited for {@code maxBatchDelay}. At most one batch is waiting for or running on the
+ * graph writer thread at any time, while it does the incoming updates are queued. This keeps the
+ * queue of the graph writer short when the updates arrive faster than they can be applied.
+ * <p>
+ * The queue holds the latest update of each trip, an update replaces the queued update of the same
+ * trip since each update gives the complete realtime state of the trip. When {@code maxQueueSize}
+ * trips are queued, the updates of other trips are dropped until the queue is flushed. A full
+ * dataset replaces all previous updates of the feed, so it is submitted at once and the queued
+ * updates are discarded.
+ * <p>
+ * This class is thread-safe.
+ */
+class TripUpdateBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TripUpdateBatcher.class);
+
+  private final int maxBatchSize;
+  private final long maxBatchDelayNanos;
+  private final int maxQueueSize;
+  private final BiFunction<Boolean, List<TripUpdate>, GraphWriterRunnable> runnableFactory;
+  private final Consumer<GraphWriterRunnable> saveResultOnGraph;
+  private final ScheduledExecutorService scheduler;
+
+  /** The queued updates by trip, in the order they arrived. */
+  private final Map<Object, TripUpdate> queue = new LinkedHashMap<>();
+
+  /** The time the oldest of the queued updates arrived, from {@link System#nanoTime()}. */
+  private long queuedSince;
+
+  private ScheduledFuture<?> scheduledFlush = null;
+  private int batchesInProgress = 0;
+  private long dropped = 0;
+  private boolean queueFull = false;
+
+  /**
+   * @param runnableFactory creates the graph writer runnable applying a batch, the arguments are
+   *                        whether the batch is a full dataset and the updates of the batch.
+   * @param saveResultOnGraph submits a runnable to the graph writer thread.
+   */
+  TripUpdateBatcher(
+    TripUpdateBatchParameters parameters,
+    BiFunction<Boolean, List<TripUpdate>, GraphWriterRunnable> runnableFactory,
+    Consumer<GraphWriterRunnable> saveResultOnGraph
+  ) {
+    this.maxBatchSize = parameters.maxBatchSize();
+    this.maxBatchDelayNanos = parameters.maxBatchDelay().toNanos();
+    this.maxQueueSize = parameters.maxQueueSize();
+    this.runnableFactory = runnableFactory;
+    this.saveResultOnGraph = saveResultOnGraph;
+    this.scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("TripUpdateBatcher-%d").setDaemon(true).build()
+      );
+  }
+
+  /**
+   * Add the trip updates of a message.
+   */
+  synchronized void add(boolean fullDataset, List<TripUpdate> updates) {
+    if (fullDataset) {
+      queue.clear();
+      queueFull = false;
+      cancelScheduledFlush();
+      submit(true, updates);
+      return;
+    }
+    if (queue.isEmpty()) {
+      queuedSince = System.nanoTime();
+    }
+    for (TripUpdate update : updates) {
+      var key = tripKey(update.getTrip());
+      // Remove the previous update of the trip, so that the updates are applied in the order of
+      // their latest update
+      if (queue.remove(key) == null && queue.size() >= maxQueueSize) {
+        if (!queueFull) {
+          LOG.warn("The trip update queue is full, dropping updates until it is flushed.");
+          queueFull = true;
+        }
+        ++dropped;
+        continue;
+      }
+      queue.put(key, update);
+    }
+    flushIfReady();
+  }
+
+  /** The number of trips with a queued update. */
+  synchronized int queueSize() {
+    return queue.size();
+  }
+
+  /** The total number of updates dropped because the queue was full. */
+  synchronized long dropped() {
+    return dropped;
+  }
+
+  /**
+   * Stop the scheduled flushes. The queued updates are not applied.
+   */
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private synchronized void batchApplied() {
+    --batchesInProgress;
+    flushIfReady();
+  }
+
+  private synchronized void scheduledFlush() {
+    scheduledFlush = null;
+    flushIfReady();
+  }
+
+  private void flushIfReady() {
+    if (queue.isEmpty() || batchesInProgress > 0) {
+      return;
+    }
+    long waited = System.nanoTime() - queuedSince;
+    if (queue.size() >= maxBatchSize || waited >= maxBatchDelayNanos) {
+      flush();
+    } else if (scheduledFlush == null && !scheduler.isShutdown()) {
+      scheduledFlush =
+        scheduler.schedule(this::scheduledFlush, maxBatchDelayNanos - waited, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void flush() {
+    cancelScheduledFlush();
+    queueFull = false;
+    List<TripUpdate> batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+    Iterator<TripUpdate> it = queue.values().iterator();
+    while (it.hasNext() && batch.size() < maxBatchSize) {
+      batch.add(it.next());
+      it.remove();
+    }
+    // The time of the oldest update is kept for the rest of the queue, these are flushed when the
+    // batch is applied if they have waited long enough
+    submit(false, batch);
+  }
+
+  private void submit(boolean fullDataset, List<TripUpdate> updates) {
+    var runnable = runnableFactory.apply(fullDataset, updates);
+    ++batchesInProgress;
+    try {
+      saveResultOnGraph.accept((graph, transitModel) -> {
+        try {
+          runnable.run(graph, transitModel);
+        } finally {
+          batchApplied();
+        }
+      });
+    } catch (RuntimeException e) {
+      --batchesInProgress;
+      throw e;
+    }
+  }
+
+  private void cancelScheduledFlush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+  }
+
+  /**
+   * The key of the trip an update applies to. The trips without an id are matched fuzzily, these
+   * are only merged if the trip descriptors are equal.
+   */
+  private static Object tripKey(TripDescriptor trip) {
+    return trip.hasTripId() ? new TripKey(trip.getTripId(), trip.getStartDate()) : trip;
+  }
+
+  private record TripKey(String tripId, String startDate) {}
+}
@@ -28,8 +28,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This class starts an HTTP client which opens a websocket connection to a GTFS-RT data source. A
- * callback is registered which handles incoming GTFS-RT messages as they stream in by placing a
- * GTFS-RT decoder Runnable task in the single-threaded executor for handling.
+ * callback is registered which handles incoming GTFS-RT messages as they stream in by queueing the
+ * decoded trip updates in a {@link TripUpdateBatcher}, which applies them to the graph in batches.
  *
  * <pre>
  * websocket.type = websocket-gtfs-rt-updater
@@ -76,6 +76,11 @@ public class WebsocketGtfsRealtimeUpdater implements GraphUpdater {
 
   private final Consumer<UpdateResult> recordMetrics;
 
+  /**
+   * Merges the incoming updates into batches, which are applied by graph writer runnables.
+   */
+  private final TripUpdateBatcher batcher;
+
   public WebsocketGtfsRealtimeUpdater(
     WebsocketGtfsRealtimeUpdaterParameters parameters,
     TimetableSnapshotSource snapshotSource,
@@ -90,6 +95,27 @@ public class WebsocketGtfsRealtimeUpdater implements GraphUpdater {
     this.fuzzyTripMatcher =
       new GtfsRealtimeFuzzyTripMatcher(new DefaultTransitService(transitModel));
     this.recordMetrics = TripUpdateMetrics.streaming(parameters);
+    this.batcher =
+      new TripUpdateBatcher(
+        parameters.getBatchParameters(),
+        (fullDataset, updates) ->
+          new TripUpdateGraphWriterRunnable(
+            snapshotSource,
+            fuzzyTripMatcher,
+            backwardsDelayPropagationType,
+            fullDataset,
+            updates,
+            feedId,
+            recordMetrics
+          ),
+        runnable -> saveResultOnGraph.execute(runnable)
+      );
+    TripUpdateMetrics.streamingQueue(
+      parameters,
+      batcher,
+      TripUpdateBatcher::queueSize,
+      TripUpdateBatcher::dropped
+    );
   }
 
   @Override
@@ -140,6 +166,11 @@ public class WebsocketGtfsRealtimeUpdater implements GraphUpdater {
     }
   }
 
+  @Override
+  public void teardown() {
+    batcher.shutdown();
+  }
+
   @Override
   public String getConfigRef() {
     return configRef;
@@ -194,17 +225,8 @@ public class WebsocketGtfsRealtimeUpdater implements GraphUpdater {
       }
 
       if (updates != null) {
-        // Handle trip updates via graph writer runnable
-        TripUpdateGraphWriterRunnable runnable = new TripUpdateGraphWriterRunnable(
-          snapshotSource,
-          fuzzyTripMatcher,
-          backwardsDelayPropagationType,
-          fullDataset,
-          updates,
-          feedId,
-          recordMetrics
-        );
-        saveResultOnGraph.execute(runnable);
+        // Queue the trip updates, they are applied in batches by a graph writer runnable
+        batcher.add(fullDataset, updates);
       }
     }
   }
@@ -7,19 +7,22 @@ public class WebsocketGtfsRealtimeUpdaterParameters implements UrlUpdaterParamet
   private final String url;
   private final int reconnectPeriodSec;
   private final BackwardsDelayPropagationType backwardsDelayPropagationType;
+  private final TripUpdateBatchParameters batchParameters;
 
   public WebsocketGtfsRealtimeUpdaterParameters(
     String configRef,
     String feedId,
     String url,
     int reconnectPeriodSec,
-    BackwardsDelayPropagationType backwardsDelayPropagationType
+    BackwardsDelayPropagationType backwardsDelayPropagationType,
+    TripUpdateBatchParameters batchParameters
   ) {
     this.configRef = configRef;
     this.feedId = feedId;
     this.url = url;
     this.reconnectPeriodSec = reconnectPeriodSec;
     this.backwardsDelayPropagationType = backwardsDelayPropagationType;
+    this.batchParameters = batchParameters;
   }
 
   public String getUrl() {
@@ -34,6 +37,10 @@ public class WebsocketGtfsRealtimeUpdaterParameters implements UrlUpdaterParamet
     return reconnectPeriodSec;
   }
 
+  TripUpdateBatchParameters getBatchParameters() {
+    return batchParameters;
+  }
+
   /** The config name/type for the updater. Used to reference the configuration element. */
   public String configRef() {
     return configRef;
@@ -1,9 +1,13 @@
 package org.opentripplanner.updater.trip.metrics;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.updater.UpdateResult;
 import org.opentripplanner.updater.trip.UrlUpdaterParameters;
@@ -36,6 +40,31 @@ public class TripUpdateMetrics {
     });
   }
 
+  /**
+   * Record the number of trip updates waiting in the queue of a streaming updater, and the number
+   * of updates dropped because the queue was full. The queue is only weakly referenced.
+   */
+  public static <T> void streamingQueue(
+    UrlUpdaterParameters parameters,
+    T queue,
+    ToDoubleFunction<T> queueSize,
+    ToDoubleFunction<T> dropped
+  ) {
+    if (OTPFeature.ActuatorAPI.isOn()) {
+      var tags = new TripUpdateMetrics(parameters).baseTags;
+      Gauge
+        .builder(StreamingTripUpdateMetrics.METRICS_PREFIX + ".queued", queue, queueSize)
+        .description("Trip updates waiting to be applied")
+        .tags(tags)
+        .register(Metrics.globalRegistry);
+      FunctionCounter
+        .builder(StreamingTripUpdateMetrics.METRICS_PREFIX + ".dropped", queue, dropped)
+        .description("Total trip updates dropped because the queue was full")
+        .tags(tags)
+        .register(Metrics.globalRegistry);
+    }
+  }
+
   private static Consumer<UpdateResult> getConsumer(Supplier<Consumer<UpdateResult>> maker) {
     if (OTPFeature.ActuatorAPI.isOn()) {
       return maker.get();
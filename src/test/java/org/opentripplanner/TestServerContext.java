@@ -3,7 +3,9 @@ package org.opentripplanner;
 import static org.opentripplanner.standalone.configure.ConstructApplication.creatTransitLayerForRaptor;
 
 import io.micrometer.core.instrument.Metrics;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.service.vehiclepositions.VehiclePositionService;
 import org.opentripplanner.service.vehiclepositions.internal.DefaultVehiclePositionService;
@@ -32,10 +34,12 @@ public class TestServerContext {
       routerConfig.routingRequestDefaults(),
       routerConfig.streetRoutingTimeout(),
       new RaptorConfig<>(routerConfig.transitTuningConfig()),
+      AccessEgressCache.disabled(),
       graph,
       new DefaultTransitService(transitModel),
       Metrics.globalRegistry,
       routerConfig.vectorTileLayers(),
+      VectorTileCache.disabled(),
       createWorldEnvelopeService(),
       createVehiclePositionService(),
       routerConfig.flexConfig(),
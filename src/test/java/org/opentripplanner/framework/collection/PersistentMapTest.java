@@ -0,0 +1,90 @@
+package org.opentripplanner.framework.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentMapTest {
+
+  @Test
+  void plusAndMinus() {
+    PersistentMap<String, Integer> empty = PersistentMap.empty();
+    var m1 = empty.plus("A", 1);
+    var m2 = m1.plus("B", 2).plus("A", 3);
+
+    assertTrue(empty.isEmpty());
+    assertEquals(Map.of("A", 1), m1);
+    assertEquals(Map.of("A", 3, "B", 2), m2);
+    assertTrue(m2.containsKey("B"));
+    assertFalse(m2.containsKey("C"));
+    assertNull(m2.get("C"));
+
+    var m3 = m2.minus("A");
+    assertEquals(Map.of("B", 2), m3);
+    // The older versions are not changed
+    assertEquals(Map.of("A", 3, "B", 2), m2);
+    assertTrue(m3.minus("B").isEmpty());
+  }
+
+  @Test
+  void unchangedMapIsReturnedIfNothingChanges() {
+    Integer value = 1000;
+    var map = PersistentMap.<String, Integer>empty().plus("A", value);
+
+    assertSame(map, map.plus("A", value));
+    assertSame(map, map.minus("B"));
+    assertSame(map, map.minusIf(key -> key.equals("B")));
+  }
+
+  @Test
+  void minusIf() {
+    var map = PersistentMap.<String, Integer>empty().plus("A1", 1).plus("B1", 2).plus("A2", 3);
+    assertEquals(Map.of("B1", 2), map.minusIf(key -> key.startsWith("A")));
+  }
+
+  @Test
+  void keysWithSameHashCode() {
+    // "Aa" and "BB" have the same hash code
+    var map = PersistentMap.<String, Integer>empty().plus("Aa", 1).plus("BB", 2).plus("C", 3);
+
+    assertEquals(Map.of("Aa", 1, "BB", 2, "C", 3), map);
+    assertEquals(Map.of("BB", 2, "C", 3), map.minus("Aa"));
+    assertEquals(Map.of("Aa", 1, "C", 3), map.minus("BB"));
+  }
+
+  @Test
+  void compareWithHashMap() {
+    var random = new Random(7);
+    var expected = new HashMap<Integer, Integer>();
+    var map = PersistentMap.<Integer, Integer>empty();
+
+    for (int i = 0; i < 20_000; ++i) {
+      int key = random.nextInt(5_000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        expected.put(key, i);
+        map = map.plus(key, i);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected, map);
+    assertEquals(expected.size(), map.entrySet().stream().count());
+  }
+
+  @Test
+  void mapIsReadOnly() {
+    var map = PersistentMap.<String, Integer>empty().plus("A", 1);
+    assertThrows(UnsupportedOperationException.class, () -> map.put("B", 2));
+    assertThrows(UnsupportedOperationException.class, () -> map.remove("A"));
+  }
+}
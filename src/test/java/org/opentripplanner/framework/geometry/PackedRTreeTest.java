@@ -0,0 +1,119 @@
+package org.opentripplanner.framework.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+class PackedRTreeTest {
+
+  private static final double X0 = 10.7;
+  private static final double Y0 = 59.9;
+  private static final double DX = 0.1;
+  private static final double DY = 0.1;
+
+  /**
+   * Compare the result of many random queries with a brute force search. The tree may return
+   * false positives within the float rounding, so these are removed before comparing.
+   */
+  @Test
+  void queryRandom() {
+    Random rand = new Random(42);
+    List<Envelope> objects = randomEnvelopes(rand, 5000);
+    var builder = PackedRTree.<Envelope>of();
+    objects.forEach(it -> builder.add(it, it));
+    var subject = builder.build();
+
+    assertEquals(5000, subject.size());
+
+    for (int i = 0; i < 1000; i++) {
+      Envelope searchEnv = randomEnvelope(rand, 0.01);
+      List<Envelope> result = subject.query(searchEnv);
+
+      // No duplicates are returned
+      assertEquals(new HashSet<>(result).size(), result.size());
+
+      Set<Envelope> found = new HashSet<>(result);
+      found.removeIf(it -> !it.intersects(searchEnv));
+      Set<Envelope> expected = new HashSet<>();
+      for (Envelope it : objects) {
+        if (it.intersects(searchEnv)) {
+          expected.add(it);
+        }
+      }
+      assertEquals(expected, found);
+    }
+  }
+
+  @Test
+  void remove() {
+    Random rand = new Random(7);
+    List<Envelope> objects = randomEnvelopes(rand, 100);
+    var builder = PackedRTree.<Envelope>of();
+    objects.forEach(it -> builder.add(it, it));
+    var subject = builder.build();
+
+    Envelope removed = objects.get(17);
+    assertTrue(subject.remove(removed, removed));
+    assertFalse(subject.remove(removed, removed));
+
+    assertEquals(99, subject.size());
+    assertFalse(subject.query(removed).contains(removed));
+    assertEquals(99, subject.query(new Envelope(X0, X0 + DX, Y0, Y0 + DY)).size());
+  }
+
+  @Test
+  void emptyAndSingleObject() {
+    var empty = PackedRTree.<String>of().build();
+    assertTrue(empty.query(new Envelope(0, 1, 0, 1)).isEmpty());
+    assertFalse(empty.remove(new Envelope(0, 1, 0, 1), "A"));
+
+    var single = PackedRTree.<String>of().add(new Envelope(new Coordinate(X0, Y0)), "A").build();
+    assertEquals(List.of("A"), single.query(new Envelope(X0, X0, Y0, Y0)));
+    assertTrue(single.query(new Envelope(X0 + 0.001, X0 + 0.002, Y0, Y0)).isEmpty());
+  }
+
+  @Test
+  void hilbert() {
+    // The curve visits all cells of the 8 x 8 grid in the lower left corner first, moving to a
+    // neighbour cell at each step
+    int[][] cells = new int[64][];
+    for (int x = 0; x < 8; x++) {
+      for (int y = 0; y < 8; y++) {
+        cells[PackedRTree.hilbert(x, y)] = new int[] { x, y };
+      }
+    }
+    for (int i = 1; i < 64; i++) {
+      int dx = Math.abs(cells[i][0] - cells[i - 1][0]);
+      int dy = Math.abs(cells[i][1] - cells[i - 1][1]);
+      assertEquals(1, dx + dy);
+    }
+  }
+
+  private static List<Envelope> randomEnvelopes(Random rand, int n) {
+    List<Envelope> result = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      result.add(randomEnvelope(rand, 0.002));
+    }
+    return result;
+  }
+
+  private static Envelope randomEnvelope(Random rand, double maxSize) {
+    double x = rand.nextDouble() * DX + X0;
+    double y = rand.nextDouble() * DY + Y0;
+    return new Envelope(
+      x,
+      Math.min(x + rand.nextDouble() * maxSize, X0 + DX),
+      y,
+      Math.min(y + rand.nextDouble() * maxSize, Y0 + DY)
+    );
+  }
+}
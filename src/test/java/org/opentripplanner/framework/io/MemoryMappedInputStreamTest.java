@@ -0,0 +1,79 @@
+package org.opentripplanner.framework.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemoryMappedInputStreamTest {
+
+  private static final int SEGMENT_SIZE = 16;
+
+  @TempDir
+  File tempDir;
+
+  @Test
+  void readAcrossSegments() throws IOException {
+    var data = createData(50);
+    var file = write(data);
+
+    try (var in = new MemoryMappedInputStream(file, SEGMENT_SIZE)) {
+      assertArrayEquals(data, in.readAllBytes());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void readSingleBytesAndSkip() throws IOException {
+    var data = createData(40);
+    var file = write(data);
+
+    try (var in = new MemoryMappedInputStream(file, SEGMENT_SIZE)) {
+      assertEquals(data[0] & 0xFF, in.read());
+      assertEquals(20, in.skip(20));
+      assertEquals(data[21] & 0xFF, in.read());
+
+      var buf = new byte[30];
+      // A read never cross a segment border
+      assertEquals(SEGMENT_SIZE * 2 - 22, in.read(buf, 0, buf.length));
+      assertEquals(data[22], buf[0]);
+      assertEquals(8, in.skip(100));
+      assertEquals(-1, in.read(buf, 0, buf.length));
+    }
+  }
+
+  @Test
+  void readEmptyFile() throws IOException {
+    var file = write(new byte[0]);
+
+    try (var in = new MemoryMappedInputStream(file)) {
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void availableAfterClose() throws IOException {
+    var in = new MemoryMappedInputStream(write(createData(10)), SEGMENT_SIZE);
+    assertEquals(10, in.available());
+    in.close();
+    assertEquals(0, in.available());
+  }
+
+  private File write(byte[] data) throws IOException {
+    var file = new File(tempDir, "data.bin");
+    Files.write(file.toPath(), data);
+    return file;
+  }
+
+  private static byte[] createData(int size) {
+    var data = new byte[size];
+    for (int i = 0; i < size; ++i) {
+      data[i] = (byte) (i * 7 + 200);
+    }
+    return data;
+  }
+}
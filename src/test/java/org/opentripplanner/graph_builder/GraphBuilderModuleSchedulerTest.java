@@ -0,0 +1,194 @@
+package org.opentripplanner.graph_builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.graph_builder.model.GraphBuilderResource.ALL;
+import static org.opentripplanner.graph_builder.model.GraphBuilderResource.STREETS;
+import static org.opentripplanner.graph_builder.model.GraphBuilderResource.TRANSIT;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.model.GraphBuilderResource;
+import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
+import org.opentripplanner.graph_builder.module.GraphCoherencyCheckerModule;
+import org.opentripplanner.graph_builder.module.StreetLinkerModule;
+import org.opentripplanner.graph_builder.module.TripPatternNamer;
+import org.opentripplanner.graph_builder.module.islandpruning.PruneIslands;
+import org.opentripplanner.graph_builder.module.osm.OpenStreetMapModule;
+import org.opentripplanner.gtfs.graphbuilder.GtfsModule;
+import org.opentripplanner.model.calendar.ServiceDateInterval;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.service.TransitModel;
+
+class GraphBuilderModuleSchedulerTest {
+
+  private final List<String> completed = new CopyOnWriteArrayList<>();
+
+  @Test
+  void dependencies() {
+    var modules = List.<GraphBuilderModule>of(
+      new TestModule("streets", Set.of(STREETS), Set.of(STREETS), () -> {}),
+      new TestModule("transit", Set.of(TRANSIT), Set.of(TRANSIT), () -> {}),
+      new TestModule("namer", Set.of(TRANSIT), Set.of(TRANSIT), () -> {}),
+      new TestModule("linker", Set.of(STREETS, TRANSIT), Set.of(STREETS), () -> {}),
+      new TestModule("other", ALL, ALL, () -> {})
+    );
+
+    assertEquals(
+      List.of(List.of(), List.of(), List.of(1), List.of(0, 1, 2), List.of(0, 1, 2, 3)),
+      GraphBuilderModuleScheduler.dependencies(modules)
+    );
+  }
+
+  @Test
+  void dependenciesOfGraphBuilderModules() {
+    var graph = new Graph();
+    var transitModel = new TransitModel();
+    var issueStore = DataImportIssueStore.NOOP;
+    var linker = new StreetLinkerModule(graph, transitModel, issueStore, false);
+    var modules = List.<GraphBuilderModule>of(
+      new OpenStreetMapModule(List.of(), Set.of(), graph, issueStore, false),
+      new GtfsModule(List.of(), transitModel, graph, ServiceDateInterval.unbounded()),
+      new TripPatternNamer(transitModel),
+      linker,
+      new PruneIslands(graph, transitModel, issueStore, linker),
+      new DirectTransferGenerator(
+        graph,
+        transitModel,
+        issueStore,
+        Duration.ofMinutes(5),
+        List.of()
+      ),
+      new GraphCoherencyCheckerModule(graph, issueStore)
+    );
+
+    // OSM and GTFS are loaded at the same time, and the graph is checked while the transfers are
+    // generated
+    assertEquals(
+      List.of(
+        List.of(),
+        List.of(),
+        List.of(1),
+        List.of(0, 1, 2),
+        List.of(0, 1, 2, 3),
+        List.of(0, 1, 2, 3, 4),
+        List.of(0, 1, 3, 4)
+      ),
+      GraphBuilderModuleScheduler.dependencies(modules)
+    );
+  }
+
+  @Test
+  void independentModulesRunConcurrently() {
+    var transitStarted = new CountDownLatch(1);
+    var modules = List.<GraphBuilderModule>of(
+      new TestModule(
+        "streets",
+        Set.of(STREETS),
+        Set.of(STREETS),
+        () -> assertTrue(await(transitStarted))
+      ),
+      new TestModule("transit", Set.of(TRANSIT), Set.of(TRANSIT), transitStarted::countDown),
+      new TestModule("other", ALL, ALL, () -> {})
+    );
+
+    var runs = new GraphBuilderModuleScheduler(modules, true).run();
+
+    assertEquals(3, runs.size());
+    assertEquals("other", completed.get(2));
+    assertEquals(Set.of("streets", "transit"), Set.copyOf(completed.subList(0, 2)));
+    assertTrue(runs.get(2).peakHeapBytes() > 0);
+  }
+
+  @Test
+  void modulesRunInOrderIfNotParallel() {
+    var modules = List.<GraphBuilderModule>of(
+      new TestModule("transit", Set.of(TRANSIT), Set.of(TRANSIT), () -> {}),
+      new TestModule("streets", Set.of(STREETS), Set.of(STREETS), () -> {})
+    );
+
+    var runs = new GraphBuilderModuleScheduler(modules, false).run();
+
+    assertEquals(List.of("transit", "streets"), completed);
+    assertEquals(2, runs.size());
+  }
+
+  @Test
+  void dependentModulesAreNotRunIfAModuleFails() {
+    var modules = List.<GraphBuilderModule>of(
+      new TestModule(
+        "transit",
+        Set.of(TRANSIT),
+        Set.of(TRANSIT),
+        () -> {
+          throw new IllegalStateException("Failed");
+        }
+      ),
+      new TestModule("streets", Set.of(STREETS), Set.of(STREETS), () -> {}),
+      new TestModule("namer", Set.of(TRANSIT), Set.of(TRANSIT), () -> {})
+    );
+
+    var ex = assertThrows(
+      IllegalStateException.class,
+      () -> new GraphBuilderModuleScheduler(modules, true).run()
+    );
+
+    assertEquals("Failed", ex.getMessage());
+    assertEquals(List.of("streets"), completed);
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private class TestModule implements GraphBuilderModule {
+
+    private final String name;
+    private final Set<GraphBuilderResource> reads;
+    private final Set<GraphBuilderResource> writes;
+    private final Runnable body;
+
+    TestModule(
+      String name,
+      Set<GraphBuilderResource> reads,
+      Set<GraphBuilderResource> writes,
+      Runnable body
+    ) {
+      this.name = name;
+      this.reads = reads;
+      this.writes = writes;
+      this.body = body;
+    }
+
+    @Override
+    public void buildGraph() {
+      body.run();
+      completed.add(name);
+    }
+
+    @Override
+    public void checkInputs() {}
+
+    @Override
+    public Set<GraphBuilderResource> reads() {
+      return reads;
+    }
+
+    @Override
+    public Set<GraphBuilderResource> writes() {
+      return writes;
+    }
+  }
+}
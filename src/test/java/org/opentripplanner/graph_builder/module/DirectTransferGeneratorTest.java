@@ -5,7 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -15,7 +17,10 @@ import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
 import org.opentripplanner.TestOtpModel;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
 import org.opentripplanner.framework.tostring.ToStringBuilder;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.model.PathTransfer;
@@ -24,10 +29,13 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.street.model.StreetTraversalPermission;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.PathwayEdge;
+import org.opentripplanner.street.model.edge.StreetEdge;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.site.PathwayMode;
 import org.opentripplanner.transit.model.network.StopPattern;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopLocation;
@@ -190,6 +198,93 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     );
   }
 
+  @Test
+  public void testReuseNearbyStopSearches(@TempDir Path dir) {
+    var otpModel = model(true);
+    var transitModel = otpModel.transitModel();
+    var subject = generatorWithCache(otpModel, dir);
+
+    subject.buildGraph();
+    assertTrue(dir.resolve(DirectTransferGenerator.NEARBY_STOP_CACHE_FILENAME).toFile().exists());
+    var firstBuild = List.copyOf(transitModel.getAllPathTransfers());
+
+    // The street graph is expected to be the same, so the searches of the first build are reused,
+    // and the shorter street is not used
+    shortcut(V0, V21, 50);
+    subject.buildGraph();
+    var secondBuild = new ArrayList<>(transitModel.getAllPathTransfers());
+    secondBuild.removeAll(firstBuild);
+
+    assertTransfers(
+      secondBuild,
+      tr(S0, 100, List.of(V0, V11), S11),
+      tr(S0, 100, List.of(V0, V21), S21),
+      tr(S11, 100, List.of(V11, V21), S21)
+    );
+  }
+
+  @Test
+  public void testSearchAgainIfThePathWeightIsChanged(@TempDir Path dir) {
+    var otpModel = model(true);
+    var transitModel = otpModel.transitModel();
+    var subject = generatorWithCache(otpModel, dir);
+
+    subject.buildGraph();
+    var firstBuild = List.copyOf(transitModel.getAllPathTransfers());
+
+    // The street used from S0 to S21 is more costly to walk, so S0 is searched again and the
+    // shorter street is found
+    V0
+      .getOutgoing()
+      .stream()
+      .filter(it -> it instanceof StreetEdge && it.getToVertex() == V21)
+      .forEach(it -> ((StreetEdge) it).setStairs(true));
+    shortcut(V0, V21, 50);
+    subject.buildGraph();
+    var secondBuild = new ArrayList<>(transitModel.getAllPathTransfers());
+    secondBuild.removeAll(firstBuild);
+
+    assertTransfers(
+      secondBuild,
+      tr(S0, 100, List.of(V0, V11), S11),
+      tr(S0, 50, List.of(V0, V21), S21),
+      tr(S11, 100, List.of(V11, V21), S21)
+    );
+  }
+
+  @Test
+  public void testSearchAgainNearAddedPathways(@TempDir Path dir) {
+    var otpModel = model(true);
+    var transitModel = otpModel.transitModel();
+    var subject = generatorWithCache(otpModel, dir);
+
+    subject.buildGraph();
+    var firstBuild = List.copyOf(transitModel.getAllPathTransfers());
+
+    new PathwayEdge(
+      S0,
+      S21,
+      null,
+      new NonLocalizedString("pathway"),
+      0,
+      30,
+      0,
+      0,
+      false,
+      PathwayMode.WALKWAY
+    );
+    subject.buildGraph();
+    var secondBuild = new ArrayList<>(transitModel.getAllPathTransfers());
+    secondBuild.removeAll(firstBuild);
+
+    assertTransfers(
+      secondBuild,
+      tr(S0, 100, List.of(V0, V11), S11),
+      tr(S0, 30, List.of(), S21),
+      tr(S11, 100, List.of(V11, V21), S21)
+    );
+  }
+
   @Test
   public void testMultipleRequestsWithoutPatterns() {
     var reqWalk = new RouteRequest();
@@ -273,6 +368,40 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     assertTrue(transitModel.getAllPathTransfers().isEmpty());
   }
 
+  /**
+   * A generator with two walking profiles which result in the same search, which saves the
+   * searches in the given directory.
+   */
+  private DirectTransferGenerator generatorWithCache(TestOtpModel otpModel, Path dir) {
+    var req = new RouteRequest();
+    req.journey().transfer().setMode(StreetMode.WALK);
+    var sameReq = new RouteRequest();
+    sameReq.journey().transfer().setMode(StreetMode.WALK);
+
+    var graph = otpModel.graph();
+    graph.hasStreets = true;
+    return new DirectTransferGenerator(
+      graph,
+      otpModel.transitModel(),
+      DataImportIssueStore.NOOP,
+      MAX_TRANSFER_DURATION,
+      List.of(req, sameReq),
+      dir.resolve(DirectTransferGenerator.NEARBY_STOP_CACHE_FILENAME).toFile()
+    );
+  }
+
+  private static void shortcut(StreetVertex from, StreetVertex to, double length) {
+    new StreetEdge(
+      from,
+      to,
+      GeometryUtils.makeLineString(from.getLat(), from.getLon(), to.getLat(), to.getLon()),
+      "shortcut",
+      length,
+      StreetTraversalPermission.ALL,
+      false
+    );
+  }
+
   private TestOtpModel model(boolean addPatterns) {
     return model(addPatterns, false);
   }
@@ -0,0 +1,104 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class NodeCoordinateStoreTest {
+
+  @Test
+  void sortedNodes() throws IOException {
+    try (var subject = NodeCoordinateStore.createTemporary()) {
+      for (long id = 1; id <= 1000; ++id) {
+        subject.add(id * 2, lat(id * 2), lon(id * 2));
+      }
+
+      assertEquals(1000, subject.size());
+      assertNode(subject, 2);
+      assertNode(subject, 1000);
+      assertNode(subject, 2000);
+      assertFalse(subject.contains(1));
+      assertFalse(subject.contains(2001));
+      assertNull(subject.getNode(999));
+    }
+  }
+
+  @Test
+  void unsortedNodesWithDuplicates() throws IOException {
+    List<Long> ids = new ArrayList<>();
+    for (long id = -500; id < 5000; ++id) {
+      ids.add(id);
+    }
+    ids.addAll(ids.subList(0, 100));
+    Collections.shuffle(ids, new Random(42));
+
+    try (var subject = NodeCoordinateStore.createTemporary()) {
+      ids.forEach(id -> subject.add(id, lat(id), lon(id)));
+
+      assertEquals(5500, subject.size());
+      for (long id = -500; id < 5000; ++id) {
+        assertNode(subject, id);
+      }
+
+      // Nodes added after the lookup are found
+      subject.add(-1000, lat(-1000), lon(-1000));
+      assertNode(subject, -1000);
+      assertEquals(5501, subject.size());
+    }
+  }
+
+  @Test
+  void firstOfDuplicateNodesIsKept() throws IOException {
+    List<Long> ids = new ArrayList<>();
+    for (long id = 0; id < 1000; ++id) {
+      ids.add(id);
+    }
+    Collections.shuffle(ids, new Random(7));
+
+    try (var subject = NodeCoordinateStore.createTemporary()) {
+      ids.forEach(id -> subject.add(id, lat(id), lon(id)));
+      // The duplicates have other coordinates, and are added several times
+      for (int i = 0; i < 3; ++i) {
+        ids.forEach(id -> subject.add(id, lat(id + 1), lon(id + 1)));
+      }
+
+      assertEquals(1000, subject.size());
+      for (long id = 0; id < 1000; ++id) {
+        assertNode(subject, id);
+      }
+    }
+  }
+
+  @Test
+  void empty() throws IOException {
+    try (var subject = NodeCoordinateStore.createTemporary()) {
+      assertEquals(0, subject.size());
+      assertNull(subject.getNode(1));
+    }
+  }
+
+  private static void assertNode(NodeCoordinateStore subject, long id) {
+    assertTrue(subject.contains(id));
+    var node = subject.getNode(id);
+    assertEquals(id, node.getId());
+    assertEquals(lat(id), node.lat);
+    assertEquals(lon(id), node.lon);
+    assertTrue(node.getTags() == null || node.getTags().isEmpty());
+  }
+
+  private static double lat(long id) {
+    return 59.9 + id * 1e-7;
+  }
+
+  private static double lon(long id) {
+    return 10.7 - id * 1e-7;
+  }
+}
@@ -47,4 +47,40 @@ public class OpenStreetMapParserTest {
     assertEquals("Potlatch 0.9a", wayA.getTag("created_by"));
     assertEquals("secondary", wayA.getTag("highway"));
   }
+
+  @Test
+  public void testMemoryMappedNodeStorage() {
+    File osmFile = new File(
+      URLDecoder.decode(getClass().getResource("map.osm.pbf").getPath(), StandardCharsets.UTF_8)
+    );
+    OpenStreetMapProvider pr = new OpenStreetMapProvider(osmFile, true);
+    OSMDatabase heap = new OSMDatabase(DataImportIssueStore.NOOP, Set.of());
+    OSMDatabase mapped = new OSMDatabase(
+      DataImportIssueStore.NOOP,
+      Set.of(),
+      OsmNodeStorage.MEMORY_MAPPED
+    );
+    try {
+      pr.readOSM(heap);
+      pr.readOSM(mapped);
+
+      assertEquals(2297, mapped.nodeCount());
+
+      for (OSMWay way : heap.getWays()) {
+        for (long nodeId : way.getNodeRefs().toArray()) {
+          OSMNode expected = heap.getNode(nodeId);
+          OSMNode actual = mapped.getNode(nodeId);
+          assertEquals(expected.getId(), actual.getId());
+          assertEquals(expected.lat, actual.lat);
+          assertEquals(expected.lon, actual.lon);
+          assertEquals(expected.getTags(), actual.getTags());
+        }
+      }
+
+      OSMNode nodeA = mapped.getNode(314192918L);
+      assertEquals("level_crossing", nodeA.getTag("railway"));
+    } finally {
+      mapped.close();
+    }
+  }
 }
@@ -0,0 +1,80 @@
+package org.opentripplanner.inspector.vector;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.inspector.vector.VectorTileCache.TileKey;
+
+class VectorTileCacheTest {
+
+  private static final byte[] TILE = { 1, 2, 3, 4, 5, 6, 7, 8 };
+  private static final byte[] OTHER_TILE = { 8, 7, 6, 5, 4, 3, 2, 1 };
+
+  private final VectorTileCache subject = new VectorTileCache(1);
+  private final AtomicInteger numOfBuilds = new AtomicInteger();
+
+  @Test
+  void tileIsOnlyBuiltOnce() {
+    var tile = subject.get(key(1), this::buildTile);
+    var cached = subject.get(key(1), this::buildTile);
+
+    assertEquals(1, numOfBuilds.get());
+    assertEquals(1, subject.size());
+    assertTrue(tile.compressed());
+    assertArrayEquals(TILE, cached.uncompressed());
+    assertEquals(tile.etag(), cached.etag());
+  }
+
+  @Test
+  void tileIsRebuiltWhenTheDataVersionChanges() {
+    subject.get(key(1), this::buildTile);
+    subject.get(key(2), this::buildTile);
+
+    assertEquals(2, numOfBuilds.get());
+  }
+
+  @Test
+  void etagIsTheSameForTheSameTile() {
+    var cached = subject.get(key(1), this::buildTile);
+    var notCached = VectorTileCache.disabled().get(key(1), this::buildTile);
+    var otherTile = VectorTileCache.disabled().get(key(1), () -> OTHER_TILE);
+
+    assertFalse(notCached.compressed());
+    assertArrayEquals(TILE, notCached.data());
+    assertEquals(cached.etag(), notCached.etag());
+    assertFalse(cached.etag().equals(otherTile.etag()));
+  }
+
+  @Test
+  void disabled() {
+    var cache = VectorTileCache.disabled();
+    cache.get(key(1), this::buildTile);
+    cache.get(key(1), this::buildTile);
+
+    assertFalse(cache.isEnabled());
+    assertEquals(2, numOfBuilds.get());
+    assertEquals(0, cache.size());
+  }
+
+  private byte[] buildTile() {
+    numOfBuilds.incrementAndGet();
+    return TILE;
+  }
+
+  private static TileKey key(long version) {
+    return new TileKey(
+      List.of("stops", "rentalVehicles"),
+      List.of(0L, version),
+      1,
+      2,
+      3,
+      Locale.US
+    );
+  }
+}
@@ -0,0 +1,137 @@
+package org.opentripplanner.inspector.vector;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import edu.colorado.cires.cmg.mvt.VectorTile;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.api.mapping.PropertyMapper;
+import org.opentripplanner.api.resource.WebMercatorTile;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+
+class VectorTilePyramidTest {
+
+  private static final String GRAPH_ID = "graph-1";
+  private static final double LON = 10.75;
+  private static final double LAT = 59.91;
+  private static final int Z = 12;
+  private static final int X = WebMercatorTile.lon2tileX(LON, Z);
+  private static final int Y = WebMercatorTile.lat2tileY(LAT, Z);
+
+  private static final TestLayer LAYER = new TestLayer("points", 11, 13, 0.25);
+
+  @TempDir
+  File tempDir;
+
+  @Test
+  void findPreRenderedTile() throws IOException {
+    var subject = build(LAYER);
+
+    var tile = subject.find(LAYER, Locale.ENGLISH, X, Y, Z);
+    byte[] bytes = new byte[tile.remaining()];
+    tile.get(bytes);
+
+    var expected = VectorTile.Tile
+      .newBuilder()
+      .addLayers(createLayerBuilder(LAYER).build(WebMercatorTile.tile2Envelope(X, Y, Z)))
+      .build()
+      .toByteArray();
+    assertArrayEquals(expected, bytes);
+    assertEquals(1, VectorTile.Tile.parseFrom(bytes).getLayers(0).getFeaturesCount());
+  }
+
+  @Test
+  void tilesWithoutFeaturesAreEmpty() throws IOException {
+    var subject = build(LAYER);
+
+    assertEquals(0, subject.find(LAYER, Locale.ENGLISH, X + 10, Y, Z).remaining());
+  }
+
+  @Test
+  void layerIsNotUsedForOtherParameters() throws IOException {
+    var subject = build(LAYER);
+
+    // Outside the zoom levels
+    assertNull(subject.find(LAYER, Locale.ENGLISH, X / 4, Y / 4, Z - 2));
+    // Another language
+    assertNull(subject.find(LAYER, Locale.GERMAN, X, Y, Z));
+    // Another expansion factor
+    assertNull(subject.find(new TestLayer("points", 11, 13, 0.5), Locale.ENGLISH, X, Y, Z));
+  }
+
+  @Test
+  void fileBuiltForAnotherGraphIsNotUsed() throws IOException {
+    build(LAYER);
+
+    var file = new File(tempDir, VectorTilePyramid.FILENAME);
+    assertSame(VectorTilePyramid.EMPTY, VectorTilePyramid.open(file, "graph-2"));
+    assertSame(VectorTilePyramid.EMPTY, VectorTilePyramid.open(file, null));
+    assertSame(
+      VectorTilePyramid.EMPTY,
+      VectorTilePyramid.open(new File(tempDir, "missing.bin"), GRAPH_ID)
+    );
+  }
+
+  private VectorTilePyramid build(TestLayer layer) throws IOException {
+    var file = new File(tempDir, VectorTilePyramid.FILENAME);
+    new VectorTilePyramidBuilder<>(
+      List.of(layer),
+      (params, locale, graph, transitService) -> createLayerBuilder(params),
+      null,
+      null,
+      Locale.ENGLISH,
+      20
+    )
+      .write(file, GRAPH_ID);
+    return VectorTilePyramid.open(file, GRAPH_ID);
+  }
+
+  private static LayerBuilder<String> createLayerBuilder(LayerParameters<?> params) {
+    return new LayerBuilder<>(new TestMapper(), params.name(), params.expansionFactor()) {
+      @Override
+      protected List<Geometry> getGeometries(Envelope query) {
+        Geometry point = GeometryUtils
+          .getGeometryFactory()
+          .createPoint(new Coordinate(LON, LAT));
+        point.setUserData("A");
+        return query.contains(point.getCoordinate()) ? List.of(point) : List.of();
+      }
+    };
+  }
+
+  enum TestLayerType {
+    Points,
+  }
+
+  record TestLayer(String name, int minZoom, int maxZoom, double expansionFactor)
+    implements LayerParameters<TestLayerType> {
+    @Override
+    public TestLayerType type() {
+      return TestLayerType.Points;
+    }
+
+    @Override
+    public String mapper() {
+      return "Test";
+    }
+  }
+
+  static class TestMapper extends PropertyMapper<String> {
+
+    @Override
+    protected Collection<KeyValue> map(String input) {
+      return List.of(new KeyValue("name", input));
+    }
+  }
+}
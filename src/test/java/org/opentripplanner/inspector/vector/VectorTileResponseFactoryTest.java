@@ -0,0 +1,33 @@
+package org.opentripplanner.inspector.vector;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VectorTileResponseFactoryTest {
+
+  private static final VectorTileCache.EncodedTile TILE = new VectorTileCache.EncodedTile(
+    new byte[0],
+    false,
+    "\"abc\""
+  );
+
+  @Test
+  void matchesEtag() {
+    assertTrue(VectorTileResponseFactory.matchesEtag("\"abc\"", TILE));
+    assertTrue(VectorTileResponseFactory.matchesEtag("\"xyz\", W/\"abc\"", TILE));
+    assertTrue(VectorTileResponseFactory.matchesEtag("*", TILE));
+    assertFalse(VectorTileResponseFactory.matchesEtag("\"xyz\"", TILE));
+    assertFalse(VectorTileResponseFactory.matchesEtag(null, TILE));
+  }
+
+  @Test
+  void acceptsGzip() {
+    assertTrue(VectorTileResponseFactory.acceptsGzip("gzip"));
+    assertTrue(VectorTileResponseFactory.acceptsGzip("deflate, GZIP;q=0.5, br"));
+    assertFalse(VectorTileResponseFactory.acceptsGzip("gzip;q=0"));
+    assertFalse(VectorTileResponseFactory.acceptsGzip("deflate, br"));
+    assertFalse(VectorTileResponseFactory.acceptsGzip(null));
+  }
+}
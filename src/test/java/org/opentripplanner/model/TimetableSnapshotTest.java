@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
@@ -260,6 +261,35 @@ public class TimetableSnapshotTest {
     assertFalse(resolver.isDirty());
   }
 
+  @Test
+  public void testRevertLastAddedTrip() {
+    LocalDate today = LocalDate.now(timeZone);
+    TripPattern pattern = patternIndex.get(new FeedScopedId(feedId, "1.1"));
+    TripPattern addedPattern = TripPattern
+      .of(new FeedScopedId(feedId, "added"))
+      .withRoute(pattern.getRoute())
+      .withStopPattern(pattern.getStopPattern())
+      .withCreatedByRealtimeUpdater(true)
+      .build();
+    var tripTimes = pattern.getScheduledTimetable().getTripTimes(new FeedScopedId(feedId, "1.1"));
+    var stop = pattern.getStop(0);
+
+    TimetableSnapshot resolver = new TimetableSnapshot();
+    resolver.update(addedPattern, tripTimes, today);
+    assertNotNull(resolver.commit());
+
+    assertNotSame(addedPattern.getScheduledTimetable(), resolver.resolve(addedPattern, today));
+    assertTrue(resolver.getPatternsForStop(stop).contains(addedPattern));
+
+    resolver.revertTrip(tripTimes.getTrip().getId(), today, null);
+    TimetableSnapshot snapshot = resolver.commit();
+
+    assertNotNull(snapshot);
+    assertSame(addedPattern.getScheduledTimetable(), snapshot.resolve(addedPattern, today));
+    assertFalse(snapshot.getPatternsForStop(stop).contains(addedPattern));
+    assertNull(snapshot.getRealtimeAddedTripPattern(tripTimes.getTrip().getId(), today));
+  }
+
   private Result<?, UpdateError> updateResolver(
     TimetableSnapshot resolver,
     TripPattern pattern,
@@ -0,0 +1,93 @@
+package org.opentripplanner.openstreetmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMRelation;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+import org.opentripplanner.openstreetmap.spi.OSMDatabase;
+
+class OsmPbfReaderTest {
+
+  private final File osmFile = new File(
+    URLDecoder.decode(
+      getClass().getResource("/org/opentripplanner/graph_builder/module/osm/map.osm.pbf").getPath(),
+      StandardCharsets.UTF_8
+    )
+  );
+
+  @Test
+  void entitiesAreAddedInTheOrderOfTheFile() throws IOException {
+    var sequential = read(1, 1);
+    var parallel = read(4, 3);
+
+    // All entities in the file, the database filters out the ones which are not used
+    assertEquals(7197, sequential.nodes.size());
+    assertEquals(sequential.nodes, parallel.nodes);
+    assertEquals(sequential.ways, parallel.ways);
+    assertEquals(sequential.relations, parallel.relations);
+  }
+
+  private RecordingDatabase read(int nThreads, int maxBlocksInProgress) throws IOException {
+    var osmdb = new RecordingDatabase();
+    var executor = Executors.newFixedThreadPool(nThreads);
+    try {
+      var reader = new OsmPbfReader(
+        new OpenStreetMapProvider(osmFile, false),
+        new ConcurrentHashMap<>(),
+        executor,
+        maxBlocksInProgress
+      );
+      for (OsmParserPhase phase : OsmParserPhase.values()) {
+        try (InputStream in = Files.newInputStream(osmFile.toPath())) {
+          reader.read(in, phase, osmdb);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return osmdb;
+  }
+
+  private static class RecordingDatabase implements OSMDatabase {
+
+    private final List<Long> nodes = new ArrayList<>();
+    private final List<Long> ways = new ArrayList<>();
+    private final List<Long> relations = new ArrayList<>();
+
+    @Override
+    public void addNode(OSMNode node) {
+      nodes.add(node.getId());
+    }
+
+    @Override
+    public void addWay(OSMWay way) {
+      ways.add(way.getId());
+    }
+
+    @Override
+    public void addRelation(OSMRelation relation) {
+      relations.add(relation.getId());
+    }
+
+    @Override
+    public void doneFirstPhaseRelations() {}
+
+    @Override
+    public void doneSecondPhaseWays() {}
+
+    @Override
+    public void doneThirdPhaseNodes() {}
+  }
+}
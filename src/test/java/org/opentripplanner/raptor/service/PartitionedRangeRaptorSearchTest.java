@@ -0,0 +1,169 @@
+package org.opentripplanner.raptor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.raptor._data.api.PathUtils.pathsToString;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+class PartitionedRangeRaptorSearchTest implements RaptorTestConstants {
+
+  private static final int PARTITION_MINUTES = 10;
+  private static final int D30m = 3 * D10m;
+  private static final int T00_20 = T00_10 + D10m;
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+
+  private final RaptorConfig<TestTripSchedule> config = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 2;
+      }
+
+      @Override
+      public int searchWindowPartitionMinutes() {
+        return PARTITION_MINUTES;
+      }
+    }
+  );
+
+  /**
+   * Stops: B, C, D
+   * <p>
+   * R1 is a slow direct route from B to D, R2 and R3 is faster, but need a transfer at C. The trips
+   * depart every 7th/9th minute, so the optimal paths change across the partition borders.
+   */
+  @BeforeEach
+  void setup() {
+    data
+      .withRoute(
+        route(pattern("R1", STOP_B, STOP_D))
+          .withTimetable(
+            schedule("00:02 00:30"),
+            schedule("00:11 00:39"),
+            schedule("00:20 00:48"),
+            schedule("00:29 00:57")
+          )
+      )
+      .withRoute(
+        route(pattern("R2", STOP_B, STOP_C))
+          .withTimetable(
+            schedule("00:05 00:10"),
+            schedule("00:12 00:17"),
+            schedule("00:19 00:24"),
+            schedule("00:26 00:31")
+          )
+      )
+      .withRoute(
+        route(pattern("R3", STOP_C, STOP_D))
+          .withTimetable(
+            schedule("00:13 00:20"),
+            schedule("00:22 00:29"),
+            schedule("00:31 00:38"),
+            schedule("00:40 00:47")
+          )
+      );
+
+    requestBuilder
+      .profile(RaptorProfile.MULTI_CRITERIA)
+      .enableOptimization(Optimization.PARALLEL)
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(STOP_B, D1m))
+      .addEgressPaths(TestAccessEgress.walk(STOP_D, D1m))
+      .earliestDepartureTime(T00_00)
+      .searchWindowInSeconds(D30m);
+  }
+
+  @AfterEach
+  void shutdown() {
+    config.shutdown();
+  }
+
+  @Test
+  void isEnabled() {
+    assertTrue(PartitionedRangeRaptorSearch.isEnabled(config, requestBuilder.build()));
+
+    var request = requestBuilder.build();
+    assertFalse(
+      PartitionedRangeRaptorSearch.isEnabled(RaptorConfig.defaultConfigForTest(), request)
+    );
+    assertFalse(
+      PartitionedRangeRaptorSearch.isEnabled(
+        config,
+        request.mutate().profile(RaptorProfile.STANDARD).build()
+      )
+    );
+    assertFalse(
+      PartitionedRangeRaptorSearch.isEnabled(
+        config,
+        request.mutate().searchDirection(SearchDirection.REVERSE).build()
+      )
+    );
+    assertFalse(
+      PartitionedRangeRaptorSearch.isEnabled(
+        config,
+        request.mutate().clearOptimizations().build()
+      )
+    );
+    assertFalse(
+      PartitionedRangeRaptorSearch.isEnabled(
+        config,
+        request.mutate().searchParams().searchWindowInSeconds(D10m).build()
+      )
+    );
+  }
+
+  @Test
+  void partitionRequests() {
+    var request = requestBuilder.searchParams().searchWindowInSeconds(D30m + D5m).build();
+
+    var partitions = PartitionedRangeRaptorSearch.partitionRequests(request, D10m);
+
+    assertEquals(3, partitions.size());
+    assertPartition(T00_00, D10m, partitions.get(0));
+    assertPartition(T00_10, D10m, partitions.get(1));
+    assertPartition(T00_20, D10m + D5m, partitions.get(2));
+  }
+
+  @Test
+  void sameResultAsSearchingTheWholeSearchWindow() {
+    var request = requestBuilder.build();
+
+    var expected = pathsToString(
+      new RaptorService<>(RaptorConfig.<TestTripSchedule>defaultConfigForTest())
+        .route(request, data)
+    );
+    var result = pathsToString(new RaptorService<>(config).route(request, data));
+
+    assertEquals(expected, result);
+  }
+
+  private static void assertPartition(
+    int expectedEdt,
+    int expectedSearchWindow,
+    RaptorRequest<TestTripSchedule> request
+  ) {
+    assertEquals(expectedEdt, request.searchParams().earliestDepartureTime());
+    assertEquals(expectedSearchWindow, request.searchParams().searchWindowInSeconds());
+  }
+}
@@ -0,0 +1,133 @@
+package org.opentripplanner.raptor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+import static org.opentripplanner.raptor.api.RaptorConstants.TIME_UNREACHED_FORWARD;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.time.TimeUtils;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+class RangeRaptorBatchSearchTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+
+  private final RaptorConfig<TestTripSchedule> config = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 2;
+      }
+    }
+  );
+
+  /**
+   * Stops: A, B, C, D
+   * <p>
+   * R1: A - B - C - D
+   */
+  @BeforeEach
+  void setup() {
+    data.withRoute(
+      route(pattern("R1", STOP_A, STOP_B, STOP_C, STOP_D))
+        .withTimetable(
+          schedule("00:02 00:04 00:06 00:08"),
+          schedule("00:12 00:14 00:16 00:18")
+        )
+    );
+    requestBuilder
+      .profile(RaptorProfile.BEST_TIME)
+      .searchParams()
+      .earliestDepartureTime(T00_00)
+      .searchWindowInSeconds(D10m)
+      .allowEmptyEgressPaths(true);
+  }
+
+  @AfterEach
+  void shutdown() {
+    config.shutdown();
+  }
+
+  @Test
+  void routeEachOrigin() {
+    var request = requestBuilder.buildBatch(
+      List.of(
+        List.of(TestAccessEgress.walk(STOP_A, D1m)),
+        List.of(TestAccessEgress.walk(STOP_C, D1m)),
+        List.of(TestAccessEgress.walk(STOP_B, D1m), TestAccessEgress.walk(STOP_C, D5m))
+      )
+    );
+
+    var singleThreaded = RaptorConfig.<TestTripSchedule>defaultConfigForTest();
+
+    for (var raptorConfig : List.of(singleThreaded, config)) {
+      var response = new RaptorService<>(raptorConfig).route(request, data);
+
+      assertEquals(3, response.numberOfOrigins());
+      assertArrivalTimes("-, 0:01, 0:04, 0:06, 0:08", response.arrivalTimes(0));
+      assertArrivalTimes("-, -, -, 0:01, 0:08", response.arrivalTimes(1));
+      assertArrivalTimes("-, -, 0:01, 0:05, 0:08", response.arrivalTimes(2));
+    }
+  }
+
+  @Test
+  void onlyBestTimeProfileIsSupported() {
+    requestBuilder.profile(RaptorProfile.STANDARD);
+    var origins = List.of(List.of(TestAccessEgress.walk(STOP_A, D1m)));
+
+    assertThrows(IllegalArgumentException.class, () -> requestBuilder.buildBatch(origins));
+  }
+
+  @Test
+  void emptyEgressPathsMustBeAllowed() {
+    requestBuilder
+      .searchParams()
+      .allowEmptyEgressPaths(false)
+      .addEgressPaths(TestAccessEgress.walk(STOP_D, D1m));
+    var origins = List.of(List.of(TestAccessEgress.walk(STOP_A, D1m)));
+
+    assertThrows(IllegalArgumentException.class, () -> requestBuilder.buildBatch(origins));
+  }
+
+  @Test
+  void buildBatchDoesNotChangeTheBuilder() {
+    var access = TestAccessEgress.walk(STOP_B, D1m);
+    requestBuilder.searchParams().addAccessPaths(access);
+
+    var request = requestBuilder.buildBatch(
+      List.of(List.of(TestAccessEgress.walk(STOP_A, D1m)))
+    );
+
+    assertEquals(List.of(access), List.copyOf(requestBuilder.searchParams().accessPaths()));
+
+    var accessPaths = request.requestForOrigin(0).searchParams().accessPaths();
+    assertEquals(1, accessPaths.size());
+    assertEquals(STOP_A, accessPaths.iterator().next().stop());
+  }
+
+  private static void assertArrivalTimes(String expected, int[] arrivalTimes) {
+    var buf = new StringBuilder();
+    for (int time : arrivalTimes) {
+      if (!buf.isEmpty()) {
+        buf.append(", ");
+      }
+      buf.append(time == TIME_UNREACHED_FORWARD ? "-" : TimeUtils.timeToStrCompact(time));
+    }
+    assertEquals(expected, buf.toString());
+  }
+}
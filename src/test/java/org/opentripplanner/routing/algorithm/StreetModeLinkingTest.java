@@ -13,6 +13,7 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
@@ -142,6 +143,36 @@ public class StreetModeLinkingTest extends GraphRoutingTest {
     assertLinkedFromTo("STOP", "D1D2 street", streetModes);
   }
 
+  @Test
+  public void testLinkingWithPermissionOverlay() {
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf();
+    graph
+      .getStreetEdges()
+      .stream()
+      .filter(it -> it.getDefaultName().equals("D1D2 street"))
+      .forEach(it -> overlay.withPermission(it, StreetTraversalPermission.NONE));
+
+    var routingRequest = new RouteRequest();
+    routingRequest.setFrom(new GenericLocation(47.501, 19.03));
+    routingRequest.setTo(new GenericLocation(null, null));
+
+    try (
+      var temporaryVertices = new TemporaryVerticesContainer(
+        graph,
+        routingRequest,
+        StreetMode.WALK,
+        StreetMode.WALK,
+        overlay.build()
+      )
+    ) {
+      assertFromLink(
+        "C1C2 street",
+        StreetMode.WALK,
+        temporaryVertices.getFromVertices().iterator().next()
+      );
+    }
+  }
+
   // Linking to wheelchair accessible streets is currently not implemented.
 
   @Test
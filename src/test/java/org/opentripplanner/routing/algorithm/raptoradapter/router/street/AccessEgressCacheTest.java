@@ -0,0 +1,227 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.street.model._data.StreetModelForTest.V1;
+import static org.opentripplanner.street.model._data.StreetModelForTest.V2;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
+import org.opentripplanner.routing.vehicle_rental.VehicleRentalService;
+import org.opentripplanner.routing.vehicle_rental.VehicleRentalStation;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+class AccessEgressCacheTest {
+
+  private static final Duration LIMIT = Duration.ofMinutes(30);
+
+  private final AccessEgressCache subject = new AccessEgressCache(10, Duration.ofHours(1));
+  private final RouteRequest request = new RouteRequest();
+  private final VehicleRentalService rentalService = new VehicleRentalService();
+  private final VehicleParkingService parkingService = new VehicleParkingService();
+  private final List<NearbyStop> searchResult = List.of();
+  private StreetPermissionOverlay permissionOverlay = StreetPermissionOverlay.EMPTY;
+  private int numberOfSearches = 0;
+  private int numberOfCopies = 0;
+  private boolean copyFails = false;
+
+  @Test
+  void repeatedSearchIsCached() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(1, numberOfSearches);
+
+    // Other origin, direction or mode
+    search(Set.of(V2), StreetMode.WALK, false);
+    search(Set.of(V1), StreetMode.WALK, true);
+    search(Set.of(V1), StreetMode.BIKE, false);
+    assertEquals(4, numberOfSearches);
+    assertEquals(4, subject.size());
+  }
+
+  @Test
+  void temporaryVerticesAreIdentifiedByCoordinate() {
+    search(Set.of(temporaryVertex(10.0, 60.0)), StreetMode.WALK, false);
+    search(Set.of(temporaryVertex(10.0, 60.0)), StreetMode.WALK, false);
+    assertEquals(1, numberOfSearches);
+
+    search(Set.of(temporaryVertex(10.0, 60.1)), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void temporaryVerticesWithOtherNamesAreNotShared() {
+    // The name of the origin is used in the itinerary, so it must not leak to other requests
+    search(Set.of(temporaryVertex(10.0, 60.0, "Home")), StreetMode.WALK, false);
+    search(Set.of(temporaryVertex(10.0, 60.0, "Work")), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+
+    search(Set.of(temporaryVertex(10.0, 60.0, "Home")), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void preferencesArePartOfTheKey() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    request.withPreferences(p -> p.withWalk(w -> w.withSpeed(2.0)));
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void permissionVersionIsPartOfTheKey() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    permissionOverlay = permissionOverlay.cleared();
+    search(Set.of(V1), StreetMode.WALK, false);
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void cachedStopsAreCopiedToTheRequest() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(0, numberOfCopies);
+
+    var result = search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(1, numberOfSearches);
+    assertEquals(1, numberOfCopies);
+    assertSame(searchResult, result);
+  }
+
+  @Test
+  void searchAgainIfTheCachedStopsCanNotBeCopied() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    copyFails = true;
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+    assertEquals(1, subject.size());
+  }
+
+  @Test
+  void rentalChangesArePartOfTheKey() {
+    search(Set.of(V1), StreetMode.BIKE_RENTAL, false);
+    search(Set.of(V1), StreetMode.BIKE_RENTAL, false);
+    assertEquals(1, numberOfSearches);
+
+    var station = new VehicleRentalStation();
+    station.id = new FeedScopedId("Network", "S1");
+    rentalService.addVehicleRentalStation(station);
+    search(Set.of(V1), StreetMode.BIKE_RENTAL, false);
+    assertEquals(2, numberOfSearches);
+
+    // Modes without rental are not affected
+    search(Set.of(V1), StreetMode.WALK, false);
+    rentalService.addVehicleRentalStation(station);
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(3, numberOfSearches);
+  }
+
+  @Test
+  void parkingChangesArePartOfTheKey() {
+    search(Set.of(V1), StreetMode.CAR_TO_PARK, false);
+    search(Set.of(V1), StreetMode.CAR_TO_PARK, false);
+    assertEquals(1, numberOfSearches);
+
+    parkingService.updateVehicleParking(List.of(), List.of());
+    search(Set.of(V1), StreetMode.CAR_TO_PARK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void flexibleModeIsNotCached() {
+    search(Set.of(V1), StreetMode.FLEXIBLE, false);
+    search(Set.of(V1), StreetMode.FLEXIBLE, false);
+    assertEquals(2, numberOfSearches);
+    assertEquals(0, subject.size());
+  }
+
+  @Test
+  void invalidateAll() {
+    search(Set.of(V1), StreetMode.WALK, false);
+    subject.invalidateAll();
+    search(Set.of(V1), StreetMode.WALK, false);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void disabled() {
+    var cache = AccessEgressCache.disabled();
+    cache.streetSearch(
+      request,
+      Set.of(V1),
+      StreetMode.WALK,
+      false,
+      LIMIT,
+      permissionOverlay,
+      rentalService,
+      parkingService,
+      this::streetSearch,
+      this::copy
+    );
+    cache.streetSearch(
+      request,
+      Set.of(V1),
+      StreetMode.WALK,
+      false,
+      LIMIT,
+      permissionOverlay,
+      rentalService,
+      parkingService,
+      this::streetSearch,
+      this::copy
+    );
+    assertEquals(2, numberOfSearches);
+  }
+
+  private Collection<NearbyStop> search(Set<Vertex> origin, StreetMode mode, boolean fromTarget) {
+    return subject.streetSearch(
+      request,
+      origin,
+      mode,
+      fromTarget,
+      LIMIT,
+      permissionOverlay,
+      rentalService,
+      parkingService,
+      this::streetSearch,
+      this::copy
+    );
+  }
+
+  private Collection<NearbyStop> streetSearch() {
+    ++numberOfSearches;
+    return searchResult;
+  }
+
+  private Collection<NearbyStop> copy(Collection<NearbyStop> cached) {
+    ++numberOfCopies;
+    return copyFails ? null : searchResult;
+  }
+
+  private static TemporaryStreetLocation temporaryVertex(double x, double y) {
+    return temporaryVertex(x, y, "origin");
+  }
+
+  private static TemporaryStreetLocation temporaryVertex(double x, double y, String name) {
+    // The label is unique for each request
+    return new TemporaryStreetLocation(
+      UUID.randomUUID().toString(),
+      new Coordinate(x, y),
+      new NonLocalizedString(name),
+      false
+    );
+  }
+}
@@ -0,0 +1,95 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.TemporaryFreeEdge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.intersection_model.ConstantIntersectionTraversalCalculator;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.site.RegularStop;
+
+class NearbyStopCopierTest {
+
+  private static final RegularStop STOP = TransitModelForTest.stop("S1").build();
+
+  private final IntersectionVertex a = intersectionVertex("A", 60.0, 10.0);
+  private final IntersectionVertex b = intersectionVertex("B", 60.0, 10.001);
+  private final StreetEdge ab = streetEdge(a, b);
+
+  @Test
+  void copyPathFromTheTemporaryVertexOfThisRequest() {
+    var cached = nearbyStop(origin("o1", 10.0), ab);
+    var origin = origin("o2", 10.0);
+    var freeEdge = new TemporaryFreeEdge(origin, a);
+
+    var result = new NearbyStopCopier(List.of(initialState(origin)), false)
+      .copy(List.of(cached));
+
+    assertNotNull(result);
+    var copy = result.get(0);
+    assertSame(STOP, copy.stop);
+    assertSame(b, copy.state.getVertex());
+    assertEquals(List.of(freeEdge, ab), copy.edges);
+    assertEquals(cached.state.getWeight(), copy.state.getWeight(), 0.001);
+  }
+
+  @Test
+  void pathFromOtherCoordinateIsNotCopied() {
+    var cached = nearbyStop(origin("o1", 10.0), ab);
+    var origin = origin("o2", 10.0001);
+    new TemporaryFreeEdge(origin, a);
+
+    var result = new NearbyStopCopier(List.of(initialState(origin)), false)
+      .copy(List.of(cached));
+
+    assertNull(result);
+  }
+
+  @Test
+  void pathFromPermanentVertexIsUsedAsIs() {
+    var s0 = initialState(a);
+    var cached = NearbyStop.nearbyStopForState(ab.traverse(s0), STOP);
+
+    var result = new NearbyStopCopier(List.of(), false).copy(List.of(cached));
+
+    assertNotNull(result);
+    assertSame(cached, result.get(0));
+  }
+
+  private NearbyStop nearbyStop(TemporaryStreetLocation origin, StreetEdge edge) {
+    var freeEdge = new TemporaryFreeEdge(origin, a);
+    var s0 = initialState(origin);
+    return NearbyStop.nearbyStopForState(edge.traverse(freeEdge.traverse(s0)), STOP);
+  }
+
+  private static TemporaryStreetLocation origin(String label, double lon) {
+    return new TemporaryStreetLocation(
+      label,
+      new Coordinate(lon, 60.0),
+      new NonLocalizedString("Origin"),
+      false
+    );
+  }
+
+  private static State initialState(Vertex vertex) {
+    var request = StreetSearchRequest.of().withMode(StreetMode.WALK).build();
+    request.setIntersectionTraversalCalculator(new ConstantIntersectionTraversalCalculator());
+    return new State(vertex, request);
+  }
+}
@@ -0,0 +1,250 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.framework.time.TimeUtils;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.TimetableSnapshot;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.transit.service.TransitModel;
+
+/**
+ * Apply updates with the {@link TransitLayerUpdater}, and check the TripPatternsForDate running on
+ * each date.
+ */
+class TransitLayerUpdaterTest {
+
+  private static final LocalDate D1 = LocalDate.of(2023, 3, 1);
+  private static final LocalDate D2 = LocalDate.of(2023, 3, 2);
+  private static final LocalDate D3 = LocalDate.of(2023, 3, 3);
+  private static final LocalDate D4 = LocalDate.of(2023, 3, 4);
+  private static final List<LocalDate> DATES = List.of(D1, D2, D3, D4);
+
+  private static final int SERVICE_CODE = 0;
+
+  private final Deduplicator deduplicator = new Deduplicator();
+
+  /** A scheduled pattern with a trip running past midnight, into the next date. */
+  private final TripPattern night = pattern("Night", false);
+  private final Trip nightTrip = TransitModelForTest
+    .trip("NightTrip")
+    .withRoute(night.getRoute())
+    .build();
+
+  /** A scheduled pattern with a trip running on the service date only. */
+  private final TripPattern day = pattern("Day", false);
+  private final Trip dayTrip = TransitModelForTest
+    .trip("DayTrip")
+    .withRoute(day.getRoute())
+    .build();
+
+  /** A pattern created by the realtime updater. */
+  private final TripPattern added = pattern("Added", true);
+  private final Trip addedTrip = TransitModelForTest
+    .trip("AddedTrip")
+    .withRoute(added.getRoute())
+    .build();
+
+  private final Map<LocalDate, TIntSet> serviceCodesRunningForDate = new HashMap<>();
+  private final TransitModel transitModel = new TransitModel();
+  private final TransitLayerUpdater subject;
+  private final TimetableSnapshot snapshot = new TimetableSnapshot();
+
+  TransitLayerUpdaterTest() {
+    night.add(tripTimes(nightTrip, "23:00", "25:00"));
+    day.add(tripTimes(dayTrip, "08:00", "09:00"));
+
+    Map<LocalDate, List<TripPatternForDate>> tripPatternsRunningOnDate = new HashMap<>();
+    DATES.forEach(it -> tripPatternsRunningOnDate.put(it, new ArrayList<>()));
+    for (LocalDate date : List.of(D1, D2, D3)) {
+      serviceCodesRunningForDate.put(date, new TIntHashSet(new int[] { SERVICE_CODE }));
+      for (TripPattern pattern : List.of(night, day)) {
+        var tripPatternForDate = new TripPatternForDate(
+          pattern.getRoutingTripPattern(),
+          pattern.getScheduledTimetable().getTripTimes(),
+          List.of(),
+          date
+        );
+        tripPatternForDate
+          .getRunningPeriodDates()
+          .forEach(it -> tripPatternsRunningOnDate.get(it).add(tripPatternForDate));
+      }
+    }
+    var transitLayer = new TransitLayer(
+      tripPatternsRunningOnDate,
+      List.of(),
+      null,
+      new StopModel(),
+      ZoneIds.UTC,
+      null,
+      new RaptorRequestTripPatternCache(5),
+      null,
+      null,
+      null
+    );
+    transitModel.setRealtimeTransitLayer(transitLayer);
+
+    subject = new TransitLayerUpdater(transitModel, serviceCodesRunningForDate);
+  }
+
+  @Test
+  void update() {
+    var night1 = tripTimes(nightTrip, "23:10", "25:10");
+    var added1 = tripTimes(addedTrip, "10:00", "11:00");
+    snapshot.update(night, night1, D1);
+    snapshot.update(added, added1, D2);
+    commit();
+
+    // The night pattern starting on D1 also runs on D2, so D2 is updated together with D1
+    assertTripPatternsForDate(D1, forDate(night, D1, night1), scheduled(day, D1));
+    assertTripPatternsForDate(
+      D2,
+      forDate(night, D1, night1),
+      scheduled(night, D2),
+      scheduled(day, D2),
+      forDate(added, D2, added1)
+    );
+    assertTripPatternsForDate(D3, scheduled(night, D2), scheduled(night, D3), scheduled(day, D3));
+    assertTripPatternsForDate(D4, scheduled(night, D3));
+
+    var night2 = tripTimes(nightTrip, "23:20", "25:20");
+    var day2 = tripTimes(dayTrip, "08:10", "09:10");
+    snapshot.update(night, night2, D1);
+    snapshot.update(day, day2, D3);
+    snapshot.revertTrip(addedTrip.getId(), D2, null);
+    commit();
+
+    // The added pattern has no trips left on D2, and is removed
+    assertTripPatternsForDate(D1, forDate(night, D1, night2), scheduled(day, D1));
+    assertTripPatternsForDate(
+      D2,
+      forDate(night, D1, night2),
+      scheduled(night, D2),
+      scheduled(day, D2)
+    );
+    assertTripPatternsForDate(
+      D3,
+      scheduled(night, D2),
+      scheduled(night, D3),
+      forDate(day, D3, day2)
+    );
+    assertTripPatternsForDate(D4, scheduled(night, D3));
+  }
+
+  @Test
+  void unchangedTripPatternsForDateAreShared() {
+    var before = transitModel.getRealtimeTransitLayer();
+    var dayOnD2 = findStartingOn(before, day, D2);
+    var night1 = tripTimes(nightTrip, "23:10", "25:10");
+
+    snapshot.update(night, night1, D1);
+    commit();
+    var after = transitModel.getRealtimeTransitLayer();
+
+    // D2 is updated, since the night pattern starting on D1 runs on it, but the patterns starting
+    // on D2 are not changed
+    assertSame(dayOnD2, findStartingOn(after, day, D2));
+    assertSame(findStartingOn(before, night, D2), findStartingOn(after, night, D2));
+    // D3 and D4 are not updated
+    assertSame(before.getTripPatternsForDate(D3), after.getTripPatternsForDate(D3));
+    assertSame(before.getTripPatternsForDate(D4), after.getTripPatternsForDate(D4));
+    assertTripPatternsForDate(D1, forDate(night, D1, night1), scheduled(day, D1));
+    assertTripPatternsForDate(
+      D2,
+      forDate(night, D1, night1),
+      scheduled(night, D2),
+      scheduled(day, D2)
+    );
+  }
+
+  /** Commit the snapshot and apply the updated timetables to the transit layer. */
+  private void commit() {
+    snapshot.commit(subject, false);
+  }
+
+  private void assertTripPatternsForDate(LocalDate date, TripPatternForDate... expected) {
+    var result = transitModel.getRealtimeTransitLayer().getTripPatternsForDate(date);
+    assertEquals(Set.of(expected), Set.copyOf(result), date.toString());
+    assertEquals(expected.length, result.size(), date.toString());
+  }
+
+  private static TripPatternForDate scheduled(TripPattern pattern, LocalDate date) {
+    return new TripPatternForDate(
+      pattern.getRoutingTripPattern(),
+      pattern.getScheduledTimetable().getTripTimes(),
+      List.of(),
+      date
+    );
+  }
+
+  private static TripPatternForDate forDate(
+    TripPattern pattern,
+    LocalDate date,
+    TripTimes tripTimes
+  ) {
+    return new TripPatternForDate(
+      pattern.getRoutingTripPattern(),
+      List.of(tripTimes),
+      List.of(),
+      date
+    );
+  }
+
+  private static TripPatternForDate findStartingOn(
+    TransitLayer transitLayer,
+    TripPattern pattern,
+    LocalDate date
+  ) {
+    return transitLayer
+      .getTripPatternsForDate(date)
+      .stream()
+      .filter(it -> it.getTripPattern().getPattern() == pattern && it.getLocalDate().equals(date))
+      .findFirst()
+      .orElseThrow();
+  }
+
+  private TripTimes tripTimes(Trip trip, String departure, String arrival) {
+    var first = new StopTime();
+    first.setDepartureTime(TimeUtils.time(departure));
+    first.setArrivalTime(TimeUtils.time(departure));
+    var last = new StopTime();
+    last.setDepartureTime(TimeUtils.time(arrival));
+    last.setArrivalTime(TimeUtils.time(arrival));
+    var tripTimes = new TripTimes(trip, List.of(first, last), deduplicator);
+    tripTimes.setServiceCode(SERVICE_CODE);
+    return tripTimes;
+  }
+
+  private static TripPattern pattern(String id, boolean createdByRealtimeUpdater) {
+    var stopTime = new StopTime();
+    stopTime.setStop(TransitModelForTest.stopForTest("Stop:" + id, 0.0, 0.0));
+    return TripPattern
+      .of(id(id))
+      .withRoute(TransitModelForTest.route(id).withMode(TransitMode.BUS).build())
+      .withStopPattern(new StopPattern(List.of(stopTime, stopTime)))
+      .withCreatedByRealtimeUpdater(createdByRealtimeUpdater)
+      .build();
+  }
+}
@@ -0,0 +1,167 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.framework.time.ServiceDateUtils;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.RoutingTripPattern;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.StopModel;
+
+class RaptorRequestTripPatternCacheTest {
+
+  private static final LocalDate FIRST = LocalDate.of(2023, 2, 1);
+  private static final LocalDate SECOND = LocalDate.of(2023, 2, 2);
+  private static final LocalDate THIRD = LocalDate.of(2023, 2, 3);
+
+  private static final ZonedDateTime START_OF_TIME = ServiceDateUtils.asStartOfService(
+    SECOND,
+    ZoneIds.LONDON
+  );
+
+  private final RoutingTripPattern pattern = createTripPattern();
+  private final TransitLayer transitLayer = createTransitLayer();
+  private final RaptorRequestTripPatternCache subject = transitLayer.getTripPatternCache();
+
+  @Test
+  void shareResultForEqualFilters() {
+    var first = get(transitLayer, new TestFilter("A"));
+
+    assertSame(first, get(transitLayer, new TestFilter("A")));
+    assertNotSame(first, get(transitLayer, new TestFilter("B")));
+    assertEquals(2, subject.size());
+
+    var patterns = first.patternIndex().get(pattern.patternIndex());
+    assertEquals(2, patterns.numberOfTripSchedules());
+  }
+
+  @Test
+  void doNotCacheFiltersWithoutCacheKey() {
+    var first = get(transitLayer, new TestFilter(null));
+
+    assertNotSame(first, get(transitLayer, new TestFilter(null)));
+    assertEquals(0, subject.size());
+  }
+
+  @Test
+  void evictEntriesForReplacedDates() {
+    var first = get(transitLayer, new TestFilter("A"));
+
+    // The third day is not part of the search, so the entry is kept
+    transitLayer.replaceTripPatternsForDate(THIRD, List.of());
+    assertSame(first, get(transitLayer, new TestFilter("A")));
+
+    transitLayer.replaceTripPatternsForDate(FIRST, List.of());
+    var second = get(transitLayer, new TestFilter("A"));
+    assertNotSame(first, second);
+    assertEquals(1, second.patternIndex().get(pattern.patternIndex()).numberOfTripSchedules());
+  }
+
+  @Test
+  void copyOfTransitLayerDoesNotShareNewEntries() {
+    var first = get(transitLayer, new TestFilter("A"));
+    var copy = new TransitLayer(transitLayer);
+
+    assertSame(first, get(copy, new TestFilter("A")));
+
+    copy.replaceTripPatternsForDate(SECOND, List.of());
+    var second = get(copy, new TestFilter("A"));
+
+    assertNotSame(first, second);
+    assertSame(first, get(transitLayer, new TestFilter("A")));
+  }
+
+  private static RaptorRequestTripPatternCache.TripPatternsForSearch get(
+    TransitLayer transitLayer,
+    TransitDataProviderFilter filter
+  ) {
+    return transitLayer.getTripPatternCache().get(transitLayer, START_OF_TIME, 1, 0, filter);
+  }
+
+  private TransitLayer createTransitLayer() {
+    var tripTimes = List.of(createTripTimes());
+    return new TransitLayer(
+      Map.of(
+        FIRST,
+        List.of(new TripPatternForDate(pattern, tripTimes, List.of(), FIRST)),
+        SECOND,
+        List.of(new TripPatternForDate(pattern, tripTimes, List.of(), SECOND)),
+        THIRD,
+        List.of(new TripPatternForDate(pattern, tripTimes, List.of(), THIRD))
+      ),
+      List.of(),
+      null,
+      new StopModel(),
+      ZoneIds.LONDON,
+      null,
+      new RaptorRequestTripPatternCache(5),
+      null,
+      null,
+      null
+    );
+  }
+
+  private static TripTimes createTripTimes() {
+    StopTime stopTime1 = new StopTime();
+    StopTime stopTime2 = new StopTime();
+
+    stopTime1.setDepartureTime(0);
+    stopTime2.setArrivalTime(7200);
+
+    return new TripTimes(
+      TransitModelForTest.trip("Test").build(),
+      List.of(stopTime1, stopTime2),
+      new Deduplicator()
+    );
+  }
+
+  private static RoutingTripPattern createTripPattern() {
+    var stopTime = new StopTime();
+    stopTime.setStop(TransitModelForTest.stopForTest("Stop:1", 0.0, 0.0));
+    return TripPattern
+      .of(id("P1"))
+      .withRoute(TransitModelForTest.route("1").withMode(TransitMode.BUS).build())
+      .withStopPattern(new StopPattern(List.of(stopTime, stopTime)))
+      .build()
+      .getRoutingTripPattern();
+  }
+
+  private record TestFilter(Object cacheKey) implements TransitDataProviderFilter {
+    @Override
+    public boolean tripPatternPredicate(TripPatternForDate tripPatternForDate) {
+      return true;
+    }
+
+    @Override
+    public boolean hasSubModeFilters() {
+      return false;
+    }
+
+    @Override
+    public boolean tripTimesPredicate(TripTimes tripTimes, boolean withFilters) {
+      return true;
+    }
+
+    @Override
+    public BitSet filterAvailableStops(RoutingTripPattern tripPattern, BitSet boardingPossible) {
+      return boardingPossible;
+    }
+  }
+}
@@ -99,6 +99,30 @@ public class StreetEdgeTest {
     assertEquals(expectedWeight, s1.getWeight(), 0.0);
   }
 
+  @Test
+  public void testTraverseWithPermissionOverlay() {
+    StreetEdge e1 = streetEdge(v1, v2, 100.0, StreetTraversalPermission.ALL);
+    var overlay = StreetPermissionOverlay.EMPTY
+      .copyOf()
+      .withPermission(e1, StreetTraversalPermission.PEDESTRIAN)
+      .build();
+
+    var carRequest = StreetSearchRequest.copyOf(proto).withMode(StreetMode.CAR).build();
+    carRequest.setPermissionOverlay(overlay);
+    assertNull(e1.traverse(new State(v1, carRequest)));
+
+    var walkRequest = StreetSearchRequest.copyOf(proto).withMode(StreetMode.WALK).build();
+    walkRequest.setPermissionOverlay(overlay);
+    assertNotNull(e1.traverse(new State(v1, walkRequest)));
+
+    // The edge itself is not changed
+    assertTrue(e1.canTraverse(TraverseMode.CAR));
+    assertFalse(e1.canTraverse(overlay, TraverseMode.CAR));
+    assertFalse(e1.canTraverse(overlay, new TraverseModeSet(TraverseMode.CAR)));
+    assertTrue(e1.canTraverse(overlay, new TraverseModeSet(TraverseMode.WALK)));
+    assertEquals(StreetTraversalPermission.PEDESTRIAN, e1.getPermission(overlay));
+  }
+
   @Test
   public void testTraverseAsCar() {
     StreetEdge e1 = streetEdge(v1, v2, 100.0, StreetTraversalPermission.ALL);
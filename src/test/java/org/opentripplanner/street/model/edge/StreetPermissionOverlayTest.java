@@ -0,0 +1,81 @@
+package org.opentripplanner.street.model.edge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model.StreetTraversalPermission.ALL;
+import static org.opentripplanner.street.model.StreetTraversalPermission.CAR;
+import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
+import org.opentripplanner.street.model.vertex.StreetVertex;
+
+class StreetPermissionOverlayTest {
+
+  private final StreetVertex v1 = intersectionVertex(0, 0);
+  private final StreetVertex v2 = intersectionVertex(1, 1);
+  private final StreetVertex v3 = intersectionVertex(2, 2);
+  private final StreetEdge e1 = streetEdge(v1, v2, 100, ALL);
+  private final StreetEdge e2 = streetEdge(v2, v3, 100, ALL);
+
+  @Test
+  void emptyOverlayUseTheEdgePermission() {
+    assertEquals(ALL, StreetPermissionOverlay.EMPTY.permission(e1));
+    assertTrue(StreetPermissionOverlay.EMPTY.isEmpty());
+  }
+
+  @Test
+  void newVersionDoesNotChangeThePreviousVersion() {
+    var first = StreetPermissionOverlay.EMPTY.copyOf().withPermission(e1, PEDESTRIAN).build();
+    var second = first.copyOf().withPermission(e1, CAR).withPermission(e2, PEDESTRIAN).build();
+
+    assertEquals(1, first.version());
+    assertEquals(PEDESTRIAN, first.permission(e1));
+    assertEquals(ALL, first.permission(e2));
+
+    assertEquals(2, second.version());
+    assertEquals(CAR, second.permission(e1));
+    assertEquals(PEDESTRIAN, second.permission(e2));
+  }
+
+  @Test
+  void settingTheEdgePermissionRemovesTheChange() {
+    var overlay = StreetPermissionOverlay.EMPTY
+      .copyOf()
+      .withPermission(e1, PEDESTRIAN)
+      .withPermission(e2, PEDESTRIAN)
+      .withPermission(e1, ALL)
+      .build();
+
+    assertEquals(1, overlay.changedEdges().size());
+    assertEquals(ALL, overlay.permission(e1));
+  }
+
+  @Test
+  void cleared() {
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf().withPermission(e1, PEDESTRIAN).build();
+    var cleared = overlay.cleared();
+
+    assertTrue(cleared.isEmpty());
+    assertEquals(ALL, cleared.permission(e1));
+    assertEquals(2, cleared.version());
+  }
+
+  @Test
+  void partialEdgesUseThePermissionOfTheParentEdge() {
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf().withPermission(e1, PEDESTRIAN).build();
+    var partial = new TemporaryPartialStreetEdge(
+      e1,
+      intersectionVertex(0, 0),
+      intersectionVertex(0.5, 0.5),
+      GeometryUtils.makeLineString(0, 0, 0.5, 0.5),
+      new NonLocalizedString("partial"),
+      50
+    );
+
+    assertEquals(PEDESTRIAN, overlay.permission(partial));
+  }
+}
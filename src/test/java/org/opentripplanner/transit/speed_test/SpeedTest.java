@@ -15,8 +15,10 @@ import java.util.function.Predicate;
 import org.opentripplanner.TestServerContext;
 import org.opentripplanner.datastore.OtpDataStore;
 import org.opentripplanner.framework.application.OtpAppException;
+import org.opentripplanner.inspector.vector.VectorTileCache;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.api.response.RoutingResponse;
 import org.opentripplanner.routing.framework.DebugTimingAggregator;
 import org.opentripplanner.routing.graph.Graph;
@@ -104,10 +106,12 @@ public class SpeedTest {
         config.request,
         null,
         new RaptorConfig<>(config.transitRoutingParams),
+        AccessEgressCache.disabled(),
         graph,
         new DefaultTransitService(transitModel),
         timer.getRegistry(),
         List::of,
+        VectorTileCache.disabled(),
         TestServerContext.createWorldEnvelopeService(),
         TestServerContext.createVehiclePositionService(),
         config.flexConfig,
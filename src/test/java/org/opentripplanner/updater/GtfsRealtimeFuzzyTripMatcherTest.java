@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.GtfsTest;
 import org.opentripplanner.transit.service.DefaultTransitService;
@@ -56,6 +59,30 @@ public class GtfsRealtimeFuzzyTripMatcherTest extends GtfsTest {
     assertFalse(trip1.hasTripId());
   }
 
+  @Test
+  public void testConcurrentMatch() {
+    String feedId = transitModel.getFeedIds().iterator().next();
+
+    GtfsRealtimeFuzzyTripMatcher matcher = new GtfsRealtimeFuzzyTripMatcher(
+      new DefaultTransitService(transitModel)
+    );
+    TripDescriptor trip = TripDescriptor
+      .newBuilder()
+      .setRouteId("1")
+      .setDirectionId(0)
+      .setStartTime("06:47:00")
+      .setStartDate("20090915")
+      .build();
+
+    Set<String> tripIds = IntStream
+      .range(0, 1000)
+      .parallel()
+      .mapToObj(i -> matcher.match(feedId, trip).getTripId())
+      .collect(Collectors.toSet());
+
+    assertEquals(Set.of("10W1020"), tripIds);
+  }
+
   @Override
   public String getFeedName() {
     return "portland/portland.gtfs.zip";
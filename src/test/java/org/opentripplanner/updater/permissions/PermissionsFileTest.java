@@ -0,0 +1,124 @@
+package org.opentripplanner.updater.permissions;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model.StreetTraversalPermission.ALL;
+import static org.opentripplanner.street.model.StreetTraversalPermission.CAR;
+import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.edge.StreetPermissionOverlay;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+
+class PermissionsFileTest {
+
+  private final Graph graph = new Graph();
+  private final IntersectionVertex a = new IntersectionVertex(graph, "A", 10.0, 59.9, "A");
+  private final IntersectionVertex b = new IntersectionVertex(graph, "B", 10.1, 59.9, "B");
+  private final IntersectionVertex c = new IntersectionVertex(graph, "C", 10.2, 59.9, "C");
+  private final StreetEdge ab = street(a, b);
+  private final StreetEdge ba = street(b, a);
+  private final StreetEdge bc = street(b, c);
+
+  private File dir;
+  private PermissionsFile subject;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("PermissionsFileTest-").toFile();
+    subject = new PermissionsFile(new File(dir, "permissions.json.gz"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
+  @Test
+  void saveAndLoad() throws IOException {
+    var overlay = StreetPermissionOverlay.EMPTY
+      .copyOf()
+      .withPermission(ab, PEDESTRIAN)
+      .withPermission(bc, CAR)
+      .build();
+
+    subject.save(overlay);
+    var loaded = subject.load(graph, overlay);
+
+    assertEquals(overlay.version() + 1, loaded.version());
+    assertEquals(PEDESTRIAN, loaded.permission(ab));
+    assertEquals(ALL, loaded.permission(ba));
+    assertEquals(CAR, loaded.permission(bc));
+    assertEquals(2, loaded.changedEdges().size());
+  }
+
+  @Test
+  void saveLaterSavesTheLatestVersion() throws IOException {
+    var first = StreetPermissionOverlay.EMPTY.copyOf().withPermission(ab, PEDESTRIAN).build();
+    var second = first.copyOf().withPermission(bc, CAR).build();
+
+    subject.saveLater(first);
+    subject.saveLater(second);
+    subject.close();
+
+    var loaded = subject.load(graph, second);
+    assertEquals(PEDESTRIAN, loaded.permission(ab));
+    assertEquals(CAR, loaded.permission(bc));
+  }
+
+  @Test
+  void parallelEdgesAreToldApartByName() throws IOException {
+    var ab2 = street(a, b, "AB2");
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf().withPermission(ab2, PEDESTRIAN).build();
+
+    subject.save(overlay);
+    var loaded = subject.load(graph, overlay);
+
+    assertEquals(ALL, loaded.permission(ab));
+    assertEquals(PEDESTRIAN, loaded.permission(ab2));
+  }
+
+  @Test
+  void saveLaterAfterCloseIsIgnored() {
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf().withPermission(ab, CAR).build();
+
+    subject.close();
+
+    assertDoesNotThrow(() -> subject.saveLater(overlay));
+    assertFalse(subject.file().exists());
+  }
+
+  @Test
+  void missingFileGivesNoPermissions() throws IOException {
+    var overlay = StreetPermissionOverlay.EMPTY.copyOf().withPermission(ab, CAR).build();
+
+    assertTrue(subject.load(graph, overlay).isEmpty());
+  }
+
+  private StreetEdge street(IntersectionVertex from, IntersectionVertex to) {
+    return street(from, to, from.getLabel() + to.getLabel());
+  }
+
+  private StreetEdge street(IntersectionVertex from, IntersectionVertex to, String name) {
+    var geometry = GeometryUtils.makeLineString(
+      from.getLon(),
+      from.getLat(),
+      to.getLon(),
+      to.getLat()
+    );
+    return new StreetEdge(from, to, geometry, name, 100, ALL, false);
+  }
+}
@@ -0,0 +1,191 @@
+package org.opentripplanner.updater.permissions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model.StreetTraversalPermission.ALL;
+import static org.opentripplanner.street.model.StreetTraversalPermission.CAR;
+import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN;
+import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE;
+import static org.opentripplanner.street.model.StreetTraversalPermission.PEDESTRIAN_AND_CAR;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.updater.permissions.PermissionChange.Method;
+
+class PermissionsPushUpdaterTest {
+
+  private final Graph graph = new Graph();
+  private final StreetEdge west = street("W", 10.700, 10.701, ALL);
+  private final StreetEdge middle = street("M", 10.701, 10.702, PEDESTRIAN_AND_BICYCLE);
+  private final StreetEdge east = street("E", 10.702, 10.703, ALL);
+
+  private final PermissionsPushUpdater subject = new PermissionsPushUpdater(graph);
+
+  @Test
+  void onlyEdgesInsideTheAreaAreChanged() {
+    graph.index(new StopModel());
+
+    assertEquals(2, subject.setPermissions(area(10.6995, 10.7025), PEDESTRIAN, null));
+
+    assertEquals(PEDESTRIAN, permission(west));
+    assertEquals(PEDESTRIAN, permission(middle));
+    assertEquals(ALL, permission(east));
+    // The edges are not changed
+    assertEquals(ALL, west.getPermission());
+  }
+
+  @Test
+  void changesAreAppliedInOrder() {
+    var results = subject.applyChanges(
+      List.of(
+        new PermissionChange(area(10.6995, 10.7035), Method.SET, PEDESTRIAN, null),
+        new PermissionChange(area(10.7005, 10.7035), Method.ADD, CAR, null),
+        new PermissionChange(area(10.6995, 10.7035), Method.REMOVE, PEDESTRIAN, ALL)
+      )
+    );
+
+    // The REMOVE skip the west edge, it already has the given permission
+    assertArrayEquals(new int[] { 3, 2, 2 }, results);
+    assertEquals(PEDESTRIAN, permission(west));
+    assertEquals(CAR, permission(middle));
+    assertEquals(CAR, permission(east));
+  }
+
+  @Test
+  void aNewVersionIsPublishedForEachBatch() {
+    var before = graph.getStreetPermissionOverlay();
+
+    subject.applyChanges(
+      List.of(
+        new PermissionChange(area(10.6995, 10.7035), Method.SET, PEDESTRIAN, null),
+        new PermissionChange(area(10.6995, 10.7035), Method.ADD, CAR, null)
+      )
+    );
+
+    var after = graph.getStreetPermissionOverlay();
+    assertEquals(before.version() + 1, after.version());
+    // A request holding the old version does not see the changes
+    assertEquals(ALL, before.permission(west));
+    assertEquals(PEDESTRIAN_AND_CAR, after.permission(west));
+  }
+
+  @Test
+  void transactionIsPublishedWhenCommitted() {
+    var transaction = subject.newTransaction(false);
+    transaction.apply(List.of(new PermissionChange(area(10.6995, 10.7015), Method.SET, CAR, null)));
+    transaction.apply(List.of(new PermissionChange(area(10.7005, 10.7035), Method.SET, CAR, null)));
+    assertEquals(ALL, permission(west));
+
+    transaction.commit();
+    assertEquals(CAR, permission(west));
+    assertEquals(CAR, permission(middle));
+    assertEquals(CAR, permission(east));
+  }
+
+  @Test
+  void replaceAllRemovesExistingPermissions() {
+    subject.setPermissions(area(10.6995, 10.7015), PEDESTRIAN, null);
+
+    var transaction = subject.newTransaction(true);
+    transaction.apply(List.of(new PermissionChange(area(10.7015, 10.7035), Method.SET, CAR, null)));
+    transaction.commit();
+
+    assertEquals(ALL, permission(west));
+    assertEquals(PEDESTRIAN_AND_BICYCLE, permission(middle));
+    assertEquals(CAR, permission(east));
+    assertEquals(1, subject.getChangedEdges().size());
+  }
+
+  @Test
+  void commitFailsIfAnotherVersionIsPublished() {
+    var transaction = subject.newTransaction(false);
+    transaction.apply(List.of(new PermissionChange(area(10.6995, 10.7015), Method.SET, CAR, null)));
+    subject.setPermissions(area(10.7015, 10.7035), PEDESTRIAN, null);
+
+    assertThrows(ConcurrentModificationException.class, transaction::commit);
+    assertEquals(ALL, permission(west));
+  }
+
+  @Test
+  void resetAllPermissions() {
+    // Only edges where the original permission allows CAR are changed
+    assertEquals(2, subject.setPermissions(area(10.6995, 10.7035), PEDESTRIAN, CAR));
+
+    var changedEdges = subject.getChangedEdges();
+    assertEquals(2, changedEdges.size());
+    assertTrue(changedEdges.keySet().containsAll(List.of(west, east)));
+    // Edges which already have the permission are not changed
+    assertEquals(1, subject.setPermissions(area(10.6995, 10.7035), PEDESTRIAN, null));
+    assertEquals(3, subject.getChangedEdges().size());
+
+    subject.resetAllPermissions();
+    assertEquals(ALL, permission(west));
+    assertEquals(PEDESTRIAN_AND_BICYCLE, permission(middle));
+    assertTrue(subject.getChangedEdges().isEmpty());
+  }
+
+  @Test
+  void publishedVersionsAreSavedToTheFileOfTheGraph() throws IOException {
+    var file = Files.createTempFile("PermissionsPushUpdaterTest-", ".json.gz").toFile();
+    Files.delete(file.toPath());
+    try {
+      PermissionsPushUpdater.setUp(graph, new PermissionsFile(file));
+      subject.setPermissions(area(10.6995, 10.7015), PEDESTRIAN, null);
+      PermissionsPushUpdater.tearDown(graph);
+
+      var loaded = new PermissionsFile(file).load(graph, graph.getStreetPermissionOverlay());
+      assertEquals(PEDESTRIAN, loaded.permission(west));
+      assertEquals(ALL, loaded.permission(east));
+
+      // The file is only used for the graph it is set up for
+      var otherGraph = new Graph();
+      assertNull(otherGraph.getPermissionsFile());
+    } finally {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+
+  private StreetTraversalPermission permission(StreetEdge edge) {
+    return graph.getStreetPermissionOverlay().permission(edge);
+  }
+
+  private StreetEdge street(
+    String name,
+    double fromLon,
+    double toLon,
+    StreetTraversalPermission p
+  ) {
+    var from = new IntersectionVertex(graph, name + "0", fromLon, 59.9, name + "0");
+    var to = new IntersectionVertex(graph, name + "1", toLon, 59.9, name + "1");
+    var geometry = GeometryUtils.makeLineString(fromLon, 59.9, toLon, 59.9);
+    return new StreetEdge(from, to, geometry, name, 100, p, false);
+  }
+
+  private static Geometry area(double minLon, double maxLon) {
+    return GeometryUtils
+      .getGeometryFactory()
+      .createPolygon(
+        new Coordinate[] {
+          new Coordinate(minLon, 59.8),
+          new Coordinate(maxLon, 59.8),
+          new Coordinate(maxLon, 60.0),
+          new Coordinate(minLon, 60.0),
+          new Coordinate(minLon, 59.8),
+        }
+      );
+  }
+}
@@ -23,6 +23,7 @@ import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
 import de.mfdz.MfdzRealtimeExtensions.StopTimePropertiesExtension.DropOffPickupType;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
@@ -495,6 +496,99 @@ public class TimetableSnapshotSourceTest {
       assertEquals(RealTimeState.SCHEDULED, forToday.getTripTimes(tripIndex2).getRealTimeState());
     }
 
+    @Test
+    public void updatesInMessageAreAppliedInOrder() {
+      final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
+      final Trip trip = transitModel.getTransitModelIndex().getTripForId().get(tripId);
+      final TripPattern pattern = transitModel.getTransitModelIndex().getPatternForTrip().get(trip);
+      final int tripIndex = pattern.getScheduledTimetable().getTripIndex(tripId);
+
+      // The updates are decoded in parallel, the last update of the trip must still win
+      List<TripUpdate> tripUpdates = new ArrayList<>();
+      for (int delay = 1; delay <= 100; ++delay) {
+        var tripUpdateBuilder = new TripUpdateBuilder(
+          tripId.getId(),
+          SERVICE_DATE,
+          ScheduleRelationship.SCHEDULED,
+          transitModel.getTimeZone()
+        );
+        tripUpdateBuilder.addDelayedStopTime(2, delay);
+        tripUpdates.add(tripUpdateBuilder.build());
+      }
+
+      var updater = defaultUpdater();
+
+      var result = updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        fullDataset,
+        tripUpdates,
+        feedId
+      );
+
+      assertEquals(100, result.successful());
+      final TimetableSnapshot snapshot = updater.getTimetableSnapshot();
+      final Timetable forToday = snapshot.resolve(pattern, SERVICE_DATE);
+      assertEquals(100, forToday.getTripTimes(tripIndex).getArrivalDelay(1));
+      assertEquals(RealTimeState.UPDATED, forToday.getTripTimes(tripIndex).getRealTimeState());
+    }
+
+    @Test
+    public void unchangedUpdatesOfFullDatasetAreSkipped() {
+      final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
+      final Trip trip = transitModel.getTransitModelIndex().getTripForId().get(tripId);
+      final TripPattern pattern = transitModel.getTransitModelIndex().getPatternForTrip().get(trip);
+      final TripTimes scheduledTripTimes = pattern.getScheduledTimetable().getTripTimes(tripId);
+
+      var skippedStop = new TripUpdateBuilder(
+        tripId.getId(),
+        SERVICE_DATE,
+        SCHEDULED,
+        transitModel.getTimeZone()
+      )
+        .addDelayedStopTime(1, 0)
+        .addStopTime(2, SKIPPED)
+        .addDelayedStopTime(3, 90)
+        .build();
+
+      var updater = new TimetableSnapshotSource(
+        TimetableSnapshotSourceParameters.DEFAULT.withMaxSnapshotFrequencyMs(-1),
+        transitModel,
+        () -> SERVICE_DATE
+      );
+
+      updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        true,
+        List.of(skippedStop),
+        feedId
+      );
+      final TimetableSnapshot snapshot = updater.getTimetableSnapshot();
+      assertNotNull(snapshot.getRealtimeAddedTripPattern(tripId, SERVICE_DATE));
+
+      // The same dataset again does not change the snapshot
+      var result = updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        true,
+        List.of(skippedStop.toBuilder().setTimestamp(1000).build()),
+        feedId
+      );
+      assertEquals(1, result.successful());
+      assertSame(snapshot, updater.getTimetableSnapshot());
+
+      // A trip which is no longer in the dataset is reverted to the scheduled trip times
+      updater.applyTripUpdates(TRIP_MATCHER_NOOP, REQUIRED_NO_DATA, true, List.of(), feedId);
+      final TimetableSnapshot revertedSnapshot = updater.getTimetableSnapshot();
+      assertNotSame(snapshot, revertedSnapshot);
+      assertNull(revertedSnapshot.getRealtimeAddedTripPattern(tripId, SERVICE_DATE));
+      assertSame(
+        scheduledTripTimes,
+        revertedSnapshot.resolve(pattern, SERVICE_DATE).getTripTimes(tripId)
+      );
+    }
+
     @Test
     public void scheduled() {
       // GIVEN
@@ -0,0 +1,197 @@
+package org.opentripplanner.updater.trip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.updater.GraphWriterRunnable;
+
+class TripUpdateBatcherTest {
+
+  /** The runnables submitted to the graph writer, which are run by the test. */
+  private final BlockingQueue<GraphWriterRunnable> writerQueue = new LinkedBlockingQueue<>();
+
+  /** The batches applied by the runnables. */
+  private final List<Batch> applied = new ArrayList<>();
+
+  private TripUpdateBatcher subject;
+
+  @AfterEach
+  void shutdown() {
+    subject.shutdown();
+  }
+
+  @Test
+  void updatesAreAppliedAtOnceWithoutDelay() {
+    subject = batcher(TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ZERO));
+
+    subject.add(false, List.of(update("A", 1)));
+    runWriter();
+
+    assertEquals(List.of(new Batch(false, List.of(update("A", 1)))), applied);
+    assertEquals(0, subject.queueSize());
+  }
+
+  @Test
+  void updatesAreQueuedWhileABatchIsInProgress() {
+    subject = batcher(TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ZERO));
+
+    subject.add(false, List.of(update("A", 1)));
+    subject.add(false, List.of(update("B", 1)));
+    subject.add(false, List.of(update("C", 1), update("B", 2)));
+    subject.add(false, List.of(update("A", 2)));
+
+    // Only the first message is submitted, the rest are merged with the latest update of each trip
+    assertEquals(1, writerQueue.size());
+    assertEquals(3, subject.queueSize());
+
+    runWriter();
+    runWriter();
+
+    assertEquals(
+      List.of(
+        new Batch(false, List.of(update("A", 1))),
+        new Batch(false, List.of(update("C", 1), update("B", 2), update("A", 2)))
+      ),
+      applied
+    );
+    assertTrue(writerQueue.isEmpty());
+  }
+
+  @Test
+  void batchesAreLimitedToMaxBatchSize() {
+    subject =
+      batcher(
+        TripUpdateBatchParameters.DEFAULT.withMaxBatchSize(2).withMaxBatchDelay(Duration.ofHours(1))
+      );
+
+    subject.add(false, List.of(update("A", 1)));
+    assertTrue(writerQueue.isEmpty());
+
+    subject.add(false, List.of(update("B", 1), update("C", 1), update("D", 1), update("E", 1)));
+    assertEquals(1, writerQueue.size());
+
+    runWriter();
+    runWriter();
+
+    assertEquals(
+      List.of(
+        new Batch(false, List.of(update("A", 1), update("B", 1))),
+        new Batch(false, List.of(update("C", 1), update("D", 1)))
+      ),
+      applied
+    );
+    // The last update waits for the batch to fill up, or the delay to pass
+    assertEquals(1, subject.queueSize());
+  }
+
+  @Test
+  void updatesAreFlushedAfterMaxBatchDelay() throws InterruptedException {
+    subject = batcher(TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ofMillis(100)));
+
+    subject.add(false, List.of(update("A", 1)));
+    subject.add(false, List.of(update("B", 1)));
+    assertTrue(writerQueue.isEmpty());
+
+    var runnable = writerQueue.poll(10, TimeUnit.SECONDS);
+    runnable.run(null, null);
+
+    assertEquals(List.of(new Batch(false, List.of(update("A", 1), update("B", 1)))), applied);
+  }
+
+  @Test
+  void updatesOfNewTripsAreDroppedWhenTheQueueIsFull() {
+    subject =
+      batcher(
+        TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ZERO).withMaxQueueSize(2)
+      );
+
+    subject.add(false, List.of(update("A", 1)));
+    subject.add(false, List.of(update("B", 1), update("C", 1), update("D", 1), update("B", 2)));
+
+    assertEquals(2, subject.queueSize());
+    assertEquals(1, subject.dropped());
+
+    runWriter();
+    runWriter();
+
+    assertEquals(
+      List.of(
+        new Batch(false, List.of(update("A", 1))),
+        new Batch(false, List.of(update("C", 1), update("B", 2)))
+      ),
+      applied
+    );
+  }
+
+  @Test
+  void fullDatasetReplacesQueuedUpdates() {
+    subject = batcher(TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ZERO));
+
+    subject.add(false, List.of(update("A", 1)));
+    subject.add(false, List.of(update("B", 1)));
+    subject.add(true, List.of(update("C", 1)));
+    subject.add(false, List.of(update("D", 1)));
+
+    assertEquals(2, writerQueue.size());
+    runWriter();
+    runWriter();
+    runWriter();
+
+    assertEquals(
+      List.of(
+        new Batch(false, List.of(update("A", 1))),
+        new Batch(true, List.of(update("C", 1))),
+        new Batch(false, List.of(update("D", 1)))
+      ),
+      applied
+    );
+    assertTrue(writerQueue.isEmpty());
+  }
+
+  @Test
+  void updatesWithoutTripIdAreMergedIfTheTripIsEqual() {
+    subject = batcher(TripUpdateBatchParameters.DEFAULT.withMaxBatchDelay(Duration.ZERO));
+
+    var trip = TripDescriptor.newBuilder().setRouteId("R").setStartTime("08:00:00").build();
+    var first = TripUpdate.newBuilder().setTrip(trip).setDelay(1).build();
+    var second = TripUpdate.newBuilder().setTrip(trip).setDelay(2).build();
+
+    subject.add(false, List.of(update("A", 1)));
+    subject.add(false, List.of(first, second));
+
+    assertEquals(1, subject.queueSize());
+  }
+
+  private TripUpdateBatcher batcher(TripUpdateBatchParameters parameters) {
+    return new TripUpdateBatcher(
+      parameters,
+      (fullDataset, updates) ->
+        (graph, transitModel) -> applied.add(new Batch(fullDataset, updates)),
+      writerQueue::add
+    );
+  }
+
+  private void runWriter() {
+    writerQueue.remove().run(null, null);
+  }
+
+  private static TripUpdate update(String tripId, int delay) {
+    return TripUpdate
+      .newBuilder()
+      .setTrip(TripDescriptor.newBuilder().setTripId(tripId).setStartDate("20230101"))
+      .setDelay(delay)
+      .build();
+  }
+
+  private record Batch(boolean fullDataset, List<TripUpdate> updates) {}
+}